@@ -0,0 +1,217 @@
+import com.inventory.InventorySystemApplication;
+import com.inventory.arquivamento.ArquivoReservas;
+import com.inventory.arquivamento.ReservaArquivada;
+import com.inventory.config.fragmentacao.RoteamentoFragmentos;
+import com.inventory.service.ArquivamentoReservaService;
+import com.inventory.service.ArquivamentoReservaService.ResultadoArquivo;
+import com.inventory.service.ArquivamentoReservaService.ResumoArquivamento;
+import com.inventory.service.EstoqueServiceJpa;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Limpeza de reservas antigas sob carga de vendas: DELETE único (limpeza anterior) x arquivamento em lotes
+ *
+ * Insere N reservas finalizadas (reserva_historico) com 31 a 90 dias, mantém threads vendendo e cancelando, e mede a latência das vendas
+ * durante a limpeza. Depois verifica a retomada: uma execução curta interrompida pela duração máxima,
+ * um lote órfão simulando queda entre a gravação dos arquivos e o commit, e a execução que completa.
+ *
+ * Uso: scripts/benchmark.sh arquivamento [reservas] [threads]
+ */
+public class BenchmarkArquivamento {
+
+    public static void main(String[] args) throws Exception {
+        int total = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        Path diretorio = Files.createTempDirectory("arquivo-reservas");
+
+        ConfigurableApplicationContext contexto = new SpringApplicationBuilder(InventorySystemApplication.class)
+                .run("--spring.main.web-application-type=none",
+                        "--spring.main.banner-mode=off",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.inventory=WARN",
+                        "--logging.level.org.hibernate.SQL=WARN",
+                        "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+                        "--logging.level.org.springframework.data.jpa=WARN",
+                        "--inventario.auditoria.habilitada=false",
+                        "--inventario.arquivamento.diretorio=" + diretorio);
+        try {
+            EstoqueServiceJpa servico = contexto.getBean(EstoqueServiceJpa.class);
+            JdbcTemplate jdbc = contexto.getBean(JdbcTemplate.class);
+            ArquivamentoReservaService arquivamento = contexto.getBean(ArquivamentoReservaService.class);
+            jdbc.update("UPDATE estoque_produto SET quantidade = 1000000, reservado = 0");
+
+            System.out.printf("reservas antigas: %d, threads vendendo: %d%n", total, threads);
+            System.out.printf("%-12s %9s %9s %9s %9s %9s%n", "limpeza", "tempo(ms)", "vendas/s", "p50(ms)",
+                    "p99(ms)", "max(ms)");
+
+            inserirAntigas(jdbc, total);
+            medir("delete-unico", servico, threads, () -> jdbc.update(
+                    "DELETE FROM reserva_historico WHERE criada_em < ?",
+                    Timestamp.valueOf(LocalDateTime.now().minusDays(30))));
+
+            inserirAntigas(jdbc, total);
+            medir("lotes", servico, threads, arquivamento::arquivar);
+            verificar(jdbc, diretorio, total, arquivamento);
+
+            retomada(contexto, jdbc, diretorio, total);
+        } finally {
+            contexto.close();
+            try (Stream<Path> arquivos = Files.walk(diretorio)) {
+                arquivos.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+            }
+        }
+    }
+
+    private static void inserirAntigas(JdbcTemplate jdbc, int total) {
+        LocalDateTime agora = LocalDateTime.now();
+        List<Object[]> linhas = new ArrayList<>(10_000);
+        for (int i = 0; i < total; i++) {
+            LocalDateTime criada = agora.minusDays(31 + i % 60).minusSeconds(i % 86_400);
+            linhas.add(new Object[]{UUID.randomUUID().toString(), 101L + i % 10, 1L + i % 5, 1 + i % 3,
+                    "CLI-" + (i % 1000), i % 2 == 0 ? "CONFIRMADA" : "EXPIRADA", Timestamp.valueOf(criada),
+                    Timestamp.valueOf(criada.plusMinutes(30)), Timestamp.valueOf(criada.plusMinutes(5))});
+            if (linhas.size() == 10_000 || i == total - 1) {
+                jdbc.batchUpdate("INSERT INTO reserva_historico (id, produto_id, loja_id, quantidade, cliente_id, " +
+                        "status, criada_em, expira_em, finalizada_em) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)", linhas);
+                linhas.clear();
+            }
+        }
+    }
+
+    private static void medir(String nome, EstoqueServiceJpa servico, int threads, Runnable limpeza)
+            throws Exception {
+        AtomicBoolean parar = new AtomicBoolean();
+        AtomicBoolean medindo = new AtomicBoolean();
+        LongAdder vendas = new LongAdder();
+        List<long[]> latencias = new ArrayList<>();
+        List<Thread> trabalhadores = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int indice = t;
+            latencias.add(new long[0]);
+            Thread thread = new Thread(() -> {
+                long[] amostras = new long[1_000_000];
+                int n = 0;
+                while (!parar.get()) {
+                    long inicio = System.nanoTime();
+                    String reservaId = servico.processarVenda(101L + indice % 10, 1L, 1, "BENCHMARK");
+                    servico.cancelarVenda(reservaId);
+                    if (medindo.get()) {
+                        vendas.increment();
+                        if (n < amostras.length) amostras[n++] = System.nanoTime() - inicio;
+                    }
+                }
+                latencias.set(indice, Arrays.copyOf(amostras, n));
+            });
+            trabalhadores.add(thread);
+            thread.start();
+        }
+
+        Thread.sleep(2000);
+        medindo.set(true);
+        long inicio = System.nanoTime();
+        limpeza.run();
+        double decorrido = (System.nanoTime() - inicio) / 1e9;
+        medindo.set(false);
+        parar.set(true);
+        for (Thread thread : trabalhadores) {
+            thread.join();
+        }
+
+        long[] todas = latencias.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        System.out.printf("%-12s %9.0f %9.0f %9.2f %9.2f %9.2f%n", nome, decorrido * 1000, vendas.sum() / decorrido,
+                percentil(todas, 0.50), percentil(todas, 0.99),
+                todas.length == 0 ? 0 : todas[todas.length - 1] / 1e6);
+    }
+
+    /**
+     * Confere que todas as reservas antigas saíram do banco e estão no arquivo uma única vez
+     */
+    private static void verificar(JdbcTemplate jdbc, Path diretorio, int total,
+                                  ArquivamentoReservaService arquivamento) throws Exception {
+        Integer restantes = jdbc.queryForObject("SELECT COUNT(*) FROM reserva_historico WHERE criada_em < ?", Integer.class,
+                Timestamp.valueOf(LocalDateTime.now().minusDays(30)));
+        List<ReservaArquivada> arquivadas = new ArrayList<>();
+        for (var data : ArquivoReservas.particoes(diretorio)) {
+            ArquivoReservas.ler(diretorio, data, null, r -> true, Integer.MAX_VALUE, arquivadas);
+        }
+        Set<String> ids = new HashSet<>();
+        arquivadas.forEach(r -> ids.add(r.id()));
+        System.out.printf("  no banco: %d, no arquivo: %d (distintas: %d), esperado: %d -> %s%n", restantes,
+                arquivadas.size(), ids.size(), total,
+                restantes == 0 && arquivadas.size() == total && ids.size() == total ? "OK" : "DIVERGENTE");
+
+        ReservaArquivada alvo = arquivadas.get(arquivadas.size() / 2);
+        long inicio = System.nanoTime();
+        ResultadoArquivo porId = arquivamento.consultar(alvo.id(), null, null, null, 1);
+        double msId = (System.nanoTime() - inicio) / 1e6;
+        inicio = System.nanoTime();
+        ResultadoArquivo porData = arquivamento.consultar(alvo.id(), null, alvo.criadaEm().toLocalDate(),
+                alvo.criadaEm().toLocalDate(), 1);
+        double msData = (System.nanoTime() - inicio) / 1e6;
+        inicio = System.nanoTime();
+        ResultadoArquivo porCliente = arquivamento.consultar(null, "CLI-7", null, null, 1000);
+        double msCliente = (System.nanoTime() - inicio) / 1e6;
+        System.out.printf("  consulta por id: %s em %.1fms (%d partições); com a data: %.1fms; " +
+                        "cliente CLI-7: %d reservas em %.1fms%n",
+                porId.getReservas().size() == 1 && porData.getReservas().size() == 1 ? "encontrada" : "AUSENTE",
+                msId, porId.getParticoesLidas().size(), msData, porCliente.getReservas().size(), msCliente);
+    }
+
+    private static void retomada(ConfigurableApplicationContext contexto, JdbcTemplate jdbc, Path diretorio,
+                                 int total) throws Exception {
+        System.out.println("retomada:");
+        try (Stream<Path> arquivos = Files.walk(diretorio)) {
+            arquivos.sorted(Comparator.reverseOrder()).filter(p -> !p.equals(diretorio))
+                    .forEach(p -> p.toFile().delete());
+        }
+        jdbc.update("UPDATE arquivamento_reserva SET ultimo_lote = 0, total_arquivadas = 0");
+        inserirAntigas(jdbc, total);
+
+        ArquivamentoReservaService curto = new ArquivamentoReservaService(jdbc,
+                contexto.getBean(PlatformTransactionManager.class), contexto.getBeanProvider(RoteamentoFragmentos.class),
+                contexto.getBean(MeterRegistry.class), diretorio.toString(), 30, 1000, 0, 300);
+        ResumoArquivamento parcial = curto.arquivar();
+        System.out.printf("  execução interrompida pela duração máxima: %d reservas em %d lotes, concluído: %s%n",
+                parcial.getReservas(), parcial.getLotes(), parcial.isConcluido());
+
+        // queda entre a gravação dos arquivos e o commit: arquivos do próximo lote sem a remoção no banco
+        Long ultimoLote = jdbc.queryForObject("SELECT ultimo_lote FROM arquivamento_reserva", Long.class);
+        List<ReservaArquivada> orfas = jdbc.query("SELECT " + ReservaArquivada.COLUNAS +
+                " FROM reserva_historico WHERE criada_em < ? ORDER BY criada_em, id LIMIT 1000",
+                (rs, i) -> ReservaArquivada.de(rs), Timestamp.valueOf(LocalDateTime.now().minusDays(30)));
+        List<Path> arquivosOrfaos = ArquivoReservas.gravarLote(diretorio, 0, ultimoLote + 1, orfas);
+        System.out.printf("  lote órfão %d simulado: %d arquivos%n", ultimoLote + 1, arquivosOrfaos.size());
+
+        ResumoArquivamento restante = contexto.getBean(ArquivamentoReservaService.class).arquivar();
+        System.out.printf("  execução retomada: %d reservas em %d lotes, concluído: %s%n",
+                restante.getReservas(), restante.getLotes(), restante.isConcluido());
+        verificar(jdbc, diretorio, total, contexto.getBean(ArquivamentoReservaService.class));
+    }
+
+    private static double percentil(long[] ordenadas, double p) {
+        if (ordenadas.length == 0) {
+            return 0;
+        }
+        return ordenadas[(int) Math.min(ordenadas.length - 1, Math.round(p * ordenadas.length))] / 1e6;
+    }
+}
@@ -0,0 +1,157 @@
+import com.inventory.InventorySystemApplication;
+import com.inventory.bloqueio.EstrategiaBloqueio;
+import com.inventory.config.BloqueioProperties;
+import com.inventory.service.EstoqueServiceJpa;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.h2.tools.Server;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Comparação das estratégias de bloqueio (OTIMISTA, PESSIMISTA, ATOMICA) nas escritas de estoque
+ *
+ * Cada operação é uma venda (reserva) seguida do cancelamento, pelo EstoqueServiceJpa. Cenários:
+ * - quente: todas as threads no mesmo produto/loja (disputa máxima pela linha)
+ * - espalhado: cada operação sorteia um de 50 produtos/lojas (disputa rara)
+ * Com "tcp" o banco é acessado por um servidor H2 local, e cada comando paga uma ida e volta pela rede.
+ *
+ * Imprime operações/s, latência p50/p99, conflitos repetidos, esperas esgotadas e erros por estratégia.
+ *
+ * Uso: scripts/benchmark.sh bloqueio [threads,...] [segundos] [embutido|tcp]
+ */
+public class BenchmarkBloqueio {
+
+    public static void main(String[] args) throws Exception {
+        int[] threads = Arrays.stream((args.length > 0 ? args[0] : "1,4,16").split(","))
+                .mapToInt(Integer::parseInt).toArray();
+        int segundos = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        boolean tcp = args.length > 2 && args[2].equals("tcp");
+
+        Server servidor = tcp ? Server.createTcpServer("-tcpPort", "0", "-ifNotExists").start() : null;
+        String url = tcp ? "jdbc:h2:tcp://localhost:" + servidor.getPort() + "/mem:bloqueio;DB_CLOSE_DELAY=-1"
+                : "jdbc:h2:mem:bloqueio";
+        ConfigurableApplicationContext contexto = new SpringApplicationBuilder(InventorySystemApplication.class)
+                .run("--spring.main.web-application-type=none",
+                        "--spring.main.banner-mode=off",
+                        "--spring.datasource.url=" + url,
+                        "--spring.datasource.hikari.maximum-pool-size=" + (Arrays.stream(threads).max().orElse(1) + 2),
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.inventory=WARN",
+                        "--logging.level.org.hibernate.SQL=WARN",
+                        "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+                        "--logging.level.org.springframework.data.jpa=WARN",
+                        "--inventario.auditoria.habilitada=false");
+        try {
+            EstoqueServiceJpa servico = contexto.getBean(EstoqueServiceJpa.class);
+            BloqueioProperties properties = contexto.getBean(BloqueioProperties.class);
+            MeterRegistry registro = contexto.getBean(MeterRegistry.class);
+            contexto.getBean(JdbcTemplate.class).update("UPDATE estoque_produto SET quantidade = 1000000, reservado = 0");
+
+            System.out.printf("banco: %s%n", tcp ? "H2 via TCP" : "H2 embutido");
+            // aquecimento (JIT e pools) sem medição
+            for (EstrategiaBloqueio estrategia : EstrategiaBloqueio.values()) {
+                properties.setEstrategia(estrategia);
+                medir(servico, registro, estrategia, "quente", 4, 3, false);
+            }
+
+            System.out.printf("%-10s %-10s %7s %9s %8s %8s %10s %9s %6s%n", "cenario", "estrategia", "threads",
+                    "ops/s", "p50(ms)", "p99(ms)", "conflitos", "esperas", "erros");
+            for (String cenario : List.of("quente", "espalhado")) {
+                for (int n : threads) {
+                    for (EstrategiaBloqueio estrategia : EstrategiaBloqueio.values()) {
+                        properties.setEstrategia(estrategia);
+                        medir(servico, registro, estrategia, cenario, n, segundos, true);
+                    }
+                }
+            }
+        } finally {
+            contexto.close();
+            if (servidor != null) {
+                servidor.stop();
+            }
+        }
+    }
+
+    private static void medir(EstoqueServiceJpa servico, MeterRegistry registro, EstrategiaBloqueio estrategia,
+                              String cenario, int threads, int segundos, boolean imprimir) throws Exception {
+        AtomicBoolean medindo = new AtomicBoolean();
+        AtomicBoolean parar = new AtomicBoolean();
+        LongAdder operacoes = new LongAdder();
+        LongAdder erros = new LongAdder();
+        List<long[]> latencias = new ArrayList<>();
+        List<Thread> trabalhadores = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int indice = t;
+            latencias.add(new long[0]);
+            Thread thread = new Thread(() -> {
+                long[] amostras = new long[1_000_000];
+                int n = 0;
+                while (!parar.get()) {
+                    ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+                    long produtoId = cenario.equals("quente") ? 101 : 101 + aleatorio.nextInt(10);
+                    long lojaId = cenario.equals("quente") ? 1 : 1 + aleatorio.nextInt(5);
+                    long inicio = System.nanoTime();
+                    try {
+                        String reservaId = servico.processarVenda(produtoId, lojaId, 1, "BENCHMARK");
+                        servico.cancelarVenda(reservaId);
+                        if (medindo.get()) {
+                            operacoes.increment();
+                            if (n < amostras.length) amostras[n++] = System.nanoTime() - inicio;
+                        }
+                    } catch (RuntimeException e) {
+                        if (medindo.get()) erros.increment();
+                    }
+                }
+                latencias.set(indice, Arrays.copyOf(amostras, n));
+            });
+            trabalhadores.add(thread);
+            thread.start();
+        }
+
+        Thread.sleep(1000);
+        double conflitosAntes = conflitos(registro, estrategia);
+        double esperasAntes = esperas(registro);
+        medindo.set(true);
+        long inicio = System.nanoTime();
+        Thread.sleep(segundos * 1000L);
+        medindo.set(false);
+        double decorrido = (System.nanoTime() - inicio) / 1e9;
+        double conflitos = conflitos(registro, estrategia) - conflitosAntes;
+        double esperas = esperas(registro) - esperasAntes;
+        parar.set(true);
+        for (Thread thread : trabalhadores) {
+            thread.join();
+        }
+        if (!imprimir) {
+            return;
+        }
+        long[] todas = latencias.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        System.out.printf("%-10s %-10s %7d %9.0f %8.2f %8.2f %10.0f %9.0f %6d%n", cenario, estrategia, threads,
+                operacoes.sum() / decorrido, percentil(todas, 0.50), percentil(todas, 0.99), conflitos, esperas,
+                erros.sum());
+    }
+
+    private static double conflitos(MeterRegistry registro, EstrategiaBloqueio estrategia) {
+        return registro.get("inventario.bloqueio.conflitos").tag("estrategia", estrategia.name()).counter().count();
+    }
+
+    private static double esperas(MeterRegistry registro) {
+        return registro.get("inventario.bloqueio.esperas-esgotadas").counter().count();
+    }
+
+    private static double percentil(long[] ordenadas, double p) {
+        if (ordenadas.length == 0) {
+            return 0;
+        }
+        return ordenadas[(int) Math.min(ordenadas.length - 1, Math.round(p * ordenadas.length))] / 1e6;
+    }
+}
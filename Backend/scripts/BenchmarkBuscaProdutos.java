@@ -0,0 +1,144 @@
+import com.inventory.InventorySystemApplication;
+import com.inventory.busca.IndiceTextual;
+import com.inventory.event.ProdutoAlteradoEvent;
+import com.inventory.service.CatalogoProdutos;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.function.ToIntFunction;
+
+/**
+ * Busca de produtos por texto: LIKE '%termo%' no banco x índice invertido em memória
+ *
+ * Cadastra N produtos com nomes combinando marca, tipo e modelo, mede cada consulta nos dois caminhos
+ * (o LIKE não ignora acentos nem casa só início de palavra, então as contagens podem diferir) e depois o
+ * custo de reindexar um produto alterado.
+ *
+ * Uso: scripts/benchmark.sh busca-produtos [produtos] [repeticoes]
+ */
+public class BenchmarkBuscaProdutos {
+
+    private static final String[] TIPOS = {"Câmera", "Fone", "Smartphone", "Notebook", "Monitor", "Teclado",
+            "Mouse", "Caixa de Som", "Relógio", "Carregador", "Cabo", "Impressora", "Roteador", "Tablet"};
+    private static final String[] MARCAS = {"Samsung", "Apple", "Lenovo", "Dell", "Sony", "Xiaomi", "Logitech",
+            "Positivo", "Multilaser", "Philips", "Intelbras", "JBL"};
+    private static final String[] ATRIBUTOS = {"Digital", "Bluetooth", "Sem Fio", "Gamer", "Portátil", "Ultra",
+            "Pro", "Básico", "Profissional", "Compacto"};
+    private static final String[] CATEGORIAS = {"Eletrônicos", "Informática", "Áudio", "Telefonia", "Acessórios"};
+
+    private static final String[] CONSULTAS = {"cam", "camera digital", "sams gal", "fone blue", "relogio", "eletronicos",
+            "note lenovo pro", "x", "ele-sam"};
+
+    public static void main(String[] args) throws Exception {
+        int produtos = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int repeticoes = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        ConfigurableApplicationContext contexto = new SpringApplicationBuilder(InventorySystemApplication.class)
+                .run("--spring.main.web-application-type=none",
+                        "--spring.main.banner-mode=off",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.inventory=WARN",
+                        "--logging.level.org.hibernate.SQL=WARN",
+                        "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+                        "--logging.level.org.springframework.data.jpa=WARN",
+                        "--inventario.auditoria.habilitada=false");
+        try {
+            JdbcTemplate jdbc = contexto.getBean(JdbcTemplate.class);
+            CatalogoProdutos catalogo = contexto.getBean(CatalogoProdutos.class);
+            cadastrar(jdbc, produtos);
+
+            long inicio = System.nanoTime();
+            catalogo.reconstruir();
+            System.out.printf("índice: %d produtos carregados em %.0fms%n", catalogo.totalProdutos(),
+                    (System.nanoTime() - inicio) / 1e6);
+
+            System.out.printf("%-18s %10s %10s %12s %12s%n", "consulta", "like(n)", "indice(n)", "like(ms)",
+                    "indice(us)");
+            for (String consulta : CONSULTAS) {
+                double like = medir(repeticoes, c -> contarLike(jdbc, c), consulta);
+                double indice = medir(repeticoes * 500, c -> catalogo.pesquisar(c, 20, null).encontrados(), consulta);
+                System.out.printf("%-18s %10d %10d %12.2f %12.1f%n", consulta, contarLike(jdbc, consulta),
+                        catalogo.pesquisar(consulta, 20, null).encontrados(), like, indice * 1000);
+            }
+
+            double filtrada = medir(repeticoes * 500,
+                    c -> catalogo.pesquisar(c, 20, id -> id % 7 == 0).encontrados(), "cam");
+            System.out.printf("com filtro de disponibilidade (1 em 7): %.1fus%n", filtrada * 1000);
+
+            int alteracoes = 2_000;
+            inicio = System.nanoTime();
+            for (int i = 0; i < alteracoes; i++) {
+                long id = 1_000L + (long) i * (produtos / alteracoes);
+                jdbc.update("UPDATE produto SET nome = ? WHERE id = ?", "Produto Alterado " + i, id);
+                catalogo.onProdutoAlterado(new ProdutoAlteradoEvent(id));
+            }
+            IndiceTextual.Resultado alterados = catalogo.pesquisar("produto alterado", 20, null);
+            System.out.printf("reindexação: %d alterações em %.2fus cada (com releitura do banco); " +
+                            "\"produto alterado\" encontra %d%n", alteracoes,
+                    (System.nanoTime() - inicio) / 1e3 / alteracoes, alterados.encontrados());
+        } finally {
+            contexto.close();
+        }
+    }
+
+    private static void cadastrar(JdbcTemplate jdbc, int total) {
+        Timestamp agora = Timestamp.valueOf(LocalDateTime.now());
+        Random aleatorio = new Random(42);
+        List<Object[]> lote = new ArrayList<>(10_000);
+        for (int i = 0; i < total; i++) {
+            long id = 1_000L + i;
+            String marca = MARCAS[aleatorio.nextInt(MARCAS.length)];
+            String categoria = CATEGORIAS[aleatorio.nextInt(CATEGORIAS.length)];
+            String nome = TIPOS[aleatorio.nextInt(TIPOS.length)] + " " + marca + " "
+                    + ATRIBUTOS[aleatorio.nextInt(ATRIBUTOS.length)] + " " + aleatorio.nextInt(1000);
+            String sku = String.format(Locale.ROOT, "%s-%s-%d", categoria.substring(0, 3), marca.substring(0, 3), id)
+                    .toUpperCase(Locale.ROOT);
+            lote.add(new Object[]{id, nome, sku, categoria, agora, agora});
+            if (lote.size() == 10_000 || i == total - 1) {
+                jdbc.batchUpdate("INSERT INTO produto (id, nome, sku, categoria, criado_em, atualizado_em) " +
+                        "VALUES (?, ?, ?, ?, ?, ?)", lote);
+                lote.clear();
+            }
+        }
+    }
+
+    /**
+     * LIKE '%termo%' em nome, SKU ou categoria para cada termo da consulta
+     */
+    private static int contarLike(JdbcTemplate jdbc, String consulta) {
+        String[] termos = consulta.toLowerCase(Locale.ROOT).split("\\s+");
+        StringBuilder sql = new StringBuilder("SELECT COUNT(*) FROM produto WHERE 1 = 1");
+        List<Object> parametros = new ArrayList<>();
+        for (String termo : termos) {
+            sql.append(" AND (LOWER(nome) LIKE ? OR LOWER(sku) LIKE ? OR LOWER(categoria) LIKE ?)");
+            for (int i = 0; i < 3; i++) {
+                parametros.add("%" + termo + "%");
+            }
+        }
+        return jdbc.queryForObject(sql.toString(), Integer.class, parametros.toArray());
+    }
+
+    /**
+     * Média em milissegundos após um aquecimento de mesmo tamanho
+     */
+    private static double medir(int vezes, ToIntFunction<String> consulta, String texto) {
+        long verificacao = 0;
+        for (int i = 0; i < vezes; i++) {
+            verificacao += consulta.applyAsInt(texto);
+        }
+        long inicio = System.nanoTime();
+        for (int i = 0; i < vezes; i++) {
+            verificacao += consulta.applyAsInt(texto);
+        }
+        double media = (System.nanoTime() - inicio) / 1e6 / vezes;
+        return verificacao < 0 ? -1 : media;
+    }
+}
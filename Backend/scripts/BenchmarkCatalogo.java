@@ -0,0 +1,108 @@
+import com.inventory.InventorySystemApplication;
+import com.inventory.service.CatalogoProdutos;
+import com.inventory.service.CatalogoProdutos.ProdutoCatalogo;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongFunction;
+
+/**
+ * Enriquecimento de linhas de estoque com dados do produto: uma consulta ao banco por linha x catálogo em memória
+ *
+ * Cadastra N produtos, monta uma listagem de loja com L linhas e mede o tempo para juntar nome e SKU de cada
+ * linha; depois mede a busca por SKU e a recarga completa do catálogo.
+ *
+ * Uso: scripts/benchmark.sh catalogo [produtos] [linhas]
+ */
+public class BenchmarkCatalogo {
+
+    public static void main(String[] args) throws Exception {
+        int produtos = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int linhas = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+
+        ConfigurableApplicationContext contexto = new SpringApplicationBuilder(InventorySystemApplication.class)
+                .run("--spring.main.web-application-type=none",
+                        "--spring.main.banner-mode=off",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.inventory=WARN",
+                        "--logging.level.org.hibernate.SQL=WARN",
+                        "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+                        "--logging.level.org.springframework.data.jpa=WARN",
+                        "--inventario.auditoria.habilitada=false");
+        try {
+            JdbcTemplate jdbc = contexto.getBean(JdbcTemplate.class);
+            CatalogoProdutos catalogo = contexto.getBean(CatalogoProdutos.class);
+            cadastrar(jdbc, produtos);
+
+            long inicio = System.nanoTime();
+            catalogo.reconstruir();
+            System.out.printf("catálogo: %d produtos carregados em %.0fms%n", catalogo.totalProdutos(),
+                    (System.nanoTime() - inicio) / 1e6);
+
+            long[] ids = new long[linhas];
+            for (int i = 0; i < linhas; i++) {
+                ids[i] = 1_000L + (long) i * (produtos / linhas);
+            }
+            System.out.printf("%-16s %12s %12s%n", "enriquecimento", "listagem(ms)", "linha(us)");
+            medir("banco-por-linha", ids, id -> jdbc.queryForObject(
+                    "SELECT id, sku, nome, categoria, valor_unitario, descricao FROM produto WHERE id = ?",
+                    (rs, n) -> new ProdutoCatalogo(rs.getLong(1), rs.getString(2), rs.getString(3),
+                            rs.getString(4), rs.getBigDecimal(5), rs.getString(6)), id));
+            medir("catalogo", ids, catalogo::buscar);
+
+            int buscas = 1_000_000;
+            inicio = System.nanoTime();
+            int encontrados = 0;
+            for (int i = 0; i < buscas; i++) {
+                if (catalogo.buscarPorSku("sku-" + (1_000 + i % produtos)) != null) {
+                    encontrados++;
+                }
+            }
+            System.out.printf("busca por SKU: %d de %d encontradas, %.2fus por busca%n", encontrados, buscas,
+                    (System.nanoTime() - inicio) / 1e3 / buscas);
+        } finally {
+            contexto.close();
+        }
+    }
+
+    private static void cadastrar(JdbcTemplate jdbc, int total) {
+        Timestamp agora = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> lote = new ArrayList<>(10_000);
+        for (int i = 0; i < total; i++) {
+            long id = 1_000L + i;
+            lote.add(new Object[]{id, "Produto " + id, "SKU-" + id, "Categoria " + (i % 50), agora, agora});
+            if (lote.size() == 10_000 || i == total - 1) {
+                jdbc.batchUpdate("INSERT INTO produto (id, nome, sku, categoria, criado_em, atualizado_em) " +
+                        "VALUES (?, ?, ?, ?, ?, ?)", lote);
+                lote.clear();
+            }
+        }
+    }
+
+    /**
+     * Média de 200 listagens após 50 de aquecimento
+     */
+    private static void medir(String nome, long[] ids, LongFunction<ProdutoCatalogo> buscar) {
+        int ausentes = 0;
+        for (int r = 0; r < 50; r++) {
+            for (long id : ids) {
+                if (buscar.apply(id) == null) ausentes++;
+            }
+        }
+        long inicio = System.nanoTime();
+        for (int r = 0; r < 200; r++) {
+            for (long id : ids) {
+                if (buscar.apply(id) == null) ausentes++;
+            }
+        }
+        double ms = (System.nanoTime() - inicio) / 1e6 / 200;
+        System.out.printf("%-16s %12.2f %12.2f%s%n", nome, ms, ms * 1000 / ids.length,
+                ausentes > 0 ? " (" + ausentes + " ausentes)" : "");
+    }
+}
@@ -0,0 +1,108 @@
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.inventory.dto.EntradaRequest;
+import com.inventory.dto.EstoqueListaResponse;
+import com.inventory.dto.EstoqueResponse;
+import com.inventory.dto.VendaRequest;
+import com.inventory.model.EstoqueProduto;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Benchmark de codificação para integrações de PDV: JSON x CBOR x Smile
+ *
+ * Para cada payload (requests de venda/entrada e respostas de consulta) mede o tamanho em bytes e
+ * o tempo de leitura e de escrita por operação, com o ObjectMapper do Spring Boot copiado para cada formato
+ * (como em RespostaConfig).
+ *
+ * Uso: scripts/benchmark.sh codificacao [iteracoes]
+ */
+public class BenchmarkCodificacao {
+
+    public static void main(String[] args) throws Exception {
+        int iteracoes = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        ObjectMapper json = Jackson2ObjectMapperBuilder.json().build();
+        ObjectMapper[] mappers = {json, json.copyWith(new CBORFactory()), json.copyWith(new SmileFactory())};
+        String[] formatos = {"json", "cbor", "smile"};
+
+        VendaRequest venda = new VendaRequest(101L, 1L, 2, "CLI-000123");
+        venda.setVendedorId("VND-042");
+        EntradaRequest entrada = new EntradaRequest(101L, 1L, 50);
+        entrada.setFornecedor("Fornecedor ABC");
+        entrada.setNotaFiscal("NF-2024-000981");
+        EstoqueProduto estoque = estoque(101L, 1L);
+        List<EstoqueProduto> loja = new ArrayList<>();
+        for (long p = 1; p <= 20; p++) {
+            loja.add(estoque(100 + p, 1L));
+        }
+
+        Object[] payloads = {venda, entrada, EstoqueResponse.de(estoque), EstoqueListaResponse.Loja.de(1L, loja)};
+        String[] nomes = {"VendaRequest", "EntradaRequest", "EstoqueResponse", "Loja (20 itens)"};
+
+        System.out.printf("%-16s %-6s %8s %8s %12s %12s%n", "payload", "fmt", "bytes", "x json",
+                "leitura ns", "escrita ns");
+        for (int p = 0; p < payloads.length; p++) {
+            Object valor = payloads[p];
+            int n = p == payloads.length - 1 ? iteracoes / 10 : iteracoes;
+            int tamanhoJson = 0;
+            for (int f = 0; f < mappers.length; f++) {
+                ObjectWriter writer = mappers[f].writerFor(valor.getClass());
+                ObjectReader reader = mappers[f].readerFor(valor.getClass());
+                byte[] bytes = writer.writeValueAsBytes(valor);
+                if (f == 0) {
+                    tamanhoJson = bytes.length;
+                }
+                System.out.printf("%-16s %-6s %8d %7.0f%% %12.0f %12.0f%n", nomes[p], formatos[f], bytes.length,
+                        100.0 * bytes.length / tamanhoJson, medirLeitura(reader, bytes, n), medirEscrita(writer, valor, n));
+            }
+        }
+    }
+
+    private static double medirLeitura(ObjectReader reader, byte[] bytes, int iteracoes) throws Exception {
+        Object sumidouro = null;
+        for (int i = 0; i < iteracoes; i++) {
+            sumidouro = reader.readValue(bytes);
+        }
+        long inicio = System.nanoTime();
+        for (int i = 0; i < iteracoes; i++) {
+            sumidouro = reader.readValue(bytes);
+        }
+        long nanos = System.nanoTime() - inicio;
+        if (sumidouro == null) {
+            throw new IllegalStateException();
+        }
+        return (double) nanos / iteracoes;
+    }
+
+    private static double medirEscrita(ObjectWriter writer, Object valor, int iteracoes) throws Exception {
+        int total = 0;
+        for (int i = 0; i < iteracoes; i++) {
+            total += writer.writeValueAsBytes(valor).length;
+        }
+        long inicio = System.nanoTime();
+        for (int i = 0; i < iteracoes; i++) {
+            total += writer.writeValueAsBytes(valor).length;
+        }
+        long nanos = System.nanoTime() - inicio;
+        if (total == 0) {
+            throw new IllegalStateException();
+        }
+        return (double) nanos / iteracoes;
+    }
+
+    private static EstoqueProduto estoque(Long produtoId, Long lojaId) {
+        EstoqueProduto e = new EstoqueProduto(produtoId, lojaId, 50);
+        e.setId(produtoId * 10 + lojaId);
+        e.setReservado(5);
+        e.setEstoqueMinimo(10);
+        e.setUltimaAtualizacao(LocalDateTime.of(2024, 1, 15, 10, 30));
+        e.setVersao(3L);
+        return e;
+    }
+}
@@ -0,0 +1,118 @@
+import com.inventory.InventorySystemApplication;
+import com.inventory.service.EstoqueServiceJpa.DisponivelPar;
+import com.inventory.service.EstoqueServiceJpa;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Disponibilidade de uma cesta: uma consulta por linha x uma consulta em lote (tabela derivada de arrays)
+ *
+ * Cadastra estoque de P produtos em L lojas e, para cada tamanho de cesta, mede N chamadas a
+ * consultarEstoque contra uma chamada a consultarDisponiveis com os mesmos pares (um quinto deles sem estoque).
+ * Os tempos são só do serviço; pela API o lote também troca N requisições HTTP por uma.
+ *
+ * Uso: scripts/benchmark.sh disponibilidade-lote [tamanhos separados por vírgula] [produtos] [lojas]
+ */
+public class BenchmarkDisponibilidadeLote {
+
+    public static void main(String[] args) throws Exception {
+        int[] tamanhos = Arrays.stream((args.length > 0 ? args[0] : "10,100,1000,5000").split(","))
+                .mapToInt(Integer::parseInt).toArray();
+        int produtos = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        int lojas = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+
+        ConfigurableApplicationContext contexto = new SpringApplicationBuilder(InventorySystemApplication.class)
+                .run("--spring.main.web-application-type=none",
+                        "--spring.main.banner-mode=off",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.inventory=WARN",
+                        "--logging.level.org.hibernate.SQL=WARN",
+                        "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+                        "--logging.level.org.springframework.data.jpa=WARN",
+                        "--inventario.auditoria.habilitada=false");
+        try {
+            JdbcTemplate jdbc = contexto.getBean(JdbcTemplate.class);
+            EstoqueServiceJpa estoque = contexto.getBean(EstoqueServiceJpa.class);
+            cadastrar(jdbc, produtos, lojas);
+            System.out.println(jdbc.queryForObject("EXPLAIN SELECT e.produto_id FROM TABLE(produto_id BIGINT = ?, " +
+                    "loja_id BIGINT = ?) p JOIN estoque_produto e ON e.produto_id = p.produto_id " +
+                    "AND e.loja_id = p.loja_id", String.class, new Long[]{1L}, new Long[]{1L}));
+
+            Random aleatorio = new Random(42);
+            System.out.printf("%8s %14s %14s %10s%n", "pares", "por-linha(ms)", "lote(ms)", "ganho");
+            for (int tamanho : tamanhos) {
+                Long[] produtoIds = new Long[tamanho];
+                Long[] lojaIds = new Long[tamanho];
+                for (int i = 0; i < tamanho; i++) {
+                    // um quinto dos pares aponta para produtos sem estoque
+                    produtoIds[i] = 10_000L + aleatorio.nextInt(produtos + produtos / 4);
+                    lojaIds[i] = 1L + aleatorio.nextInt(lojas);
+                }
+                int repeticoes = Math.max(3, 20_000 / tamanho);
+
+                long[] encontrados = new long[2];
+                double porLinha = medir(repeticoes, () -> {
+                    for (int i = 0; i < tamanho; i++) {
+                        if (estoque.consultarEstoque(produtoIds[i], lojaIds[i]).isPresent()) {
+                            encontrados[0]++;
+                        }
+                    }
+                });
+                double lote = medir(repeticoes, () -> {
+                    List<DisponivelPar> linhas = estoque.consultarDisponiveis(produtoIds, lojaIds);
+                    encontrados[1] += linhas.size();
+                });
+                if (encontrados[0] != encontrados[1]) {
+                    throw new IllegalStateException("Consulta em lote divergente: " + encontrados[0] + " x " + encontrados[1]);
+                }
+                System.out.printf("%8d %14.2f %14.2f %9.1fx%n", tamanho, porLinha, lote, porLinha / lote);
+            }
+        } finally {
+            contexto.close();
+        }
+    }
+
+    private static void cadastrar(JdbcTemplate jdbc, int produtos, int lojas) {
+        Timestamp agora = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> lote = new ArrayList<>(10_000);
+        for (int p = 0; p < produtos; p++) {
+            for (int l = 1; l <= lojas; l++) {
+                lote.add(new Object[]{10_000L + p, (long) l, 50 + p % 100, 5, agora});
+                if (lote.size() == 10_000) {
+                    inserir(jdbc, lote);
+                }
+            }
+        }
+        inserir(jdbc, lote);
+    }
+
+    private static void inserir(JdbcTemplate jdbc, List<Object[]> lote) {
+        jdbc.batchUpdate("INSERT INTO estoque_produto (produto_id, loja_id, quantidade, reservado, estoque_minimo, " +
+                "ultima_atualizacao, versao) VALUES (?, ?, ?, 0, ?, ?, 0)", lote);
+        lote.clear();
+    }
+
+    /**
+     * Média em milissegundos (aquecimento com o mesmo número de repetições; duas passadas, então a
+     * contagem de encontrados das duas formas deve bater)
+     */
+    private static double medir(int repeticoes, Runnable consulta) {
+        for (int i = 0; i < repeticoes; i++) {
+            consulta.run();
+        }
+        long inicio = System.nanoTime();
+        for (int i = 0; i < repeticoes; i++) {
+            consulta.run();
+        }
+        return (System.nanoTime() - inicio) / 1e6 / repeticoes;
+    }
+}
@@ -0,0 +1,177 @@
+import com.inventory.InventorySystemApplication;
+import com.inventory.disputa.JanelaDisputa;
+import com.inventory.disputa.ResumoSpaceSaving;
+import com.inventory.service.DisputaEstoqueService;
+import com.inventory.service.EstoqueServiceJpa;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Precisão e custo do detector de chaves quentes/disputadas (Space-Saving + count-min por fatia)
+ *
+ * 1. Fluxo sintético com popularidade Zipf (s=1.1) sobre pares distintos, registrado numa janela com a
+ *    configuração padrão (5 fatias, 4 faixas, 256 chaves por resumo, count-min 4x1024): custo por evento e, contra
+ *    a contagem exata, quantas das 10 mais acessadas reais aparecem no top 10 e o maior erro relativo.
+ * 2. Aplicação com estratégia OTIMISTA: threads vendendo e cancelando, metade das operações num único par
+ *    e o resto espalhado; imprime as chaves mais disputadas do relatório.
+ *
+ * Uso: scripts/benchmark.sh disputa [pares] [eventos] [threads] [segundos]
+ */
+public class BenchmarkDisputa {
+
+    public static void main(String[] args) throws Exception {
+        int pares = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int eventos = args.length > 1 ? Integer.parseInt(args[1]) : 5_000_000;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+        int segundos = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+
+        sintetico(pares, eventos);
+        aplicacao(threads, segundos);
+    }
+
+    private static void sintetico(int pares, int eventos) {
+        double[] acumulada = new double[pares];
+        double soma = 0;
+        for (int i = 0; i < pares; i++) {
+            soma += 1 / Math.pow(i + 1, 1.1);
+            acumulada[i] = soma;
+        }
+        SplittableRandom aleatorio = new SplittableRandom(42);
+        int[] sorteados = new int[eventos];
+        for (int i = 0; i < eventos; i++) {
+            int pos = Arrays.binarySearch(acumulada, aleatorio.nextDouble() * soma);
+            sorteados[i] = pos >= 0 ? pos : -pos - 1;
+        }
+
+        long[] exatas = new long[pares];
+        JanelaDisputa janela = null;
+        long melhor = Long.MAX_VALUE;
+        for (int rodada = 0; rodada < 5; rodada++) {
+            janela = new JanelaDisputa(300_000, 5, 4, 256, 4, 1024);
+            Arrays.fill(exatas, 0);
+            long agora = 1_000_000_000L;
+            long inicio = System.nanoTime();
+            for (int i = 0; i < eventos; i++) {
+                int par = sorteados[i];
+                // a cada 1000 eventos o relógio anda 10ms: o fluxo cruza fatias como em produção
+                if (i % 1000 == 0) {
+                    agora += 10;
+                }
+                janela.registrarEscrita(produto(par), loja(par), agora);
+                exatas[par]++;
+            }
+            melhor = Math.min(melhor, System.nanoTime() - inicio);
+        }
+
+        long agora = 1_000_000_000L + (eventos / 1000) * 10L;
+        long periodo = 300_000;
+        JanelaDisputa.Consulta consulta = janela.consultar(periodo, 10, agora);
+        // contagem exata do mesmo período: eventos cujo instante cai em fatias cobertas
+        Arrays.fill(exatas, 0);
+        long relogio = 1_000_000_000L;
+        for (int i = 0; i < eventos; i++) {
+            if (i % 1000 == 0) {
+                relogio += 10;
+            }
+            if (relogio >= consulta.inicioMs()) {
+                exatas[sorteados[i]]++;
+            }
+        }
+        long[] ordenadas = exatas.clone();
+        Arrays.sort(ordenadas);
+        long decimaExata = ordenadas[pares - 10];
+        int acertos = 0;
+        double maiorErro = 0;
+        for (ResumoSpaceSaving.Entrada entrada : consulta.maisAcessadas()) {
+            int par = (int) (entrada.produtoId() - 1_000_000) * 20 + (int) entrada.lojaId() - 1;
+            if (exatas[par] >= decimaExata) {
+                acertos++;
+            }
+            maiorErro = Math.max(maiorErro, Math.abs(entrada.contagem() - exatas[par]) / (double) exatas[par]);
+        }
+        System.out.printf("sintetico: %d pares, %d eventos: %.0f ns/evento, top 10 reais no top 10: %d, " +
+                        "maior erro relativo %.4f%%, eventos no periodo %d%n", pares, eventos,
+                (double) melhor / eventos, acertos, maiorErro * 100, consulta.acessos());
+        for (ResumoSpaceSaving.Entrada entrada : consulta.maisAcessadas().subList(0, 3)) {
+            int par = (int) (entrada.produtoId() - 1_000_000) * 20 + (int) entrada.lojaId() - 1;
+            System.out.printf("  produto %d loja %d: estimado %d (erro <= %d), exato %d%n", entrada.produtoId(),
+                    entrada.lojaId(), entrada.contagem(), entrada.erro(), exatas[par]);
+        }
+    }
+
+    private static long produto(int par) {
+        return 1_000_000 + par / 20;
+    }
+
+    private static long loja(int par) {
+        return 1 + par % 20;
+    }
+
+    private static void aplicacao(int threads, int segundos) throws Exception {
+        ConfigurableApplicationContext contexto = new SpringApplicationBuilder(InventorySystemApplication.class)
+                .run("--spring.main.web-application-type=none",
+                        "--spring.main.banner-mode=off",
+                        "--spring.datasource.url=jdbc:h2:mem:disputa",
+                        "--spring.datasource.hikari.maximum-pool-size=" + (threads + 2),
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.inventory=WARN",
+                        "--logging.level.org.hibernate.SQL=WARN",
+                        "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+                        "--logging.level.org.springframework.data.jpa=WARN",
+                        "--inventario.auditoria.habilitada=false",
+                        "--inventario.bloqueio.estrategia=OTIMISTA");
+        try {
+            EstoqueServiceJpa servico = contexto.getBean(EstoqueServiceJpa.class);
+            DisputaEstoqueService disputa = contexto.getBean(DisputaEstoqueService.class);
+            contexto.getBean(JdbcTemplate.class).update("UPDATE estoque_produto SET quantidade = 1000000, reservado = 0");
+            disputa.limpar();
+
+            AtomicBoolean parar = new AtomicBoolean();
+            List<Thread> trabalhadores = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                Thread thread = new Thread(() -> {
+                    while (!parar.get()) {
+                        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+                        boolean quente = aleatorio.nextBoolean();
+                        long produtoId = quente ? 101 : 101 + aleatorio.nextInt(10);
+                        long lojaId = quente ? 1 : 1 + aleatorio.nextInt(5);
+                        try {
+                            servico.cancelarVenda(servico.processarVenda(produtoId, lojaId, 1, "BENCHMARK"));
+                        } catch (RuntimeException e) {
+                            // conflito persistente: já contado pelo detector
+                        }
+                    }
+                });
+                trabalhadores.add(thread);
+                thread.start();
+            }
+            Thread.sleep(segundos * 1000L);
+            parar.set(true);
+            for (Thread thread : trabalhadores) {
+                thread.join();
+            }
+
+            DisputaEstoqueService.Relatorio relatorio = disputa.relatorio(disputa.getJanelaMs(), 5);
+            System.out.printf("aplicacao (OTIMISTA, %d threads, %ds): %d acessos, %d escritas, %d conflitos%n",
+                    threads, segundos, relatorio.acessos(), relatorio.escritas(), relatorio.conflitos());
+            System.out.printf("%-8s %-5s %10s %6s %9s %10s %-10s%n", "produto", "loja", "conflitos", "erro",
+                    "escritas", "conf/escr", "estrategia");
+            for (DisputaEstoqueService.ChaveDisputada chave : relatorio.maisDisputadas()) {
+                System.out.printf("%-8d %-5d %10d %6d %9d %10.3f %-10s%n", chave.produtoId(), chave.lojaId(),
+                        chave.conflitos(), chave.erro(), chave.escritas(), chave.conflitosPorEscrita(),
+                        chave.estrategia());
+            }
+        } finally {
+            contexto.close();
+        }
+    }
+}
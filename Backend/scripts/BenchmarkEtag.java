@@ -0,0 +1,86 @@
+import com.inventory.InventorySystemApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Polling da listagem de uma loja sem alterações: resposta completa x GET condicional (If-None-Match -> 304)
+ *
+ * Sobe a aplicação com servidor HTTP em porta livre, cadastra N linhas de estoque na loja 1 e mede
+ * latência média e bytes de corpo por requisição pela API, com e sem o ETag da resposta anterior.
+ *
+ * Uso: scripts/benchmark.sh etag [linhas] [requisicoes]
+ */
+public class BenchmarkEtag {
+
+    public static void main(String[] args) throws Exception {
+        int linhas = args.length > 0 ? Integer.parseInt(args[0]) : 5_000;
+        int requisicoes = args.length > 1 ? Integer.parseInt(args[1]) : 300;
+
+        ConfigurableApplicationContext contexto = new SpringApplicationBuilder(InventorySystemApplication.class)
+                .run("--server.port=0",
+                        "--spring.main.banner-mode=off",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.inventory=WARN",
+                        "--logging.level.org.hibernate.SQL=WARN",
+                        "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+                        "--logging.level.org.springframework.data.jpa=WARN",
+                        "--inventario.auditoria.habilitada=false");
+        try {
+            cadastrar(contexto.getBean(JdbcTemplate.class), linhas);
+            int porta = ((WebServerApplicationContext) contexto).getWebServer().getPort();
+            URI uri = URI.create("http://localhost:" + porta + "/api/v1/inventario/estoque/loja/1");
+            HttpClient cliente = HttpClient.newHttpClient();
+
+            String etag = cliente.send(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.ofByteArray())
+                    .headers().firstValue("ETag").orElseThrow();
+            System.out.printf("loja 1: %d linhas, ETag %s%n", linhas + 11, etag);
+            System.out.printf("%-12s %8s %12s %14s%n", "requisicao", "status", "media(ms)", "corpo(bytes)");
+            medir(cliente, "completa", HttpRequest.newBuilder(uri).build(), requisicoes);
+            medir(cliente, "condicional", HttpRequest.newBuilder(uri).header("If-None-Match", etag).build(),
+                    requisicoes);
+        } finally {
+            contexto.close();
+        }
+    }
+
+    private static void cadastrar(JdbcTemplate jdbc, int total) {
+        Timestamp agora = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> lote = new ArrayList<>(total);
+        for (int i = 0; i < total; i++) {
+            lote.add(new Object[]{10_000L + i, 50 + i % 100, agora});
+        }
+        jdbc.batchUpdate("INSERT INTO estoque_produto (produto_id, loja_id, quantidade, reservado, estoque_minimo, " +
+                "ultima_atualizacao, versao) VALUES (?, 1, ?, 0, 5, ?, 0)", lote);
+    }
+
+    /**
+     * Média após um aquecimento de mesmo tamanho
+     */
+    private static void medir(HttpClient cliente, String nome, HttpRequest requisicao, int vezes) throws Exception {
+        for (int i = 0; i < vezes; i++) {
+            cliente.send(requisicao, HttpResponse.BodyHandlers.ofByteArray());
+        }
+        long bytes = 0;
+        int status = 0;
+        long inicio = System.nanoTime();
+        for (int i = 0; i < vezes; i++) {
+            HttpResponse<byte[]> resposta = cliente.send(requisicao, HttpResponse.BodyHandlers.ofByteArray());
+            bytes += resposta.body().length;
+            status = resposta.statusCode();
+        }
+        System.out.printf("%-12s %8d %12.2f %14d%n", nome, status, (System.nanoTime() - inicio) / 1e6 / vezes,
+                bytes / vezes);
+    }
+}
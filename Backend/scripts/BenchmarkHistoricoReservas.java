@@ -0,0 +1,131 @@
+import com.inventory.InventorySystemApplication;
+import com.inventory.service.ReservaServiceJpa;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.LongSupplier;
+
+/**
+ * Consultas de reservas ativas (soma reservada e existência) conforme o volume de reservas finalizadas
+ *
+ * "tabela-unica": finalizadas na própria tabela reserva, com as consultas filtrando status = 'ATIVA'
+ * (layout anterior). "quente": finalizadas em reserva_historico, mesmas consultas sem o filtro de status
+ * (as do ReservaJpaRepository); o resultado é conferido contra o ReservaServiceJpa.
+ *
+ * Uso: scripts/benchmark.sh historico-reservas [volumes separados por vírgula] [consultas]
+ */
+public class BenchmarkHistoricoReservas {
+
+    private static final String SOMA_TABELA_UNICA =
+            "SELECT COALESCE(SUM(quantidade), 0) FROM reserva WHERE produto_id = ? AND loja_id = ? " +
+            "AND status = 'ATIVA' AND expira_em > LOCALTIMESTAMP";
+
+    private static final String EXISTE_TABELA_UNICA =
+            "SELECT COUNT(*) FROM reserva WHERE produto_id = ? AND loja_id = ? " +
+            "AND status = 'ATIVA' AND expira_em > LOCALTIMESTAMP";
+
+    private static final String SOMA_QUENTE =
+            "SELECT COALESCE(SUM(quantidade), 0) FROM reserva WHERE produto_id = ? AND loja_id = ? " +
+            "AND expira_em > LOCALTIMESTAMP";
+
+    private static final String EXISTE_QUENTE =
+            "SELECT COUNT(*) FROM reserva WHERE produto_id = ? AND loja_id = ? AND expira_em > LOCALTIMESTAMP";
+
+    public static void main(String[] args) throws Exception {
+        int[] volumes = Arrays.stream((args.length > 0 ? args[0] : "0,100000,500000").split(","))
+                .mapToInt(Integer::parseInt).toArray();
+        int consultas = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+
+        ConfigurableApplicationContext contexto = new SpringApplicationBuilder(InventorySystemApplication.class)
+                .run("--spring.main.web-application-type=none",
+                        "--spring.main.banner-mode=off",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.inventory=WARN",
+                        "--logging.level.org.hibernate.SQL=WARN",
+                        "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+                        "--logging.level.org.springframework.data.jpa=WARN",
+                        "--inventario.auditoria.habilitada=false");
+        try {
+            JdbcTemplate jdbc = contexto.getBean(JdbcTemplate.class);
+            ReservaServiceJpa reservas = contexto.getBean(ReservaServiceJpa.class);
+            jdbc.update("DELETE FROM reserva");
+            jdbc.update("DELETE FROM reserva_historico");
+            inserir(jdbc, "reserva", 50, "ATIVA");
+
+            System.out.printf("consultas por medida: %d (produto 101, loja 1)%n", consultas);
+            System.out.printf("%-12s %10s %14s %14s%n", "layout", "finalizadas", "soma(us)", "existe(us)");
+            for (int volume : volumes) {
+                inserir(jdbc, "reserva", volume, "CONFIRMADA");
+                long somaEsperada = jdbc.queryForObject(SOMA_TABELA_UNICA, Long.class, 101L, 1L);
+                imprimir("tabela-unica", volume,
+                        medir(consultas, () -> jdbc.queryForObject(SOMA_TABELA_UNICA, Long.class, 101L, 1L)),
+                        medir(consultas, () -> jdbc.queryForObject(EXISTE_TABELA_UNICA, Long.class, 101L, 1L)));
+                jdbc.update("DELETE FROM reserva WHERE status <> 'ATIVA'");
+
+                inserir(jdbc, "reserva_historico", volume, "CONFIRMADA");
+                if (reservas.somarQuantidadeReservada(101L, 1L) != somaEsperada) {
+                    throw new IllegalStateException("Soma reservada divergente entre os layouts");
+                }
+                imprimir("quente", volume,
+                        medir(consultas, () -> jdbc.queryForObject(SOMA_QUENTE, Long.class, 101L, 1L)),
+                        medir(consultas, () -> jdbc.queryForObject(EXISTE_QUENTE, Long.class, 101L, 1L)));
+                jdbc.update("DELETE FROM reserva_historico");
+            }
+        } finally {
+            contexto.close();
+        }
+    }
+
+    /**
+     * Reservas recentes (ainda dentro do prazo) espalhadas por 10 produtos e 5 lojas
+     */
+    private static void inserir(JdbcTemplate jdbc, String tabela, int total, String status) {
+        boolean historico = tabela.equals("reserva_historico");
+        String sql = "INSERT INTO " + tabela + " (id, produto_id, loja_id, quantidade, cliente_id, status, " +
+                "criada_em, expira_em" + (historico ? ", finalizada_em) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)"
+                : ") VALUES (?, ?, ?, ?, ?, ?, ?, ?)");
+        LocalDateTime agora = LocalDateTime.now();
+        List<Object[]> linhas = new ArrayList<>(10_000);
+        for (int i = 0; i < total; i++) {
+            List<Object> linha = new ArrayList<>(List.of(UUID.randomUUID().toString(), 101L + i % 10, 1L + i % 5,
+                    1 + i % 3, "CLI-" + (i % 1000), status, Timestamp.valueOf(agora.minusMinutes(i % 20)),
+                    Timestamp.valueOf(agora.plusMinutes(10 + i % 20))));
+            if (historico) {
+                linha.add(Timestamp.valueOf(agora));
+            }
+            linhas.add(linha.toArray());
+            if (linhas.size() == 10_000 || i == total - 1) {
+                jdbc.batchUpdate(sql, linhas);
+                linhas.clear();
+            }
+        }
+    }
+
+    /**
+     * Média em microssegundos após um aquecimento de mesmo tamanho
+     */
+    private static double medir(int consultas, LongSupplier consulta) {
+        long verificacao = 0;
+        for (int i = 0; i < consultas; i++) {
+            verificacao += consulta.getAsLong();
+        }
+        long inicio = System.nanoTime();
+        for (int i = 0; i < consultas; i++) {
+            verificacao += consulta.getAsLong();
+        }
+        double media = (System.nanoTime() - inicio) / 1e3 / consultas;
+        return verificacao < 0 ? -1 : media;
+    }
+
+    private static void imprimir(String layout, int volume, double soma, double existe) {
+        System.out.printf("%-12s %10d %14.1f %14.1f%n", layout, volume, soma, existe);
+    }
+}
@@ -0,0 +1,118 @@
+import com.inventory.InventorySystemApplication;
+import com.inventory.config.latencia.RegistroLatencia;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Custo da medição de latência por fase em vendas pela API (POST /venda seguido de DELETE /venda/{id})
+ *
+ * Sobe a aplicação três vezes, com servidor HTTP em porta livre: medição desligada, ligada (só requisições
+ * lentas guardam comandos) e ligada guardando todas (lenta-ms=0, com parâmetros formatados), e de novo
+ * desligada (a JVM é a mesma, então o JIT favorece as últimas). Imprime média e p50/p99 por requisição e,
+ * guardando todas, as fases médias das últimas vendas.
+ *
+ * Uso: scripts/benchmark.sh latencia [vendas]
+ */
+public class BenchmarkLatencia {
+
+    private static final Pattern RESERVA = Pattern.compile("\"reservaId\":\"([^\"]+)\"");
+
+    public static void main(String[] args) throws Exception {
+        int vendas = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+
+        System.out.printf("%-16s %10s %9s %9s%n", "medicao", "media(ms)", "p50(ms)", "p99(ms)");
+        for (List<String> modo : List.of(
+                List.of("desligada", "--inventario.latencia.habilitada=false"),
+                List.of("ligada", "--inventario.latencia.habilitada=true"),
+                List.of("todas-guardadas", "--inventario.latencia.lenta-ms=0"),
+                List.of("desligada-2", "--inventario.latencia.habilitada=false"))) {
+            ConfigurableApplicationContext contexto = new SpringApplicationBuilder(InventorySystemApplication.class)
+                    .run("--server.port=0",
+                            "--spring.main.banner-mode=off",
+                            "--spring.datasource.url=jdbc:h2:mem:latencia-" + modo.get(0),
+                            "--spring.jpa.show-sql=false",
+                            "--logging.level.root=WARN",
+                            "--logging.level.com.inventory=WARN",
+                            "--logging.level.org.hibernate.SQL=WARN",
+                            "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+                            "--logging.level.org.springframework.data.jpa=WARN",
+                            "--inventario.auditoria.habilitada=false",
+                            modo.get(1));
+            try {
+                contexto.getBean(JdbcTemplate.class).update("UPDATE estoque_produto SET quantidade = 1000000");
+                int porta = ((WebServerApplicationContext) contexto).getWebServer().getPort();
+                medir(HttpClient.newHttpClient(), "http://localhost:" + porta + "/api/v1/inventario/venda", modo.get(0),
+                        vendas);
+                if (modo.get(0).equals("todas-guardadas")) {
+                    imprimirFases(contexto.getBean(RegistroLatencia.class));
+                }
+            } finally {
+                contexto.close();
+            }
+        }
+    }
+
+    /**
+     * Média e percentis após um aquecimento de mesmo tamanho
+     */
+    private static void medir(HttpClient cliente, String url, String nome, int vendas) throws Exception {
+        HttpRequest venda = HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"produtoId\":101,\"lojaId\":1,\"quantidade\":1,\"clienteId\":\"BENCHMARK\"}"))
+                .build();
+        for (int i = 0; i < vendas; i++) {
+            vender(cliente, url, venda);
+        }
+        long[] latencias = new long[vendas * 2];
+        for (int i = 0; i < vendas; i++) {
+            long[] par = vender(cliente, url, venda);
+            latencias[2 * i] = par[0];
+            latencias[2 * i + 1] = par[1];
+        }
+        Arrays.sort(latencias);
+        System.out.printf("%-16s %10.3f %9.3f %9.3f%n", nome, Arrays.stream(latencias).average().orElse(0) / 1e6,
+                latencias[latencias.length / 2] / 1e6, latencias[(int) (latencias.length * 0.99)] / 1e6);
+    }
+
+    private static long[] vender(HttpClient cliente, String url, HttpRequest venda) throws Exception {
+        long inicio = System.nanoTime();
+        String corpo = cliente.send(venda, HttpResponse.BodyHandlers.ofString()).body();
+        long reserva = System.nanoTime() - inicio;
+        Matcher reservaId = RESERVA.matcher(corpo);
+        if (!reservaId.find()) {
+            throw new IllegalStateException("Venda recusada: " + corpo);
+        }
+        inicio = System.nanoTime();
+        cliente.send(HttpRequest.newBuilder(URI.create(url + "/" + reservaId.group(1))).DELETE().build(),
+                HttpResponse.BodyHandlers.discarding());
+        return new long[]{reserva, System.nanoTime() - inicio};
+    }
+
+    /**
+     * Fases médias das vendas guardadas (com lenta-ms=0, as últimas requisições até a capacidade do registro)
+     */
+    private static void imprimirFases(RegistroLatencia registro) {
+        List<RegistroLatencia.RequisicaoLenta> vendas = registro.lentas(Integer.MAX_VALUE).stream()
+                .filter(r -> r.metodo().equals("POST"))
+                .toList();
+        double total = vendas.stream().mapToDouble(RegistroLatencia.RequisicaoLenta::totalMs).average().orElse(0);
+        double sql = vendas.stream().mapToDouble(r -> r.fases().sqlMs()).average().orElse(0);
+        double flush = vendas.stream().mapToDouble(r -> r.fases().flushMs()).average().orElse(0);
+        double serializacao = vendas.stream().mapToDouble(r -> r.fases().serializacaoMs()).average().orElse(0);
+        double outros = vendas.stream().mapToDouble(r -> r.fases().outrosMs()).average().orElse(0);
+        System.out.printf("fases de POST /venda (últimas %d): total %.2fms = sql %.2f + flush %.2f + " +
+                "serializacao %.2f + outros %.2f%n", vendas.size(), total, sql, flush, serializacao, outros);
+    }
+}
@@ -0,0 +1,193 @@
+import com.inventory.InventorySystemApplication;
+import com.inventory.exception.EstoqueInsuficienteException;
+import com.inventory.model.EstoqueProduto;
+import com.inventory.model.Reserva;
+import com.inventory.repository.EstoqueJpaRepository;
+import com.inventory.service.EstoqueServiceJpa;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Benchmark de contenção da reserva em processarVenda: todas as threads vendem o mesmo produto/loja
+ *
+ * Modos:
+ * - anterior: fluxo original (SELECT do estoque, merge da reserva, UPDATE condicional com versão sem
+ *   incremento e cancelamento compensatório quando o UPDATE não afeta linha)
+ * - otimista: o mesmo fluxo com a versão incrementada no UPDATE (checagem otimística efetiva)
+ * - atual: EstoqueServiceJpa.processarVenda (UPDATE condicional que devolve o disponível + INSERT)
+ *
+ * Imprime vendas/s, conflitos, latência p50/p99 e comandos SQL por venda (estatísticas do Hibernate).
+ *
+ * Uso: scripts/benchmark.sh reserva [threads,...] [segundos]
+ */
+public class BenchmarkReserva {
+
+    public static void main(String[] args) throws Exception {
+        int[] threads = Arrays.stream((args.length > 0 ? args[0] : "1,4,16").split(","))
+                .mapToInt(Integer::parseInt).toArray();
+        int segundos = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        ConfigurableApplicationContext contexto = new SpringApplicationBuilder(InventorySystemApplication.class)
+                .run("--spring.main.web-application-type=none",
+                        "--spring.main.banner-mode=off",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.jpa.properties.hibernate.generate_statistics=true",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.inventory=WARN",
+                        "--logging.level.org.hibernate.SQL=WARN",
+                        "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+                        "--logging.level.org.springframework.data.jpa=WARN",
+                        "--inventario.auditoria.habilitada=false");
+        try {
+            EstoqueServiceJpa servico = contexto.getBean(EstoqueServiceJpa.class);
+            EstoqueJpaRepository estoqueRepository = contexto.getBean(EstoqueJpaRepository.class);
+            EntityManagerFactory fabrica = contexto.getBean(EntityManagerFactory.class);
+            EntityManager entityManager = SharedEntityManagerCreator.createSharedEntityManager(fabrica);
+            TransactionTemplate transacao = new TransactionTemplate(contexto.getBean(PlatformTransactionManager.class));
+            JdbcTemplate jdbc = contexto.getBean(JdbcTemplate.class);
+            Statistics estatisticas = fabrica.unwrap(SessionFactory.class).getStatistics();
+
+            jdbc.update("UPDATE estoque_produto SET quantidade = 100000000, reservado = 0 " +
+                    "WHERE produto_id = 101 AND loja_id = 1");
+
+            List<String> modos = List.of("anterior", "otimista", "atual");
+            // aquecimento (JIT e pools) sem medição
+            for (String modo : modos) {
+                medir(modo, 4, 3, venda(modo, servico, estoqueRepository, entityManager, transacao), estatisticas, false);
+                limpar(jdbc);
+            }
+
+            System.out.printf("%-9s %7s %10s %10s %9s %9s %9s%n",
+                    "modo", "threads", "vendas/s", "conflitos", "p50(ms)", "p99(ms)", "sql/venda");
+            for (int n : threads) {
+                for (String modo : modos) {
+                    medir(modo, n, segundos, venda(modo, servico, estoqueRepository, entityManager, transacao),
+                            estatisticas, true);
+                    limpar(jdbc);
+                }
+            }
+        } finally {
+            contexto.close();
+        }
+    }
+
+    private static Runnable venda(String modo, EstoqueServiceJpa servico, EstoqueJpaRepository estoqueRepository,
+                                  EntityManager entityManager, TransactionTemplate transacao) {
+        return switch (modo) {
+            case "anterior" -> () -> vendaAnterior(estoqueRepository, entityManager, transacao, false);
+            case "otimista" -> () -> vendaAnterior(estoqueRepository, entityManager, transacao, true);
+            default -> () -> servico.processarVenda(101L, 1L, 1, "BENCHMARK");
+        };
+    }
+
+    private static void limpar(JdbcTemplate jdbc) {
+        jdbc.update("DELETE FROM reserva WHERE cliente_id = 'BENCHMARK'");
+        jdbc.update("UPDATE estoque_produto SET reservado = 0 WHERE produto_id = 101 AND loja_id = 1");
+    }
+
+    /**
+     * Sequência de comandos do processarVenda original; com {@code incrementarVersao} a checagem de versão
+     * passa a detectar escritas concorrentes (e a falhar sob contenção)
+     */
+    private static void vendaAnterior(EstoqueJpaRepository estoqueRepository, EntityManager entityManager,
+                                      TransactionTemplate transacao, boolean incrementarVersao) {
+        transacao.executeWithoutResult(status -> {
+            EstoqueProduto estoque = estoqueRepository.findByProdutoIdAndLojaId(101L, 1L).orElseThrow();
+            if (!estoque.temEstoqueSuficiente(1)) {
+                throw new EstoqueInsuficienteException(101L, 1L, estoque.getDisponivel(), 1);
+            }
+            Reserva reserva = entityManager.merge(new Reserva(101L, 1L, 1, "BENCHMARK"));
+            entityManager.flush();
+            int linhas = entityManager.createQuery("UPDATE EstoqueProduto e SET e.reservado = e.reservado + 1, " +
+                            (incrementarVersao ? "e.versao = e.versao + 1, " : "") +
+                            "e.ultimaAtualizacao = CURRENT_TIMESTAMP " +
+                            "WHERE e.produtoId = 101 AND e.lojaId = 1 AND e.versao = :versao " +
+                            "AND (e.quantidade - e.reservado - e.cota) >= 1")
+                    .setParameter("versao", estoque.getVersao())
+                    .executeUpdate();
+            if (linhas == 0) {
+                reserva.cancelar();
+                entityManager.flush();
+                throw new ConflitoReserva();
+            }
+        });
+    }
+
+    private static void medir(String modo, int threads, int segundos, Runnable venda, Statistics estatisticas,
+                              boolean imprimir) throws Exception {
+        AtomicBoolean medindo = new AtomicBoolean();
+        AtomicBoolean parar = new AtomicBoolean();
+        LongAdder vendas = new LongAdder();
+        LongAdder conflitos = new LongAdder();
+        List<long[]> latencias = new ArrayList<>();
+        List<Thread> trabalhadores = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int indice = t;
+            latencias.add(new long[0]);
+            Thread thread = new Thread(() -> {
+                long[] amostras = new long[1_000_000];
+                int n = 0;
+                while (!parar.get()) {
+                    long inicio = System.nanoTime();
+                    try {
+                        venda.run();
+                        if (medindo.get()) {
+                            vendas.increment();
+                            if (n < amostras.length) amostras[n++] = System.nanoTime() - inicio;
+                        }
+                    } catch (RuntimeException e) {
+                        if (medindo.get()) conflitos.increment();
+                    }
+                }
+                latencias.set(indice, Arrays.copyOf(amostras, n));
+            });
+            trabalhadores.add(thread);
+            thread.start();
+        }
+
+        Thread.sleep(2000);
+        estatisticas.clear();
+        medindo.set(true);
+        long inicio = System.nanoTime();
+        Thread.sleep(segundos * 1000L);
+        medindo.set(false);
+        double decorrido = (System.nanoTime() - inicio) / 1e9;
+        long comandos = estatisticas.getPrepareStatementCount();
+        parar.set(true);
+        for (Thread thread : trabalhadores) {
+            thread.join();
+        }
+
+        if (!imprimir) {
+            return;
+        }
+        long[] todas = latencias.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        System.out.printf("%-9s %7d %10.0f %10d %9.2f %9.2f %9.2f%n", modo, threads, vendas.sum() / decorrido,
+                conflitos.sum(), percentil(todas, 0.50), percentil(todas, 0.99),
+                (double) comandos / Math.max(1, vendas.sum()));
+    }
+
+    private static double percentil(long[] ordenadas, double p) {
+        if (ordenadas.length == 0) {
+            return 0;
+        }
+        return ordenadas[(int) Math.min(ordenadas.length - 1, Math.round(p * ordenadas.length))] / 1e6;
+    }
+
+    private static class ConflitoReserva extends RuntimeException {
+    }
+}
@@ -0,0 +1,123 @@
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inventory.config.RespostaHttpMessageConverter;
+import com.inventory.dto.EstoqueListaResponse;
+import com.inventory.dto.EstoqueResponse;
+import com.inventory.model.EstoqueProduto;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Benchmark de serialização das respostas de estoque: Map.of (antes) x record com writer pré-resolvido (depois)
+ *
+ * Cada cenário monta o corpo e o escreve pelo conversor HTTP que o Spring usaria (MappingJackson2HttpMessageConverter
+ * antes, RespostaHttpMessageConverter depois), com o ObjectMapper que o Spring Boot monta.
+ * Mede ns/op e bytes alocados por operação na thread corrente (com.sun.management.ThreadMXBean).
+ *
+ * Uso: scripts/benchmark.sh serializacao [iteracoes]
+ */
+public class BenchmarkSerializacao {
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    interface Operacao {
+        void executar(Saida saida) throws IOException;
+    }
+
+    /**
+     * Corpo de resposta em memória, reaproveitado entre iterações
+     */
+    static final class Saida implements HttpOutputMessage {
+        final ByteArrayOutputStream corpo = new ByteArrayOutputStream(16 * 1024);
+        HttpHeaders headers = new HttpHeaders();
+
+        void reset() {
+            corpo.reset();
+            headers = new HttpHeaders();
+        }
+
+        @Override
+        public ByteArrayOutputStream getBody() { return corpo; }
+
+        @Override
+        public HttpHeaders getHeaders() { return headers; }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int iteracoes = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+
+        EstoqueProduto estoque = estoque(101L, 1L);
+        List<EstoqueProduto> loja = new ArrayList<>();
+        for (long p = 1; p <= 20; p++) {
+            loja.add(estoque(100 + p, 1L));
+        }
+
+        MappingJackson2HttpMessageConverter padrao = new MappingJackson2HttpMessageConverter(mapper);
+        RespostaHttpMessageConverter tipado = new RespostaHttpMessageConverter(mapper,
+                List.of(EstoqueResponse.class, EstoqueListaResponse.Loja.class), MediaType.APPLICATION_JSON);
+
+        System.out.printf("%-34s %12s %14s %10s%n", "cenário", "ns/op", "bytes aloc/op", "payload");
+        medir("consulta (Map.of)", iteracoes, saida -> padrao.write(Map.of(
+                "produtoId", estoque.getProdutoId(),
+                "lojaId", estoque.getLojaId(),
+                "quantidade", estoque.getQuantidade(),
+                "disponivel", estoque.getDisponivel(),
+                "reservado", estoque.getReservado(),
+                "estoqueMinimo", estoque.getEstoqueMinimo(),
+                "isEstoqueBaixo", estoque.isEstoqueBaixo(),
+                "ultimaAtualizacao", estoque.getUltimaAtualizacao(),
+                "versao", estoque.getVersao()), MediaType.APPLICATION_JSON, saida));
+        medir("consulta (record + writer)", iteracoes,
+                saida -> tipado.write(EstoqueResponse.de(estoque), MediaType.APPLICATION_JSON, saida));
+        medir("loja 20 itens (Map.of + entidade)", iteracoes / 10,
+                saida -> padrao.write(Map.of(
+                        "lojaId", 1L,
+                        "totalProdutos", loja.size(),
+                        "produtos", loja), MediaType.APPLICATION_JSON, saida));
+        medir("loja 20 itens (record + writer)", iteracoes / 10,
+                saida -> tipado.write(EstoqueListaResponse.Loja.de(1L, loja), MediaType.APPLICATION_JSON, saida));
+    }
+
+    private static void medir(String nome, int iteracoes, Operacao operacao) throws IOException {
+        Saida saida = new Saida();
+        for (int i = 0; i < iteracoes; i++) {
+            saida.reset();
+            operacao.executar(saida);
+        }
+
+        long thread = Thread.currentThread().getId();
+        long alocadoAntes = THREADS.getThreadAllocatedBytes(thread);
+        long inicio = System.nanoTime();
+        for (int i = 0; i < iteracoes; i++) {
+            saida.reset();
+            operacao.executar(saida);
+        }
+        long nanos = System.nanoTime() - inicio;
+        long alocado = THREADS.getThreadAllocatedBytes(thread) - alocadoAntes;
+
+        System.out.printf("%-34s %12.0f %14d %10d%n", nome, (double) nanos / iteracoes, alocado / iteracoes,
+                saida.corpo.size());
+    }
+
+    private static EstoqueProduto estoque(Long produtoId, Long lojaId) {
+        EstoqueProduto e = new EstoqueProduto(produtoId, lojaId, 50);
+        e.setId(produtoId * 10 + lojaId);
+        e.setReservado(5);
+        e.setEstoqueMinimo(10);
+        e.setUltimaAtualizacao(LocalDateTime.of(2024, 1, 15, 10, 30));
+        e.setVersao(3L);
+        return e;
+    }
+}
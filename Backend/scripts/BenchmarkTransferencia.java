@@ -0,0 +1,169 @@
+import com.inventory.InventorySystemApplication;
+import com.inventory.bloqueio.EstrategiaBloqueio;
+import com.inventory.config.BloqueioProperties;
+import com.inventory.dto.TransferenciaRequest.ItemTransferencia;
+import com.inventory.service.EstoqueServiceJpa;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Transferências concorrentes em sentidos opostos entre as lojas 1 e 2, por estratégia de bloqueio
+ *
+ * Metade das threads transfere da loja 1 para a 2 e a outra metade da 2 para a 1; cada transferência leva
+ * várias linhas sorteadas entre os produtos 101 a 110, em ordem aleatória, então as duas direções disputam
+ * sempre as mesmas linhas. Ao final confere que o total de cada produto nas duas lojas não mudou.
+ *
+ * Imprime transferências/s, latência p50/p99, falhas por tipo de exceção (deadlocks incluídos) e a conservação.
+ *
+ * Uso: scripts/benchmark.sh transferencia [threads,...] [segundos] [linhas]
+ */
+public class BenchmarkTransferencia {
+
+    private static final String SQL_TOTAIS = "SELECT produto_id, SUM(quantidade) FROM estoque_produto " +
+            "WHERE loja_id IN (1, 2) AND produto_id BETWEEN 101 AND 110 GROUP BY produto_id ORDER BY produto_id";
+
+    public static void main(String[] args) throws Exception {
+        int[] threads = Arrays.stream((args.length > 0 ? args[0] : "2,8,32").split(","))
+                .mapToInt(Integer::parseInt).toArray();
+        int segundos = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int linhas = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        ConfigurableApplicationContext contexto = new SpringApplicationBuilder(InventorySystemApplication.class)
+                .run("--spring.main.web-application-type=none",
+                        "--spring.main.banner-mode=off",
+                        "--spring.datasource.url=jdbc:h2:mem:transferencia",
+                        "--spring.datasource.hikari.maximum-pool-size=" + (Arrays.stream(threads).max().orElse(1) + 2),
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.inventory=WARN",
+                        "--logging.level.org.hibernate.SQL=WARN",
+                        "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+                        "--logging.level.org.springframework.data.jpa=WARN",
+                        "--inventario.auditoria.habilitada=false");
+        try {
+            EstoqueServiceJpa servico = contexto.getBean(EstoqueServiceJpa.class);
+            BloqueioProperties properties = contexto.getBean(BloqueioProperties.class);
+            JdbcTemplate jdbc = contexto.getBean(JdbcTemplate.class);
+            jdbc.update("UPDATE estoque_produto SET quantidade = 1000000, reservado = 0");
+
+            // aquecimento (JIT e pools) sem medição
+            for (EstrategiaBloqueio estrategia : EstrategiaBloqueio.values()) {
+                properties.setEstrategia(estrategia);
+                medir(servico, estrategia, 4, 2, linhas, false);
+            }
+
+            List<Map<String, Object>> antes = jdbc.queryForList(SQL_TOTAIS);
+            System.out.printf("linhas por transferência: %d%n", linhas);
+            System.out.printf("%-10s %7s %9s %8s %8s %7s  %s%n", "estrategia", "threads", "transf/s", "p50(ms)",
+                    "p99(ms)", "falhas", "tipos");
+            for (int n : threads) {
+                for (EstrategiaBloqueio estrategia : EstrategiaBloqueio.values()) {
+                    properties.setEstrategia(estrategia);
+                    medir(servico, estrategia, n, segundos, linhas, true);
+                }
+            }
+            List<Map<String, Object>> depois = jdbc.queryForList(SQL_TOTAIS);
+            System.out.printf("total por produto nas lojas 1 e 2: %s%n",
+                    antes.equals(depois) ? "conservado" : "DIVERGENTE antes=" + antes + " depois=" + depois);
+        } finally {
+            contexto.close();
+        }
+    }
+
+    private static void medir(EstoqueServiceJpa servico, EstrategiaBloqueio estrategia, int threads, int segundos,
+                              int linhas, boolean imprimir) throws Exception {
+        AtomicBoolean medindo = new AtomicBoolean();
+        AtomicBoolean parar = new AtomicBoolean();
+        LongAdder operacoes = new LongAdder();
+        Map<String, LongAdder> falhas = new ConcurrentHashMap<>();
+        List<long[]> latencias = new ArrayList<>();
+        List<Thread> trabalhadores = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int indice = t;
+            long origem = t % 2 == 0 ? 1 : 2;
+            long destino = 3 - origem;
+            latencias.add(new long[0]);
+            Thread thread = new Thread(() -> {
+                long[] amostras = new long[1_000_000];
+                int n = 0;
+                List<Long> produtos = new ArrayList<>();
+                for (long p = 101; p <= 110; p++) {
+                    produtos.add(p);
+                }
+                while (!parar.get()) {
+                    ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+                    Collections.shuffle(produtos, aleatorio);
+                    List<ItemTransferencia> itens = new ArrayList<>(linhas);
+                    for (int i = 0; i < linhas; i++) {
+                        itens.add(new ItemTransferencia(produtos.get(i % produtos.size()), 1 + aleatorio.nextInt(5)));
+                    }
+                    long inicio = System.nanoTime();
+                    try {
+                        servico.transferir(origem, destino, itens, "BENCHMARK");
+                        if (medindo.get()) {
+                            operacoes.increment();
+                            if (n < amostras.length) amostras[n++] = System.nanoTime() - inicio;
+                        }
+                    } catch (RuntimeException e) {
+                        if (medindo.get()) {
+                            falhas.computeIfAbsent(causa(e), c -> new LongAdder()).increment();
+                        }
+                    }
+                }
+                latencias.set(indice, Arrays.copyOf(amostras, n));
+            });
+            trabalhadores.add(thread);
+            thread.start();
+        }
+
+        Thread.sleep(1000);
+        medindo.set(true);
+        long inicio = System.nanoTime();
+        Thread.sleep(segundos * 1000L);
+        medindo.set(false);
+        double decorrido = (System.nanoTime() - inicio) / 1e9;
+        parar.set(true);
+        for (Thread thread : trabalhadores) {
+            thread.join();
+        }
+        if (!imprimir) {
+            return;
+        }
+        long[] todas = latencias.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        Map<String, Long> tipos = new TreeMap<>();
+        falhas.forEach((tipo, total) -> tipos.put(tipo, total.sum()));
+        System.out.printf("%-10s %7d %9.0f %8.2f %8.2f %7d  %s%n", estrategia, threads, operacoes.sum() / decorrido,
+                percentil(todas, 0.50), percentil(todas, 0.99), tipos.values().stream().mapToLong(Long::longValue).sum(),
+                tipos.isEmpty() ? "-" : tipos);
+    }
+
+    /**
+     * Exceção mais interna (o deadlock do H2 chega embrulhado pelo Spring)
+     */
+    private static String causa(Throwable e) {
+        while (e.getCause() != null && e.getCause() != e) {
+            e = e.getCause();
+        }
+        String mensagem = String.valueOf(e.getMessage());
+        return e.getClass().getSimpleName() + (mensagem.contains("Deadlock") ? "(deadlock)" : "");
+    }
+
+    private static double percentil(long[] ordenadas, double p) {
+        if (ordenadas.length == 0) {
+            return 0;
+        }
+        return ordenadas[(int) Math.min(ordenadas.length - 1, Math.round(p * ordenadas.length))] / 1e6;
+    }
+}
@@ -0,0 +1,134 @@
+import com.inventory.InventorySystemApplication;
+import com.inventory.service.VelocidadeVendasService;
+import com.inventory.service.VelocidadeVendasService.ResultadoRecalculo;
+import com.inventory.velocidade.TabelaVelocidade;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Velocidade de vendas: custo por venda (tabela em memória x um UPDATE por venda), memória por par,
+ * aquecimento pelo histórico e recálculo do estoque mínimo
+ *
+ * Uso: scripts/benchmark.sh velocidade [pares] [vendas-historico] [linhas-estoque]
+ */
+public class BenchmarkVelocidade {
+
+    private static final int LOJAS = 100;
+
+    public static void main(String[] args) throws Exception {
+        int pares = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int vendasHistorico = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+        int linhasEstoque = args.length > 2 ? Integer.parseInt(args[2]) : 50_000;
+
+        medirTabela(pares);
+
+        ConfigurableApplicationContext contexto = new SpringApplicationBuilder(InventorySystemApplication.class)
+                .run("--spring.main.web-application-type=none",
+                        "--spring.main.banner-mode=off",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.inventory=WARN",
+                        "--logging.level.org.hibernate.SQL=WARN",
+                        "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+                        "--logging.level.org.springframework.data.jpa=WARN",
+                        "--inventario.auditoria.habilitada=false",
+                        "--inventario.velocidade.recalculo-ms=3600000");
+        try {
+            JdbcTemplate jdbc = contexto.getBean(JdbcTemplate.class);
+            VelocidadeVendasService velocidade = contexto.getBean(VelocidadeVendasService.class);
+            cadastrarEstoque(jdbc, linhasEstoque);
+            medirUpdatePorVenda(jdbc, linhasEstoque);
+
+            cadastrarHistorico(jdbc, vendasHistorico, linhasEstoque);
+            long inicio = System.nanoTime();
+            velocidade.carregarHistorico();
+            System.out.printf("aquecimento: %d vendas, %d pares em %.0fms; taxa do par (10000, loja 1): %.2f/dia%n",
+                    vendasHistorico, velocidade.totalPares(), (System.nanoTime() - inicio) / 1e6,
+                    velocidade.taxaDiaria(10_000, 1));
+
+            ResultadoRecalculo primeiro = velocidade.recalcularMinimos();
+            ResultadoRecalculo segundo = velocidade.recalcularMinimos();
+            System.out.printf("recálculo: %d pares, %d enviados, %d alterados em %dms; " +
+                            "repetido: %d enviados em %dms%n",
+                    primeiro.pares(), primeiro.enviados(), primeiro.alterados(), primeiro.tempoMs(),
+                    segundo.enviados(), segundo.tempoMs());
+        } finally {
+            contexto.close();
+        }
+    }
+
+    /**
+     * Uma venda por par, depois vendas aleatórias sobre os pares já presentes
+     */
+    private static void medirTabela(int pares) {
+        TabelaVelocidade tabela = new TabelaVelocidade(7, 65_536);
+        long agora = System.currentTimeMillis();
+        long inicio = System.nanoTime();
+        for (int i = 0; i < pares; i++) {
+            tabela.registrar(10_000L + i / LOJAS, 1 + i % LOJAS, 1, agora);
+        }
+        double carga = (System.nanoTime() - inicio) / 1e6;
+
+        Random random = new Random(42);
+        int vendas = 5_000_000;
+        inicio = System.nanoTime();
+        for (int i = 0; i < vendas; i++) {
+            int par = random.nextInt(pares);
+            tabela.registrar(10_000L + par / LOJAS, 1 + par % LOJAS, 1 + (i & 3), agora + i);
+        }
+        double ns = (double) (System.nanoTime() - inicio) / vendas;
+        System.out.printf("tabela: %d pares em %.0fms, %d MB (%.0f bytes/par); %.0fns por venda registrada%n",
+                tabela.tamanho(), carga, tabela.bytes() >> 20, (double) tabela.bytes() / tabela.tamanho(), ns);
+    }
+
+    private static void medirUpdatePorVenda(JdbcTemplate jdbc, int linhasEstoque) {
+        Random random = new Random(42);
+        int vendas = 20_000;
+        long inicio = System.nanoTime();
+        for (int i = 0; i < vendas; i++) {
+            int linha = random.nextInt(linhasEstoque);
+            jdbc.update("UPDATE estoque_produto SET estoque_minimo = estoque_minimo " +
+                    "WHERE produto_id = ? AND loja_id = ?", 10_000L + linha / LOJAS, 1 + linha % LOJAS);
+        }
+        System.out.printf("UPDATE por venda (banco embutido): %.0fns por venda%n",
+                (double) (System.nanoTime() - inicio) / vendas);
+    }
+
+    private static void cadastrarEstoque(JdbcTemplate jdbc, int total) {
+        Timestamp agora = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> lote = new ArrayList<>(total);
+        for (int i = 0; i < total; i++) {
+            lote.add(new Object[]{10_000L + i / LOJAS, 1 + i % LOJAS, 100, agora});
+        }
+        jdbc.batchUpdate("INSERT INTO estoque_produto (produto_id, loja_id, quantidade, reservado, estoque_minimo, " +
+                "ultima_atualizacao, versao) VALUES (?, ?, ?, 0, 5, ?, 0)", lote);
+    }
+
+    /**
+     * Vendas confirmadas nos últimos 28 dias; os primeiros pares vendem mais (skew)
+     */
+    private static void cadastrarHistorico(JdbcTemplate jdbc, int total, int linhasEstoque) {
+        Random random = new Random(7);
+        LocalDateTime agora = LocalDateTime.now();
+        List<Object[]> lote = new ArrayList<>(10_000);
+        for (int i = 0; i < total; i++) {
+            int linha = (int) (linhasEstoque * Math.pow(random.nextDouble(), 3));
+            Timestamp criada = Timestamp.valueOf(agora.minusSeconds(random.nextInt(28 * 86_400)));
+            lote.add(new Object[]{UUID.randomUUID().toString(), 10_000L + linha / LOJAS, 1 + linha % LOJAS,
+                    1 + random.nextInt(3), criada, criada, criada});
+            if (lote.size() == 10_000 || i == total - 1) {
+                jdbc.batchUpdate("INSERT INTO reserva_historico (id, produto_id, loja_id, quantidade, status, " +
+                        "criada_em, expira_em, finalizada_em) VALUES (?, ?, ?, ?, 'CONFIRMADA', ?, ?, ?)", lote);
+                lote.clear();
+            }
+        }
+    }
+}
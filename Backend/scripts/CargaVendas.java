@@ -0,0 +1,109 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Gerador de carga de vendas: cada thread cria uma venda (reserva) em loja/produto aleatórios e a cancela
+ *
+ * Imprime operações (venda + cancelamento) por segundo, latência p50/p99 da venda e erros.
+ *
+ * Uso: java scripts/CargaVendas.java <url-base> [threads] [segundos] [lojas]
+ */
+public class CargaVendas {
+
+    private static final Pattern RESERVA = Pattern.compile("\"reservaId\":\"([^\"]+)\"");
+
+    public static void main(String[] args) throws Exception {
+        String base = args[0];
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        int segundos = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        int lojas = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+
+        HttpClient cliente = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5)).build();
+        AtomicBoolean medindo = new AtomicBoolean();
+        AtomicBoolean parar = new AtomicBoolean();
+        List<long[]> latencias = new ArrayList<>();
+        long[] operacoes = new long[threads];
+        long[] erros = new long[threads];
+
+        List<Thread> trabalhadores = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int indice = t;
+            long[] amostras = new long[200_000];
+            latencias.add(amostras);
+            Thread thread = new Thread(() -> {
+                int n = 0;
+                while (!parar.get()) {
+                    ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+                    long lojaId = 1 + aleatorio.nextInt(lojas);
+                    long produtoId = 101 + aleatorio.nextInt(10);
+                    String corpo = "{\"produtoId\":" + produtoId + ",\"lojaId\":" + lojaId +
+                            ",\"quantidade\":1,\"clienteId\":\"CARGA-" + indice + "\"}";
+                    try {
+                        long inicio = System.nanoTime();
+                        HttpResponse<String> venda = cliente.send(HttpRequest.newBuilder(URI.create(base + "/venda"))
+                                .header("Content-Type", "application/json")
+                                .POST(HttpRequest.BodyPublishers.ofString(corpo)).build(),
+                                HttpResponse.BodyHandlers.ofString());
+                        long decorrido = System.nanoTime() - inicio;
+                        Matcher reserva = RESERVA.matcher(venda.body());
+                        if (venda.statusCode() != 201 || !reserva.find()) {
+                            if (medindo.get()) erros[indice]++;
+                            continue;
+                        }
+                        HttpResponse<Void> cancelamento = cliente.send(HttpRequest.newBuilder(
+                                URI.create(base + "/venda/" + reserva.group(1))).DELETE().build(),
+                                HttpResponse.BodyHandlers.discarding());
+                        if (medindo.get()) {
+                            if (cancelamento.statusCode() != 200) {
+                                erros[indice]++;
+                            } else {
+                                operacoes[indice]++;
+                                if (n < amostras.length) amostras[n++] = decorrido;
+                            }
+                        }
+                    } catch (Exception e) {
+                        if (medindo.get()) erros[indice]++;
+                    }
+                }
+                latencias.set(indice, Arrays.copyOf(amostras, n));
+            });
+            trabalhadores.add(thread);
+            thread.start();
+        }
+
+        Thread.sleep(Math.max(3, segundos / 4) * 1000L);
+        medindo.set(true);
+        long inicio = System.nanoTime();
+        Thread.sleep(segundos * 1000L);
+        medindo.set(false);
+        double decorrido = (System.nanoTime() - inicio) / 1e9;
+        parar.set(true);
+        for (Thread thread : trabalhadores) {
+            thread.join();
+        }
+
+        long total = Arrays.stream(operacoes).sum();
+        long falhas = Arrays.stream(erros).sum();
+        long[] todas = latencias.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        System.out.printf("threads=%d  ops/s=%.0f  venda p50=%.2fms p99=%.2fms  erros=%d%n", threads,
+                total / decorrido, percentil(todas, 0.50), percentil(todas, 0.99), falhas);
+    }
+
+    private static double percentil(long[] ordenadas, double p) {
+        if (ordenadas.length == 0) {
+            return 0;
+        }
+        return ordenadas[(int) Math.min(ordenadas.length - 1, Math.round(p * ordenadas.length))] / 1e6;
+    }
+}
@@ -0,0 +1,253 @@
+import com.inventory.InventorySystemApplication;
+import com.inventory.exception.ConcorrenciaException;
+import com.inventory.exception.EstoqueInsuficienteException;
+import com.inventory.service.CotaEstoqueService;
+import com.inventory.service.EstoqueServiceJpa;
+import org.h2.tools.Server;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Simulação de vários nós da aplicação no mesmo processo, compartilhando um servidor H2 (TCP)
+ *
+ * Para cada modo (sem cotas, com cotas):
+ * 1. Vazão: vendas concorrentes do mesmo produto/loja distribuídas entre os nós
+ * 2. Esgotamento: vendas até acabar o estoque; total vendido não pode passar do disponível inicial
+ * 3. Recuperação (com cotas): cota vencida de um nó "parado" é liquidada e devolvida por outro nó
+ * Durante a carga, um verificador confere a cada 20ms que cota <= quantidade - reservado e que
+ * estoque_produto.cota é a soma das cotas dos nós. Ao final, com os nós parados, cota = 0 e
+ * reservado = soma das reservas ativas.
+ *
+ * Uso: scripts/benchmark.sh simulacao-cotas [nos] [threads-por-no] [segundos]
+ */
+public class SimulacaoCotas {
+
+    private static final String SQL_INVARIANTE =
+            "SELECT e.quantidade - e.reservado - e.cota, " +
+            "e.cota - COALESCE((SELECT SUM(c.quantidade) FROM estoque_cota c " +
+            "WHERE c.produto_id = e.produto_id AND c.loja_id = e.loja_id), 0) " +
+            "FROM estoque_produto e WHERE e.produto_id = ? AND e.loja_id = ?";
+
+    public static void main(String[] args) throws Exception {
+        int nos = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int segundos = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        Server servidor = Server.createTcpServer("-tcpPort", "0", "-ifNotExists").start();
+        try {
+            for (boolean cotas : new boolean[]{false, true}) {
+                String url = "jdbc:h2:tcp://localhost:" + servidor.getPort() + "/mem:cotas_" + cotas +
+                        ";DB_CLOSE_DELAY=-1";
+                simular(url, cotas, nos, threads, segundos);
+            }
+        } finally {
+            servidor.stop();
+        }
+    }
+
+    private static void simular(String url, boolean cotas, int nos, int threads, int segundos) throws Exception {
+        System.out.printf("%n== %s, %d nós x %d threads ==%n", cotas ? "com cotas" : "sem cotas", nos, threads);
+        List<ConfigurableApplicationContext> contextos = new ArrayList<>();
+        for (int i = 1; i <= nos; i++) {
+            contextos.add(iniciar(url, cotas, i));
+        }
+        List<EstoqueServiceJpa> servicos = contextos.stream().map(c -> c.getBean(EstoqueServiceJpa.class)).toList();
+
+        try (Connection conexao = DriverManager.getConnection(url, "sa", "password")) {
+            executar(conexao, "UPDATE estoque_produto SET quantidade = 1000000 WHERE produto_id = 101 AND loja_id = 1");
+            Resultado vazao = carga(conexao, servicos, threads, 101L, 1L, segundos * 1000L, false);
+            System.out.printf("vazão:        %8.0f vendas/s  (falhas %d, erros %d, violações %d)%n",
+                    vazao.vendas / (vazao.ms / 1000.0), vazao.falhas, vazao.erros, vazao.violacoes);
+
+            executar(conexao, "UPDATE estoque_produto SET quantidade = 300, reservado = 0 " +
+                    "WHERE produto_id = 102 AND loja_id = 2");
+            Resultado esgotamento = carga(conexao, servicos, threads, 102L, 2L, segundos * 3000L, true);
+            System.out.printf("esgotamento:  %d vendidas de 300 em %dms  (erros %d, violações %d)%s%n",
+                    esgotamento.vendas, esgotamento.ms, esgotamento.erros, esgotamento.violacoes,
+                    esgotamento.vendas > 300 ? "  ** VENDA ACIMA DO ESTOQUE **" : "");
+
+            if (cotas) {
+                recuperacao(conexao);
+            }
+
+            // para os nós 2..N (devolvem cotas na parada) e encerra as cotas do nó 1 antes de derrubar o esquema
+            for (int i = contextos.size() - 1; i > 0; i--) {
+                contextos.get(i).close();
+            }
+            contextos.get(0).getBean(CotaEstoqueService.class).encerrar();
+            System.out.printf("final:        %s%n", consistencia(conexao));
+        } finally {
+            contextos.get(0).close();
+        }
+    }
+
+    private static ConfigurableApplicationContext iniciar(String url, boolean cotas, int no) {
+        List<String> propriedades = new ArrayList<>(List.of(
+                "spring.main.web-application-type=none",
+                "spring.main.banner-mode=off",
+                "spring.datasource.url=" + url,
+                "spring.jpa.show-sql=false",
+                "logging.level.root=WARN",
+                "logging.level.com.inventory=WARN",
+                "logging.level.org.hibernate.SQL=WARN",
+                "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+                "logging.level.org.springframework.data.jpa=WARN",
+                "inventario.auditoria.habilitada=false",
+                "inventario.cotas.habilitada=" + cotas,
+                "inventario.cotas.no-id=no-" + no,
+                "inventario.cotas.validade-ms=4000"));
+        if (no > 1) {
+            // o nó 1 cria o esquema e carrega data.sql
+            propriedades.add("spring.jpa.hibernate.ddl-auto=none");
+            propriedades.add("spring.sql.init.mode=never");
+        }
+        // argumentos de linha de comando têm precedência sobre application.properties
+        return new SpringApplicationBuilder(InventorySystemApplication.class)
+                .run(propriedades.stream().map(p -> "--" + p).toArray(String[]::new));
+    }
+
+    record Resultado(long vendas, long falhas, long erros, long violacoes, long ms) {
+    }
+
+    /**
+     * Threads de venda (round-robin entre os nós) com o verificador de invariante em paralelo
+     */
+    private static Resultado carga(Connection conexao, List<EstoqueServiceJpa> servicos, int threadsPorNo,
+                                   Long produtoId, Long lojaId, long duracaoMs, boolean ateEsgotar)
+            throws Exception {
+        LongAdder vendas = new LongAdder();
+        LongAdder falhas = new LongAdder();
+        LongAdder erros = new LongAdder();
+        AtomicLong violacoes = new AtomicLong();
+        AtomicBoolean parar = new AtomicBoolean();
+        long limite = System.currentTimeMillis() + duracaoMs;
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < threadsPorNo * servicos.size(); t++) {
+            EstoqueServiceJpa servico = servicos.get(t % servicos.size());
+            threads.add(new Thread(() -> {
+                int falhasSeguidas = 0;
+                while (!parar.get() && System.currentTimeMillis() < limite) {
+                    try {
+                        servico.processarVenda(produtoId, lojaId, 1, "SIMULACAO");
+                        vendas.increment();
+                        falhasSeguidas = 0;
+                    } catch (EstoqueInsuficienteException | ConcorrenciaException e) {
+                        falhas.increment();
+                        if (ateEsgotar && ++falhasSeguidas > 50) {
+                            // sem estoque livre nem cota: espera as cotas dos outros nós esgotarem ou voltarem
+                            dormir(20);
+                        }
+                    } catch (RuntimeException e) {
+                        erros.increment();
+                    }
+                }
+            }));
+        }
+
+        Thread verificador = new Thread(() -> {
+            try (Connection propria = DriverManager.getConnection(conexao.getMetaData().getURL(), "sa", "password");
+                 var consulta = propria.prepareStatement(SQL_INVARIANTE)) {
+                consulta.setLong(1, produtoId);
+                consulta.setLong(2, lojaId);
+                while (!parar.get()) {
+                    try (ResultSet rs = consulta.executeQuery()) {
+                        if (rs.next() && (rs.getLong(1) < 0 || rs.getLong(2) != 0)) {
+                            violacoes.incrementAndGet();
+                        }
+                    }
+                    dormir(20);
+                }
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        long inicio = System.currentTimeMillis();
+        verificador.start();
+        threads.forEach(Thread::start);
+        if (ateEsgotar) {
+            // termina quando as vendas param de avançar por 2s (estoque e cotas esgotados)
+            long anterior = -1;
+            while (System.currentTimeMillis() < limite && vendas.sum() != anterior) {
+                anterior = vendas.sum();
+                dormir(2000);
+            }
+            parar.set(true);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long ms = System.currentTimeMillis() - inicio;
+        parar.set(true);
+        verificador.join();
+        return new Resultado(vendas.sum(), falhas.sum(), erros.sum(), violacoes.get(), ms);
+    }
+
+    /**
+     * Cota de um nó que parou sem devolver: outro nó liquida a venda pendente e devolve o restante
+     */
+    private static void recuperacao(Connection conexao) throws Exception {
+        executar(conexao, "UPDATE estoque_produto SET cota = cota + 10 WHERE produto_id = 103 AND loja_id = 3");
+        executar(conexao, "INSERT INTO estoque_cota (produto_id, loja_id, no_id, quantidade, expira_em) " +
+                "VALUES (103, 3, 'no-parado', 10, DATEADD('MINUTE', -1, CURRENT_TIMESTAMP))");
+        executar(conexao, "INSERT INTO reserva (id, produto_id, loja_id, quantidade, cliente_id, status, criada_em, " +
+                "expira_em, cota_id) SELECT 'reserva-no-parado', 103, 3, 2, 'SIMULACAO', 'ATIVA', CURRENT_TIMESTAMP, " +
+                "DATEADD('MINUTE', 30, CURRENT_TIMESTAMP), id FROM estoque_cota WHERE no_id = 'no-parado'");
+        long reservadoAntes = valor(conexao, "SELECT reservado FROM estoque_produto WHERE produto_id = 103 AND loja_id = 3");
+        long inicio = System.currentTimeMillis();
+        while (valor(conexao, "SELECT COUNT(*) FROM estoque_cota WHERE no_id = 'no-parado'") > 0
+                && System.currentTimeMillis() - inicio < 10_000) {
+            dormir(50);
+        }
+        System.out.printf("recuperação:  cota=%d, reservado +%d, reserva liquidada=%s em %dms%n",
+                valor(conexao, "SELECT cota FROM estoque_produto WHERE produto_id = 103 AND loja_id = 3"),
+                valor(conexao, "SELECT reservado FROM estoque_produto WHERE produto_id = 103 AND loja_id = 3")
+                        - reservadoAntes,
+                valor(conexao, "SELECT COUNT(*) FROM reserva WHERE id = 'reserva-no-parado' AND cota_id IS NULL") == 1,
+                System.currentTimeMillis() - inicio);
+    }
+
+    private static String consistencia(Connection conexao) throws Exception {
+        long cotaTotal = valor(conexao, "SELECT COALESCE(SUM(cota), 0) FROM estoque_produto");
+        long linhasCota = valor(conexao, "SELECT COUNT(*) FROM estoque_cota");
+        long pendentes = valor(conexao, "SELECT COUNT(*) FROM reserva WHERE cota_id IS NOT NULL");
+        long divergentes = valor(conexao, "SELECT COUNT(*) FROM estoque_produto e WHERE e.reservado <> " +
+                "(SELECT COALESCE(SUM(r.quantidade), 0) FROM reserva r WHERE r.produto_id = e.produto_id " +
+                "AND r.loja_id = e.loja_id AND r.status = 'ATIVA')");
+        boolean ok = cotaTotal == 0 && linhasCota == 0 && pendentes == 0 && divergentes == 0;
+        return String.format("%s (cota total %d, cotas %d, reservas não liquidadas %d, reservado divergente %d)",
+                ok ? "OK" : "INCONSISTENTE", cotaTotal, linhasCota, pendentes, divergentes);
+    }
+
+    private static long valor(Connection conexao, String sql) throws Exception {
+        try (Statement st = conexao.createStatement(); ResultSet rs = st.executeQuery(sql)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    private static void executar(Connection conexao, String sql) throws Exception {
+        try (Statement st = conexao.createStatement()) {
+            st.executeUpdate(sql);
+        }
+    }
+
+    private static void dormir(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
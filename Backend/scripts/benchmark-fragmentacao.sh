@@ -0,0 +1,39 @@
+#!/bin/bash
+# Benchmark de vendas concorrentes: banco único x estoque fragmentado por loja
+#
+# Sobe a aplicação em cada modo, gera carga de venda + cancelamento em lojas aleatórias
+# (scripts/CargaVendas.java) e imprime vazão e latência.
+#
+# Uso:
+#   mvn -B package -DskipTests
+#   scripts/benchmark-fragmentacao.sh [threads] [segundos]
+
+THREADS=${1:-16}
+SEGUNDOS=${2:-20}
+PORTA=${PORTA:-8089}
+BASE="http://localhost:$PORTA/api/v1/inventario"
+RAIZ="$(cd "$(dirname "$0")/.." && pwd)"
+
+medir() {
+    local nome=$1; shift
+    java -jar "$RAIZ/target/inventory-system-1.0.0.jar" --server.port="$PORTA" "$@" \
+        --logging.level.com.inventory=WARN --logging.level.org.hibernate.SQL=WARN \
+        --logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN \
+        --logging.level.org.springframework.data.jpa=WARN --spring.jpa.show-sql=false \
+        > /tmp/benchmark-fragmentacao.log 2>&1 &
+    local pid=$!
+    until curl -sf -o /dev/null "$BASE/estoque/produto/101?lojaId=1"; do
+        if ! kill -0 "$pid" 2>/dev/null; then
+            echo "$nome: falhou ao iniciar" >&2
+            return 1
+        fi
+        sleep 0.2
+    done
+    printf "%-12s " "$nome"
+    java "$RAIZ/scripts/CargaVendas.java" "$BASE" "$THREADS" "$SEGUNDOS"
+    kill "$pid"
+    wait "$pid" 2>/dev/null
+}
+
+medir "unico"
+medir "fragmentado" --spring.profiles.active=fragmentado
@@ -0,0 +1,55 @@
+#!/bin/bash
+# Benchmark de tempo até a primeira requisição (TTFR)
+#
+# Mede, para cada modo, o tempo entre o lançamento da JVM e a primeira resposta 200
+# de uma consulta de estoque. Cada modo roda N vezes; imprime mínimo, mediana e máximo.
+#
+# Uso:
+#   mvn -B package -DskipTests && cp target/inventory-system-1.0.0.jar /tmp/inventory-padrao.jar
+#   mvn -B -Pinicio-rapido package -DskipTests
+#   scripts/benchmark-inicializacao.sh [execucoes] [jar-padrao]
+
+EXECUCOES=${1:-5}
+JAR_PADRAO=${2:-/tmp/inventory-padrao.jar}
+PORTA=${PORTA:-8089}
+URL="http://localhost:$PORTA/api/v1/inventario/estoque/produto/101?lojaId=1"
+ALVO="$(cd "$(dirname "$0")/../target" && pwd)"
+
+medir() {
+    local inicio fim pid
+    inicio=$(date +%s%N)
+    "$@" --server.port="$PORTA" > /tmp/benchmark-inicializacao.log 2>&1 &
+    pid=$!
+    until curl -sf -o /dev/null "$URL"; do
+        if ! kill -0 "$pid" 2>/dev/null; then
+            echo "falhou" >&2
+            return 1
+        fi
+        sleep 0.02
+    done
+    fim=$(date +%s%N)
+    kill "$pid"
+    wait "$pid" 2>/dev/null
+    echo $(( (fim - inicio) / 1000000 ))
+}
+
+resumir() {
+    local nome=$1; shift
+    local tempos=()
+    for _ in $(seq "$EXECUCOES"); do
+        tempos+=("$(medir "$@")") || return 1
+    done
+    IFS=$'\n' ordenados=($(sort -n <<<"${tempos[*]}")); unset IFS
+    printf "%-14s min=%6sms  mediana=%6sms  max=%6sms  (%s execuções)\n" "$nome" \
+        "${ordenados[0]}" "${ordenados[$(( EXECUCOES / 2 ))]}" "${ordenados[$(( EXECUCOES - 1 ))]}" "$EXECUCOES"
+}
+
+if [ -f "$JAR_PADRAO" ]; then
+    resumir "padrao" java -jar "$JAR_PADRAO" \
+        --logging.level.org.hibernate.SQL=INFO --logging.level.org.hibernate.type.descriptor.sql.BasicBinder=INFO
+fi
+resumir "producao" java -Dspring.profiles.active=producao -jar "$ALVO/inventory-system-1.0.0.jar"
+resumir "producao+aot" java -Dspring.aot.enabled=true -Dspring.profiles.active=producao \
+    -jar "$ALVO/inventory-system-1.0.0.jar"
+resumir "aot+appcds" java -XX:SharedArchiveFile="$ALVO/inventory-system.jsa" -Xlog:cds=off \
+    -Dspring.aot.enabled=true -Dspring.profiles.active=producao -jar "$ALVO/inventory-system-1.0.0.jar"
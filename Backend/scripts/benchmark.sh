@@ -0,0 +1,46 @@
+#!/bin/bash
+# Roda um dos benchmarks de scripts/ (ou a simulação de cotas) contra as classes compiladas
+#
+# O nome é o da classe em minúsculas, separado por hífen e sem o prefixo Benchmark:
+# disputa -> BenchmarkDisputa.java, historico-reservas -> BenchmarkHistoricoReservas.java,
+# simulacao-cotas -> SimulacaoCotas.java. Argumentos omitidos usam os padrões do próprio benchmark.
+# HEAP muda a memória da JVM (padrão 1g).
+#
+# Uso:
+#   mvn -B compile
+#   scripts/benchmark.sh <nome> [argumentos...]
+
+cd "$(dirname "$0")/.." || exit 1
+
+if [ $# -eq 0 ]; then
+    echo "Uso: scripts/benchmark.sh <nome> [argumentos...]" >&2
+    echo "Disponíveis:" >&2
+    for arquivo in scripts/Benchmark*.java scripts/SimulacaoCotas.java; do
+        basename "$arquivo" .java | sed -E 's/^Benchmark//; s/([a-z])([A-Z])/\1-\2/g' | tr '[:upper:]' '[:lower:]' >&2
+    done
+    exit 1
+fi
+
+CLASSE=""
+IFS=- read -ra PARTES <<< "$1"
+for parte in "${PARTES[@]}"; do
+    CLASSE+="${parte^}"
+done
+shift
+
+if [ -f "scripts/Benchmark$CLASSE.java" ]; then
+    FONTE="scripts/Benchmark$CLASSE.java"
+elif [ -f "scripts/$CLASSE.java" ]; then
+    FONTE="scripts/$CLASSE.java"
+else
+    echo "Benchmark não encontrado: $CLASSE (rode sem argumentos para listar)" >&2
+    exit 1
+fi
+
+CLASSPATH_ARQUIVO=target/benchmark-classpath.txt
+if [ ! -f "$CLASSPATH_ARQUIVO" ]; then
+    mvn -B -q dependency:build-classpath -Dmdep.outputFile="$CLASSPATH_ARQUIVO" || exit 1
+fi
+
+exec java -Xms"${HEAP:-1g}" -Xmx"${HEAP:-1g}" -Dfile.encoding=UTF-8 \
+    -cp "target/classes:$(cat "$CLASSPATH_ARQUIVO")" "$FONTE" "$@"
@@ -0,0 +1,10 @@
+#!/bin/sh
+# Sobe a aplicação com AOT + AppCDS (requer: mvn -B -Pinicio-rapido package)
+cd "$(dirname "$0")/../target" || exit 1
+
+exec java \
+    -XX:SharedArchiveFile=inventory-system.jsa \
+    -Xlog:cds=off \
+    -Dspring.aot.enabled=true \
+    -Dspring.profiles.active=producao \
+    -jar inventory-system-1.0.0.jar "$@"
@@ -0,0 +1,188 @@
+package com.inventory.arquivamento;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Arquivos de reservas arquivadas: JSON por linha, gzip, particionados pela data de criação
+ *
+ * Layout: {@code <diretorio>/<aaaa-mm-dd>/lote-<fragmento>-<lote>.jsonl.gz}. Cada lote grava um arquivo por
+ * data presente nele, em temporário + fsync + rename: um arquivo visível está sempre completo.
+ */
+public final class ArquivoReservas {
+
+    private static final String PREFIXO = "lote-";
+    private static final String EXTENSAO = ".jsonl.gz";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private ArquivoReservas() {}
+
+    /**
+     * Grava as reservas do lote nas partições das suas datas; devolve os arquivos criados
+     */
+    public static List<Path> gravarLote(Path diretorio, int fragmento, long lote, List<ReservaArquivada> reservas)
+            throws IOException {
+        Map<LocalDate, List<ReservaArquivada>> porData = new TreeMap<>();
+        for (ReservaArquivada reserva : reservas) {
+            porData.computeIfAbsent(reserva.criadaEm().toLocalDate(), d -> new ArrayList<>()).add(reserva);
+        }
+
+        List<Path> gravados = new ArrayList<>(porData.size());
+        try {
+            for (Map.Entry<LocalDate, List<ReservaArquivada>> particao : porData.entrySet()) {
+                Path pasta = Files.createDirectories(diretorio.resolve(particao.getKey().toString()));
+                Path destino = pasta.resolve(nomeArquivo(fragmento, lote));
+                Path temporario = pasta.resolve(destino.getFileName() + ".tmp");
+                try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+                        new GZIPOutputStream(Files.newOutputStream(temporario), 1 << 16), StandardCharsets.UTF_8))) {
+                    for (ReservaArquivada reserva : particao.getValue()) {
+                        writer.write(MAPPER.writeValueAsString(reserva));
+                        writer.newLine();
+                    }
+                }
+                sincronizar(temporario);
+                Files.move(temporario, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                gravados.add(destino);
+                sincronizar(pasta);
+            }
+        } catch (IOException | RuntimeException e) {
+            descartar(gravados);
+            throw e;
+        }
+        return gravados;
+    }
+
+    /**
+     * Remove arquivos (e temporários) do fragmento com lote acima do último confirmado no banco
+     */
+    public static int descartarLotesAcimaDe(Path diretorio, int fragmento, long ultimoLote) throws IOException {
+        String prefixo = PREFIXO + fragmento + "-";
+        int removidos = 0;
+        for (LocalDate data : particoes(diretorio)) {
+            try (Stream<Path> arquivos = Files.list(diretorio.resolve(data.toString()))) {
+                for (Path arquivo : arquivos.toList()) {
+                    String nome = arquivo.getFileName().toString();
+                    if (!nome.startsWith(prefixo)) {
+                        continue;
+                    }
+                    int fim = nome.indexOf('.', prefixo.length());
+                    try {
+                        long lote = Long.parseLong(nome.substring(prefixo.length(), fim < 0 ? nome.length() : fim));
+                        if (lote > ultimoLote && Files.deleteIfExists(arquivo)) {
+                            removidos++;
+                        }
+                    } catch (NumberFormatException e) {
+                        // arquivo que não segue o padrão de nome: não é deste arquivamento
+                    }
+                }
+            }
+        }
+        return removidos;
+    }
+
+    /**
+     * Datas com partição no diretório, em ordem crescente
+     */
+    public static List<LocalDate> particoes(Path diretorio) throws IOException {
+        if (!Files.isDirectory(diretorio)) {
+            return List.of();
+        }
+        try (Stream<Path> pastas = Files.list(diretorio)) {
+            return pastas.filter(Files::isDirectory)
+                    .flatMap(pasta -> {
+                        try {
+                            return Stream.of(LocalDate.parse(pasta.getFileName().toString()));
+                        } catch (DateTimeParseException e) {
+                            return Stream.empty();
+                        }
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    /**
+     * Lê as reservas de uma partição que passam no filtro, até o limite
+     *
+     * {@code contem} é testado sobre a linha JSON antes do parse (descarta rápido as linhas sem o id/cliente).
+     */
+    public static void ler(Path diretorio, LocalDate data, String contem, Predicate<ReservaArquivada> filtro,
+                           int limite, List<ReservaArquivada> destino) throws IOException {
+        Path pasta = diretorio.resolve(data.toString());
+        List<Path> arquivos;
+        try (Stream<Path> lista = Files.list(pasta)) {
+            arquivos = lista.filter(p -> p.getFileName().toString().endsWith(EXTENSAO)).sorted().toList();
+        }
+        for (Path arquivo : arquivos) {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    new GZIPInputStream(Files.newInputStream(arquivo), 1 << 16), StandardCharsets.UTF_8))) {
+                String linha;
+                while ((linha = reader.readLine()) != null) {
+                    if (destino.size() >= limite) {
+                        return;
+                    }
+                    if (contem != null && !linha.contains(contem)) {
+                        continue;
+                    }
+                    ReservaArquivada reserva = MAPPER.readValue(linha, ReservaArquivada.class);
+                    if (filtro.test(reserva)) {
+                        destino.add(reserva);
+                    }
+                }
+            }
+        }
+    }
+
+    public static void descartar(List<Path> arquivos) {
+        for (Path arquivo : arquivos) {
+            try {
+                Files.deleteIfExists(arquivo);
+            } catch (IOException ignored) {
+                // sobra de lote não confirmado: removida por descartarLotesAcimaDe na próxima execução
+            }
+        }
+    }
+
+    private static String nomeArquivo(int fragmento, long lote) {
+        return String.format("%s%d-%010d%s", PREFIXO, fragmento, lote, EXTENSAO);
+    }
+
+    private static void sincronizar(Path caminho) throws IOException {
+        boolean pasta = Files.isDirectory(caminho);
+        try (FileChannel canal = FileChannel.open(caminho,
+                pasta ? StandardOpenOption.READ : StandardOpenOption.WRITE)) {
+            canal.force(true);
+        } catch (IOException e) {
+            if (!pasta) {
+                throw e;
+            }
+            // nem todo sistema de arquivos permite fsync de diretório
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.inventory.arquivamento;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+
+/**
+ * Reserva como gravada no arquivo (uma linha JSON por reserva)
+ */
+public record ReservaArquivada(String id, Long produtoId, Long lojaId, Integer quantidade, String clienteId,
+                               String vendedorId, String status, LocalDateTime criadaEm, LocalDateTime expiraEm,
+                               String observacoes) {
+
+    /**
+     * Colunas na ordem esperada por {@link #de(ResultSet)}
+     */
+    public static final String COLUNAS =
+            "id, produto_id, loja_id, quantidade, cliente_id, vendedor_id, status, criada_em, expira_em, observacoes";
+
+    public static ReservaArquivada de(ResultSet rs) throws SQLException {
+        return new ReservaArquivada(rs.getString(1), rs.getLong(2), rs.getLong(3), rs.getInt(4), rs.getString(5),
+                rs.getString(6), rs.getString(7), rs.getObject(8, LocalDateTime.class),
+                rs.getObject(9, LocalDateTime.class), rs.getString(10));
+    }
+}
@@ -0,0 +1,42 @@
+package com.inventory.auditoria;
+
+import com.inventory.auditoria.TipoEventoAuditoria.Resultado;
+
+/**
+ * Posição pré-alocada do ring buffer (reutilizada a cada volta)
+ *
+ * Os campos são escritos pelo produtor que reservou a posição e só são lidos pelo gravador
+ * depois que a sequência é publicada.
+ */
+public final class EventoAuditoria {
+
+    volatile long sequencia = -1;
+
+    long instante;
+    TipoEventoAuditoria tipo;
+    Resultado resultado;
+    long produtoId;
+    long lojaId;
+    int quantidade;
+    String referencia;
+
+    void preencher(long instante, TipoEventoAuditoria tipo, Resultado resultado,
+                   long produtoId, long lojaId, int quantidade, String referencia) {
+        this.instante = instante;
+        this.tipo = tipo;
+        this.resultado = resultado;
+        this.produtoId = produtoId;
+        this.lojaId = lojaId;
+        this.quantidade = quantidade;
+        this.referencia = referencia;
+    }
+
+    // Getters
+    public long getInstante() { return instante; }
+    public TipoEventoAuditoria getTipo() { return tipo; }
+    public Resultado getResultado() { return resultado; }
+    public long getProdutoId() { return produtoId; }
+    public long getLojaId() { return lojaId; }
+    public int getQuantidade() { return quantidade; }
+    public String getReferencia() { return referencia; }
+}
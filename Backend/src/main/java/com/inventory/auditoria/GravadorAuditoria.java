@@ -0,0 +1,232 @@
+package com.inventory.auditoria;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Appender assíncrono: uma thread drena o ring buffer e grava JSON Lines em arquivos diários (UTC)
+ *
+ * Cada linha tem esquema fixo e é codificada direto em bytes (sem String.format nem Jackson):
+ * {"ts":1760000000000,"tipo":"VENDA_RESERVADA","resultado":"CONFIRMADO","produtoId":101,"lojaId":1,"quantidade":2,"ref":"..."}
+ * Sem eventos, a thread espera com backoff e descarrega o buffer no disco.
+ */
+public class GravadorAuditoria implements Runnable, Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(GravadorAuditoria.class);
+
+    private static final int LOTE = 1024;
+    private static final long ESPERA_MINIMA_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final long ESPERA_MAXIMA_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long MILIS_POR_DIA = TimeUnit.DAYS.toMillis(1);
+
+    private static final byte[] TS = bytes("{\"ts\":");
+    private static final byte[] TIPO = bytes(",\"tipo\":\"");
+    private static final byte[] RESULTADO = bytes("\",\"resultado\":\"");
+    private static final byte[] PRODUTO = bytes("\",\"produtoId\":");
+    private static final byte[] LOJA = bytes(",\"lojaId\":");
+    private static final byte[] QUANTIDADE = bytes(",\"quantidade\":");
+    private static final byte[] REFERENCIA = bytes(",\"ref\":\"");
+    private static final byte[][] NOMES_TIPO = nomes(TipoEventoAuditoria.values());
+    private static final byte[][] NOMES_RESULTADO = nomes(TipoEventoAuditoria.Resultado.values());
+
+    /**
+     * Pior caso de uma linha sem a referência (números com 20 dígitos)
+     */
+    private static final int TAMANHO_FIXO_MAXIMO = 256;
+
+    private final RingBufferAuditoria ringBuffer;
+    private final Path diretorio;
+    private final ByteBuffer buffer;
+    private final byte[] digitos = new byte[20];
+
+    private volatile boolean ativo = true;
+    private FileChannel canal;
+    private long diaAtual = Long.MIN_VALUE;
+    private long gravados;
+
+    public GravadorAuditoria(RingBufferAuditoria ringBuffer, Path diretorio, int tamanhoBuffer) {
+        this.ringBuffer = ringBuffer;
+        this.diretorio = diretorio;
+        this.buffer = ByteBuffer.allocateDirect(Math.max(tamanhoBuffer, 4 * TAMANHO_FIXO_MAXIMO));
+    }
+
+    @Override
+    public void run() {
+        long espera = ESPERA_MINIMA_NANOS;
+        while (ativo) {
+            try {
+                if (ringBuffer.drenar(this::codificar, LOTE) > 0) {
+                    espera = ESPERA_MINIMA_NANOS;
+                    continue;
+                }
+                descarregar();
+                LockSupport.parkNanos(espera);
+                espera = Math.min(espera * 2, ESPERA_MAXIMA_NANOS);
+            } catch (RuntimeException e) {
+                logger.error("Falha ao gravar auditoria", e);
+                LockSupport.parkNanos(ESPERA_MAXIMA_NANOS);
+            }
+        }
+    }
+
+    /**
+     * Para a thread de gravação; chamado depois que ela terminou para drenar o restante
+     */
+    public void parar() {
+        ativo = false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        while (ringBuffer.drenar(this::codificar, LOTE) > 0) {
+            // drena o que ainda estiver publicado
+        }
+        descarregar();
+        if (canal != null) {
+            canal.close();
+            canal = null;
+        }
+    }
+
+    public long getGravados() { return gravados; }
+
+    private void codificar(EventoAuditoria evento) {
+        long dia = Math.floorDiv(evento.instante, MILIS_POR_DIA);
+        if (dia != diaAtual) {
+            trocarArquivo(dia);
+        }
+        String referencia = evento.referencia;
+        int tamanhoMaximo = TAMANHO_FIXO_MAXIMO + (referencia == null ? 0 : referencia.length() * 6);
+        if (buffer.remaining() < tamanhoMaximo) {
+            descarregar();
+            if (buffer.remaining() < tamanhoMaximo) {
+                referencia = referencia.substring(0, (buffer.remaining() - TAMANHO_FIXO_MAXIMO) / 6);
+            }
+        }
+
+        buffer.put(TS);
+        numero(evento.instante);
+        buffer.put(TIPO).put(NOMES_TIPO[evento.tipo.ordinal()]);
+        buffer.put(RESULTADO).put(NOMES_RESULTADO[evento.resultado.ordinal()]);
+        buffer.put(PRODUTO);
+        numero(evento.produtoId);
+        buffer.put(LOJA);
+        numero(evento.lojaId);
+        buffer.put(QUANTIDADE);
+        numero(evento.quantidade);
+        if (referencia != null) {
+            buffer.put(REFERENCIA);
+            texto(referencia);
+            buffer.put((byte) '"');
+        }
+        buffer.put((byte) '}').put((byte) '\n');
+        gravados++;
+    }
+
+    private void numero(long valor) {
+        if (valor == Long.MIN_VALUE) {
+            buffer.put(bytes(Long.toString(valor)));
+            return;
+        }
+        if (valor < 0) {
+            buffer.put((byte) '-');
+            valor = -valor;
+        }
+        int i = digitos.length;
+        do {
+            digitos[--i] = (byte) ('0' + (valor % 10));
+            valor /= 10;
+        } while (valor != 0);
+        buffer.put(digitos, i, digitos.length - i);
+    }
+
+    /**
+     * Escreve a string em UTF-8 com escape JSON
+     */
+    private void texto(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') {
+                buffer.put((byte) '\\').put((byte) c);
+            } else if (c < 0x20) {
+                buffer.put((byte) '\\').put((byte) 'u').put((byte) '0').put((byte) '0')
+                      .put(hex(c >> 4)).put(hex(c & 0xF));
+            } else if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xC0 | (c >> 6))).put((byte) (0x80 | (c & 0x3F)));
+            } else {
+                buffer.put((byte) (0xE0 | (c >> 12))).put((byte) (0x80 | ((c >> 6) & 0x3F)))
+                      .put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+
+    private static byte hex(int v) {
+        return (byte) (v < 10 ? '0' + v : 'a' + v - 10);
+    }
+
+    /**
+     * Abre o arquivo do dia; em caso de falha os eventos do dia são descartados (o hot path nunca espera)
+     */
+    private void trocarArquivo(long dia) {
+        descarregar();
+        diaAtual = dia;
+        Path arquivo = diretorio.resolve("auditoria-" + LocalDate.ofEpochDay(dia) + ".jsonl");
+        try {
+            if (canal != null) {
+                canal.close();
+            }
+            Files.createDirectories(diretorio);
+            canal = FileChannel.open(arquivo, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            canal = null;
+            logger.error("Falha ao abrir arquivo de auditoria {}", arquivo, e);
+        }
+    }
+
+    private void descarregar() {
+        if (buffer.position() == 0) {
+            return;
+        }
+        if (canal == null) {
+            buffer.clear();
+            return;
+        }
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                canal.write(buffer);
+            }
+        } catch (IOException e) {
+            logger.error("Falha ao gravar {} bytes de auditoria", buffer.remaining(), e);
+        } finally {
+            buffer.clear();
+        }
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[][] nomes(Enum<?>[] valores) {
+        byte[][] nomes = new byte[valores.length][];
+        for (Enum<?> valor : valores) {
+            nomes[valor.ordinal()] = bytes(valor.name());
+        }
+        return nomes;
+    }
+}
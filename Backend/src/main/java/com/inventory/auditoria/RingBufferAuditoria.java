@@ -0,0 +1,80 @@
+package com.inventory.auditoria;
+
+import com.inventory.auditoria.TipoEventoAuditoria.Resultado;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Ring buffer sem locks: vários produtores, um consumidor
+ *
+ * 1. Produtor reserva uma sequência com CAS; se o buffer estiver cheio, descarta (nunca bloqueia)
+ * 2. Preenche a posição pré-alocada e publica gravando a sequência (escrita volátil)
+ * 3. Consumidor lê posições em ordem enquanto a sequência publicada for a esperada
+ */
+public class RingBufferAuditoria {
+
+    private final EventoAuditoria[] posicoes;
+    private final int mascara;
+    private final AtomicLong proximaProducao = new AtomicLong();
+    private final AtomicLong proximoConsumo = new AtomicLong();
+    private final LongAdder descartados = new LongAdder();
+
+    public RingBufferAuditoria(int capacidade) {
+        if (capacidade < 2 || Integer.bitCount(capacidade) != 1) {
+            throw new IllegalArgumentException("Capacidade deve ser potência de 2: " + capacidade);
+        }
+        posicoes = new EventoAuditoria[capacidade];
+        for (int i = 0; i < capacidade; i++) {
+            posicoes[i] = new EventoAuditoria();
+        }
+        mascara = capacidade - 1;
+    }
+
+    /**
+     * Publica um evento; retorna false (e conta o descarte) quando o buffer está cheio
+     */
+    public boolean publicar(long instante, TipoEventoAuditoria tipo, Resultado resultado,
+                            long produtoId, long lojaId, int quantidade, String referencia) {
+        long sequencia;
+        do {
+            sequencia = proximaProducao.get();
+            if (sequencia - proximoConsumo.get() >= posicoes.length) {
+                descartados.increment();
+                return false;
+            }
+        } while (!proximaProducao.compareAndSet(sequencia, sequencia + 1));
+
+        EventoAuditoria evento = posicoes[(int) (sequencia & mascara)];
+        evento.preencher(instante, tipo, resultado, produtoId, lojaId, quantidade, referencia);
+        evento.sequencia = sequencia;
+        return true;
+    }
+
+    /**
+     * Entrega ao consumidor até {@code maximo} eventos publicados, em ordem (uma única thread)
+     */
+    public int drenar(Consumer<EventoAuditoria> consumidor, int maximo) {
+        long sequencia = proximoConsumo.get();
+        int lidos = 0;
+        while (lidos < maximo) {
+            EventoAuditoria evento = posicoes[(int) (sequencia & mascara)];
+            if (evento.sequencia != sequencia) {
+                break;
+            }
+            consumidor.accept(evento);
+            evento.referencia = null;
+            sequencia++;
+            lidos++;
+        }
+        if (lidos > 0) {
+            proximoConsumo.lazySet(sequencia);
+        }
+        return lidos;
+    }
+
+    public int getCapacidade() { return posicoes.length; }
+    public long getPendentes() { return proximaProducao.get() - proximoConsumo.get(); }
+    public long getDescartados() { return descartados.sum(); }
+}
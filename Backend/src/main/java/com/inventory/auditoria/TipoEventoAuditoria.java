@@ -0,0 +1,32 @@
+package com.inventory.auditoria;
+
+/**
+ * Tipos de evento da trilha de auditoria (esquema fixo)
+ */
+public enum TipoEventoAuditoria {
+    ENTRADA,
+    SAIDA,
+    AJUSTE,
+    VENDA_RESERVADA,
+    VENDA_CONFIRMADA,
+    VENDA_CANCELADA,
+    CONSULTA,
+    REMOCAO,
+    TRANSFERENCIA_SAIDA,
+    TRANSFERENCIA_ENTRADA,
+    VENDA_EXPIRADA;
+
+    /**
+     * Resultado da operação auditada
+     */
+    public enum Resultado {
+        /** Transação confirmada (ou operação sem transação concluída) */
+        CONFIRMADO,
+        /** Transação desfeita depois da operação */
+        DESFEITO,
+        /** Operação recusada por regra de negócio */
+        REJEITADO,
+        /** Rastreamento amostrado de nível debug */
+        AMOSTRA
+    }
+}
@@ -0,0 +1,20 @@
+package com.inventory.bloqueio;
+
+/**
+ * Fotografia imutável de uma linha de estoque_produto (lida fora do contexto de persistência)
+ */
+public record EstadoEstoque(Long id, Long produtoId, Long lojaId, int quantidade, int reservado, int cota,
+                            Long versao) {
+
+    public int disponivel() {
+        return quantidade - reservado - cota;
+    }
+
+    public EstadoEstoque comQuantidade(int novaQuantidade) {
+        return new EstadoEstoque(id, produtoId, lojaId, novaQuantidade, reservado, cota, versao);
+    }
+
+    public EstadoEstoque comReservado(int novoReservado) {
+        return new EstadoEstoque(id, produtoId, lojaId, quantidade, novoReservado, cota, versao);
+    }
+}
@@ -0,0 +1,25 @@
+package com.inventory.bloqueio;
+
+/**
+ * Como uma escrita em estoque_produto se protege de escritas concorrentes na mesma linha
+ */
+public enum EstrategiaBloqueio {
+
+    /**
+     * Lê a linha, aplica a regra em memória e grava com checagem de versão; conflito repete a leitura.
+     * Melhor com pouca disputa pela linha (sem esperas nem bloqueios no banco)
+     */
+    OTIMISTA,
+
+    /**
+     * SELECT ... FOR UPDATE (com tempo máximo de espera) antes de aplicar a regra e gravar.
+     * Não repete trabalho sob disputa, mas serializa as transações na linha até o commit
+     */
+    PESSIMISTA,
+
+    /**
+     * Um único UPDATE condicional com a regra na cláusula WHERE; a linha só é lida quando o UPDATE
+     * não afeta nada (para diferenciar produto inexistente de regra violada)
+     */
+    ATOMICA
+}
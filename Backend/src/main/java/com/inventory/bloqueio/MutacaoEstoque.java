@@ -0,0 +1,111 @@
+package com.inventory.bloqueio;
+
+import com.inventory.exception.EstoqueInsuficienteException;
+import com.inventory.repository.EstoqueJpaRepository;
+
+import java.util.function.ToIntFunction;
+import java.util.function.UnaryOperator;
+
+/**
+ * Escrita em uma linha de estoque_produto descrita nas duas formas que as estratégias de bloqueio precisam
+ *
+ * - regra: valida o estado atual (lança a exceção de negócio) e devolve o novo estado; null remove a linha
+ * - atomica: o mesmo efeito em um único comando condicional; devolve as linhas afetadas (0 quando a
+ *   linha não existe ou a condição da regra não vale)
+ */
+public record MutacaoEstoque(String nome, Long produtoId, Long lojaId,
+                             UnaryOperator<EstadoEstoque> regra,
+                             ToIntFunction<EstoqueJpaRepository> atomica) {
+
+    public static MutacaoEstoque entrada(Long produtoId, Long lojaId, int quantidade) {
+        return new MutacaoEstoque("entrada", produtoId, lojaId,
+                estado -> estado.comQuantidade(estado.quantidade() + quantidade),
+                repositorio -> repositorio.adicionarQuantidade(produtoId, lojaId, quantidade));
+    }
+
+    /**
+     * Saída manual: unidades concedidas em cota aos nós não podem sair
+     */
+    public static MutacaoEstoque saida(Long produtoId, Long lojaId, int quantidade) {
+        return new MutacaoEstoque("saida", produtoId, lojaId,
+                estado -> {
+                    int semCota = estado.quantidade() - estado.cota();
+                    if (semCota < quantidade) {
+                        throw new EstoqueInsuficienteException(produtoId, lojaId, semCota, quantidade);
+                    }
+                    return estado.comQuantidade(estado.quantidade() - quantidade);
+                },
+                repositorio -> repositorio.retirarQuantidade(produtoId, lojaId, quantidade));
+    }
+
+    /**
+     * Saída por transferência: só o disponível (sem reservas nem cota) pode ir para outra loja
+     */
+    public static MutacaoEstoque transferenciaSaida(Long produtoId, Long lojaId, int quantidade) {
+        return new MutacaoEstoque("transferenciaSaida", produtoId, lojaId,
+                estado -> {
+                    if (estado.disponivel() < quantidade) {
+                        throw new EstoqueInsuficienteException(produtoId, lojaId, estado.disponivel(), quantidade);
+                    }
+                    return estado.comQuantidade(estado.quantidade() - quantidade);
+                },
+                repositorio -> repositorio.retirarDisponivel(produtoId, lojaId, quantidade));
+    }
+
+    public static MutacaoEstoque reserva(Long produtoId, Long lojaId, int quantidade) {
+        return new MutacaoEstoque("reserva", produtoId, lojaId,
+                estado -> {
+                    if (estado.disponivel() < quantidade) {
+                        throw new EstoqueInsuficienteException(produtoId, lojaId, estado.disponivel(), quantidade);
+                    }
+                    return estado.comReservado(estado.reservado() + quantidade);
+                },
+                repositorio -> repositorio.reservarRetornandoDisponivel(produtoId, lojaId, quantidade).isPresent()
+                        ? 1 : 0);
+    }
+
+    /**
+     * Baixa de uma reserva confirmada (reduz quantidade e reservado)
+     */
+    public static MutacaoEstoque confirmacao(Long produtoId, Long lojaId, int quantidade) {
+        return new MutacaoEstoque("confirmacao", produtoId, lojaId,
+                estado -> {
+                    exigirReservado(estado, quantidade);
+                    return estado.comQuantidade(estado.quantidade() - quantidade)
+                            .comReservado(estado.reservado() - quantidade);
+                },
+                repositorio -> repositorio.confirmarSaida(produtoId, lojaId, quantidade));
+    }
+
+    public static MutacaoEstoque liberacao(Long produtoId, Long lojaId, int quantidade) {
+        return new MutacaoEstoque("liberacao", produtoId, lojaId,
+                estado -> {
+                    exigirReservado(estado, quantidade);
+                    return estado.comReservado(estado.reservado() - quantidade);
+                },
+                repositorio -> repositorio.liberarReserva(produtoId, lojaId, quantidade));
+    }
+
+    public static MutacaoEstoque ajuste(Long produtoId, Long lojaId, int novaQuantidade) {
+        return new MutacaoEstoque("ajuste", produtoId, lojaId,
+                estado -> estado.comQuantidade(novaQuantidade),
+                repositorio -> repositorio.definirQuantidade(produtoId, lojaId, novaQuantidade));
+    }
+
+    public static MutacaoEstoque remocao(Long produtoId, Long lojaId) {
+        return new MutacaoEstoque("remocao", produtoId, lojaId,
+                estado -> {
+                    if (estado.reservado() > 0 || estado.cota() > 0) {
+                        throw new IllegalArgumentException("Não é possível remover estoque com reservas ativas");
+                    }
+                    return null;
+                },
+                repositorio -> repositorio.removerSemReservas(produtoId, lojaId));
+    }
+
+    private static void exigirReservado(EstadoEstoque estado, int quantidade) {
+        if (estado.reservado() < quantidade) {
+            throw new EstoqueInsuficienteException(estado.produtoId(), estado.lojaId(), estado.reservado(), quantidade);
+        }
+    }
+}
@@ -0,0 +1,404 @@
+package com.inventory.busca;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.LongPredicate;
+
+/**
+ * Índice invertido de produtos (nome, SKU e categoria) com busca por prefixo em uma trie
+ *
+ * 1. Cada produto é um documento de id denso; cada termo aponta para a lista ordenada dos seus documentos
+ * 2. Os termos ficam numa trie: um prefixo da consulta leva a uma subárvore e a união das listas dela
+ *    vira um bitset; termos diferentes da consulta são combinados com AND
+ * 3. A trie é imutável: alterar um produto copia só o caminho dos seus termos e publica um novo estado,
+ *    então as leituras não travam e nunca enxergam um produto pela metade
+ *
+ * Documentos alterados ou removidos deixam o slot antigo sem referência até a próxima reconstrução.
+ */
+public class IndiceTextual {
+
+    private static final int[] SEM_DOCUMENTOS = new int[0];
+
+    private volatile Estado estado = new Estado(No.VAZIO, new Documento[16], 0);
+
+    // lado da escrita, protegido pelo monitor
+    private final Map<Long, Integer> documentoPorProduto = new HashMap<>();
+
+    /**
+     * Substitui todo o índice pelos produtos informados (carga completa)
+     */
+    public synchronized void reconstruir(Collection<Entrada> entradas) {
+        Documento[] documentos = new Documento[Math.max(16, entradas.size() * 2)];
+        Map<String, IntLista> postings = new HashMap<>();
+        documentoPorProduto.clear();
+        int tamanho = 0;
+        for (Entrada entrada : entradas) {
+            Documento documento = Documento.de(entrada);
+            documentos[tamanho] = documento;
+            documentoPorProduto.put(entrada.produtoId(), tamanho);
+            for (String termo : documento.termos) {
+                postings.computeIfAbsent(termo, t -> new IntLista()).adicionar(tamanho);
+            }
+            tamanho++;
+        }
+        String[] termos = postings.keySet().toArray(new String[0]);
+        Arrays.sort(termos);
+        estado = new Estado(construir(termos, 0, termos.length, 0, postings), documentos, tamanho);
+    }
+
+    /**
+     * Inclui ou substitui um produto
+     */
+    public synchronized void colocar(Entrada entrada) {
+        Estado atual = estado;
+        No raiz = atual.raiz;
+        Integer anterior = documentoPorProduto.get(entrada.produtoId());
+        if (anterior != null) {
+            raiz = retirarDocumento(raiz, atual.documentos[anterior], anterior);
+        }
+
+        Documento[] documentos = atual.documentos;
+        if (atual.tamanho == documentos.length) {
+            documentos = Arrays.copyOf(documentos, documentos.length * 2);
+        }
+        int novo = atual.tamanho;
+        Documento documento = Documento.de(entrada);
+        // slot além do tamanho publicado: nenhuma leitura do estado atual o acessa
+        documentos[novo] = documento;
+        for (String termo : documento.termos) {
+            raiz = raiz.com(termo, 0, novo, true);
+        }
+        documentoPorProduto.put(entrada.produtoId(), novo);
+        estado = new Estado(raiz, documentos, novo + 1);
+    }
+
+    /**
+     * Remove um produto (sem efeito se não indexado)
+     */
+    public synchronized void retirar(long produtoId) {
+        Integer anterior = documentoPorProduto.remove(produtoId);
+        if (anterior != null) {
+            Estado atual = estado;
+            estado = new Estado(retirarDocumento(atual.raiz, atual.documentos[anterior], anterior),
+                    atual.documentos, atual.tamanho);
+        }
+    }
+
+    /**
+     * Produtos que contêm, para cada termo da consulta, algum termo começado por ele
+     *
+     * Ordem: nome começando pelo primeiro termo da consulta, depois nome e id. O filtro é aplicado
+     * antes da contagem, então {@code encontrados} é o total que passa nele.
+     */
+    public Resultado buscar(String consulta, int limite, LongPredicate filtro) {
+        List<String> termos = new ArrayList<>(new LinkedHashSet<>(Tokenizador.termos(consulta)));
+        Estado atual = estado;
+        if (termos.isEmpty() || atual.tamanho == 0) {
+            return new Resultado(0, List.of());
+        }
+
+        long[] candidatos = null;
+        for (String termo : termos) {
+            No no = atual.raiz.prefixo(termo);
+            if (no == null) {
+                return new Resultado(0, List.of());
+            }
+            long[] bits = new long[(atual.tamanho + 63) >>> 6];
+            no.acumular(bits);
+            if (candidatos != null) {
+                for (int i = 0; i < bits.length; i++) {
+                    bits[i] &= candidatos[i];
+                }
+            }
+            candidatos = bits;
+        }
+
+        String primeiro = termos.get(0);
+        PriorityQueue<Candidato> melhores = new PriorityQueue<>(Math.max(1, limite), Comparator.reverseOrder());
+        int encontrados = 0;
+        for (int palavra = 0; palavra < candidatos.length; palavra++) {
+            long bits = candidatos[palavra];
+            while (bits != 0) {
+                Documento documento = atual.documentos[(palavra << 6) + Long.numberOfTrailingZeros(bits)];
+                bits &= bits - 1;
+                if (filtro != null && !filtro.test(documento.produtoId)) {
+                    continue;
+                }
+                encontrados++;
+                int nivel = documento.nome.startsWith(primeiro) ? 0 : 1;
+                if (melhores.size() < limite) {
+                    melhores.add(new Candidato(documento, nivel));
+                } else if (limite > 0 && melhores.peek().comparar(documento, nivel) > 0) {
+                    melhores.poll();
+                    melhores.add(new Candidato(documento, nivel));
+                }
+            }
+        }
+
+        Long[] ids = new Long[melhores.size()];
+        for (int i = ids.length - 1; i >= 0; i--) {
+            ids[i] = melhores.poll().documento.produtoId;
+        }
+        return new Resultado(encontrados, Arrays.asList(ids));
+    }
+
+    /**
+     * Produtos indexados
+     */
+    public synchronized int totalProdutos() {
+        return documentoPorProduto.size();
+    }
+
+    /**
+     * Termos distintos na trie
+     */
+    public int totalTermos() {
+        return estado.raiz.contarTermos();
+    }
+
+    private static No retirarDocumento(No raiz, Documento documento, int id) {
+        for (String termo : documento.termos) {
+            raiz = raiz.com(termo, 0, id, false);
+        }
+        return raiz;
+    }
+
+    /**
+     * Monta a trie a partir dos termos ordenados em [inicio, fim), todos com o mesmo prefixo de tamanho nivel
+     */
+    private static No construir(String[] termos, int inicio, int fim, int nivel, Map<String, IntLista> postings) {
+        int[] documentos = SEM_DOCUMENTOS;
+        if (inicio < fim && termos[inicio].length() == nivel) {
+            documentos = postings.get(termos[inicio]).paraArray();
+            inicio++;
+        }
+        List<Character> letras = new ArrayList<>();
+        List<No> filhos = new ArrayList<>();
+        while (inicio < fim) {
+            char letra = termos[inicio].charAt(nivel);
+            int fimGrupo = inicio + 1;
+            while (fimGrupo < fim && termos[fimGrupo].charAt(nivel) == letra) {
+                fimGrupo++;
+            }
+            letras.add(letra);
+            filhos.add(construir(termos, inicio, fimGrupo, nivel + 1, postings));
+            inicio = fimGrupo;
+        }
+        char[] chaves = new char[letras.size()];
+        for (int i = 0; i < chaves.length; i++) {
+            chaves[i] = letras.get(i);
+        }
+        return new No(chaves, filhos.toArray(new No[0]), documentos);
+    }
+
+    /**
+     * Produto a indexar
+     */
+    public record Entrada(long produtoId, String nome, String sku, String categoria) {
+    }
+
+    /**
+     * Ids dos produtos mais relevantes e o total encontrado
+     */
+    public record Resultado(int encontrados, List<Long> produtoIds) {
+    }
+
+    private record Estado(No raiz, Documento[] documentos, int tamanho) {
+    }
+
+    private static final class Documento {
+        final long produtoId;
+        final String nome;
+        final long chaveNome;
+        final String[] termos;
+
+        private Documento(long produtoId, String nome, String[] termos) {
+            this.produtoId = produtoId;
+            this.nome = nome;
+            this.chaveNome = chave(nome);
+            this.termos = termos;
+        }
+
+        /**
+         * Primeiros 9 caracteres do nome em 7 bits cada: a ordem do long segue a do texto, e só empates
+         * (prefixos iguais ou caracteres fora do ASCII) precisam comparar as strings
+         */
+        static long chave(String nome) {
+            long chave = 0;
+            for (int i = 0; i < 9; i++) {
+                chave = (chave << 7) | (i < nome.length() ? Math.min(nome.charAt(i), 127) : 0);
+            }
+            return chave;
+        }
+
+        static Documento de(Entrada entrada) {
+            Set<String> termos = new LinkedHashSet<>(Tokenizador.termos(entrada.nome()));
+            termos.addAll(Tokenizador.termos(entrada.sku()));
+            termos.addAll(Tokenizador.termos(entrada.categoria()));
+            String skuCompacto = Tokenizador.compactar(entrada.sku());
+            if (!skuCompacto.isEmpty()) {
+                termos.add(skuCompacto);
+            }
+            return new Documento(entrada.produtoId(), Tokenizador.normalizar(entrada.nome()),
+                    termos.toArray(new String[0]));
+        }
+    }
+
+    /**
+     * Documento no top-k com o nível de relevância da consulta (0 se o nome começa pelo primeiro termo)
+     */
+    private record Candidato(Documento documento, int nivel) implements Comparable<Candidato> {
+
+        @Override
+        public int compareTo(Candidato outro) {
+            return comparar(outro.documento, outro.nivel);
+        }
+
+        int comparar(Documento outro, int nivelOutro) {
+            if (nivel != nivelOutro) {
+                return Integer.compare(nivel, nivelOutro);
+            }
+            if (documento.chaveNome != outro.chaveNome) {
+                return Long.compare(documento.chaveNome, outro.chaveNome);
+            }
+            int porNome = documento.nome.compareTo(outro.nome);
+            return porNome != 0 ? porNome : Long.compare(documento.produtoId, outro.produtoId);
+        }
+    }
+
+    /**
+     * Nó imutável da trie: filhos por letra (ordenados) e documentos cujo termo termina aqui
+     */
+    private static final class No {
+        static final No VAZIO = new No(new char[0], new No[0], SEM_DOCUMENTOS);
+
+        final char[] letras;
+        final No[] filhos;
+        final int[] documentos;
+
+        No(char[] letras, No[] filhos, int[] documentos) {
+            this.letras = letras;
+            this.filhos = filhos;
+            this.documentos = documentos;
+        }
+
+        boolean vazio() {
+            return letras.length == 0 && documentos.length == 0;
+        }
+
+        No prefixo(String termo) {
+            No no = this;
+            for (int i = 0; i < termo.length(); i++) {
+                int pos = Arrays.binarySearch(no.letras, termo.charAt(i));
+                if (pos < 0) {
+                    return null;
+                }
+                no = no.filhos[pos];
+            }
+            return no;
+        }
+
+        void acumular(long[] bits) {
+            for (int documento : documentos) {
+                bits[documento >>> 6] |= 1L << documento;
+            }
+            for (No filho : filhos) {
+                filho.acumular(bits);
+            }
+        }
+
+        int contarTermos() {
+            int total = documentos.length > 0 ? 1 : 0;
+            for (No filho : filhos) {
+                total += filho.contarTermos();
+            }
+            return total;
+        }
+
+        /**
+         * Cópia do caminho até o termo com o documento incluído ou retirado (this se nada mudar)
+         */
+        No com(String termo, int nivel, int documento, boolean incluir) {
+            if (nivel == termo.length()) {
+                int pos = Arrays.binarySearch(documentos, documento);
+                if (incluir == (pos >= 0)) {
+                    return this;
+                }
+                int[] novos = new int[documentos.length + (incluir ? 1 : -1)];
+                if (incluir) {
+                    int ins = -pos - 1;
+                    System.arraycopy(documentos, 0, novos, 0, ins);
+                    novos[ins] = documento;
+                    System.arraycopy(documentos, ins, novos, ins + 1, documentos.length - ins);
+                } else {
+                    System.arraycopy(documentos, 0, novos, 0, pos);
+                    System.arraycopy(documentos, pos + 1, novos, pos, documentos.length - pos - 1);
+                }
+                return new No(letras, filhos, novos);
+            }
+
+            char letra = termo.charAt(nivel);
+            int pos = Arrays.binarySearch(letras, letra);
+            if (pos < 0 && !incluir) {
+                return this;
+            }
+            No filho = pos >= 0 ? filhos[pos] : VAZIO;
+            No novoFilho = filho.com(termo, nivel + 1, documento, incluir);
+            if (novoFilho == filho) {
+                return this;
+            }
+
+            if (pos >= 0 && novoFilho.vazio()) {
+                char[] novasLetras = new char[letras.length - 1];
+                No[] novosFilhos = new No[filhos.length - 1];
+                System.arraycopy(letras, 0, novasLetras, 0, pos);
+                System.arraycopy(letras, pos + 1, novasLetras, pos, letras.length - pos - 1);
+                System.arraycopy(filhos, 0, novosFilhos, 0, pos);
+                System.arraycopy(filhos, pos + 1, novosFilhos, pos, filhos.length - pos - 1);
+                return new No(novasLetras, novosFilhos, documentos);
+            }
+            if (pos >= 0) {
+                No[] novosFilhos = filhos.clone();
+                novosFilhos[pos] = novoFilho;
+                return new No(letras, novosFilhos, documentos);
+            }
+            int ins = -pos - 1;
+            char[] novasLetras = new char[letras.length + 1];
+            No[] novosFilhos = new No[filhos.length + 1];
+            System.arraycopy(letras, 0, novasLetras, 0, ins);
+            System.arraycopy(letras, ins, novasLetras, ins + 1, letras.length - ins);
+            System.arraycopy(filhos, 0, novosFilhos, 0, ins);
+            System.arraycopy(filhos, ins, novosFilhos, ins + 1, filhos.length - ins);
+            novasLetras[ins] = letra;
+            novosFilhos[ins] = novoFilho;
+            return new No(novasLetras, novosFilhos, documentos);
+        }
+    }
+
+    /**
+     * Lista de int que cresce por dobra (só na carga completa)
+     */
+    private static final class IntLista {
+        private int[] valores = new int[4];
+        private int tamanho;
+
+        void adicionar(int valor) {
+            if (tamanho == valores.length) {
+                valores = Arrays.copyOf(valores, tamanho * 2);
+            }
+            valores[tamanho++] = valor;
+        }
+
+        int[] paraArray() {
+            return Arrays.copyOf(valores, tamanho);
+        }
+    }
+}
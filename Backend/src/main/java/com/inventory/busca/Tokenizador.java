@@ -0,0 +1,62 @@
+package com.inventory.busca;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Quebra textos em termos de busca sem acento e em minúsculas
+ *
+ * "Eletrônicos / Áudio" vira [eletronicos, audio]; "ELE-SAM-GAL-101" vira [ele, sam, gal, 101].
+ * Indexação e consulta usam a mesma normalização, então "acao" encontra "Ação".
+ */
+public final class Tokenizador {
+
+    private Tokenizador() {
+    }
+
+    /**
+     * Texto sem acentos (decomposição NFD sem as marcas combinantes) e em minúsculas
+     */
+    public static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String decomposto = Normalizer.normalize(texto, Normalizer.Form.NFD);
+        StringBuilder sb = new StringBuilder(decomposto.length());
+        for (int i = 0; i < decomposto.length(); i++) {
+            char c = decomposto.charAt(i);
+            if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                sb.append(c);
+            }
+        }
+        return sb.toString().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Termos do texto: sequências de letras e dígitos, na ordem em que aparecem
+     */
+    public static List<String> termos(String texto) {
+        String normalizado = normalizar(texto);
+        List<String> termos = new ArrayList<>();
+        int inicio = -1;
+        for (int i = 0; i <= normalizado.length(); i++) {
+            boolean letraOuDigito = i < normalizado.length() && Character.isLetterOrDigit(normalizado.charAt(i));
+            if (letraOuDigito && inicio < 0) {
+                inicio = i;
+            } else if (!letraOuDigito && inicio >= 0) {
+                termos.add(normalizado.substring(inicio, i));
+                inicio = -1;
+            }
+        }
+        return termos;
+    }
+
+    /**
+     * SKU normalizado sem separadores ("ELE-SAM-GAL-101" vira "elesamgal101")
+     */
+    public static String compactar(String sku) {
+        return String.join("", termos(sku));
+    }
+}
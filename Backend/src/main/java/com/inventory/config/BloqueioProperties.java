@@ -0,0 +1,49 @@
+package com.inventory.config;
+
+import com.inventory.bloqueio.EstrategiaBloqueio;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Estratégia de bloqueio das escritas de estoque: padrão da instalação e exceções por produto
+ *
+ * Exemplo: inventario.bloqueio.estrategia=OTIMISTA e inventario.bloqueio.produtos.101=ATOMICA
+ * (produto de alta disputa numa instalação de pouca disputa)
+ */
+@Component
+@ConfigurationProperties(prefix = "inventario.bloqueio")
+public class BloqueioProperties {
+
+    private EstrategiaBloqueio estrategia = EstrategiaBloqueio.ATOMICA;
+
+    /**
+     * Espera máxima pelo bloqueio da linha na estratégia PESSIMISTA
+     */
+    private long timeoutMs = 2000;
+
+    /**
+     * Tentativas da estratégia OTIMISTA (e da ATOMICA quando a linha muda entre o UPDATE e o diagnóstico)
+     */
+    private int tentativas = 5;
+
+    private Map<Long, EstrategiaBloqueio> produtos = new HashMap<>();
+
+    public EstrategiaBloqueio estrategiaDe(Long produtoId) {
+        return produtos.getOrDefault(produtoId, estrategia);
+    }
+
+    public EstrategiaBloqueio getEstrategia() { return estrategia; }
+    public void setEstrategia(EstrategiaBloqueio estrategia) { this.estrategia = estrategia; }
+
+    public long getTimeoutMs() { return timeoutMs; }
+    public void setTimeoutMs(long timeoutMs) { this.timeoutMs = timeoutMs; }
+
+    public int getTentativas() { return tentativas; }
+    public void setTentativas(int tentativas) { this.tentativas = tentativas; }
+
+    public Map<Long, EstrategiaBloqueio> getProdutos() { return produtos; }
+    public void setProdutos(Map<Long, EstrategiaBloqueio> produtos) { this.produtos = produtos; }
+}
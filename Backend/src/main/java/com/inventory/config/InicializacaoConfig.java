@@ -0,0 +1,99 @@
+package com.inventory.config;
+
+import com.inventory.controller.EstoqueController;
+import com.inventory.service.EstoqueServiceJpa;
+import com.inventory.service.ReservaServiceJpa;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.annotation.Schedules;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ajustes de inicialização (perfil "producao" liga spring.main.lazy-initialization)
+ *
+ * 1. Beans do caminho quente e beans com jobs/listeners continuam ansiosos
+ * 2. Tempo até a primeira requisição atendida é medido desde o início da JVM
+ */
+@Configuration
+public class InicializacaoConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(InicializacaoConfig.class);
+
+    /**
+     * Beans atendidos na primeira requisição de venda/consulta
+     */
+    private static final Set<Class<?>> CAMINHO_QUENTE = Set.of(
+            EstoqueController.class, EstoqueServiceJpa.class, ReservaServiceJpa.class);
+
+    /**
+     * Beans preguiçosos nunca agendariam seus @Scheduled nem receberiam ApplicationReadyEvent
+     * (nem afterSingletonsInstantiated, usado para preparar fragmentos)
+     */
+    @Bean
+    public static LazyInitializationExcludeFilter inicializacaoAnsiosa() {
+        return (nome, definicao, tipo) -> tipo != null && (CAMINHO_QUENTE.contains(tipo)
+                || SmartInitializingSingleton.class.isAssignableFrom(tipo) || possuiJobOuListener(tipo));
+    }
+
+    private static boolean possuiJobOuListener(Class<?> tipo) {
+        AtomicBoolean encontrado = new AtomicBoolean();
+        ReflectionUtils.doWithMethods(tipo, metodo -> encontrado.set(true), metodo ->
+                AnnotatedElementUtils.hasAnnotation(metodo, Scheduled.class)
+                || AnnotatedElementUtils.hasAnnotation(metodo, Schedules.class)
+                || AnnotatedElementUtils.hasAnnotation(metodo, EventListener.class));
+        return encontrado.get();
+    }
+
+    @Bean
+    public PrimeiraRequisicaoFilter primeiraRequisicaoFilter(MeterRegistry registry) {
+        return new PrimeiraRequisicaoFilter(registry);
+    }
+
+    /**
+     * Registra uma única vez o tempo entre o início da JVM e a primeira resposta
+     */
+    public static class PrimeiraRequisicaoFilter extends OncePerRequestFilter {
+
+        private final AtomicLong tempoMs = new AtomicLong(-1);
+
+        public PrimeiraRequisicaoFilter(MeterRegistry registry) {
+            Gauge.builder("inventario.inicializacao.primeira.requisicao", tempoMs, AtomicLong::get)
+                    .description("Milissegundos entre o início da JVM e a primeira requisição atendida")
+                    .baseUnit("milliseconds")
+                    .register(registry);
+        }
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+                throws ServletException, IOException {
+            chain.doFilter(request, response);
+            if (tempoMs.get() < 0) {
+                long decorrido = System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+                if (tempoMs.compareAndSet(-1, decorrido)) {
+                    InicializacaoConfig.logger.info("Primeira requisição atendida - {} {}, {}ms desde o início da JVM",
+                            request.getMethod(), request.getRequestURI(), decorrido);
+                }
+            }
+        }
+    }
+}
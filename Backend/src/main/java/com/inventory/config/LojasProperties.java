@@ -0,0 +1,104 @@
+package com.inventory.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Cadastro de lojas da rede (coordenadas, prioridade de atendimento e prazo de reposição)
+ *
+ * Exemplo: inventario.lojas.cadastro.1.latitude=-23.55
+ */
+@Component
+@ConfigurationProperties(prefix = "inventario.lojas")
+public class LojasProperties {
+
+    private static final double RAIO_TERRA_KM = 6371.0;
+
+    /**
+     * Prioridade usada para lojas sem cadastro (maior = menos preferida)
+     */
+    private int prioridadePadrao = 100;
+
+    /**
+     * Dias entre o pedido de reposição e a chegada na loja, para lojas sem prazo próprio
+     */
+    private double prazoReposicaoDiasPadrao = 3.0;
+
+    private Map<Long, Loja> cadastro = new HashMap<>();
+
+    public Loja buscar(Long lojaId) {
+        return cadastro.get(lojaId);
+    }
+
+    public int prioridadeDe(Long lojaId) {
+        Loja loja = cadastro.get(lojaId);
+        return loja != null && loja.getPrioridade() != null ? loja.getPrioridade() : prioridadePadrao;
+    }
+
+    public double prazoReposicaoDiasDe(Long lojaId) {
+        Loja loja = cadastro.get(lojaId);
+        return loja != null && loja.getPrazoReposicaoDias() != null ? loja.getPrazoReposicaoDias()
+                : prazoReposicaoDiasPadrao;
+    }
+
+    /**
+     * Distância em km entre a loja e um ponto (null quando a loja não tem coordenadas)
+     */
+    public Double distanciaKm(Long lojaId, double latitude, double longitude) {
+        Loja loja = cadastro.get(lojaId);
+        if (loja == null || !loja.temCoordenadas()) {
+            return null;
+        }
+        double dLat = Math.toRadians(loja.getLatitude() - latitude);
+        double dLon = Math.toRadians(loja.getLongitude() - longitude);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(latitude)) * Math.cos(Math.toRadians(loja.getLatitude()))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * RAIO_TERRA_KM * Math.asin(Math.sqrt(a));
+    }
+
+    // Getters e Setters
+    public int getPrioridadePadrao() { return prioridadePadrao; }
+    public void setPrioridadePadrao(int prioridadePadrao) { this.prioridadePadrao = prioridadePadrao; }
+
+    public double getPrazoReposicaoDiasPadrao() { return prazoReposicaoDiasPadrao; }
+    public void setPrazoReposicaoDiasPadrao(double prazoReposicaoDiasPadrao) {
+        this.prazoReposicaoDiasPadrao = prazoReposicaoDiasPadrao;
+    }
+
+    public Map<Long, Loja> getCadastro() { return cadastro; }
+    public void setCadastro(Map<Long, Loja> cadastro) { this.cadastro = cadastro; }
+
+    /**
+     * Dados de localização e prioridade de uma loja
+     */
+    public static class Loja {
+        private String nome;
+        private Double latitude;
+        private Double longitude;
+        private Integer prioridade;
+        private Double prazoReposicaoDias;
+
+        public boolean temCoordenadas() {
+            return latitude != null && longitude != null;
+        }
+
+        public String getNome() { return nome; }
+        public void setNome(String nome) { this.nome = nome; }
+
+        public Double getLatitude() { return latitude; }
+        public void setLatitude(Double latitude) { this.latitude = latitude; }
+
+        public Double getLongitude() { return longitude; }
+        public void setLongitude(Double longitude) { this.longitude = longitude; }
+
+        public Integer getPrioridade() { return prioridade; }
+        public void setPrioridade(Integer prioridade) { this.prioridade = prioridade; }
+
+        public Double getPrazoReposicaoDias() { return prazoReposicaoDias; }
+        public void setPrazoReposicaoDias(Double prazoReposicaoDias) { this.prazoReposicaoDias = prazoReposicaoDias; }
+    }
+}
@@ -0,0 +1,70 @@
+package com.inventory.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.inventory.dto.BuscaProdutosResponse;
+import com.inventory.dto.ErroResponse;
+import com.inventory.dto.EstoqueListaResponse;
+import com.inventory.dto.EstoqueResponse;
+import com.inventory.dto.OperacaoResponse;
+import com.inventory.dto.ProdutoListaResponse;
+import com.inventory.service.CatalogoProdutos;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Registra os conversores de respostas tipadas antes dos conversores Jackson genéricos
+ *
+ * Além de JSON, as mesmas respostas saem em CBOR ({@code application/cbor}) ou Smile
+ * ({@code application/x-jackson-smile}) conforme o Accept. A leitura dessas codificações
+ * nos requests fica com os conversores CBOR/Smile que o Spring registra quando as bibliotecas estão presentes.
+ */
+@Configuration
+public class RespostaConfig implements WebMvcConfigurer {
+
+    public static final MediaType APPLICATION_SMILE = new MediaType("application", "x-jackson-smile");
+
+    /**
+     * Tipos de resposta serializados com writer pré-resolvido
+     */
+    static final List<Class<?>> TIPOS_RESPOSTA = List.of(
+            EstoqueResponse.class,
+            EstoqueListaResponse.ProdutoEmLojas.class,
+            EstoqueListaResponse.Loja.class,
+            EstoqueListaResponse.Rede.class,
+            EstoqueListaResponse.EstoqueBaixo.class,
+            EstoqueListaResponse.LojasDisponiveis.class,
+            EstoqueListaResponse.DisponibilidadeLote.class,
+            EstoqueListaResponse.EstatisticasLoja.class,
+            EstoqueListaResponse.PrevisaoRupturaLoja.class,
+            EstoqueListaResponse.Alteracoes.class,
+            OperacaoResponse.Movimentacao.class,
+            OperacaoResponse.Venda.class,
+            OperacaoResponse.Remocao.class,
+            OperacaoResponse.Transferencia.class,
+            CatalogoProdutos.ProdutoCatalogo.class,
+            ProdutoListaResponse.class,
+            BuscaProdutosResponse.class,
+            ErroResponse.class);
+
+    private final ObjectMapper objectMapper;
+
+    public RespostaConfig(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(0, new RespostaHttpMessageConverter(objectMapper, TIPOS_RESPOSTA,
+                MediaType.APPLICATION_JSON, new MediaType("application", "*+json")));
+        converters.add(1, new RespostaHttpMessageConverter(objectMapper.copyWith(new CBORFactory()),
+                TIPOS_RESPOSTA, MediaType.APPLICATION_CBOR));
+        converters.add(2, new RespostaHttpMessageConverter(objectMapper.copyWith(new SmileFactory()),
+                TIPOS_RESPOSTA, APPLICATION_SMILE));
+    }
+}
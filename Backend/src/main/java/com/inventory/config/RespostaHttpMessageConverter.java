@@ -0,0 +1,69 @@
+package com.inventory.config;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.inventory.config.latencia.ContextoLatencia;
+import com.inventory.config.latencia.PerfilRequisicao;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serializa os tipos de resposta registrados com ObjectWriters resolvidos na subida
+ *
+ * O serializador raiz de cada tipo é buscado uma única vez (sem lookup por requisição) e o
+ * gerador escreve direto no corpo da resposta. Tipos não registrados seguem para o conversor
+ * Jackson padrão do Spring.
+ */
+public class RespostaHttpMessageConverter extends AbstractHttpMessageConverter<Object> {
+
+    private final ObjectMapper mapper;
+    private final Map<Class<?>, ObjectWriter> writers = new HashMap<>();
+
+    public RespostaHttpMessageConverter(ObjectMapper mapper, List<Class<?>> tipos, MediaType... mediaTypes) {
+        super(mediaTypes);
+        this.mapper = mapper;
+        for (Class<?> tipo : tipos) {
+            writers.put(tipo, mapper.writerFor(tipo));
+        }
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return writers.containsKey(clazz);
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Conversor somente de escrita", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(Object valor, HttpOutputMessage outputMessage) throws IOException {
+        long inicio = System.nanoTime();
+        try (JsonGenerator gerador = mapper.getFactory()
+                .createGenerator(outputMessage.getBody(), JsonEncoding.UTF8)) {
+            gerador.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            writers.get(valor.getClass()).writeValue(gerador, valor);
+        } finally {
+            PerfilRequisicao perfil = ContextoLatencia.atual();
+            if (perfil != null) {
+                perfil.serializacao(System.nanoTime() - inicio);
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.inventory.config.fragmentacao;
+
+/**
+ * Fragmento da operação corrente (thread da requisição ou do scatter-gather)
+ */
+public final class ContextoFragmento {
+
+    private static final ThreadLocal<Integer> FRAGMENTO = new ThreadLocal<>();
+
+    private ContextoFragmento() {
+    }
+
+    public static Integer atual() {
+        return FRAGMENTO.get();
+    }
+
+    static void definir(int fragmento) {
+        FRAGMENTO.set(fragmento);
+    }
+
+    static void limpar() {
+        FRAGMENTO.remove();
+    }
+}
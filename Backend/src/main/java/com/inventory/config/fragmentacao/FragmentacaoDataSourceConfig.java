@@ -0,0 +1,154 @@
+package com.inventory.config.fragmentacao;
+
+import com.inventory.service.EstoqueServiceJpa;
+import com.inventory.service.InventarioService;
+import com.inventory.service.ReservaServiceJpa;
+import com.inventory.service.SincronizacaoService;
+import com.zaxxer.hikari.HikariDataSource;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.StaticMethodMatcherPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.ClassUtils;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Estoque e reservas fragmentados por loja em N bancos
+ *
+ * Ativado por inventario.fragmentacao.habilitada=true (perfil "fragmentado" para testes locais).
+ * Os serviços roteados continuam os mesmos; um interceptor escolhe o fragmento antes da transação.
+ * Incompatível com inventario.replica.habilitada (ambos substituem o datasource primário).
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "inventario.fragmentacao", name = "habilitada", havingValue = "true")
+@EnableConfigurationProperties(FragmentacaoProperties.class)
+public class FragmentacaoDataSourceConfig {
+
+    /**
+     * Serviços cujos métodos públicos são roteados por loja
+     */
+    private static final Set<Class<?>> SERVICOS_ROTEADOS = Set.of(
+            EstoqueServiceJpa.class, ReservaServiceJpa.class, InventarioService.class, SincronizacaoService.class);
+
+    @Bean
+    public FragmentoDataSource fragmentoDataSource(DataSourceProperties padrao, FragmentacaoProperties properties,
+                                                   @Value("${inventario.replica.habilitada:false}") boolean replica) {
+        if (replica) {
+            throw new IllegalStateException(
+                    "inventario.fragmentacao.habilitada e inventario.replica.habilitada não podem ser usadas juntas");
+        }
+        List<HikariDataSource> pools = new ArrayList<>();
+        HikariDataSource zero = padrao.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        zero.setPoolName("fragmento-0");
+        pools.add(zero);
+        for (FragmentacaoProperties.Fragmento fragmento : properties.getFragmentos()) {
+            HikariDataSource pool = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(fragmento.getUrl())
+                    .username(fragmento.getUsername())
+                    .password(fragmento.getPassword())
+                    .build();
+            pool.setPoolName("fragmento-" + pools.size());
+            pool.setMaximumPoolSize(fragmento.getPoolMaximo());
+            pools.add(pool);
+        }
+        return new FragmentoDataSource(pools);
+    }
+
+    /**
+     * Datasource usado por JPA, JdbcTemplate e inicialização de dados
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(FragmentoDataSource fragmentos) {
+        return new LazyConnectionDataSourceProxy(fragmentos);
+    }
+
+    @Bean
+    public RoteamentoFragmentos roteamentoFragmentos(FragmentacaoProperties properties, FragmentoDataSource fragmentos) {
+        return new RoteamentoFragmentos(properties, jdbcTemplates(fragmentos));
+    }
+
+    /**
+     * Aplica o roteamento antes do interceptor de transação (que escolhe a conexão)
+     *
+     * Advisors são criados junto com os post-processors; o interceptor é resolvido na primeira chamada
+     * para não antecipar datasources e properties.
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor roteamentoFragmentosAdvisor(ObjectProvider<RoteamentoFragmentos> roteamento) {
+        StaticMethodMatcherPointcut pointcut = new StaticMethodMatcherPointcut() {
+            @Override
+            public boolean matches(Method metodo, Class<?> alvo) {
+                return SERVICOS_ROTEADOS.contains(ClassUtils.getUserClass(alvo))
+                        && Modifier.isPublic(metodo.getModifiers())
+                        && metodo.getDeclaringClass() != Object.class;
+            }
+        };
+        MethodInterceptor interceptor = invocacao -> roteamento.getObject().invoke(invocacao);
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(pointcut, interceptor);
+        advisor.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return advisor;
+    }
+
+    @Bean
+    public InicializacaoFragmentos inicializacaoFragmentos(FragmentacaoProperties properties,
+                                                           FragmentoDataSource fragmentos) {
+        return new InicializacaoFragmentos(properties, jdbcTemplates(fragmentos));
+    }
+
+    /**
+     * Conexões por fragmento, lojas mapeadas e chamadas roteadas em /actuator/health
+     */
+    @Bean
+    public HealthIndicator fragmentacaoHealthIndicator(FragmentoDataSource fragmentos, FragmentacaoProperties properties,
+                                                       RoteamentoFragmentos roteamento) {
+        return () -> {
+            Map<String, Object> conexoes = new LinkedHashMap<>();
+            for (int i = 0; i < fragmentos.getQuantidade(); i++) {
+                conexoes.put("fragmento-" + i, fragmentos.getConexoes(i));
+            }
+            return Health.up()
+                    .withDetail("fragmentos", fragmentos.getQuantidade())
+                    .withDetail("mapa", properties.getMapa())
+                    .withDetail("conexoes", conexoes)
+                    .withDetail("chamadasRoteadas", roteamento.getRoteadas())
+                    .withDetail("chamadasDistribuidas", roteamento.getDistribuidas())
+                    .withDetail("reservasLocalizadas", roteamento.getReservasLocalizadas())
+                    .build();
+        };
+    }
+
+    private static List<JdbcTemplate> jdbcTemplates(FragmentoDataSource fragmentos) {
+        List<JdbcTemplate> templates = new ArrayList<>(fragmentos.getQuantidade());
+        for (int i = 0; i < fragmentos.getQuantidade(); i++) {
+            templates.add(new JdbcTemplate(fragmentos.getFragmento(i)));
+        }
+        return templates;
+    }
+}
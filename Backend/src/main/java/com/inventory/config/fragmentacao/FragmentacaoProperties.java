@@ -0,0 +1,95 @@
+package com.inventory.config.fragmentacao;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Configuração da fragmentação do estoque por loja
+ *
+ * O fragmento 0 é o datasource do Spring Boot (spring.datasource.*); {@code fragmentos} lista os
+ * demais, na ordem 1..N. Exemplo:
+ * inventario.fragmentacao.fragmentos[0].url=jdbc:h2:mem:inventorydb_f1
+ * inventario.fragmentacao.mapa.3=1
+ */
+@ConfigurationProperties(prefix = "inventario.fragmentacao")
+public class FragmentacaoProperties {
+
+    /**
+     * Liga o roteamento por loja (desligado = um único datasource, como antes)
+     */
+    private boolean habilitada = false;
+
+    /**
+     * Fragmentos além do datasource padrão
+     */
+    private List<Fragmento> fragmentos = new ArrayList<>();
+
+    /**
+     * lojaId → índice do fragmento; lojas fora do mapa vão para lojaId mod N
+     */
+    private Map<Long, Integer> mapa = new HashMap<>();
+
+    /**
+     * Threads do scatter-gather (0 = uma por fragmento)
+     */
+    private int paralelismo = 0;
+
+    /**
+     * Move para o fragmento certo as linhas que a carga inicial (data.sql) gravou no fragmento 0
+     */
+    private boolean distribuirDadosIniciais = false;
+
+    /**
+     * Número total de fragmentos, incluindo o padrão
+     */
+    public int getQuantidade() {
+        return fragmentos.size() + 1;
+    }
+
+    /**
+     * Fragmento que guarda os dados da loja
+     */
+    public int indice(long lojaId) {
+        Integer mapeado = mapa.get(lojaId);
+        return mapeado != null ? mapeado : (int) Math.floorMod(lojaId, (long) getQuantidade());
+    }
+
+    public boolean isHabilitada() { return habilitada; }
+    public void setHabilitada(boolean habilitada) { this.habilitada = habilitada; }
+
+    public List<Fragmento> getFragmentos() { return fragmentos; }
+    public void setFragmentos(List<Fragmento> fragmentos) { this.fragmentos = fragmentos; }
+
+    public Map<Long, Integer> getMapa() { return mapa; }
+    public void setMapa(Map<Long, Integer> mapa) { this.mapa = mapa; }
+
+    public int getParalelismo() { return paralelismo > 0 ? paralelismo : getQuantidade(); }
+    public void setParalelismo(int paralelismo) { this.paralelismo = paralelismo; }
+
+    public boolean isDistribuirDadosIniciais() { return distribuirDadosIniciais; }
+    public void setDistribuirDadosIniciais(boolean distribuirDadosIniciais) { this.distribuirDadosIniciais = distribuirDadosIniciais; }
+
+    public static class Fragmento {
+
+        private String url;
+        private String username;
+        private String password;
+        private int poolMaximo = 10;
+
+        public String getUrl() { return url; }
+        public void setUrl(String url) { this.url = url; }
+
+        public String getUsername() { return username; }
+        public void setUsername(String username) { this.username = username; }
+
+        public String getPassword() { return password; }
+        public void setPassword(String password) { this.password = password; }
+
+        public int getPoolMaximo() { return poolMaximo; }
+        public void setPoolMaximo(int poolMaximo) { this.poolMaximo = poolMaximo; }
+    }
+}
@@ -0,0 +1,56 @@
+package com.inventory.config.fragmentacao;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Escolhe o datasource do fragmento definido em ContextoFragmento
+ *
+ * Sem contexto (inicialização, componentes fora do roteamento) usa o fragmento 0.
+ * É dono dos pools: fechá-lo fecha todos os fragmentos.
+ */
+public class FragmentoDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    private final List<? extends DataSource> fragmentos;
+    private final AtomicLongArray conexoes;
+
+    public FragmentoDataSource(List<? extends DataSource> fragmentos) {
+        this.fragmentos = fragmentos;
+        this.conexoes = new AtomicLongArray(fragmentos.size());
+        Map<Object, Object> destinos = new HashMap<>();
+        for (int i = 0; i < fragmentos.size(); i++) {
+            destinos.put(i, fragmentos.get(i));
+        }
+        setTargetDataSources(destinos);
+        setDefaultTargetDataSource(fragmentos.get(0));
+        setLenientFallback(false);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Integer fragmento = ContextoFragmento.atual();
+        int destino = fragmento != null ? fragmento : 0;
+        conexoes.incrementAndGet(destino);
+        return destino;
+    }
+
+    public DataSource getFragmento(int fragmento) { return fragmentos.get(fragmento); }
+
+    public int getQuantidade() { return fragmentos.size(); }
+
+    public long getConexoes(int fragmento) { return conexoes.get(fragmento); }
+
+    @Override
+    public void close() throws Exception {
+        for (DataSource fragmento : fragmentos) {
+            if (fragmento instanceof AutoCloseable fechavel) {
+                fechavel.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.inventory.config.fragmentacao;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Prepara os fragmentos 1..N antes dos jobs e da primeira requisição
+ *
+ * 1. Recria em cada fragmento o esquema que o Hibernate/schema.sql criou no fragmento 0 (DDL gerado pelo H2)
+ * 2. Opcionalmente move as linhas da carga inicial (tabelas com loja_id) para o fragmento de cada loja
+ * Fragmentos que já têm as tabelas (bancos persistentes) são mantidos como estão.
+ */
+public class InicializacaoFragmentos implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(InicializacaoFragmentos.class);
+
+    private static final String SQL_TABELAS =
+            "SELECT TABLE_NAME FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_SCHEMA = 'PUBLIC' AND TABLE_TYPE = 'BASE TABLE'";
+
+    private static final String SQL_TABELAS_COM_LOJA =
+            "SELECT TABLE_NAME FROM INFORMATION_SCHEMA.COLUMNS WHERE TABLE_SCHEMA = 'PUBLIC' AND COLUMN_NAME = 'LOJA_ID'";
+
+    private final FragmentacaoProperties properties;
+    private final List<JdbcTemplate> fragmentos;
+
+    public InicializacaoFragmentos(FragmentacaoProperties properties, List<JdbcTemplate> fragmentos) {
+        this.properties = properties;
+        this.fragmentos = fragmentos;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        JdbcTemplate padrao = fragmentos.get(0);
+        List<String> tabelas = padrao.queryForList(SQL_TABELAS, String.class);
+        if (tabelas.isEmpty()) {
+            return;
+        }
+        List<String> ddl = padrao.queryForList(
+                "SCRIPT NODATA NOPASSWORDS NOSETTINGS TABLE " + String.join(", ", tabelas), String.class);
+
+        boolean criados = false;
+        for (int fragmento = 1; fragmento < fragmentos.size(); fragmento++) {
+            JdbcTemplate destino = fragmentos.get(fragmento);
+            if (!destino.queryForList(SQL_TABELAS, String.class).isEmpty()) {
+                logger.info("Fragmento {} já possui esquema; mantido", fragmento);
+                continue;
+            }
+            for (String comando : ddl) {
+                String normalizado = comando.trim().toUpperCase();
+                if (normalizado.startsWith("CREATE USER") || normalizado.startsWith("--")) {
+                    continue;
+                }
+                destino.execute(comando);
+            }
+            criados = true;
+            logger.info("Esquema criado no fragmento {} - Tabelas: {}", fragmento, tabelas.size());
+        }
+
+        if (criados && properties.isDistribuirDadosIniciais()) {
+            distribuir(padrao);
+        }
+    }
+
+    /**
+     * Copia as linhas de cada loja para o seu fragmento e as remove do fragmento 0
+     */
+    private void distribuir(JdbcTemplate padrao) {
+        for (String tabela : padrao.queryForList(SQL_TABELAS_COM_LOJA, String.class)) {
+            List<Long> lojas = padrao.queryForList("SELECT DISTINCT loja_id FROM " + tabela +
+                    " WHERE loja_id IS NOT NULL", Long.class);
+            Map<Integer, Integer> movidas = new HashMap<>();
+            for (Long lojaId : lojas) {
+                int fragmento = properties.indice(lojaId);
+                if (fragmento == 0) {
+                    continue;
+                }
+                List<Map<String, Object>> linhas = padrao.queryForList(
+                        "SELECT * FROM " + tabela + " WHERE loja_id = ?", lojaId);
+                copiar(fragmentos.get(fragmento), tabela, linhas);
+                padrao.update("DELETE FROM " + tabela + " WHERE loja_id = ?", lojaId);
+                movidas.merge(fragmento, linhas.size(), Integer::sum);
+            }
+            if (!movidas.isEmpty()) {
+                logger.info("Carga inicial distribuída - Tabela: {}, Linhas por fragmento: {}", tabela, movidas);
+            }
+        }
+    }
+
+    private static void copiar(JdbcTemplate destino, String tabela, List<Map<String, Object>> linhas) {
+        if (linhas.isEmpty()) {
+            return;
+        }
+        List<String> colunas = new ArrayList<>(linhas.get(0).keySet());
+        String sql = "INSERT INTO " + tabela + " (" + String.join(", ", colunas) + ") VALUES (" +
+                String.join(", ", Collections.nCopies(colunas.size(), "?")) + ")";
+        List<Object[]> lote = new ArrayList<>(linhas.size());
+        for (Map<String, Object> linha : linhas) {
+            Object[] valores = new Object[colunas.size()];
+            for (int c = 0; c < colunas.size(); c++) {
+                valores[c] = linha.get(colunas.get(c));
+            }
+            lote.add(valores);
+        }
+        destino.batchUpdate(sql, lote);
+    }
+}
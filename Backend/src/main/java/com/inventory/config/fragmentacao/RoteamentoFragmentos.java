@@ -0,0 +1,274 @@
+package com.inventory.config.fragmentacao;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Roteia chamadas dos serviços de estoque para o fragmento da loja, antes de abrir a transação
+ *
+ * 1. Parâmetro {@code lojaId} (ou objeto com {@code getLojaId()}): executa no fragmento da loja
+ * 2. Parâmetro {@code reservaId}: localiza o fragmento que guarda a reserva (busca por PK em cada um)
+ * 3. Sem chave de loja: scatter-gather, uma chamada por fragmento em paralelo, cada uma na sua transação;
+ *    listas são concatenadas, contagens somadas, Optional devolve o primeiro presente
+ * Chamadas aninhadas herdam o fragmento já definido.
+ */
+public class RoteamentoFragmentos implements MethodInterceptor, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoteamentoFragmentos.class);
+
+    private static final String SQL_RESERVA = "SELECT (SELECT COUNT(*) FROM reserva WHERE id = ?) + " +
+            "(SELECT COUNT(*) FROM reserva_historico WHERE id = ?)";
+
+    private final FragmentacaoProperties properties;
+    private final List<JdbcTemplate> fragmentos;
+    private final ExecutorService executor;
+    private final Map<Method, Rota> rotas = new ConcurrentHashMap<>();
+
+    private final LongAdder roteadas = new LongAdder();
+    private final LongAdder distribuidas = new LongAdder();
+    private final LongAdder reservasLocalizadas = new LongAdder();
+
+    public RoteamentoFragmentos(FragmentacaoProperties properties, List<JdbcTemplate> fragmentos) {
+        this.properties = properties;
+        this.fragmentos = fragmentos;
+        AtomicInteger contador = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(properties.getParalelismo(), tarefa -> {
+            Thread thread = new Thread(tarefa, "fragmento-" + contador.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocacao) throws Throwable {
+        if (ContextoFragmento.atual() != null) {
+            return invocacao.proceed();
+        }
+        Rota rota = rotas.computeIfAbsent(invocacao.getMethod(), Rota::de);
+        Object argumento = rota.parametro >= 0 ? invocacao.getArguments()[rota.parametro] : null;
+
+        switch (rota.tipo) {
+            case LOJA:
+                roteadas.increment();
+                return executarEm(fragmentoDaLoja((Long) argumento), invocacao);
+            case OBJETO_LOJA:
+                roteadas.increment();
+                Long lojaId = argumento == null ? null : (Long) ReflectionUtils.invokeMethod(rota.acessor, argumento);
+                return executarEm(fragmentoDaLoja(lojaId), invocacao);
+            case RESERVA:
+                reservasLocalizadas.increment();
+                return executarEm(localizarReserva((String) argumento), invocacao);
+            default:
+                distribuidas.increment();
+                return distribuir(invocacao);
+        }
+    }
+
+    /**
+     * Executa a ação uma vez por fragmento, em sequência, com o contexto de cada um
+     * (para componentes JDBC fora dos serviços roteados)
+     */
+    public void emCadaFragmento(IntConsumer acao) {
+        for (int fragmento = 0; fragmento < properties.getQuantidade(); fragmento++) {
+            ContextoFragmento.definir(fragmento);
+            try {
+                acao.accept(fragmento);
+            } finally {
+                ContextoFragmento.limpar();
+            }
+        }
+    }
+
+    /**
+     * Executa a ação no fragmento da loja: transações abertas dentro dela usam o banco desse fragmento
+     * (para quem precisa de uma transação por fragmento, como a alocação de pedidos)
+     */
+    public <T> T naLoja(Long lojaId, Supplier<T> acao) {
+        ContextoFragmento.definir(fragmentoDaLoja(lojaId));
+        try {
+            return acao.get();
+        } finally {
+            ContextoFragmento.limpar();
+        }
+    }
+
+    /**
+     * Índice do fragmento que guarda a loja
+     */
+    public int fragmentoDaLoja(Long lojaId) {
+        return lojaId == null ? 0 : properties.indice(lojaId);
+    }
+
+    /**
+     * Indica se as duas lojas ficam no mesmo fragmento (operações que escrevem nas duas em uma transação)
+     */
+    public boolean mesmoFragmento(Long lojaId, Long outraLojaId) {
+        return fragmentoDaLoja(lojaId) == fragmentoDaLoja(outraLojaId);
+    }
+
+    private int localizarReserva(String reservaId) {
+        if (reservaId != null) {
+            for (int fragmento = 0; fragmento < fragmentos.size(); fragmento++) {
+                Integer encontradas = fragmentos.get(fragmento).queryForObject(SQL_RESERVA, Integer.class, reservaId,
+                        reservaId);
+                if (encontradas != null && encontradas > 0) {
+                    return fragmento;
+                }
+            }
+        }
+        return 0;
+    }
+
+    private static Object executarEm(int fragmento, MethodInvocation invocacao) throws Throwable {
+        ContextoFragmento.definir(fragmento);
+        try {
+            return invocacao.proceed();
+        } finally {
+            ContextoFragmento.limpar();
+        }
+    }
+
+    /**
+     * Fragmentos 1..N-1 no pool, fragmento 0 na thread do chamador
+     */
+    private Object distribuir(MethodInvocation invocacao) throws Throwable {
+        ProxyMethodInvocation original = (ProxyMethodInvocation) invocacao;
+        int quantidade = properties.getQuantidade();
+        List<Future<Object>> pendentes = new ArrayList<>(quantidade - 1);
+        for (int fragmento = 1; fragmento < quantidade; fragmento++) {
+            MethodInvocation copia = original.invocableClone();
+            int destino = fragmento;
+            pendentes.add(executor.submit(() -> {
+                try {
+                    return executarEm(destino, copia);
+                } catch (Exception | Error e) {
+                    throw e;
+                } catch (Throwable t) {
+                    throw new UndeclaredThrowableException(t);
+                }
+            }));
+        }
+
+        List<Object> resultados = new ArrayList<>(quantidade);
+        try {
+            resultados.add(executarEm(0, original.invocableClone()));
+            for (Future<Object> pendente : pendentes) {
+                resultados.add(pendente.get());
+            }
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        } finally {
+            pendentes.forEach(pendente -> pendente.cancel(true));
+        }
+        return combinar(invocacao.getMethod(), resultados);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object combinar(Method metodo, List<Object> resultados) {
+        Class<?> tipo = metodo.getReturnType();
+        if (tipo == void.class) {
+            return null;
+        }
+        if (tipo.isAssignableFrom(ArrayList.class)) {
+            List<Object> todos = new ArrayList<>();
+            for (Object resultado : resultados) {
+                if (resultado != null) {
+                    todos.addAll((Collection<Object>) resultado);
+                }
+            }
+            return todos;
+        }
+        if (tipo == Optional.class) {
+            for (Object resultado : resultados) {
+                if (resultado != null && ((Optional<?>) resultado).isPresent()) {
+                    return resultado;
+                }
+            }
+            return Optional.empty();
+        }
+        if (tipo == long.class || tipo == Long.class) {
+            return resultados.stream().mapToLong(r -> r == null ? 0L : ((Number) r).longValue()).sum();
+        }
+        if (tipo == int.class || tipo == Integer.class) {
+            return resultados.stream().mapToInt(r -> r == null ? 0 : ((Number) r).intValue()).sum();
+        }
+        if (tipo == boolean.class || tipo == Boolean.class) {
+            return resultados.stream().anyMatch(Boolean.TRUE::equals);
+        }
+        throw new IllegalStateException("Resultado de " + metodo.getDeclaringClass().getSimpleName() + "." +
+                metodo.getName() + " não pode ser combinado entre fragmentos");
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    public long getRoteadas() { return roteadas.sum(); }
+    public long getDistribuidas() { return distribuidas.sum(); }
+    public long getReservasLocalizadas() { return reservasLocalizadas.sum(); }
+
+    /**
+     * Como extrair a chave de fragmentação de um método (resolvido uma vez por método)
+     */
+    private static final class Rota {
+
+        enum Tipo { LOJA, OBJETO_LOJA, RESERVA, TODOS }
+
+        final Tipo tipo;
+        final int parametro;
+        final Method acessor;
+
+        private Rota(Tipo tipo, int parametro, Method acessor) {
+            this.tipo = tipo;
+            this.parametro = parametro;
+            this.acessor = acessor;
+        }
+
+        static Rota de(Method metodo) {
+            Parameter[] parametros = metodo.getParameters();
+            for (int i = 0; i < parametros.length; i++) {
+                if (parametros[i].getName().equals("lojaId") && parametros[i].getType() == Long.class) {
+                    return new Rota(Tipo.LOJA, i, null);
+                }
+            }
+            for (int i = 0; i < parametros.length; i++) {
+                Method acessor = ReflectionUtils.findMethod(parametros[i].getType(), "getLojaId");
+                if (acessor != null && acessor.getReturnType() == Long.class) {
+                    return new Rota(Tipo.OBJETO_LOJA, i, acessor);
+                }
+            }
+            for (int i = 0; i < parametros.length; i++) {
+                if (parametros[i].getName().equals("reservaId") && parametros[i].getType() == String.class) {
+                    return new Rota(Tipo.RESERVA, i, null);
+                }
+            }
+            logger.debug("Método sem chave de loja, executado em todos os fragmentos: {}", metodo);
+            return new Rota(Tipo.TODOS, -1, null);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.inventory.config.latencia;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.LoggerFactory;
+import org.slf4j.Marker;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+
+/**
+ * Conta, por requisição medida, os eventos de log que passam do nível configurado
+ *
+ * Não altera a decisão do logback (sempre NEUTRAL); o nível efetivo é lido direto do logger porque
+ * isEnabledFor passaria de novo pelos turbo filters.
+ */
+public class ContagemLogLatencia extends TurboFilter implements SmartInitializingSingleton, DisposableBean {
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        PerfilRequisicao perfil = ContextoLatencia.atual();
+        if (perfil != null && logger != null && level != null && level.isGreaterOrEqual(logger.getEffectiveLevel())) {
+            perfil.eventoLog();
+        }
+        return FilterReply.NEUTRAL;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (LoggerFactory.getILoggerFactory() instanceof LoggerContext contexto) {
+            setName("contagem-log-latencia");
+            setContext(contexto);
+            start();
+            contexto.addTurboFilter(this);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (LoggerFactory.getILoggerFactory() instanceof LoggerContext contexto) {
+            contexto.getTurboFilterList().remove(this);
+        }
+        stop();
+    }
+}
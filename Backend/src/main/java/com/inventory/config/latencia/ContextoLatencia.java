@@ -0,0 +1,24 @@
+package com.inventory.config.latencia;
+
+/**
+ * Perfil da requisição em andamento na thread (null fora de requisições medidas)
+ */
+public final class ContextoLatencia {
+
+    private static final ThreadLocal<PerfilRequisicao> PERFIL = new ThreadLocal<>();
+
+    private ContextoLatencia() {
+    }
+
+    public static PerfilRequisicao atual() {
+        return PERFIL.get();
+    }
+
+    static void definir(PerfilRequisicao perfil) {
+        PERFIL.set(perfil);
+    }
+
+    static void limpar() {
+        PERFIL.remove();
+    }
+}
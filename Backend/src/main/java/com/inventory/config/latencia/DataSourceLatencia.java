@@ -0,0 +1,178 @@
+package com.inventory.config.latencia;
+
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+
+/**
+ * Datasource que mede, dentro de requisições medidas, a obtenção de conexões e cada execução de comando
+ *
+ * Conexões obtidas fora de uma requisição (jobs, listeners) saem sem instrumentação. Os comandos guardam
+ * os parâmetros passados aos setters; ResultSets não são interceptados.
+ */
+public class DataSourceLatencia extends DelegatingDataSource {
+
+    private static final Object[] SEM_PARAMETROS = new Object[0];
+
+    public DataSourceLatencia(DataSource alvo) {
+        super(alvo);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        PerfilRequisicao perfil = ContextoLatencia.atual();
+        if (perfil == null) {
+            return super.getConnection();
+        }
+        long inicio = System.nanoTime();
+        Connection conexao = super.getConnection();
+        perfil.conexao(System.nanoTime() - inicio);
+        return instrumentar(conexao, perfil);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        PerfilRequisicao perfil = ContextoLatencia.atual();
+        if (perfil == null) {
+            return super.getConnection(username, password);
+        }
+        long inicio = System.nanoTime();
+        Connection conexao = super.getConnection(username, password);
+        perfil.conexao(System.nanoTime() - inicio);
+        return instrumentar(conexao, perfil);
+    }
+
+    private static Connection instrumentar(Connection conexao, PerfilRequisicao perfil) {
+        return (Connection) Proxy.newProxyInstance(ConnectionProxy.class.getClassLoader(),
+                new Class<?>[]{ConnectionProxy.class}, new ConexaoMedida(conexao, perfil));
+    }
+
+    private static Object invocar(Object alvo, Method metodo, Object[] args) throws Throwable {
+        try {
+            return metodo.invoke(alvo, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    /**
+     * Conexão que devolve comandos medidos
+     */
+    private static final class ConexaoMedida implements InvocationHandler {
+
+        private final Connection alvo;
+        private final PerfilRequisicao perfil;
+
+        private ConexaoMedida(Connection alvo, PerfilRequisicao perfil) {
+            this.alvo = alvo;
+            this.perfil = perfil;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method metodo, Object[] args) throws Throwable {
+            switch (metodo.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "getTargetConnection":
+                    return alvo;
+                default:
+                    break;
+            }
+            Object resultado = invocar(alvo, metodo, args);
+            if (resultado instanceof Statement comando && metodo.getReturnType().isInterface()) {
+                String sql = args != null && args.length > 0 && args[0] instanceof String texto ? texto : null;
+                return Proxy.newProxyInstance(ConnectionProxy.class.getClassLoader(),
+                        new Class<?>[]{metodo.getReturnType()}, new ComandoMedido(comando, sql, perfil));
+            }
+            return resultado;
+        }
+    }
+
+    /**
+     * Comando que registra parâmetros e mede as execuções
+     */
+    private static final class ComandoMedido implements InvocationHandler {
+
+        private final Statement alvo;
+        private final PerfilRequisicao perfil;
+        private String sql;
+        private Object[] parametros = SEM_PARAMETROS;
+        private int quantidadeParametros;
+        private Object[] primeiraLinhaLote;
+        private int lote;
+
+        private ComandoMedido(Statement alvo, String sql, PerfilRequisicao perfil) {
+            this.alvo = alvo;
+            this.sql = sql;
+            this.perfil = perfil;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method metodo, Object[] args) throws Throwable {
+            String nome = metodo.getName();
+            if (nome.startsWith("execute")) {
+                return executar(metodo, args, nome.endsWith("Batch"));
+            }
+            if (args != null && args.length >= 2 && args[0] instanceof Integer indice && nome.startsWith("set")) {
+                parametro(indice, nome.equals("setNull") ? null : args[1]);
+            } else if (nome.equals("clearParameters")) {
+                quantidadeParametros = 0;
+            } else if (nome.equals("addBatch")) {
+                if (args != null && args.length == 1) {
+                    sql = (String) args[0];
+                }
+                if (lote++ == 0) {
+                    primeiraLinhaLote = copiarParametros();
+                }
+            } else if (nome.equals("equals")) {
+                return proxy == args[0];
+            } else if (nome.equals("hashCode")) {
+                return System.identityHashCode(proxy);
+            }
+            return invocar(alvo, metodo, args);
+        }
+
+        private Object executar(Method metodo, Object[] args, boolean emLote) throws Throwable {
+            String texto = args != null && args.length > 0 && args[0] instanceof String comando ? comando : sql;
+            long inicio = System.nanoTime();
+            try {
+                return invocar(alvo, metodo, args);
+            } finally {
+                long nanos = System.nanoTime() - inicio;
+                if (emLote) {
+                    perfil.comando(texto, primeiraLinhaLote, Math.max(lote, 1), nanos);
+                    lote = 0;
+                    primeiraLinhaLote = null;
+                } else {
+                    perfil.comando(texto, copiarParametros(), 0, nanos);
+                }
+            }
+        }
+
+        private void parametro(int indice, Object valor) {
+            if (indice < 1) {
+                return;
+            }
+            if (indice > parametros.length) {
+                parametros = Arrays.copyOf(parametros, Math.max(indice, parametros.length * 2));
+            }
+            parametros[indice - 1] = valor;
+            quantidadeParametros = Math.max(quantidadeParametros, indice);
+        }
+
+        private Object[] copiarParametros() {
+            return perfil.guardandoComandos() ? Arrays.copyOf(parametros, quantidadeParametros) : null;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.inventory.config.latencia;
+
+import org.hibernate.BaseSessionEventListener;
+
+/**
+ * Métricas de sessão do Hibernate: flushes completos (commit) e parciais (auto flush antes de consultas)
+ *
+ * Uma instância por sessão, criada pelo Hibernate (hibernate.session.events.auto).
+ */
+public class EventosSessaoLatencia extends BaseSessionEventListener {
+
+    @Override
+    public void flushStart() {
+        iniciar();
+    }
+
+    @Override
+    public void flushEnd(int entidades, int colecoes) {
+        encerrar();
+    }
+
+    @Override
+    public void partialFlushStart() {
+        iniciar();
+    }
+
+    @Override
+    public void partialFlushEnd(int entidades, int colecoes) {
+        encerrar();
+    }
+
+    private static void iniciar() {
+        PerfilRequisicao perfil = ContextoLatencia.atual();
+        if (perfil != null) {
+            perfil.inicioFlush();
+        }
+    }
+
+    private static void encerrar() {
+        PerfilRequisicao perfil = ContextoLatencia.atual();
+        if (perfil != null) {
+            perfil.fimFlush();
+        }
+    }
+}
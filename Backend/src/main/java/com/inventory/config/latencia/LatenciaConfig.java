@@ -0,0 +1,64 @@
+package com.inventory.config.latencia;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Medição de latência por fase das requisições da API, exposta em /actuator/latencia
+ *
+ * Fases: obtenção de conexão e execução de comandos (datasource principal), flush do Hibernate (métricas de
+ * sessão), serialização das respostas tipadas e eventos de log; o restante fica em "outros".
+ * Desligada com inventario.latencia.habilitada=false.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "inventario.latencia", name = "habilitada", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(LatenciaProperties.class)
+public class LatenciaConfig {
+
+    /**
+     * Envolve o datasource usado por JPA e JdbcTemplate (com réplica ou fragmentação, o roteador)
+     */
+    @Bean
+    public static BeanPostProcessor dataSourceLatenciaPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String nome) {
+                return "dataSource".equals(nome) && bean instanceof DataSource dataSource
+                        && !(bean instanceof DataSourceLatencia) ? new DataSourceLatencia(dataSource) : bean;
+            }
+        };
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer eventosSessaoLatencia() {
+        return propriedades -> propriedades.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER,
+                EventosSessaoLatencia.class.getName());
+    }
+
+    @Bean
+    public RegistroLatencia registroLatencia(LatenciaProperties properties) {
+        return new RegistroLatencia(properties);
+    }
+
+    @Bean
+    public LatenciaFilter latenciaFilter(RegistroLatencia registro, LatenciaProperties properties) {
+        return new LatenciaFilter(registro, properties.getComandosPorRequisicao());
+    }
+
+    @Bean
+    public ContagemLogLatencia contagemLogLatencia() {
+        return new ContagemLogLatencia();
+    }
+
+    @Bean
+    public LatenciaEndpoint latenciaEndpoint(RegistroLatencia registro, LatenciaProperties properties) {
+        return new LatenciaEndpoint(registro, properties);
+    }
+}
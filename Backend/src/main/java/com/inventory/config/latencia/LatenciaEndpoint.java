@@ -0,0 +1,48 @@
+package com.inventory.config.latencia;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+
+import java.util.List;
+
+/**
+ * /actuator/latencia: requisições lentas recentes (fases, SQL e parâmetros) e alertas de N+1
+ *
+ * DELETE limpa as requisições e os alertas guardados.
+ */
+@Endpoint(id = "latencia")
+public class LatenciaEndpoint {
+
+    private static final int LIMITE_PADRAO = 20;
+
+    private final RegistroLatencia registro;
+    private final LatenciaProperties properties;
+
+    public LatenciaEndpoint(RegistroLatencia registro, LatenciaProperties properties) {
+        this.registro = registro;
+        this.properties = properties;
+    }
+
+    @ReadOperation
+    public Relatorio relatorio(@Nullable Integer limite) {
+        int maximo = limite == null || limite <= 0 ? LIMITE_PADRAO : limite;
+        return new Relatorio(properties.getLentaMs(), properties.getJanelaMs(), registro.getRequisicoes(),
+                registro.getRequisicoesLentas(), registro.getRequisicoesComNMais1(), registro.lentas(maximo),
+                registro.alertas());
+    }
+
+    @DeleteOperation
+    public void limpar() {
+        registro.limpar();
+    }
+
+    /**
+     * Totais desde a subida e as requisições mais lentas da janela
+     */
+    public record Relatorio(long lentaMs, long janelaMs, long requisicoes, long requisicoesLentas,
+                            long requisicoesComNMais1, List<RegistroLatencia.RequisicaoLenta> maisLentas,
+                            List<RegistroLatencia.AlertaNMais1> alertasNMais1) {
+    }
+}
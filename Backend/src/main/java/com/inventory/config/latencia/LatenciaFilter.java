@@ -0,0 +1,49 @@
+package com.inventory.config.latencia;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Abre o perfil de cada requisição da API e o entrega ao registro quando a resposta termina
+ *
+ * O total vai do início do filtro ao fim da escrita da resposta; trabalho em outras threads
+ * (scatter-gather dos fragmentos, tarefas @Async) aparece só como espera em "outros".
+ */
+public class LatenciaFilter extends OncePerRequestFilter {
+
+    private final RegistroLatencia registro;
+    private final int comandosPorRequisicao;
+
+    public LatenciaFilter(RegistroLatencia registro, int comandosPorRequisicao) {
+        this.registro = registro;
+        this.comandosPorRequisicao = comandosPorRequisicao;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        PerfilRequisicao perfil = new PerfilRequisicao(comandosPorRequisicao);
+        ContextoLatencia.definir(perfil);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ContextoLatencia.limpar();
+            String uri = request.getQueryString() == null ? request.getRequestURI()
+                    : request.getRequestURI() + "?" + request.getQueryString();
+            Object rota = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            registro.registrar(request.getMethod(), uri, rota != null ? rota.toString() : null, response.getStatus(),
+                    perfil);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.inventory.config.latencia;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuração da medição de latência por requisição
+ *
+ * Exemplo: inventario.latencia.lenta-ms=50
+ */
+@ConfigurationProperties(prefix = "inventario.latencia")
+public class LatenciaProperties {
+
+    /**
+     * Liga a medição das fases (desligada = datasource, Hibernate e filtros sem instrumentação)
+     */
+    private boolean habilitada = true;
+
+    /**
+     * Requisições a partir desse tempo entram na lista de lentas, com os comandos SQL
+     */
+    private long lentaMs = 100;
+
+    /**
+     * Requisições lentas guardadas (as mais antigas saem primeiro)
+     */
+    private int capacidade = 50;
+
+    /**
+     * Idade máxima das requisições lentas exibidas
+     */
+    private long janelaMs = 900_000;
+
+    /**
+     * Comandos SQL guardados por requisição; os seguintes só entram nos totais
+     */
+    private int comandosPorRequisicao = 100;
+
+    /**
+     * Execuções do mesmo SELECT em uma requisição a partir das quais há alerta de N+1
+     */
+    private int repeticoesNMais1 = 10;
+
+    /**
+     * Alertas de N+1 distintos (rota + SQL) guardados; os menos recentes saem primeiro
+     */
+    private int alertasMaximos = 100;
+
+    public boolean isHabilitada() { return habilitada; }
+    public void setHabilitada(boolean habilitada) { this.habilitada = habilitada; }
+
+    public long getLentaMs() { return lentaMs; }
+    public void setLentaMs(long lentaMs) { this.lentaMs = lentaMs; }
+
+    public int getCapacidade() { return capacidade; }
+    public void setCapacidade(int capacidade) { this.capacidade = capacidade; }
+
+    public long getJanelaMs() { return janelaMs; }
+    public void setJanelaMs(long janelaMs) { this.janelaMs = janelaMs; }
+
+    public int getComandosPorRequisicao() { return comandosPorRequisicao; }
+    public void setComandosPorRequisicao(int comandosPorRequisicao) { this.comandosPorRequisicao = comandosPorRequisicao; }
+
+    public int getRepeticoesNMais1() { return repeticoesNMais1; }
+    public void setRepeticoesNMais1(int repeticoesNMais1) { this.repeticoesNMais1 = repeticoesNMais1; }
+
+    public int getAlertasMaximos() { return alertasMaximos; }
+    public void setAlertasMaximos(int alertasMaximos) { this.alertasMaximos = alertasMaximos; }
+}
@@ -0,0 +1,118 @@
+package com.inventory.config.latencia;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tempos por fase de uma requisição, acumulados pela própria thread (sem sincronização)
+ *
+ * SQL executado durante um flush conta em SQL; o flush guarda só o trabalho do Hibernate (dirty checking,
+ * montagem dos comandos). Os comandos guardam os parâmetros como vieram do driver: só viram texto se a
+ * requisição entrar na lista de lentas.
+ */
+public final class PerfilRequisicao {
+
+    private final long inicio = System.nanoTime();
+    private final int maximoComandos;
+    private final List<Comando> comandos = new ArrayList<>();
+    // SELECT → execuções na requisição (detecção de N+1)
+    private final Map<String, Integer> consultas = new HashMap<>();
+
+    private int totalComandos;
+    private long sqlNanos;
+    private long sqlEmFlushNanos;
+    private int conexoes;
+    private long conexaoNanos;
+    private int flushes;
+    private long flushNanos;
+    private int profundidadeFlush;
+    private long inicioFlush;
+    private long serializacaoNanos;
+    private int eventosLog;
+
+    PerfilRequisicao(int maximoComandos) {
+        this.maximoComandos = maximoComandos;
+    }
+
+    /**
+     * Indica se o próximo comando ainda será guardado (e vale copiar os parâmetros)
+     */
+    boolean guardandoComandos() {
+        return comandos.size() < maximoComandos;
+    }
+
+    /**
+     * Execução de um comando; {@code lote} é o número de linhas de um executeBatch (0 fora de lote)
+     */
+    void comando(String sql, Object[] parametros, int lote, long nanos) {
+        totalComandos++;
+        sqlNanos += nanos;
+        if (profundidadeFlush > 0) {
+            sqlEmFlushNanos += nanos;
+        }
+        if (guardandoComandos()) {
+            comandos.add(new Comando(sql, parametros, lote, nanos));
+        }
+        if (lote == 0 && sql != null && isConsulta(sql)) {
+            consultas.merge(sql, 1, Integer::sum);
+        }
+    }
+
+    void conexao(long nanos) {
+        conexoes++;
+        conexaoNanos += nanos;
+    }
+
+    void inicioFlush() {
+        if (profundidadeFlush++ == 0) {
+            inicioFlush = System.nanoTime();
+            sqlEmFlushNanos = 0;
+        }
+    }
+
+    void fimFlush() {
+        if (profundidadeFlush > 0 && --profundidadeFlush == 0) {
+            flushes++;
+            flushNanos += Math.max(0, System.nanoTime() - inicioFlush - sqlEmFlushNanos);
+        }
+    }
+
+    /**
+     * Tempo de um conversor de resposta (serialização e escrita no buffer da resposta)
+     */
+    public void serializacao(long nanos) {
+        serializacaoNanos += nanos;
+    }
+
+    void eventoLog() {
+        eventosLog++;
+    }
+
+    long getInicio() { return inicio; }
+    List<Comando> getComandos() { return comandos; }
+    Map<String, Integer> getConsultas() { return consultas; }
+    int getTotalComandos() { return totalComandos; }
+    long getSqlNanos() { return sqlNanos; }
+    int getConexoes() { return conexoes; }
+    long getConexaoNanos() { return conexaoNanos; }
+    int getFlushes() { return flushes; }
+    long getFlushNanos() { return flushNanos; }
+    long getSerializacaoNanos() { return serializacaoNanos; }
+    int getEventosLog() { return eventosLog; }
+
+    private static boolean isConsulta(String sql) {
+        int i = 0;
+        while (i < sql.length() && Character.isWhitespace(sql.charAt(i))) {
+            i++;
+        }
+        return sql.regionMatches(true, i, "select", 0, 6);
+    }
+
+    /**
+     * Comando executado, com os parâmetros como foram passados ao driver (primeira linha, em lotes)
+     */
+    record Comando(String sql, Object[] parametros, int lote, long nanos) {
+    }
+}
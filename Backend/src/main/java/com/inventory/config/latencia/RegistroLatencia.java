@@ -0,0 +1,233 @@
+package com.inventory.config.latencia;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Requisições lentas recentes e alertas de N+1, em memória fixa
+ *
+ * Toda requisição medida conta nos totais; só as lentas viram registro (parâmetros formatados como texto
+ * nesse momento), num anel de tamanho fixo. Um SELECT repetido muitas vezes na mesma requisição gera um
+ * alerta por rota e SQL, com aviso no log na primeira ocorrência.
+ */
+public class RegistroLatencia {
+
+    private static final Logger logger = LoggerFactory.getLogger(RegistroLatencia.class);
+
+    private static final int TAMANHO_MAXIMO_PARAMETRO = 60;
+    private static final int ELEMENTOS_ARRAY = 5;
+
+    private final LatenciaProperties properties;
+    private final long lentaNanos;
+    private final RequisicaoLenta[] lentas;
+    private final long[] instantesLentas;
+    private int proxima;
+    private final Map<String, AlertaNMais1> alertas;
+    private final LongAdder requisicoes = new LongAdder();
+    private final LongAdder requisicoesLentas = new LongAdder();
+    private final LongAdder requisicoesComNMais1 = new LongAdder();
+
+    public RegistroLatencia(LatenciaProperties properties) {
+        this.properties = properties;
+        this.lentaNanos = properties.getLentaMs() * 1_000_000;
+        this.lentas = new RequisicaoLenta[properties.getCapacidade()];
+        this.instantesLentas = new long[properties.getCapacidade()];
+        int alertasMaximos = properties.getAlertasMaximos();
+        this.alertas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, AlertaNMais1> maisAntigo) {
+                return size() > alertasMaximos;
+            }
+        };
+    }
+
+    /**
+     * Fecha o perfil da requisição; {@code rota} é o padrão do mapeamento (null se nenhum handler atendeu)
+     */
+    public void registrar(String metodo, String uri, String rota, int status, PerfilRequisicao perfil) {
+        long totalNanos = System.nanoTime() - perfil.getInicio();
+        requisicoes.increment();
+
+        List<Repeticao> repeticoes = repeticoes(perfil);
+        if (!repeticoes.isEmpty()) {
+            requisicoesComNMais1.increment();
+            alertar(metodo + " " + (rota != null ? rota : uri), repeticoes);
+        }
+        if (totalNanos < lentaNanos) {
+            return;
+        }
+        requisicoesLentas.increment();
+
+        long medidoNanos = perfil.getConexaoNanos() + perfil.getSqlNanos() + perfil.getFlushNanos()
+                + perfil.getSerializacaoNanos();
+        Fases fases = new Fases(ms(perfil.getConexaoNanos()), perfil.getConexoes(), ms(perfil.getSqlNanos()),
+                perfil.getTotalComandos(), ms(perfil.getFlushNanos()), perfil.getFlushes(),
+                ms(perfil.getSerializacaoNanos()), ms(Math.max(0, totalNanos - medidoNanos)), perfil.getEventosLog());
+        List<ComandoSql> comandos = new ArrayList<>(perfil.getComandos().size());
+        for (PerfilRequisicao.Comando comando : perfil.getComandos()) {
+            comandos.add(new ComandoSql(comando.sql(), parametros(comando.parametros()), comando.lote(),
+                    ms(comando.nanos())));
+        }
+        RequisicaoLenta lenta = new RequisicaoLenta(LocalDateTime.now(), metodo, uri, status, ms(totalNanos), fases,
+                comandos, perfil.getTotalComandos() - comandos.size(), repeticoes);
+        synchronized (lentas) {
+            lentas[proxima] = lenta;
+            instantesLentas[proxima] = System.currentTimeMillis();
+            proxima = (proxima + 1) % lentas.length;
+        }
+    }
+
+    /**
+     * Requisições lentas dentro da janela, da mais lenta para a mais rápida
+     */
+    public List<RequisicaoLenta> lentas(int limite) {
+        long desde = System.currentTimeMillis() - properties.getJanelaMs();
+        List<RequisicaoLenta> recentes = new ArrayList<>();
+        synchronized (lentas) {
+            for (int i = 0; i < lentas.length; i++) {
+                if (lentas[i] != null && instantesLentas[i] >= desde) {
+                    recentes.add(lentas[i]);
+                }
+            }
+        }
+        recentes.sort(Comparator.comparingDouble(RequisicaoLenta::totalMs).reversed());
+        return recentes.size() > limite ? recentes.subList(0, limite) : recentes;
+    }
+
+    /**
+     * Alertas de N+1, do mais frequente para o menos
+     */
+    public List<AlertaNMais1> alertas() {
+        List<AlertaNMais1> lista;
+        synchronized (alertas) {
+            lista = new ArrayList<>(alertas.values());
+        }
+        lista.sort(Comparator.comparingLong(AlertaNMais1::ocorrencias).reversed());
+        return lista;
+    }
+
+    public void limpar() {
+        synchronized (lentas) {
+            Arrays.fill(lentas, null);
+            proxima = 0;
+        }
+        synchronized (alertas) {
+            alertas.clear();
+        }
+    }
+
+    public long getRequisicoes() { return requisicoes.sum(); }
+    public long getRequisicoesLentas() { return requisicoesLentas.sum(); }
+    public long getRequisicoesComNMais1() { return requisicoesComNMais1.sum(); }
+
+    private List<Repeticao> repeticoes(PerfilRequisicao perfil) {
+        List<Repeticao> repeticoes = null;
+        for (Map.Entry<String, Integer> consulta : perfil.getConsultas().entrySet()) {
+            if (consulta.getValue() >= properties.getRepeticoesNMais1()) {
+                if (repeticoes == null) {
+                    repeticoes = new ArrayList<>();
+                }
+                repeticoes.add(new Repeticao(consulta.getKey(), consulta.getValue()));
+            }
+        }
+        return repeticoes == null ? List.of() : repeticoes;
+    }
+
+    private void alertar(String rota, List<Repeticao> repeticoes) {
+        for (Repeticao repeticao : repeticoes) {
+            boolean novo;
+            synchronized (alertas) {
+                AlertaNMais1 anterior = alertas.get(rota + '\n' + repeticao.sql());
+                novo = anterior == null;
+                alertas.put(rota + '\n' + repeticao.sql(), novo
+                        ? new AlertaNMais1(rota, repeticao.sql(), repeticao.execucoes(), 1, LocalDateTime.now())
+                        : anterior.somar(repeticao.execucoes()));
+            }
+            if (novo) {
+                logger.warn("Possível N+1 em {} - {} execuções na mesma requisição de: {}",
+                           rota, repeticao.execucoes(), repeticao.sql());
+            }
+        }
+    }
+
+    private static List<String> parametros(Object[] valores) {
+        if (valores == null) {
+            return null;
+        }
+        List<String> texto = new ArrayList<>(valores.length);
+        for (Object valor : valores) {
+            texto.add(formatar(valor));
+        }
+        return texto;
+    }
+
+    private static String formatar(Object valor) {
+        if (valor == null) {
+            return "null";
+        }
+        if (valor instanceof byte[] bytes) {
+            return "<" + bytes.length + " bytes>";
+        }
+        if (valor instanceof Object[] array) {
+            StringBuilder texto = new StringBuilder("[");
+            for (int i = 0; i < Math.min(array.length, ELEMENTOS_ARRAY); i++) {
+                texto.append(i > 0 ? ", " : "").append(array[i]);
+            }
+            return texto.append(array.length > ELEMENTOS_ARRAY ? ", ... (" + array.length + ")]" : "]").toString();
+        }
+        String texto = valor instanceof CharSequence ? "'" + valor + "'" : String.valueOf(valor);
+        return texto.length() > TAMANHO_MAXIMO_PARAMETRO ? texto.substring(0, TAMANHO_MAXIMO_PARAMETRO) + "..." : texto;
+    }
+
+    private static double ms(long nanos) {
+        return Math.round(nanos / 10_000.0) / 100.0;
+    }
+
+    /**
+     * Requisição acima do limite com as fases, os comandos executados e as consultas repetidas
+     */
+    public record RequisicaoLenta(LocalDateTime instante, String metodo, String uri, int status, double totalMs,
+                                  Fases fases, List<ComandoSql> comandos, int comandosOmitidos,
+                                  List<Repeticao> repeticoes) {
+    }
+
+    /**
+     * Tempo por fase; {@code outrosMs} é o restante (código da aplicação, logging, espera de locks fora do banco)
+     */
+    public record Fases(double conexaoMs, int conexoes, double sqlMs, int comandosSql, double flushMs, int flushes,
+                        double serializacaoMs, double outrosMs, int eventosLog) {
+    }
+
+    /**
+     * Comando executado; {@code lote} é o número de linhas de um executeBatch (parâmetros da primeira)
+     */
+    public record ComandoSql(String sql, List<String> parametros, int lote, double ms) {
+    }
+
+    /**
+     * SELECT executado várias vezes na mesma requisição
+     */
+    public record Repeticao(String sql, int execucoes) {
+    }
+
+    /**
+     * SELECT repetido em uma rota: maior repetição vista e requisições afetadas
+     */
+    public record AlertaNMais1(String rota, String sql, int maiorRepeticao, long ocorrencias,
+                               LocalDateTime ultimaOcorrencia) {
+
+        AlertaNMais1 somar(int execucoes) {
+            return new AlertaNMais1(rota, sql, Math.max(maiorRepeticao, execucoes), ocorrencias + 1,
+                    LocalDateTime.now());
+        }
+    }
+}
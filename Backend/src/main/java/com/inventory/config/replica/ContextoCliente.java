@@ -0,0 +1,24 @@
+package com.inventory.config.replica;
+
+/**
+ * Cliente associado à requisição corrente (thread da requisição)
+ */
+public final class ContextoCliente {
+
+    private static final ThreadLocal<String> CLIENTE = new ThreadLocal<>();
+
+    private ContextoCliente() {
+    }
+
+    public static String atual() {
+        return CLIENTE.get();
+    }
+
+    static void definir(String clienteId) {
+        CLIENTE.set(clienteId);
+    }
+
+    static void limpar() {
+        CLIENTE.remove();
+    }
+}
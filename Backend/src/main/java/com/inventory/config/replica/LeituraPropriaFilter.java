@@ -0,0 +1,50 @@
+package com.inventory.config.replica;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Associa a requisição ao cliente informado no cabeçalho e registra suas escritas
+ *
+ * A escrita é registrada depois que a requisição termina (transação já confirmada),
+ * então o instante registrado nunca é anterior ao commit.
+ */
+public class LeituraPropriaFilter extends OncePerRequestFilter {
+
+    private final MonitorReplica monitor;
+    private final String cabecalho;
+
+    public LeituraPropriaFilter(MonitorReplica monitor, String cabecalho) {
+        this.monitor = monitor;
+        this.cabecalho = cabecalho;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String clienteId = request.getHeader(cabecalho);
+        if (clienteId == null || clienteId.isBlank()) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        ContextoCliente.definir(clienteId);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ContextoCliente.limpar();
+            if (isEscrita(request.getMethod())) {
+                monitor.registrarEscrita(clienteId);
+            }
+        }
+    }
+
+    private static boolean isEscrita(String metodo) {
+        return !"GET".equals(metodo) && !"HEAD".equals(metodo) && !"OPTIONS".equals(metodo);
+    }
+}
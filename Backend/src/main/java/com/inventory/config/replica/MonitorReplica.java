@@ -0,0 +1,131 @@
+package com.inventory.config.replica;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Mede o atraso da réplica e controla a leitura das próprias escritas
+ *
+ * O primário grava um heartbeat (epoch ms) a cada intervalo; o valor lido na réplica indica
+ * até que instante ela já recebeu as alterações. Uma escrita do cliente feita no instante t
+ * só é visível na réplica quando o heartbeat replicado for maior ou igual a t.
+ */
+public class MonitorReplica {
+
+    private static final Logger logger = LoggerFactory.getLogger(MonitorReplica.class);
+
+    static final String TABELA_HEARTBEAT = "replica_heartbeat";
+
+    private static final String SQL_CRIAR =
+            "CREATE TABLE IF NOT EXISTS " + TABELA_HEARTBEAT + " (id INT PRIMARY KEY, instante BIGINT NOT NULL)";
+    private static final String SQL_ATUALIZAR =
+            "UPDATE " + TABELA_HEARTBEAT + " SET instante = ? WHERE id = 1";
+    private static final String SQL_INSERIR =
+            "INSERT INTO " + TABELA_HEARTBEAT + " (id, instante) VALUES (1, ?)";
+    private static final String SQL_LER =
+            "SELECT instante FROM " + TABELA_HEARTBEAT + " WHERE id = 1";
+
+    private final JdbcTemplate primario;
+    private final JdbcTemplate replica;
+    private final long atrasoMaximoMs;
+
+    /**
+     * clienteId → instante da última escrita ainda não confirmada na réplica
+     */
+    private final ConcurrentHashMap<String, Long> escritasPendentes = new ConcurrentHashMap<>();
+
+    private volatile long heartbeatReplica = -1;
+    private volatile long atrasoMs = Long.MAX_VALUE;
+
+    public MonitorReplica(DataSource primario, DataSource replica, long atrasoMaximoMs) {
+        this.primario = new JdbcTemplate(primario);
+        this.replica = new JdbcTemplate(replica);
+        this.atrasoMaximoMs = atrasoMaximoMs;
+    }
+
+    @PostConstruct
+    public void criarTabelaHeartbeat() {
+        primario.execute(SQL_CRIAR);
+        gravarHeartbeat();
+    }
+
+    /**
+     * Grava o heartbeat no primário e lê o valor replicado
+     */
+    @Scheduled(fixedDelayString = "${inventario.replica.heartbeat-ms:1000}")
+    public void verificar() {
+        gravarHeartbeat();
+        medirAtraso();
+    }
+
+    private void gravarHeartbeat() {
+        long agora = System.currentTimeMillis();
+        if (primario.update(SQL_ATUALIZAR, agora) == 0) {
+            primario.update(SQL_INSERIR, agora);
+        }
+    }
+
+    private void medirAtraso() {
+        try {
+            List<Long> valores = replica.queryForList(SQL_LER, Long.class);
+            if (valores.isEmpty()) {
+                marcarIndisponivel();
+                return;
+            }
+            long heartbeat = valores.get(0);
+            boolean estavaForaDoLimite = !replicaDentroDoLimite();
+            heartbeatReplica = heartbeat;
+            atrasoMs = Math.max(0, System.currentTimeMillis() - heartbeat);
+            escritasPendentes.values().removeIf(instante -> instante <= heartbeat);
+
+            if (estavaForaDoLimite && replicaDentroDoLimite()) {
+                logger.info("Réplica dentro do limite de atraso - Atraso: {}ms", atrasoMs);
+            } else if (!replicaDentroDoLimite()) {
+                logger.warn("Réplica atrasada, leituras no primário - Atraso: {}ms, Limite: {}ms",
+                        atrasoMs, atrasoMaximoMs);
+            }
+        } catch (DataAccessException e) {
+            logger.debug("Heartbeat indisponível na réplica: {}", e.getMessage());
+            marcarIndisponivel();
+        }
+    }
+
+    private void marcarIndisponivel() {
+        heartbeatReplica = -1;
+        atrasoMs = Long.MAX_VALUE;
+    }
+
+    /**
+     * Registra uma escrita do cliente; suas leituras ficam no primário até a réplica alcançá-la
+     */
+    public void registrarEscrita(String clienteId) {
+        if (clienteId != null) {
+            escritasPendentes.merge(clienteId, System.currentTimeMillis(), Math::max);
+        }
+    }
+
+    public boolean possuiEscritaNaoReplicada(String clienteId) {
+        if (clienteId == null) {
+            return false;
+        }
+        Long instante = escritasPendentes.get(clienteId);
+        return instante != null && instante > heartbeatReplica;
+    }
+
+    public boolean replicaDentroDoLimite() {
+        return atrasoMs <= atrasoMaximoMs;
+    }
+
+    public long getAtrasoMs() { return atrasoMs; }
+    public long getAtrasoMaximoMs() { return atrasoMaximoMs; }
+    public long getHeartbeatReplica() { return heartbeatReplica; }
+    public int getClientesComEscritaPendente() { return escritasPendentes.size(); }
+}
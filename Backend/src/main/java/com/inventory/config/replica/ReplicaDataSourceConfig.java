@@ -0,0 +1,107 @@
+package com.inventory.config.replica;
+
+import com.inventory.config.replica.RoteamentoDataSource.Destino;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Datasources primário e réplica com roteamento por transação readOnly
+ *
+ * Ativado por inventario.replica.habilitada=true (perfil "replica" para testes locais).
+ * Sem a propriedade, a aplicação usa o datasource único configurado pelo Spring Boot.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "inventario.replica", name = "habilitada", havingValue = "true")
+@EnableConfigurationProperties(ReplicaProperties.class)
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    public HikariDataSource primarioDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primario");
+        return dataSource;
+    }
+
+    @Bean
+    public HikariDataSource replicaDataSource(ReplicaProperties replica) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(replica.getUrl())
+                .username(replica.getUsername())
+                .password(replica.getPassword())
+                .build();
+        dataSource.setPoolName("replica");
+        dataSource.setMaximumPoolSize(replica.getPoolMaximo());
+        return dataSource;
+    }
+
+    @Bean
+    public MonitorReplica monitorReplica(@Qualifier("primarioDataSource") DataSource primario,
+                                         @Qualifier("replicaDataSource") DataSource replica,
+                                         ReplicaProperties properties) {
+        return new MonitorReplica(primario, replica, properties.getAtrasoMaximoMs());
+    }
+
+    @Bean
+    public RoteamentoDataSource roteamentoDataSource(@Qualifier("primarioDataSource") DataSource primario,
+                                                     @Qualifier("replicaDataSource") DataSource replica,
+                                                     MonitorReplica monitor) {
+        RoteamentoDataSource roteamento = new RoteamentoDataSource(monitor);
+        roteamento.setTargetDataSources(Map.of(Destino.PRIMARIO, primario, Destino.REPLICA, replica));
+        roteamento.setDefaultTargetDataSource(primario);
+        return roteamento;
+    }
+
+    /**
+     * Datasource usado por JPA, JdbcTemplate e inicialização de dados
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(RoteamentoDataSource roteamento) {
+        return new LazyConnectionDataSourceProxy(roteamento);
+    }
+
+    @Bean
+    public LeituraPropriaFilter leituraPropriaFilter(MonitorReplica monitor, ReplicaProperties properties) {
+        return new LeituraPropriaFilter(monitor, properties.getCabecalhoCliente());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "inventario.replica.simulacao", name = "habilitada", havingValue = "true")
+    public ReplicacaoLocalH2 replicacaoLocalH2(@Qualifier("primarioDataSource") DataSource primario,
+                                               @Qualifier("replicaDataSource") DataSource replica,
+                                               ReplicaProperties properties) {
+        return new ReplicacaoLocalH2(primario, replica, properties.getSimulacao().getTabelas());
+    }
+
+    /**
+     * Atraso da réplica e distribuição das leituras em /actuator/health
+     */
+    @Bean
+    public HealthIndicator replicaHealthIndicator(MonitorReplica monitor, RoteamentoDataSource roteamento) {
+        return () -> {
+            Health.Builder builder = monitor.replicaDentroDoLimite() ? Health.up() : Health.status("DEGRADED");
+            return builder
+                    .withDetail("atrasoMs", monitor.getAtrasoMs() == Long.MAX_VALUE ? -1 : monitor.getAtrasoMs())
+                    .withDetail("atrasoMaximoMs", monitor.getAtrasoMaximoMs())
+                    .withDetail("clientesComEscritaPendente", monitor.getClientesComEscritaPendente())
+                    .withDetail("leiturasReplica", roteamento.getLeiturasReplica())
+                    .withDetail("leiturasPrimarioPorAtraso", roteamento.getLeiturasPrimarioPorAtraso())
+                    .withDetail("leiturasPrimarioPorEscritaPropria", roteamento.getLeiturasPrimarioPorEscritaPropria())
+                    .build();
+        };
+    }
+}
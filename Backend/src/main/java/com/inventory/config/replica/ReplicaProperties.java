@@ -0,0 +1,84 @@
+package com.inventory.config.replica;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuração da réplica de leitura
+ *
+ * Exemplo: inventario.replica.url=jdbc:h2:mem:inventorydb_replica
+ */
+@ConfigurationProperties(prefix = "inventario.replica")
+public class ReplicaProperties {
+
+    /**
+     * Liga o roteamento leitura/escrita (desligado = um único datasource, como antes)
+     */
+    private boolean habilitada = false;
+
+    private String url;
+    private String username;
+    private String password;
+    private int poolMaximo = 10;
+
+    /**
+     * Atraso máximo tolerado da réplica; acima disso as leituras voltam ao primário
+     */
+    private long atrasoMaximoMs = 5000;
+
+    /**
+     * Intervalo de gravação do heartbeat no primário e de leitura do atraso na réplica
+     */
+    private long heartbeatMs = 1000;
+
+    /**
+     * Cabeçalho que identifica o cliente para leitura das próprias escritas
+     */
+    private String cabecalhoCliente = "X-Cliente-Id";
+
+    private Simulacao simulacao = new Simulacao();
+
+    public boolean isHabilitada() { return habilitada; }
+    public void setHabilitada(boolean habilitada) { this.habilitada = habilitada; }
+
+    public String getUrl() { return url; }
+    public void setUrl(String url) { this.url = url; }
+
+    public String getUsername() { return username; }
+    public void setUsername(String username) { this.username = username; }
+
+    public String getPassword() { return password; }
+    public void setPassword(String password) { this.password = password; }
+
+    public int getPoolMaximo() { return poolMaximo; }
+    public void setPoolMaximo(int poolMaximo) { this.poolMaximo = poolMaximo; }
+
+    public long getAtrasoMaximoMs() { return atrasoMaximoMs; }
+    public void setAtrasoMaximoMs(long atrasoMaximoMs) { this.atrasoMaximoMs = atrasoMaximoMs; }
+
+    public long getHeartbeatMs() { return heartbeatMs; }
+    public void setHeartbeatMs(long heartbeatMs) { this.heartbeatMs = heartbeatMs; }
+
+    public String getCabecalhoCliente() { return cabecalhoCliente; }
+    public void setCabecalhoCliente(String cabecalhoCliente) { this.cabecalhoCliente = cabecalhoCliente; }
+
+    public Simulacao getSimulacao() { return simulacao; }
+    public void setSimulacao(Simulacao simulacao) { this.simulacao = simulacao; }
+
+    /**
+     * Replicação simulada para desenvolvimento com duas instâncias H2
+     */
+    public static class Simulacao {
+        private boolean habilitada = false;
+        private long intervaloMs = 2000;
+        private String[] tabelas = {"estoque_produto", "reserva", "reserva_historico"};
+
+        public boolean isHabilitada() { return habilitada; }
+        public void setHabilitada(boolean habilitada) { this.habilitada = habilitada; }
+
+        public long getIntervaloMs() { return intervaloMs; }
+        public void setIntervaloMs(long intervaloMs) { this.intervaloMs = intervaloMs; }
+
+        public String[] getTabelas() { return tabelas; }
+        public void setTabelas(String[] tabelas) { this.tabelas = tabelas; }
+    }
+}
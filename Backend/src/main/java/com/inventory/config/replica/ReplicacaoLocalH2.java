@@ -0,0 +1,103 @@
+package com.inventory.config.replica;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replicação assíncrona simulada entre duas instâncias H2 (somente desenvolvimento)
+ *
+ * Copia periodicamente as tabelas configuradas do primário para a réplica. O heartbeat é lido
+ * antes dos dados, então a réplica nunca anuncia um instante mais recente que o conteúdo copiado.
+ * Em produção a replicação do próprio banco substitui esta classe.
+ */
+public class ReplicacaoLocalH2 {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicacaoLocalH2.class);
+
+    private final JdbcTemplate primario;
+    private final JdbcTemplate replica;
+    private final TransactionTemplate transacaoReplica;
+    private final List<String> tabelas;
+
+    private volatile boolean esquemaCriado;
+
+    public ReplicacaoLocalH2(DataSource primario, DataSource replica, String[] tabelas) {
+        this.primario = new JdbcTemplate(primario);
+        this.replica = new JdbcTemplate(replica);
+        this.transacaoReplica = new TransactionTemplate(new DataSourceTransactionManager(replica));
+        this.tabelas = new ArrayList<>(List.of(tabelas));
+        this.tabelas.add(MonitorReplica.TABELA_HEARTBEAT);
+    }
+
+    /**
+     * Recria na réplica o esquema das tabelas replicadas (DDL gerado pelo próprio H2)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void criarEsquema() {
+        List<String> ddl = primario.queryForList(
+                "SCRIPT NODATA NOPASSWORDS NOSETTINGS TABLE " + String.join(", ", tabelas), String.class);
+        for (String comando : ddl) {
+            String normalizado = comando.trim().toUpperCase();
+            if (normalizado.startsWith("CREATE USER") || normalizado.startsWith("--")) {
+                continue;
+            }
+            replica.execute(comando);
+        }
+        esquemaCriado = true;
+        logger.info("Esquema replicado para a réplica local - Tabelas: {}", tabelas);
+        replicar();
+    }
+
+    @Scheduled(fixedDelayString = "${inventario.replica.simulacao.intervalo-ms:2000}")
+    public synchronized void replicar() {
+        if (!esquemaCriado) {
+            return;
+        }
+        long inicio = System.nanoTime();
+        List<Map<String, Object>> heartbeat = primario.queryForList(
+                "SELECT * FROM " + MonitorReplica.TABELA_HEARTBEAT);
+        List<List<Map<String, Object>>> dados = new ArrayList<>();
+        for (String tabela : tabelas.subList(0, tabelas.size() - 1)) {
+            dados.add(primario.queryForList("SELECT * FROM " + tabela));
+        }
+        dados.add(heartbeat);
+
+        transacaoReplica.executeWithoutResult(status -> {
+            for (int i = 0; i < tabelas.size(); i++) {
+                copiar(tabelas.get(i), dados.get(i));
+            }
+        });
+        logger.debug("Réplica local sincronizada em {}ms", (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    private void copiar(String tabela, List<Map<String, Object>> linhas) {
+        replica.update("DELETE FROM " + tabela);
+        if (linhas.isEmpty()) {
+            return;
+        }
+        List<String> colunas = new ArrayList<>(linhas.get(0).keySet());
+        String sql = "INSERT INTO " + tabela + " (" + String.join(", ", colunas) + ") VALUES (" +
+                String.join(", ", Collections.nCopies(colunas.size(), "?")) + ")";
+        List<Object[]> lote = new ArrayList<>(linhas.size());
+        for (Map<String, Object> linha : linhas) {
+            Object[] valores = new Object[colunas.size()];
+            for (int c = 0; c < colunas.size(); c++) {
+                valores[c] = linha.get(colunas.get(c));
+            }
+            lote.add(valores);
+        }
+        replica.batchUpdate(sql, lote);
+    }
+}
@@ -0,0 +1,53 @@
+package com.inventory.config.replica;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Escolhe primário ou réplica a cada conexão obtida
+ *
+ * Vai para a réplica apenas quando:
+ * 1. a transação corrente é readOnly
+ * 2. o atraso medido da réplica está dentro do limite configurado
+ * 3. o cliente da requisição não tem escrita própria ainda não replicada
+ *
+ * Deve ser envolvido por LazyConnectionDataSourceProxy: o gerenciador JPA abre a conexão
+ * antes de marcar a transação como readOnly, e o proxy adia a escolha até o primeiro comando.
+ */
+public class RoteamentoDataSource extends AbstractRoutingDataSource {
+
+    public enum Destino { PRIMARIO, REPLICA }
+
+    private final MonitorReplica monitor;
+
+    private final AtomicLong leiturasReplica = new AtomicLong();
+    private final AtomicLong leiturasPrimarioPorAtraso = new AtomicLong();
+    private final AtomicLong leiturasPrimarioPorEscritaPropria = new AtomicLong();
+
+    public RoteamentoDataSource(MonitorReplica monitor) {
+        this.monitor = monitor;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return Destino.PRIMARIO;
+        }
+        if (!monitor.replicaDentroDoLimite()) {
+            leiturasPrimarioPorAtraso.incrementAndGet();
+            return Destino.PRIMARIO;
+        }
+        if (monitor.possuiEscritaNaoReplicada(ContextoCliente.atual())) {
+            leiturasPrimarioPorEscritaPropria.incrementAndGet();
+            return Destino.PRIMARIO;
+        }
+        leiturasReplica.incrementAndGet();
+        return Destino.REPLICA;
+    }
+
+    public long getLeiturasReplica() { return leiturasReplica.get(); }
+    public long getLeiturasPrimarioPorAtraso() { return leiturasPrimarioPorAtraso.get(); }
+    public long getLeiturasPrimarioPorEscritaPropria() { return leiturasPrimarioPorEscritaPropria.get(); }
+}
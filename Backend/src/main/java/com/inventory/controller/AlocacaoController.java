@@ -0,0 +1,106 @@
+package com.inventory.controller;
+
+import com.inventory.dto.PedidoRequest;
+import com.inventory.exception.ConcorrenciaException;
+import com.inventory.exception.EstoqueInsuficienteException;
+import com.inventory.service.AlocacaoService;
+import com.inventory.service.AlocacaoService.PlanoAlocacao;
+import com.inventory.service.AlocacaoService.ResultadoAlocacao;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * Controller REST para alocação de pedidos entre lojas (ship-from-store)
+ */
+@RestController
+@RequestMapping("/api/v1/inventario/alocacao")
+@Tag(name = "Alocação", description = "APIs para alocação de pedidos multi-item entre lojas")
+@CrossOrigin(origins = "*")
+public class AlocacaoController {
+
+    private static final Logger logger = LoggerFactory.getLogger(AlocacaoController.class);
+
+    private final AlocacaoService alocacaoService;
+
+    public AlocacaoController(AlocacaoService alocacaoService) {
+        this.alocacaoService = alocacaoService;
+    }
+
+    /**
+     * Aloca o pedido e reserva o estoque nas lojas escolhidas
+     */
+    @PostMapping
+    @Operation(summary = "Alocar pedido",
+               description = "Divide o pedido entre lojas com o menor número de remessas e reserva atomicamente")
+    public ResponseEntity<?> alocar(@Valid @RequestBody PedidoRequest request) {
+        try {
+            ResultadoAlocacao resultado = alocacaoService.alocar(request);
+
+            return ResponseEntity.status(HttpStatus.CREATED).body(Map.of(
+                "mensagem", "Pedido alocado com sucesso",
+                "status", "RESERVADO",
+                "validadeReserva", "30 minutos",
+                "alocacao", resultado
+            ));
+
+        } catch (EstoqueInsuficienteException e) {
+            logger.warn("Estoque insuficiente na rede para o pedido", e);
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                    .body(Map.of(
+                        "erro", "Estoque insuficiente",
+                        "detalhes", e.getMessage(),
+                        "produtoId", e.getProdutoId(),
+                        "disponivel", e.getDisponivel(),
+                        "solicitado", e.getSolicitado()
+                    ));
+        } catch (ConcorrenciaException e) {
+            logger.warn("Conflito de concorrência na alocação", e);
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("erro", "Conflito de concorrência", "detalhes", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Dados inválidos para alocação", e);
+            return ResponseEntity.badRequest()
+                    .body(Map.of("erro", "Dados inválidos", "detalhes", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Erro ao alocar pedido", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("erro", "Erro interno do servidor", "detalhes", e.getMessage()));
+        }
+    }
+
+    /**
+     * Calcula o plano de alocação sem reservar estoque
+     */
+    @PostMapping("/simulacao")
+    @Operation(summary = "Simular alocação",
+               description = "Retorna o plano de remessas sem reservar estoque")
+    public ResponseEntity<?> simular(@Valid @RequestBody PedidoRequest request) {
+        try {
+            PlanoAlocacao plano = alocacaoService.simular(request);
+            return ResponseEntity.ok(plano);
+
+        } catch (EstoqueInsuficienteException e) {
+            logger.warn("Estoque insuficiente na rede para simulação", e);
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                    .body(Map.of(
+                        "erro", "Estoque insuficiente",
+                        "detalhes", e.getMessage(),
+                        "produtoId", e.getProdutoId(),
+                        "disponivel", e.getDisponivel(),
+                        "solicitado", e.getSolicitado()
+                    ));
+        } catch (Exception e) {
+            logger.error("Erro ao simular alocação", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("erro", "Erro interno do servidor", "detalhes", e.getMessage()));
+        }
+    }
+}
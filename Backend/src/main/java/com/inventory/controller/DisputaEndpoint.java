@@ -0,0 +1,37 @@
+package com.inventory.controller;
+
+import com.inventory.service.DisputaEstoqueService;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * /actuator/disputa: pares (produto, loja) mais acessados e com mais conflitos de escrita
+ *
+ * periodoMs escolhe a janela consultada (padrão: inteira); DELETE zera as contagens.
+ */
+@Component
+@Endpoint(id = "disputa")
+public class DisputaEndpoint {
+
+    private static final int LIMITE_PADRAO = 10;
+
+    private final DisputaEstoqueService disputa;
+
+    public DisputaEndpoint(DisputaEstoqueService disputa) {
+        this.disputa = disputa;
+    }
+
+    @ReadOperation
+    public DisputaEstoqueService.Relatorio relatorio(@Nullable Integer limite, @Nullable Long periodoMs) {
+        return disputa.relatorio(periodoMs == null || periodoMs <= 0 ? disputa.getJanelaMs() : periodoMs,
+                limite == null || limite <= 0 ? LIMITE_PADRAO : limite);
+    }
+
+    @DeleteOperation
+    public void limpar() {
+        disputa.limpar();
+    }
+}
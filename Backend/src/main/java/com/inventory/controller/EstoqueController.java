@@ -1,26 +1,47 @@
 package com.inventory.controller;
 
+import com.inventory.dto.DisponibilidadeLoteRequest;
 import com.inventory.dto.EntradaRequest;
+import com.inventory.dto.ErroResponse;
+import com.inventory.dto.EstoqueListaResponse;
+import com.inventory.dto.EstoqueResponse;
+import com.inventory.dto.OperacaoResponse;
 import com.inventory.dto.SaidaRequest;
+import com.inventory.dto.TransferenciaRequest;
 import com.inventory.dto.VendaRequest;
 import com.inventory.dto.AjusteRequest;
 import com.inventory.exception.ConcorrenciaException;
 import com.inventory.exception.EstoqueInsuficienteException;
 import com.inventory.model.EstoqueProduto;
+import com.inventory.model.EstoqueRemocao;
+import com.inventory.service.CatalogoProdutos;
 import com.inventory.service.EstoqueServiceJpa;
+import com.inventory.service.EstoqueServiceJpa.DisponivelPar;
+import com.inventory.service.EstoqueServiceJpa.EstoqueStats;
+import com.inventory.service.EstoqueServiceJpa.Transferencia;
+import com.inventory.service.EstoqueServiceJpa.VersaoAgregada;
+import com.inventory.service.IndiceDisponibilidade;
+import com.inventory.service.SincronizacaoService;
+import com.inventory.service.VelocidadeVendasService;
+import com.inventory.service.VelocidadeVendasService.PrevisoesLoja;
+import com.inventory.service.IndiceDisponibilidade.LojaDisponivel;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 /**
  * Controller REST para operações de estoque
@@ -34,10 +55,22 @@ public class EstoqueController {
     
     private static final Logger logger = LoggerFactory.getLogger(EstoqueController.class);
     
+    private static final int LIMITE_PREVISAO = 500;
+    
     private final EstoqueServiceJpa estoqueService;
+    private final IndiceDisponibilidade indiceDisponibilidade;
+    private final SincronizacaoService sincronizacaoService;
+    private final CatalogoProdutos catalogoProdutos;
+    private final VelocidadeVendasService velocidadeVendas;
     
-    public EstoqueController(EstoqueServiceJpa estoqueService) {
+    public EstoqueController(EstoqueServiceJpa estoqueService, IndiceDisponibilidade indiceDisponibilidade,
+                             SincronizacaoService sincronizacaoService, CatalogoProdutos catalogoProdutos,
+                             VelocidadeVendasService velocidadeVendas) {
         this.estoqueService = estoqueService;
+        this.indiceDisponibilidade = indiceDisponibilidade;
+        this.sincronizacaoService = sincronizacaoService;
+        this.catalogoProdutos = catalogoProdutos;
+        this.velocidadeVendas = velocidadeVendas;
     }
     
     /**
@@ -48,41 +81,30 @@ public class EstoqueController {
                description = "Consulta o estoque de um produto específico em uma loja")
     public ResponseEntity<?> consultarEstoquePorProduto(
             @Parameter(description = "ID do produto") @PathVariable Long produtoId,
-            @Parameter(description = "ID da loja") @RequestParam Long lojaId) {
+            @Parameter(description = "ID da loja") @RequestParam Long lojaId,
+            @Parameter(description = "Incluir dados do produto (catálogo em memória)")
+            @RequestParam(defaultValue = "false") boolean incluirProduto,
+            WebRequest request) {
         
         try {
             logger.info("Consultando estoque - Produto: {}, Loja: {}", produtoId, lojaId);
             
+            Optional<String> versao = estoqueService.versaoEstoque(produtoId, lojaId);
+            String etag = versao.map(v -> etag(v, incluirProduto, request)).orElse(null);
+            if (etag != null && request.checkNotModified(etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).varyBy(HttpHeaders.ACCEPT).build();
+            }
+            
             Optional<EstoqueProduto> estoque = estoqueService.consultarEstoque(produtoId, lojaId);
             
-            if (estoque.isPresent()) {
-                EstoqueProduto e = estoque.get();
-                return ResponseEntity.ok(Map.of(
-                    "produtoId", e.getProdutoId(),
-                    "lojaId", e.getLojaId(),
-                    "quantidade", e.getQuantidade(),
-                    "disponivel", e.getDisponivel(),
-                    "reservado", e.getReservado(),
-                    "estoqueMinimo", e.getEstoqueMinimo(),
-                    "isEstoqueBaixo", e.isEstoqueBaixo(),
-                    "ultimaAtualizacao", e.getUltimaAtualizacao(),
-                    "versao", e.getVersao()
-                ));
-            } else {
-                return ResponseEntity.ok(Map.of(
-                    "produtoId", produtoId,
-                    "lojaId", lojaId,
-                    "quantidade", 0,
-                    "disponivel", 0,
-                    "reservado", 0,
-                    "mensagem", "Produto não encontrado no estoque"
-                ));
-            }
+            return ResponseEntity.ok().eTag(etag).varyBy(HttpHeaders.ACCEPT).body(estoque.map(e -> EstoqueResponse.de(e,
+                            incluirProduto ? catalogoProdutos.buscar(produtoId) : null))
+                    .orElseGet(() -> EstoqueResponse.naoEncontrado(produtoId, lojaId)));
             
         } catch (Exception e) {
             logger.error("Erro ao consultar estoque", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(Map.of("erro", "Erro interno do servidor", "detalhes", e.getMessage()));
+                    .body(ErroResponse.interno(e));
         }
     }
     
@@ -94,43 +116,88 @@ public class EstoqueController {
                description = "Quando fornecido apenas produtoId, retorna todas as lojas onde o produto existe")
     public ResponseEntity<?> consultarProdutoEmTodasLojas(
             @Parameter(description = "ID do produto (obrigatório)") 
-            @RequestParam Long produtoId) {
+            @RequestParam Long produtoId,
+            @Parameter(description = "Incluir dados do produto (catálogo em memória)")
+            @RequestParam(defaultValue = "false") boolean incluirProduto,
+            WebRequest request) {
         
         try {
             logger.info("Consultando produto {} em todas as lojas", produtoId);
             
-            List<EstoqueProduto> estoques = estoqueService.listarEstoquePorProduto(produtoId);
-            
-            if (estoques.isEmpty()) {
-                return ResponseEntity.ok(Map.of(
-                    "produtoId", produtoId,
-                    "totalLojas", 0,
-                    "lojas", List.of(),
-                    "mensagem", "Produto não encontrado em nenhuma loja"
-                ));
+            String etag = etag(VersaoAgregada.combinar(estoqueService.versaoProduto(produtoId)), incluirProduto,
+                    request);
+            if (request.checkNotModified(etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).varyBy(HttpHeaders.ACCEPT).build();
             }
             
-            return ResponseEntity.ok(Map.of(
-                "produtoId", produtoId,
-                "totalLojas", estoques.size(),
-                "lojas", estoques.stream().map(e -> Map.of(
-                    "lojaId", e.getLojaId(),
-                    "quantidade", e.getQuantidade(),
-                    "disponivel", e.getDisponivel(),
-                    "reservado", e.getReservado(),
-                    "estoqueMinimo", e.getEstoqueMinimo(),
-                    "isEstoqueBaixo", e.isEstoqueBaixo(),
-                    "ultimaAtualizacao", e.getUltimaAtualizacao()
-                )).toList()
-            ));
+            List<EstoqueProduto> estoques = estoqueService.listarEstoquePorProduto(produtoId);
+            
+            return ResponseEntity.ok().eTag(etag).varyBy(HttpHeaders.ACCEPT).body(EstoqueListaResponse.ProdutoEmLojas.de(produtoId, estoques,
+                    catalogo(incluirProduto)));
             
         } catch (Exception e) {
             logger.error("Erro ao consultar produto em todas as lojas: {}", produtoId, e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(Map.of("erro", "Erro interno do servidor", "detalhes", e.getMessage()));
+                    .body(ErroResponse.interno(e));
+        }
+    }
+    
+    /**
+     * Disponível de vários pares (produto, loja) em uma chamada e uma consulta ao banco
+     */
+    @PostMapping("/estoque/disponibilidade")
+    @Operation(summary = "Consultar disponibilidade em lote",
+               description = "Disponível de até " + DisponibilidadeLoteRequest.MAXIMO_ITENS + " pares produto/loja, " +
+                             "na ordem enviada; pares sem estoque cadastrado vêm sem o campo disponivel")
+    public ResponseEntity<?> consultarDisponibilidadeEmLote(@Valid @RequestBody DisponibilidadeLoteRequest request) {
+        try {
+            List<DisponibilidadeLoteRequest.ItemConsulta> itens = request.getItens();
+            Long[] produtoIds = new Long[itens.size()];
+            Long[] lojaIds = new Long[itens.size()];
+            for (int i = 0; i < itens.size(); i++) {
+                produtoIds[i] = itens.get(i).getProdutoId();
+                lojaIds[i] = itens.get(i).getLojaId();
+            }
+            logger.info("Consultando disponibilidade em lote - Pares: {}", itens.size());
+
+            List<DisponivelPar> disponiveis = estoqueService.consultarDisponiveis(produtoIds, lojaIds);
+
+            return ResponseEntity.ok(EstoqueListaResponse.DisponibilidadeLote.de(itens, disponiveis));
+
+        } catch (IllegalArgumentException e) {
+            logger.warn("Erro de validação na consulta em lote", e);
+            return ResponseEntity.badRequest()
+                    .body(ErroResponse.de("Dados inválidos", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Erro ao consultar disponibilidade em lote", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ErroResponse.interno(e));
         }
     }
     
+    /**
+     * Lojas que atendem uma quantidade do produto (índice em memória, sem acesso ao banco)
+     */
+    @GetMapping("/estoque/produto/{produtoId}/lojas-disponiveis")
+    @Operation(summary = "Lojas que atendem a quantidade", 
+               description = "Retorna as k melhores lojas com disponível suficiente, por distância ou prioridade")
+    public ResponseEntity<?> buscarLojasDisponiveis(
+            @Parameter(description = "ID do produto") @PathVariable Long produtoId,
+            @Parameter(description = "Quantidade desejada") @RequestParam(defaultValue = "1") Integer quantidade,
+            @Parameter(description = "Máximo de lojas retornadas") @RequestParam(defaultValue = "5") Integer limite,
+            @Parameter(description = "Latitude do cliente") @RequestParam(required = false) Double latitude,
+            @Parameter(description = "Longitude do cliente") @RequestParam(required = false) Double longitude) {
+        
+        if (quantidade <= 0 || limite <= 0) {
+            return ResponseEntity.badRequest()
+                    .body(ErroResponse.de("Dados inválidos", "Quantidade e limite devem ser positivos"));
+        }
+        
+        List<LojaDisponivel> lojas = indiceDisponibilidade.buscarLojas(produtoId, quantidade, limite, latitude, longitude);
+        
+        return ResponseEntity.ok(new EstoqueListaResponse.LojasDisponiveis(produtoId, quantidade, lojas.size(), lojas));
+    }
+    
     /**
      * Lista estoque de uma loja específica
      */
@@ -138,23 +205,113 @@ public class EstoqueController {
     @Operation(summary = "Listar estoque por loja", 
                description = "Lista todos os produtos em estoque de uma loja específica")
     public ResponseEntity<?> listarEstoquePorLojaEspecifica(
-            @Parameter(description = "ID da loja") @PathVariable Long lojaId) {
+            @Parameter(description = "ID da loja") @PathVariable Long lojaId,
+            @Parameter(description = "Incluir dados do produto (catálogo em memória)")
+            @RequestParam(defaultValue = "false") boolean incluirProduto,
+            WebRequest request) {
         
         try {
             logger.info("Listando estoque da loja: {}", lojaId);
             
+            String etag = etag(VersaoAgregada.combinar(estoqueService.versaoLoja(lojaId)), incluirProduto, request);
+            if (request.checkNotModified(etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).varyBy(HttpHeaders.ACCEPT).build();
+            }
+            
             List<EstoqueProduto> estoques = estoqueService.listarEstoquePorLoja(lojaId);
             
-            return ResponseEntity.ok(Map.of(
-                "lojaId", lojaId,
-                "totalProdutos", estoques.size(),
-                "produtos", estoques
-            ));
+            return ResponseEntity.ok().eTag(etag).varyBy(HttpHeaders.ACCEPT)
+                    .body(EstoqueListaResponse.Loja.de(lojaId, estoques, catalogo(incluirProduto)));
             
         } catch (Exception e) {
             logger.error("Erro ao listar estoque da loja: {}", lojaId, e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(Map.of("erro", "Erro interno do servidor", "detalhes", e.getMessage()));
+                    .body(ErroResponse.interno(e));
+        }
+    }
+    
+    /**
+     * Estatísticas agregadas de estoque de uma loja
+     */
+    @GetMapping("/estoque/loja/{lojaId}/estatisticas")
+    @Operation(summary = "Estatísticas da loja", 
+               description = "Totais de produtos, quantidade, disponível e alertas de estoque baixo da loja")
+    public ResponseEntity<?> estatisticasLoja(
+            @Parameter(description = "ID da loja") @PathVariable Long lojaId,
+            WebRequest request) {
+        
+        try {
+            String etag = etag(VersaoAgregada.combinar(estoqueService.versaoLoja(lojaId)), false, request);
+            if (request.checkNotModified(etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).varyBy(HttpHeaders.ACCEPT).build();
+            }
+            
+            EstoqueStats stats = estoqueService.getEstatisticasLoja(lojaId);
+            
+            return ResponseEntity.ok().eTag(etag).varyBy(HttpHeaders.ACCEPT).body(new EstoqueListaResponse.EstatisticasLoja(
+                lojaId,
+                valorOuZero(stats.getTotalProdutos()),
+                valorOuZero(stats.getQuantidadeTotal()),
+                valorOuZero(stats.getDisponivelTotal()),
+                valorOuZero(stats.getProdutosComEstoqueBaixo())
+            ));
+            
+        } catch (Exception e) {
+            logger.error("Erro ao calcular estatísticas da loja: {}", lojaId, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ErroResponse.interno(e));
+        }
+    }
+    
+    /**
+     * Previsão de ruptura: itens da loja com vendas, do que acaba primeiro (memória, sem acesso ao banco)
+     */
+    @GetMapping("/estoque/loja/{lojaId}/previsao-ruptura")
+    @Operation(summary = "Previsão de ruptura da loja", 
+               description = "Velocidade de vendas (média móvel exponencial), disponível, dias até acabar e " +
+                             "estoque mínimo calculado, ordenados pelos dias até acabar")
+    public ResponseEntity<?> previsaoRuptura(
+            @Parameter(description = "ID da loja") @PathVariable Long lojaId,
+            @Parameter(description = "Máximo de itens retornados") @RequestParam(defaultValue = "20") Integer limite) {
+        
+        if (limite <= 0 || limite > LIMITE_PREVISAO) {
+            return ResponseEntity.badRequest()
+                    .body(ErroResponse.de("Dados inválidos", "Limite deve estar entre 1 e " + LIMITE_PREVISAO));
+        }
+        
+        PrevisoesLoja previsoes = velocidadeVendas.previsoesRuptura(lojaId, limite);
+        
+        return ResponseEntity.ok(new EstoqueListaResponse.PrevisaoRupturaLoja(lojaId, previsoes.monitorados(),
+                previsoes.itens()));
+    }
+    
+    /**
+     * Sincronização incremental: só o que mudou na loja depois da sequência informada
+     */
+    @GetMapping("/estoque/loja/{lojaId}/alteracoes")
+    @Operation(summary = "Alterações de estoque da loja", 
+               description = "Produtos alterados e removidos depois da sequência 'desde', em páginas ordenadas. " +
+                             "Enviar 'proximo' como 'desde' na chamada seguinte; desde=0 traz a carga completa")
+    public ResponseEntity<?> listarAlteracoes(
+            @Parameter(description = "ID da loja") @PathVariable Long lojaId,
+            @Parameter(description = "Última sequência recebida (0 = carga completa)") 
+            @RequestParam(defaultValue = "0") long desde,
+            @Parameter(description = "Máximo de itens na página") 
+            @RequestParam(defaultValue = "500") int limite) {
+        
+        try {
+            SincronizacaoService.Alteracoes alteracoes = sincronizacaoService.buscarAlteracoes(lojaId, desde, limite);
+            
+            return ResponseEntity.ok(EstoqueListaResponse.Alteracoes.de(lojaId, desde, alteracoes));
+            
+        } catch (IllegalArgumentException e) {
+            logger.warn("Erro de validação na sincronização da loja: {}", lojaId, e);
+            return ResponseEntity.badRequest()
+                    .body(ErroResponse.de("Dados inválidos", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Erro ao listar alterações da loja: {}", lojaId, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ErroResponse.interno(e));
         }
     }
     
@@ -164,32 +321,37 @@ public class EstoqueController {
     @GetMapping("/estoque/loja")
     @Operation(summary = "Listar estoque de todas as lojas", 
                description = "Quando lojaId não é fornecido, retorna estoque de todas as lojas")
-    public ResponseEntity<?> listarEstoqueTodasLojas() {
+    public ResponseEntity<?> listarEstoqueTodasLojas(
+            @Parameter(description = "Incluir dados do produto (catálogo em memória)")
+            @RequestParam(defaultValue = "false") boolean incluirProduto,
+            WebRequest request) {
         
         try {
             logger.info("Listando estoque de todas as lojas");
             
+            String etag = etag(VersaoAgregada.combinar(estoqueService.versaoRede()), incluirProduto, request);
+            if (request.checkNotModified(etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).varyBy(HttpHeaders.ACCEPT).build();
+            }
+            
             // Vou buscar todas as lojas distintas do estoque
             List<EstoqueProduto> todosEstoques = estoqueService.listarTodosEstoques();
             
             // Agrupar por loja para estatísticas
             Map<Long, List<EstoqueProduto>> estoquesPorLoja = todosEstoques.stream()
-                .collect(java.util.stream.Collectors.groupingBy(EstoqueProduto::getLojaId));
-            
-            return ResponseEntity.ok(Map.of(
-                "totalLojas", estoquesPorLoja.size(),
-                "totalProdutos", todosEstoques.size(),
-                "lojas", estoquesPorLoja.entrySet().stream().map(entry -> Map.of(
-                    "lojaId", entry.getKey(),
-                    "totalProdutos", entry.getValue().size(),
-                    "produtos", entry.getValue()
-                )).toList()
-            ));
+                .collect(Collectors.groupingBy(EstoqueProduto::getLojaId));
+            
+            List<EstoqueListaResponse.Loja> lojas = new ArrayList<>(estoquesPorLoja.size());
+            estoquesPorLoja.forEach((lojaId, estoques) -> lojas.add(EstoqueListaResponse.Loja.de(lojaId, estoques,
+                    catalogo(incluirProduto))));
+            
+            return ResponseEntity.ok().eTag(etag).varyBy(HttpHeaders.ACCEPT)
+                    .body(new EstoqueListaResponse.Rede(lojas.size(), todosEstoques.size(), lojas));
             
         } catch (Exception e) {
             logger.error("Erro ao listar estoque de todas as lojas", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(Map.of("erro", "Erro interno do servidor", "detalhes", e.getMessage()));
+                    .body(ErroResponse.interno(e));
         }
     }
     
@@ -199,21 +361,27 @@ public class EstoqueController {
     @GetMapping("/estoque/baixo")
     @Operation(summary = "Produtos com estoque baixo", 
                description = "Lista produtos que estão com estoque abaixo do mínimo")
-    public ResponseEntity<?> produtosComEstoqueBaixo() {
+    public ResponseEntity<?> produtosComEstoqueBaixo(
+            @Parameter(description = "Incluir dados do produto (catálogo em memória)")
+            @RequestParam(defaultValue = "false") boolean incluirProduto,
+            WebRequest request) {
         try {
             logger.info("Consultando produtos com estoque baixo");
             
+            String etag = etag(VersaoAgregada.combinar(estoqueService.versaoRede()), incluirProduto, request);
+            if (request.checkNotModified(etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).varyBy(HttpHeaders.ACCEPT).build();
+            }
+            
             List<EstoqueProduto> produtosBaixos = estoqueService.produtosComEstoqueBaixo();
             
-            return ResponseEntity.ok(Map.of(
-                "totalAlertas", produtosBaixos.size(),
-                "produtos", produtosBaixos
-            ));
+            return ResponseEntity.ok().eTag(etag).varyBy(HttpHeaders.ACCEPT)
+                    .body(EstoqueListaResponse.EstoqueBaixo.de(produtosBaixos, catalogo(incluirProduto)));
             
         } catch (Exception e) {
             logger.error("Erro ao consultar produtos com estoque baixo", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(Map.of("erro", "Erro interno do servidor", "detalhes", e.getMessage()));
+                    .body(ErroResponse.interno(e));
         }
     }
     
@@ -234,24 +402,21 @@ public class EstoqueController {
                 request.getQuantidade()
             );
             
-            return ResponseEntity.status(HttpStatus.CREATED).body(Map.of(
-                "mensagem", "Entrada registrada com sucesso",
-                "movimentacaoId", "MOV-" + System.currentTimeMillis(),
-                "estoque", estoque
-            ));
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .body(OperacaoResponse.Movimentacao.de("Entrada registrada com sucesso", "MOV-", estoque));
             
         } catch (ConcorrenciaException e) {
             logger.warn("Conflito de concorrência na entrada", e);
             return ResponseEntity.status(HttpStatus.CONFLICT)
-                    .body(Map.of("erro", "Conflito de concorrência", "detalhes", e.getMessage()));
+                    .body(ErroResponse.de("Conflito de concorrência", e.getMessage()));
         } catch (IllegalArgumentException e) {
             logger.warn("Dados inválidos para entrada", e);
             return ResponseEntity.badRequest()
-                    .body(Map.of("erro", "Dados inválidos", "detalhes", e.getMessage()));
+                    .body(ErroResponse.de("Dados inválidos", e.getMessage()));
         } catch (Exception e) {
             logger.error("Erro ao registrar entrada", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(Map.of("erro", "Erro interno do servidor", "detalhes", e.getMessage()));
+                    .body(ErroResponse.interno(e));
         }
     }
     
@@ -273,29 +438,64 @@ public class EstoqueController {
                 request.getMotivo()
             );
             
-            return ResponseEntity.ok(Map.of(
-                "mensagem", "Saída registrada com sucesso",
-                "movimentacaoId", "MOV-" + System.currentTimeMillis(),
-                "estoque", estoque
-            ));
+            return ResponseEntity.ok(OperacaoResponse.Movimentacao.de("Saída registrada com sucesso", "MOV-", estoque));
             
+        } catch (ConcorrenciaException e) {
+            logger.warn("Conflito de concorrência na saída", e);
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(ErroResponse.de("Conflito de concorrência", e.getMessage()));
         } catch (EstoqueInsuficienteException e) {
             logger.warn("Estoque insuficiente para saída", e);
             return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
-                    .body(Map.of(
-                        "erro", "Estoque insuficiente", 
-                        "detalhes", e.getMessage(),
-                        "disponivel", e.getDisponivel(),
-                        "solicitado", e.getSolicitado()
-                    ));
+                    .body(ErroResponse.estoqueInsuficiente(e));
         } catch (IllegalArgumentException e) {
             logger.warn("Dados inválidos para saída", e);
             return ResponseEntity.badRequest()
-                    .body(Map.of("erro", "Dados inválidos", "detalhes", e.getMessage()));
+                    .body(ErroResponse.de("Dados inválidos", e.getMessage()));
         } catch (Exception e) {
             logger.error("Erro ao registrar saída", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(Map.of("erro", "Erro interno do servidor", "detalhes", e.getMessage()));
+                    .body(ErroResponse.interno(e));
+        }
+    }
+    
+    /**
+     * Transfere mercadoria entre lojas (débito e crédito na mesma transação)
+     */
+    @PostMapping("/transferencia")
+    @Operation(summary = "Transferência entre lojas",
+               description = "Debita o disponível da origem e credita o destino para todos os itens em uma única " +
+                             "transação; se algum item for recusado nenhum é transferido")
+    public ResponseEntity<?> transferir(@Valid @RequestBody TransferenciaRequest request) {
+        try {
+            logger.info("Registrando transferência - Origem: {}, Destino: {}, Itens: {}",
+                       request.getLojaOrigemId(), request.getLojaDestinoId(), request.getItens().size());
+            
+            Transferencia transferencia = estoqueService.transferir(
+                request.getLojaOrigemId(),
+                request.getLojaDestinoId(),
+                request.getItens(),
+                request.getMotivo()
+            );
+            
+            return ResponseEntity.ok(OperacaoResponse.Transferencia.de(transferencia));
+            
+        } catch (ConcorrenciaException e) {
+            logger.warn("Conflito de concorrência na transferência", e);
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(ErroResponse.de("Conflito de concorrência", e.getMessage()));
+        } catch (EstoqueInsuficienteException e) {
+            logger.warn("Estoque insuficiente para transferência", e);
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                    .body(ErroResponse.estoqueInsuficiente(e));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Dados inválidos para transferência", e);
+            return ResponseEntity.badRequest()
+                    .body(ErroResponse.de("Dados inválidos", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Erro ao registrar transferência", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ErroResponse.interno(e));
         }
     }
     
@@ -317,26 +517,20 @@ public class EstoqueController {
                 request.getClienteId()
             );
             
-            return ResponseEntity.status(HttpStatus.CREATED).body(Map.of(
-                "mensagem", "Venda iniciada com sucesso",
-                "reservaId", reservaId,
-                "status", "RESERVADO",
-                "validadeReserva", "30 minutos"
-            ));
+            return ResponseEntity.status(HttpStatus.CREATED).body(OperacaoResponse.Venda.reservada(reservaId));
             
+        } catch (ConcorrenciaException e) {
+            logger.warn("Conflito de concorrência na venda", e);
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(ErroResponse.de("Conflito de concorrência", e.getMessage()));
         } catch (EstoqueInsuficienteException e) {
             logger.warn("Estoque insuficiente para venda", e);
             return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
-                    .body(Map.of(
-                        "erro", "Estoque insuficiente", 
-                        "detalhes", e.getMessage(),
-                        "disponivel", e.getDisponivel(),
-                        "solicitado", e.getSolicitado()
-                    ));
+                    .body(ErroResponse.estoqueInsuficiente(e));
         } catch (Exception e) {
             logger.error("Erro ao processar venda", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(Map.of("erro", "Erro interno do servidor", "detalhes", e.getMessage()));
+                    .body(ErroResponse.interno(e));
         }
     }
     
@@ -353,24 +547,32 @@ public class EstoqueController {
             boolean confirmada = estoqueService.confirmarVenda(reservaId);
             
             if (confirmada) {
-                return ResponseEntity.ok(Map.of(
-                    "mensagem", "Venda confirmada com sucesso",
-                    "reservaId", reservaId,
-                    "status", "CONFIRMADA"
-                ));
+                return ResponseEntity.ok(OperacaoResponse.Venda.confirmada(reservaId));
             } else {
                 return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                        .body(Map.of("erro", "Falha ao confirmar venda"));
+                        .body(ErroResponse.de("Falha ao confirmar venda"));
             }
             
-        } catch (IllegalArgumentException | IllegalStateException e) {
+        } catch (ConcorrenciaException e) {
+            logger.warn("Conflito de concorrência na confirmação da venda", e);
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(ErroResponse.de("Conflito de concorrência", e.getMessage()));
+        } catch (EstoqueInsuficienteException e) {
+            logger.warn("Estoque insuficiente para cobrir a reserva na confirmação da venda", e);
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                    .body(ErroResponse.estoqueInsuficiente(e));
+        } catch (IllegalStateException e) {
+            logger.warn("Reserva já finalizada na confirmação da venda: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(ErroResponse.de("Reserva já finalizada", e.getMessage()));
+        } catch (IllegalArgumentException e) {
             logger.warn("Erro de validação ao confirmar venda", e);
             return ResponseEntity.badRequest()
-                    .body(Map.of("erro", "Dados inválidos", "detalhes", e.getMessage()));
+                    .body(ErroResponse.de("Dados inválidos", e.getMessage()));
         } catch (Exception e) {
             logger.error("Erro ao confirmar venda", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(Map.of("erro", "Erro interno do servidor", "detalhes", e.getMessage()));
+                    .body(ErroResponse.interno(e));
         }
     }
     
@@ -387,24 +589,63 @@ public class EstoqueController {
             boolean cancelada = estoqueService.cancelarVenda(reservaId);
             
             if (cancelada) {
-                return ResponseEntity.ok(Map.of(
-                    "mensagem", "Venda cancelada com sucesso",
-                    "reservaId", reservaId,
-                    "status", "CANCELADA"
-                ));
+                return ResponseEntity.ok(OperacaoResponse.Venda.cancelada(reservaId));
             } else {
                 return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                        .body(Map.of("erro", "Falha ao cancelar venda"));
+                        .body(ErroResponse.de("Falha ao cancelar venda"));
             }
             
-        } catch (IllegalArgumentException | IllegalStateException e) {
+        } catch (ConcorrenciaException e) {
+            logger.warn("Conflito de concorrência no cancelamento da venda", e);
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(ErroResponse.de("Conflito de concorrência", e.getMessage()));
+        } catch (EstoqueInsuficienteException e) {
+            logger.warn("Estoque insuficiente para cobrir a reserva no cancelamento da venda", e);
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                    .body(ErroResponse.estoqueInsuficiente(e));
+        } catch (IllegalStateException e) {
+            logger.warn("Reserva já finalizada no cancelamento da venda: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(ErroResponse.de("Reserva já finalizada", e.getMessage()));
+        } catch (IllegalArgumentException e) {
             logger.warn("Erro de validação ao cancelar venda", e);
             return ResponseEntity.badRequest()
-                    .body(Map.of("erro", "Dados inválidos", "detalhes", e.getMessage()));
+                    .body(ErroResponse.de("Dados inválidos", e.getMessage()));
         } catch (Exception e) {
             logger.error("Erro ao cancelar venda", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(Map.of("erro", "Erro interno do servidor", "detalhes", e.getMessage()));
+                    .body(ErroResponse.interno(e));
+        }
+    }
+    
+    /**
+     * Remove produto do estoque da loja
+     */
+    @DeleteMapping("/estoque/produto/{produtoId}")
+    @Operation(summary = "Remover produto da loja", 
+               description = "Remove o produto do estoque da loja (sem reservas ativas) e registra a remoção " +
+                             "para a sincronização incremental")
+    public ResponseEntity<?> removerEstoque(
+            @Parameter(description = "ID do produto") @PathVariable Long produtoId,
+            @Parameter(description = "ID da loja") @RequestParam Long lojaId) {
+        try {
+            EstoqueRemocao remocao = estoqueService.removerEstoque(produtoId, lojaId);
+            
+            return ResponseEntity.ok(new OperacaoResponse.Remocao("Produto removido do estoque da loja",
+                    produtoId, lojaId, remocao.getSequenciaAlteracao()));
+            
+        } catch (ConcorrenciaException e) {
+            logger.warn("Conflito de concorrência na remoção do estoque", e);
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(ErroResponse.de("Conflito de concorrência", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Erro de validação ao remover estoque", e);
+            return ResponseEntity.badRequest()
+                    .body(ErroResponse.de("Dados inválidos", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Erro ao remover estoque", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ErroResponse.interno(e));
         }
     }
     
@@ -426,20 +667,53 @@ public class EstoqueController {
                 request.getMotivo()
             );
             
-            return ResponseEntity.ok(Map.of(
-                "mensagem", "Estoque ajustado com sucesso",
-                "movimentacaoId", "ADJ-" + System.currentTimeMillis(),
-                "estoque", estoque
-            ));
+            return ResponseEntity.ok(OperacaoResponse.Movimentacao.de("Estoque ajustado com sucesso", "ADJ-", estoque));
             
+        } catch (ConcorrenciaException e) {
+            logger.warn("Conflito de concorrência no ajuste", e);
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(ErroResponse.de("Conflito de concorrência", e.getMessage()));
         } catch (IllegalArgumentException e) {
             logger.warn("Dados inválidos para ajuste", e);
             return ResponseEntity.badRequest()
-                    .body(Map.of("erro", "Dados inválidos", "detalhes", e.getMessage()));
+                    .body(ErroResponse.de("Dados inválidos", e.getMessage()));
         } catch (Exception e) {
             logger.error("Erro ao ajustar estoque", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(Map.of("erro", "Erro interno do servidor", "detalhes", e.getMessage()));
+                    .body(ErroResponse.interno(e));
+        }
+    }
+    
+    /**
+     * Catálogo para enriquecer a resposta, ou null quando a consulta não pede os dados do produto
+     */
+    private CatalogoProdutos catalogo(boolean incluirProduto) {
+        return incluirProduto ? catalogoProdutos : null;
+    }
+    
+    /**
+     * ETag forte da resposta: versão das linhas de estoque, do catálogo (com incluirProduto) e a codificação
+     * pedida no Accept, já que JSON, CBOR e Smile do mesmo recurso têm bytes diferentes. Por isso as respostas
+     * (200 e 304) saem com Vary: Accept, para caches intermediários não trocarem uma codificação pela outra.
+     *
+     * A versão é lida antes dos dados: se uma escrita cair entre as duas leituras, o ETag fica mais velho
+     * que o corpo e a próxima requisição condicional só recebe a resposta completa de novo.
+     */
+    private String etag(String versaoEstoque, boolean incluirProduto, WebRequest request) {
+        StringBuilder etag = new StringBuilder("\"").append(versaoEstoque);
+        if (incluirProduto) {
+            etag.append("-p").append(catalogoProdutos.versao());
+        }
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        if (accept != null && accept.contains("cbor")) {
+            etag.append("-cbor");
+        } else if (accept != null && accept.contains("smile")) {
+            etag.append("-smile");
         }
+        return etag.append('"').toString();
+    }
+    
+    private static long valorOuZero(Long valor) {
+        return valor != null ? valor : 0L;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,188 @@
+package com.inventory.controller;
+
+import com.inventory.service.ArquivamentoReservaService;
+import com.inventory.service.ArquivamentoReservaService.ResultadoArquivo;
+import com.inventory.service.ArquivamentoReservaService.ResumoArquivamento;
+import com.inventory.service.SnapshotEstoqueService;
+import com.inventory.service.SnapshotEstoqueService.ResultadoHistorico;
+import com.inventory.service.SnapshotEstoqueService.ResumoSnapshot;
+import com.inventory.snapshot.FiltroSnapshot;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Controller REST para consultas históricas sobre os snapshots diários de estoque e o arquivo de reservas
+ */
+@RestController
+@RequestMapping("/api/v1/inventario/historico")
+@Tag(name = "Histórico", description = "APIs para consultas históricas de estoque (snapshots colunares)")
+@CrossOrigin(origins = "*")
+public class HistoricoController {
+
+    private static final Logger logger = LoggerFactory.getLogger(HistoricoController.class);
+
+    private final SnapshotEstoqueService snapshotService;
+    private final ArquivamentoReservaService arquivamentoService;
+
+    public HistoricoController(SnapshotEstoqueService snapshotService,
+                               ArquivamentoReservaService arquivamentoService) {
+        this.snapshotService = snapshotService;
+        this.arquivamentoService = arquivamentoService;
+    }
+
+    /**
+     * Lista as datas com snapshot disponível
+     */
+    @GetMapping("/snapshots")
+    @Operation(summary = "Listar snapshots", description = "Datas com snapshot diário disponível")
+    public ResponseEntity<?> listarSnapshots() {
+        List<LocalDate> datas = snapshotService.listarDatas();
+        return ResponseEntity.ok(Map.of(
+            "totalSnapshots", datas.size(),
+            "datas", datas
+        ));
+    }
+
+    /**
+     * Gera o snapshot do dia imediatamente
+     */
+    @PostMapping("/snapshots")
+    @Operation(summary = "Gerar snapshot", description = "Grava o estado atual do estoque como snapshot de hoje")
+    public ResponseEntity<?> gerarSnapshot() {
+        try {
+            ResumoSnapshot resumo = snapshotService.gerarSnapshot(LocalDate.now());
+            return ResponseEntity.status(HttpStatus.CREATED).body(Map.of(
+                "mensagem", "Snapshot gerado com sucesso",
+                "snapshot", resumo
+            ));
+        } catch (Exception e) {
+            logger.error("Erro ao gerar snapshot", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("erro", "Erro interno do servidor", "detalhes", e.getMessage()));
+        }
+    }
+
+    /**
+     * Consulta o estoque de uma data (ou intervalo) a partir dos snapshots
+     */
+    @GetMapping("/estoque")
+    @Operation(summary = "Consultar estoque histórico",
+               description = "Filtra snapshots por data, loja, produto e faixa de quantidade sem acessar o banco")
+    public ResponseEntity<?> consultar(
+            @Parameter(description = "Data (yyyy-MM-dd)") @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate data,
+            @Parameter(description = "Início do intervalo") @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate de,
+            @Parameter(description = "Fim do intervalo") @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate ate,
+            @Parameter(description = "IDs de loja") @RequestParam(required = false) Set<Long> lojaId,
+            @Parameter(description = "ID do produto") @RequestParam(required = false) Long produtoId,
+            @Parameter(description = "Quantidade mínima") @RequestParam(required = false) Integer quantidadeMin,
+            @Parameter(description = "Quantidade máxima") @RequestParam(required = false) Integer quantidadeMax,
+            @Parameter(description = "Máximo de linhas") @RequestParam(defaultValue = "1000") Integer limite) {
+
+        try {
+            LocalDate inicio = data != null ? data : de;
+            LocalDate fim = data != null ? data : ate;
+            if (inicio == null || fim == null) {
+                return ResponseEntity.badRequest()
+                        .body(Map.of("erro", "Dados inválidos", "detalhes", "Informe 'data' ou 'de' e 'ate'"));
+            }
+            logger.info("Consultando histórico - De: {}, Até: {}, Lojas: {}, Produto: {}", inicio, fim, lojaId, produtoId);
+
+            FiltroSnapshot filtro = FiltroSnapshot.todos()
+                    .lojas(lojaId)
+                    .produtos(produtoId, produtoId)
+                    .quantidade(quantidadeMin, quantidadeMax);
+            ResultadoHistorico resultado = snapshotService.consultar(inicio, fim, filtro, Math.max(1, limite));
+
+            return ResponseEntity.ok(Map.of(
+                "datasConsultadas", resultado.getDatasConsultadas(),
+                "totalLinhas", resultado.getLinhas().size(),
+                "leitura", resultado.getEstatistica(),
+                "linhas", resultado.getLinhas()
+            ));
+
+        } catch (Exception e) {
+            logger.error("Erro ao consultar histórico", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("erro", "Erro interno do servidor", "detalhes", e.getMessage()));
+        }
+    }
+
+    /**
+     * Executa o arquivamento de reservas antigas imediatamente
+     */
+    @PostMapping("/reservas/arquivamento")
+    @Operation(summary = "Arquivar reservas antigas",
+               description = "Copia reservas antigas para os arquivos por data e as remove do banco, em lotes")
+    public ResponseEntity<?> arquivarReservas() {
+        try {
+            ResumoArquivamento resumo = arquivamentoService.arquivar();
+            return ResponseEntity.ok(Map.of(
+                "mensagem", "Arquivamento executado",
+                "arquivamento", resumo
+            ));
+        } catch (IllegalStateException e) {
+            logger.warn("Arquivamento de reservas não executado", e);
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("erro", "Arquivamento em execução", "detalhes", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Erro ao arquivar reservas", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("erro", "Erro interno do servidor", "detalhes", e.getMessage()));
+        }
+    }
+
+    /**
+     * Consulta reservas arquivadas por id ou cliente
+     */
+    @GetMapping("/reservas")
+    @Operation(summary = "Consultar reservas arquivadas",
+               description = "Busca no arquivo de reservas por id ou cliente, opcionalmente em um intervalo de datas")
+    public ResponseEntity<?> consultarReservas(
+            @Parameter(description = "ID da reserva") @RequestParam(required = false) String reservaId,
+            @Parameter(description = "ID do cliente") @RequestParam(required = false) String clienteId,
+            @Parameter(description = "Início do intervalo (data de criação)") @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate de,
+            @Parameter(description = "Fim do intervalo (data de criação)") @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate ate,
+            @Parameter(description = "Máximo de reservas") @RequestParam(defaultValue = "100") Integer limite) {
+
+        try {
+            logger.info("Consultando reservas arquivadas - Reserva: {}, Cliente: {}, De: {}, Até: {}",
+                       reservaId, clienteId, de, ate);
+            ResultadoArquivo resultado = arquivamentoService.consultar(reservaId, clienteId, de, ate,
+                    Math.max(1, limite));
+
+            if (reservaId != null && resultado.getReservas().isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok(Map.of(
+                "particoesLidas", resultado.getParticoesLidas(),
+                "totalReservas", resultado.getReservas().size(),
+                "reservas", resultado.getReservas()
+            ));
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("erro", "Dados inválidos", "detalhes", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Erro ao consultar reservas arquivadas", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("erro", "Erro interno do servidor", "detalhes", e.getMessage()));
+        }
+    }
+}
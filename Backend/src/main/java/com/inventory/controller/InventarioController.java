@@ -0,0 +1,139 @@
+package com.inventory.controller;
+
+import com.inventory.dto.ContagemInventarioRequest;
+import com.inventory.dto.ContagemInventarioRequest.ItemContagem;
+import com.inventory.exception.ConcorrenciaException;
+import com.inventory.service.InventarioService;
+import com.inventory.service.InventarioService.ResultadoContagem;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Controller REST para importação de contagens físicas (inventário)
+ */
+@RestController
+@RequestMapping("/api/v1/inventario/contagem")
+@Tag(name = "Inventário", description = "APIs para importação de contagens físicas de estoque")
+@CrossOrigin(origins = "*")
+public class InventarioController {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventarioController.class);
+
+    private final InventarioService inventarioService;
+
+    public InventarioController(InventarioService inventarioService) {
+        this.inventarioService = inventarioService;
+    }
+
+    /**
+     * Importa contagem enviada como JSON
+     */
+    @PostMapping
+    @Operation(summary = "Importar contagem de inventário",
+               description = "Compara a contagem física com o estoque da loja e aplica apenas as divergências")
+    public ResponseEntity<?> importarContagem(@Valid @RequestBody ContagemInventarioRequest request) {
+        return processar(request);
+    }
+
+    /**
+     * Importa contagem enviada como arquivo CSV (produtoId;quantidade por linha)
+     */
+    @PostMapping(value = "/loja/{lojaId}/arquivo", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Operation(summary = "Importar arquivo de contagem",
+               description = "Arquivo CSV com uma linha por produto: produtoId;quantidade")
+    public ResponseEntity<?> importarArquivo(
+            @Parameter(description = "ID da loja") @PathVariable Long lojaId,
+            @Parameter(description = "Motivo do inventário") @RequestParam String motivo,
+            @Parameter(description = "Zerar produtos não contados") @RequestParam(defaultValue = "false") boolean zerarNaoContados,
+            @RequestParam("arquivo") MultipartFile arquivo) {
+
+        try {
+            ContagemInventarioRequest request = new ContagemInventarioRequest(lojaId, motivo, lerArquivo(arquivo));
+            request.setZerarNaoContados(zerarNaoContados);
+            return processar(request);
+        } catch (IllegalArgumentException | IOException e) {
+            logger.warn("Arquivo de contagem inválido - Loja: {}", lojaId, e);
+            return ResponseEntity.badRequest()
+                    .body(Map.of("erro", "Arquivo inválido", "detalhes", e.getMessage()));
+        }
+    }
+
+    private ResponseEntity<?> processar(ContagemInventarioRequest request) {
+        try {
+            ResultadoContagem resultado = inventarioService.importarContagem(request);
+
+            return ResponseEntity.ok(Map.of(
+                "mensagem", "Contagem importada com sucesso",
+                "movimentacaoId", "INV-" + System.currentTimeMillis(),
+                "resultado", resultado
+            ));
+
+        } catch (ConcorrenciaException e) {
+            logger.warn("Conflito de concorrência na importação da contagem", e);
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("erro", "Conflito de concorrência", "detalhes", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Dados inválidos para contagem", e);
+            return ResponseEntity.badRequest()
+                    .body(Map.of("erro", "Dados inválidos", "detalhes", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Erro ao importar contagem", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("erro", "Erro interno do servidor", "detalhes", e.getMessage()));
+        }
+    }
+
+    /**
+     * Lê o CSV aceitando ';' ou ',' como separador e ignorando cabeçalho/linhas em branco
+     */
+    private List<ItemContagem> lerArquivo(MultipartFile arquivo) throws IOException {
+        List<ItemContagem> itens = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(arquivo.getInputStream(), StandardCharsets.UTF_8))) {
+            String linha;
+            int numero = 0;
+            while ((linha = reader.readLine()) != null) {
+                numero++;
+                linha = linha.trim();
+                if (linha.isEmpty() || (numero == 1 && !Character.isDigit(linha.charAt(0)))) {
+                    continue;
+                }
+                String[] campos = linha.split("[;,]");
+                if (campos.length < 2) {
+                    throw new IllegalArgumentException("Linha " + numero + " inválida: " + linha);
+                }
+                try {
+                    long produtoId = Long.parseLong(campos[0].trim());
+                    int quantidade = Integer.parseInt(campos[1].trim());
+                    if (quantidade < 0) {
+                        throw new IllegalArgumentException("Linha " + numero + ": quantidade negativa");
+                    }
+                    itens.add(new ItemContagem(produtoId, quantidade));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Linha " + numero + " inválida: " + linha);
+                }
+            }
+        }
+        if (itens.isEmpty()) {
+            throw new IllegalArgumentException("Arquivo de contagem vazio");
+        }
+        return itens;
+    }
+}
@@ -0,0 +1,197 @@
+package com.inventory.controller;
+
+import com.inventory.busca.IndiceTextual;
+import com.inventory.dto.BuscaProdutosResponse;
+import com.inventory.dto.BuscaProdutosResponse.ProdutoEncontrado;
+import com.inventory.dto.ErroResponse;
+import com.inventory.dto.ProdutoListaResponse;
+import com.inventory.dto.ProdutoRequest;
+import com.inventory.model.Produto;
+import com.inventory.service.CatalogoProdutos;
+import com.inventory.service.CatalogoProdutos.ProdutoCatalogo;
+import com.inventory.service.IndiceDisponibilidade;
+import com.inventory.service.ProdutoService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongPredicate;
+import java.util.function.LongToIntFunction;
+
+/**
+ * Controller REST para o cadastro de produtos (consultas no catálogo em memória)
+ */
+@RestController
+@RequestMapping("/api/v1/inventario/produtos")
+@Tag(name = "Produtos", description = "APIs para cadastro e consulta de produtos")
+@CrossOrigin(origins = "*")
+public class ProdutoController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProdutoController.class);
+
+    private static final int LIMITE_BUSCA = 100;
+
+    private final ProdutoService produtoService;
+    private final CatalogoProdutos catalogoProdutos;
+    private final IndiceDisponibilidade indiceDisponibilidade;
+
+    public ProdutoController(ProdutoService produtoService, CatalogoProdutos catalogoProdutos,
+                             IndiceDisponibilidade indiceDisponibilidade) {
+        this.produtoService = produtoService;
+        this.catalogoProdutos = catalogoProdutos;
+        this.indiceDisponibilidade = indiceDisponibilidade;
+    }
+
+    /**
+     * Busca textual por nome, SKU ou categoria (índice em memória, sem acesso ao banco)
+     */
+    @GetMapping("/busca")
+    @Operation(summary = "Buscar produtos",
+               description = "Cada termo casa com o início de uma palavra do nome, do SKU ou da categoria, sem " +
+                             "diferenciar acentos e maiúsculas; com quantidadeMinima, só produtos com esse " +
+                             "disponível na loja (ou somado na rede, sem loja)")
+    public ResponseEntity<?> buscarProdutos(
+            @Parameter(description = "Texto da busca") @RequestParam String termo,
+            @Parameter(description = "ID da loja para o disponível") @RequestParam(required = false) Long lojaId,
+            @Parameter(description = "Disponível mínimo") @RequestParam(required = false) Integer quantidadeMinima,
+            @Parameter(description = "Máximo de produtos retornados") @RequestParam(defaultValue = "20") Integer limite) {
+
+        if (termo.isBlank()) {
+            return ResponseEntity.badRequest()
+                    .body(ErroResponse.de("Dados inválidos", "Termo de busca é obrigatório"));
+        }
+        if (limite <= 0 || limite > LIMITE_BUSCA || (quantidadeMinima != null && quantidadeMinima <= 0)) {
+            return ResponseEntity.badRequest()
+                    .body(ErroResponse.de("Dados inválidos",
+                            "Limite deve estar entre 1 e " + LIMITE_BUSCA + " e quantidade mínima deve ser positiva"));
+        }
+
+        LongToIntFunction disponivel = lojaId != null
+                ? produtoId -> {
+                    Integer naLoja = indiceDisponibilidade.disponivel(produtoId, lojaId);
+                    return naLoja == null ? 0 : naLoja;
+                }
+                : indiceDisponibilidade::disponivelTotal;
+        LongPredicate filtro = quantidadeMinima == null ? null
+                : produtoId -> disponivel.applyAsInt(produtoId) >= quantidadeMinima;
+
+        IndiceTextual.Resultado resultado = catalogoProdutos.pesquisar(termo, limite, filtro);
+        List<ProdutoEncontrado> produtos = new ArrayList<>(resultado.produtoIds().size());
+        for (Long produtoId : resultado.produtoIds()) {
+            ProdutoCatalogo produto = catalogoProdutos.buscar(produtoId);
+            if (produto != null) {
+                produtos.add(new ProdutoEncontrado(produto, disponivel.applyAsInt(produtoId)));
+            }
+        }
+
+        return ResponseEntity.ok(new BuscaProdutosResponse(termo, lojaId, quantidadeMinima,
+                resultado.encontrados(), produtos));
+    }
+
+    /**
+     * Consulta produto por id
+     */
+    @GetMapping("/{produtoId}")
+    @Operation(summary = "Consultar produto", description = "Dados do produto pelo id (catálogo em memória)")
+    public ResponseEntity<?> consultarProduto(
+            @Parameter(description = "ID do produto") @PathVariable Long produtoId) {
+
+        ProdutoCatalogo produto = catalogoProdutos.buscar(produtoId);
+        if (produto == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ErroResponse.de("Produto não encontrado", "Produto " + produtoId + " não cadastrado"));
+        }
+        return ResponseEntity.ok(produto);
+    }
+
+    /**
+     * Consulta produto por SKU
+     */
+    @GetMapping("/sku/{sku}")
+    @Operation(summary = "Consultar produto por SKU",
+               description = "Dados do produto pelo SKU, sem diferenciar maiúsculas (catálogo em memória)")
+    public ResponseEntity<?> consultarProdutoPorSku(
+            @Parameter(description = "SKU do produto") @PathVariable String sku) {
+
+        ProdutoCatalogo produto = catalogoProdutos.buscarPorSku(sku);
+        if (produto == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ErroResponse.de("Produto não encontrado", "SKU " + sku + " não cadastrado"));
+        }
+        return ResponseEntity.ok(produto);
+    }
+
+    /**
+     * Lista todos os produtos
+     */
+    @GetMapping
+    @Operation(summary = "Listar produtos", description = "Todos os produtos do catálogo, ordenados por id")
+    public ResponseEntity<?> listarProdutos() {
+        return ResponseEntity.ok(ProdutoListaResponse.de(catalogoProdutos.listar()));
+    }
+
+    /**
+     * Cadastra produto
+     */
+    @PostMapping
+    @Operation(summary = "Cadastrar produto", description = "Cadastra produto com o id do cadastro de origem")
+    public ResponseEntity<?> cadastrarProduto(@Valid @RequestBody ProdutoRequest request) {
+        try {
+            Produto produto = produtoService.cadastrarProduto(request);
+
+            return ResponseEntity.status(HttpStatus.CREATED).body(ProdutoCatalogo.de(produto));
+
+        } catch (IllegalArgumentException e) {
+            logger.warn("Erro de validação no cadastro de produto", e);
+            return ResponseEntity.badRequest()
+                    .body(ErroResponse.de("Dados inválidos", e.getMessage()));
+        } catch (DataIntegrityViolationException e) {
+            // id ou SKU gravado por outra requisição entre a validação e o commit
+            logger.warn("Conflito de cadastro de produto", e);
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(ErroResponse.de("Conflito", "ID ou SKU já cadastrado"));
+        } catch (Exception e) {
+            logger.error("Erro ao cadastrar produto", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ErroResponse.interno(e));
+        }
+    }
+
+    /**
+     * Altera produto
+     */
+    @PutMapping("/{produtoId}")
+    @Operation(summary = "Alterar produto", description = "Altera nome, SKU, categoria, valor e descrição")
+    public ResponseEntity<?> atualizarProduto(
+            @Parameter(description = "ID do produto") @PathVariable Long produtoId,
+            @Valid @RequestBody ProdutoRequest request) {
+        try {
+            Produto produto = produtoService.atualizarProduto(produtoId, request);
+
+            return ResponseEntity.ok(ProdutoCatalogo.de(produto));
+
+        } catch (IllegalArgumentException e) {
+            logger.warn("Erro de validação na alteração do produto: {}", produtoId, e);
+            return ResponseEntity.badRequest()
+                    .body(ErroResponse.de("Dados inválidos", e.getMessage()));
+        } catch (DataIntegrityViolationException e) {
+            // id ou SKU gravado por outra requisição entre a validação e o commit
+            logger.warn("Conflito de cadastro de produto", e);
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(ErroResponse.de("Conflito", "ID ou SKU já cadastrado"));
+        } catch (Exception e) {
+            logger.error("Erro ao alterar produto: {}", produtoId, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ErroResponse.interno(e));
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.inventory.controller;
+
+import com.inventory.service.ReposicaoService;
+import com.inventory.service.ReposicaoService.ResultadoReposicao;
+import com.inventory.service.ReposicaoService.SugestaoTransferencia;
+import com.inventory.service.VelocidadeVendasService;
+import com.inventory.service.VelocidadeVendasService.ResultadoRecalculo;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Controller REST para sugestões de reposição/transferência entre lojas e estoque mínimo dinâmico
+ */
+@RestController
+@RequestMapping("/api/v1/inventario/reposicao")
+@Tag(name = "Reposição", description = "APIs para sugestões de transferência entre lojas")
+@CrossOrigin(origins = "*")
+public class ReposicaoController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReposicaoController.class);
+
+    private final ReposicaoService reposicaoService;
+    private final VelocidadeVendasService velocidadeVendas;
+
+    public ReposicaoController(ReposicaoService reposicaoService, VelocidadeVendasService velocidadeVendas) {
+        this.reposicaoService = reposicaoService;
+        this.velocidadeVendas = velocidadeVendas;
+    }
+
+    /**
+     * Dispara uma varredura completa em segundo plano
+     */
+    @PostMapping("/execucao")
+    @Operation(summary = "Executar varredura de reposição",
+               description = "Dispara em segundo plano a varredura de toda a rede")
+    public ResponseEntity<?> executar() {
+        if (reposicaoService.isEmExecucao()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("erro", "Varredura já em andamento"));
+        }
+
+        logger.info("Disparando varredura de reposição");
+        reposicaoService.executarEmSegundoPlano();
+
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(Map.of(
+            "mensagem", "Varredura de reposição iniciada",
+            "status", "EM_EXECUCAO"
+        ));
+    }
+
+    /**
+     * Dispara em segundo plano o recálculo do estoque mínimo pela velocidade de vendas
+     */
+    @PostMapping("/estoque-minimo")
+    @Operation(summary = "Recalcular estoque mínimo",
+               description = "Grava velocidade x (prazo de reposição da loja + dias de segurança) nos pares " +
+                             "com vendas cujo mínimo mudou (o mesmo que o job periódico)")
+    public ResponseEntity<?> recalcularEstoqueMinimo() {
+        logger.info("Disparando recálculo do estoque mínimo");
+        velocidadeVendas.recalcularEmSegundoPlano();
+
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(Map.of(
+            "mensagem", "Recálculo do estoque mínimo iniciado",
+            "paresMonitorados", velocidadeVendas.totalPares()
+        ));
+    }
+
+    /**
+     * Resultado do último recálculo do estoque mínimo
+     */
+    @GetMapping("/estoque-minimo")
+    @Operation(summary = "Último recálculo do estoque mínimo",
+               description = "Pares com vendas, mínimos enviados ao banco e linhas alteradas no último recálculo")
+    public ResponseEntity<?> ultimoRecalculoEstoqueMinimo() {
+        ResultadoRecalculo resultado = velocidadeVendas.getUltimoRecalculo();
+        if (resultado == null) {
+            return ResponseEntity.ok(Map.of(
+                "paresMonitorados", velocidadeVendas.totalPares(),
+                "vendasRegistradas", velocidadeVendas.getVendasRegistradas(),
+                "mensagem", "Nenhum recálculo concluído"
+            ));
+        }
+
+        return ResponseEntity.ok(Map.of(
+            "paresMonitorados", velocidadeVendas.totalPares(),
+            "vendasRegistradas", velocidadeVendas.getVendasRegistradas(),
+            "ultimoRecalculo", resultado
+        ));
+    }
+
+    /**
+     * Sugestões da última varredura, com filtros opcionais
+     */
+    @GetMapping("/sugestoes")
+    @Operation(summary = "Sugestões de transferência",
+               description = "Retorna as sugestões ranqueadas da última varredura concluída")
+    public ResponseEntity<?> listarSugestoes(
+            @Parameter(description = "Filtrar por produto") @RequestParam(required = false) Long produtoId,
+            @Parameter(description = "Filtrar por loja de origem ou destino") @RequestParam(required = false) Long lojaId,
+            @Parameter(description = "Máximo de sugestões") @RequestParam(defaultValue = "100") Integer limite) {
+
+        ResultadoReposicao resultado = reposicaoService.getUltimoResultado();
+        if (resultado == null) {
+            return ResponseEntity.ok(Map.of(
+                "emExecucao", reposicaoService.isEmExecucao(),
+                "totalSugestoes", 0,
+                "sugestoes", List.of(),
+                "mensagem", "Nenhuma varredura concluída"
+            ));
+        }
+
+        List<SugestaoTransferencia> sugestoes = resultado.getSugestoes().stream()
+                .filter(s -> produtoId == null || s.getProdutoId() == produtoId)
+                .filter(s -> lojaId == null || s.getLojaOrigem() == lojaId || s.getLojaDestino() == lojaId)
+                .limit(Math.max(0, limite))
+                .toList();
+
+        return ResponseEntity.ok(Map.of(
+            "emExecucao", reposicaoService.isEmExecucao(),
+            "executadaEm", resultado.getExecutadaEm(),
+            "linhasLidas", resultado.getLinhasLidas(),
+            "skusAnalisados", resultado.getSkusAnalisados(),
+            "totalSugestoes", resultado.getTotalSugestoes(),
+            "tempoMs", resultado.getTempoMs(),
+            "sugestoes", sugestoes
+        ));
+    }
+}
@@ -0,0 +1,19 @@
+package com.inventory.disputa;
+
+/**
+ * Hash das chaves (produto, loja) usado pelos resumos; a semente separa as linhas do count-min
+ */
+final class Chaves {
+
+    private Chaves() {
+    }
+
+    static int hash(long produtoId, long lojaId, int semente) {
+        long h = (produtoId + semente * 0xD6E8FEB86659FD93L) * 0x9E3779B97F4A7C15L + lojaId;
+        h ^= h >>> 33;
+        h *= 0xC2B2AE3D27D4EB4FL;
+        h ^= h >>> 29;
+        h *= 0x94D049BB133111EBL;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,69 @@
+package com.inventory.disputa;
+
+import java.util.Arrays;
+
+/**
+ * Frequência aproximada de qualquer chave (produto, loja) em memória fixa (count-min sketch)
+ *
+ * profundidade linhas de largura contadores; cada chave soma um contador por linha e a estimativa é o menor
+ * deles. Com atualização conservadora (só sobem os contadores iguais ao mínimo) a estimativa nunca fica abaixo
+ * da real e passa dela no máximo em ~e / largura do total, com probabilidade 1 - e^-profundidade.
+ * Sem sincronização: o chamador serializa o acesso.
+ */
+public final class EsbocoCountMin {
+
+    private final int profundidade;
+    private final int mascara;
+    private final int[] contadores;
+    private final int[] posicoes;
+
+    /**
+     * @param largura contadores por linha (arredondado para potência de 2)
+     */
+    public EsbocoCountMin(int profundidade, int largura) {
+        if (profundidade <= 0 || largura <= 0) {
+            throw new IllegalArgumentException("Profundidade e largura devem ser positivas");
+        }
+        int colunas = Integer.highestOneBit(largura * 2 - 1);
+        this.profundidade = profundidade;
+        this.mascara = colunas - 1;
+        this.contadores = new int[profundidade * colunas];
+        this.posicoes = new int[profundidade];
+    }
+
+    public void incrementar(long produtoId, long lojaId, int ocorrencias) {
+        int minimo = Integer.MAX_VALUE;
+        for (int linha = 0; linha < profundidade; linha++) {
+            posicoes[linha] = linha * (mascara + 1) + (Chaves.hash(produtoId, lojaId, linha + 1) & mascara);
+            minimo = Math.min(minimo, contadores[posicoes[linha]]);
+        }
+        int novo = (int) Math.min(Integer.MAX_VALUE, (long) minimo + ocorrencias);
+        for (int linha = 0; linha < profundidade; linha++) {
+            if (contadores[posicoes[linha]] < novo) {
+                contadores[posicoes[linha]] = novo;
+            }
+        }
+    }
+
+    public int estimar(long produtoId, long lojaId) {
+        int minimo = Integer.MAX_VALUE;
+        for (int linha = 0; linha < profundidade; linha++) {
+            minimo = Math.min(minimo,
+                    contadores[linha * (mascara + 1) + (Chaves.hash(produtoId, lojaId, linha + 1) & mascara)]);
+        }
+        return minimo;
+    }
+
+    /**
+     * Cópia independente dos contadores (mesmas funções de hash)
+     */
+    public EsbocoCountMin copiar() {
+        EsbocoCountMin copia = new EsbocoCountMin(profundidade, mascara + 1);
+        System.arraycopy(contadores, 0, copia.contadores, 0, contadores.length);
+        return copia;
+    }
+
+    public void limpar() {
+        Arrays.fill(contadores, 0);
+    }
+}
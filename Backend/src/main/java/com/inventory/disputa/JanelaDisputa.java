@@ -0,0 +1,241 @@
+package com.inventory.disputa;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Acessos e conflitos por (produto, loja) numa janela deslizante, em memória fixa
+ *
+ * A janela é dividida em fatias de janela / fatias; cada fatia tem um resumo Space-Saving de acessos, outro de
+ * conflitos e um count-min de escritas, reaproveitados quando a fatia volta no anel. Uma consulta soma as
+ * fatias que cobrem o período pedido (a atual, ainda parcial, entra inteira): o período real fica entre
+ * período - fatia e período. Na soma, a chave ausente de uma fatia conta o mínimo daquela fatia no limite
+ * superior, então contagem - erro continua sendo limite inferior.
+ *
+ * Cada thread registra numa das faixas (anéis de fatias independentes, escolhidos pelo id da thread), com o
+ * monitor só daquela faixa: threads de faixas diferentes não se esperam. A consulta copia as fatias de cada
+ * faixa sob o monitor dela e faz a soma fora dele, com as faixas entrando como mais resumos da mesma época.
+ */
+public final class JanelaDisputa {
+
+    private final long fatiaMs;
+    private final int fatiasPorFaixa;
+    private final Faixa[] faixas;
+    private final int mascaraFaixas;
+
+    /**
+     * @param faixas anéis independentes (arredondado para potência de 2)
+     * @param capacidade chaves guardadas por resumo em cada fatia
+     * @param largura contadores por linha do count-min de escritas de cada fatia
+     */
+    public JanelaDisputa(long janelaMs, int fatias, int faixas, int capacidade, int profundidade, int largura) {
+        if (fatias <= 0 || janelaMs < fatias) {
+            throw new IllegalArgumentException("Janela deve ter ao menos 1ms por fatia");
+        }
+        if (faixas <= 0) {
+            throw new IllegalArgumentException("Faixas devem ser positivas");
+        }
+        this.fatiaMs = janelaMs / fatias;
+        this.fatiasPorFaixa = fatias;
+        this.faixas = new Faixa[Integer.highestOneBit(faixas * 2 - 1)];
+        this.mascaraFaixas = this.faixas.length - 1;
+        for (int i = 0; i < this.faixas.length; i++) {
+            this.faixas[i] = new Faixa(fatias, capacidade, profundidade, largura);
+        }
+    }
+
+    public void registrarLeitura(long produtoId, long lojaId, long agoraMs) {
+        Faixa faixa = faixa();
+        synchronized (faixa) {
+            faixa.fatia(agoraMs, fatiaMs).acessos.incrementar(produtoId, lojaId, 1);
+        }
+    }
+
+    public void registrarEscrita(long produtoId, long lojaId, long agoraMs) {
+        Faixa faixa = faixa();
+        synchronized (faixa) {
+            Fatia fatia = faixa.fatia(agoraMs, fatiaMs);
+            fatia.acessos.incrementar(produtoId, lojaId, 1);
+            fatia.escritas.incrementar(produtoId, lojaId, 1);
+            fatia.totalEscritas++;
+        }
+    }
+
+    public void registrarConflito(long produtoId, long lojaId, long agoraMs) {
+        Faixa faixa = faixa();
+        synchronized (faixa) {
+            faixa.fatia(agoraMs, fatiaMs).conflitos.incrementar(produtoId, lojaId, 1);
+        }
+    }
+
+    /**
+     * As limite chaves mais acessadas e mais disputadas das fatias que cobrem os últimos periodoMs
+     */
+    public Consulta consultar(long periodoMs, int limite, long agoraMs) {
+        long atual = agoraMs / fatiaMs;
+        int quantidade = (int) Math.max(1, Math.min(fatiasPorFaixa, (periodoMs + fatiaMs - 1) / fatiaMs));
+        List<Copia> cobertas = new ArrayList<>(quantidade * faixas.length);
+        for (Faixa faixa : faixas) {
+            synchronized (faixa) {
+                for (Fatia fatia : faixa.fatias) {
+                    if (fatia.epoca > atual - quantidade && fatia.epoca <= atual) {
+                        cobertas.add(fatia.copiar());
+                    }
+                }
+            }
+        }
+
+        long acessos = 0;
+        long escritas = 0;
+        long conflitos = 0;
+        for (Copia copia : cobertas) {
+            acessos += copia.acessos.total();
+            escritas += copia.totalEscritas;
+            conflitos += copia.conflitos.total();
+        }
+
+        List<ResumoSpaceSaving.Entrada> acessadas = somar(cobertas, Copia::acessos, limite);
+        List<ChaveDisputada> disputadas = new ArrayList<>(limite);
+        for (ResumoSpaceSaving.Entrada entrada : somar(cobertas, Copia::conflitos, limite)) {
+            long escritasChave = 0;
+            for (Copia copia : cobertas) {
+                escritasChave += copia.escritas.estimar(entrada.produtoId(), entrada.lojaId());
+            }
+            disputadas.add(new ChaveDisputada(entrada.produtoId(), entrada.lojaId(), entrada.contagem(),
+                    entrada.erro(), escritasChave));
+        }
+        return new Consulta((atual - quantidade + 1) * fatiaMs, acessos, escritas, conflitos, acessadas,
+                disputadas);
+    }
+
+    public void limpar() {
+        for (Faixa faixa : faixas) {
+            synchronized (faixa) {
+                for (Fatia fatia : faixa.fatias) {
+                    fatia.reiniciar(Long.MIN_VALUE);
+                }
+            }
+        }
+    }
+
+    public long getFatiaMs() {
+        return fatiaMs;
+    }
+
+    private Faixa faixa() {
+        return faixas[(int) Thread.currentThread().getId() & mascaraFaixas];
+    }
+
+    private static List<ResumoSpaceSaving.Entrada> somar(List<Copia> copias, Function<Copia, Resumo> resumo,
+                                                        int limite) {
+        // por chave: contagem somada, limite inferior somado e mínimos dos resumos em que a chave aparece
+        Map<Par, long[]> somas = new HashMap<>();
+        long minimos = 0;
+        for (Copia copia : copias) {
+            Resumo origem = resumo.apply(copia);
+            long minimo = origem.minimo();
+            minimos += minimo;
+            for (ResumoSpaceSaving.Entrada entrada : origem.entradas()) {
+                long[] soma = somas.computeIfAbsent(new Par(entrada.produtoId(), entrada.lojaId()), p -> new long[3]);
+                soma[0] += entrada.contagem();
+                soma[1] += entrada.contagem() - entrada.erro();
+                soma[2] += minimo;
+            }
+        }
+        long minimosFatias = minimos;
+        return somas.entrySet().stream()
+                .map(e -> {
+                    long contagem = e.getValue()[0] + minimosFatias - e.getValue()[2];
+                    return new ResumoSpaceSaving.Entrada(e.getKey().produtoId(), e.getKey().lojaId(), contagem,
+                            contagem - e.getValue()[1]);
+                })
+                .sorted(Comparator.comparingLong(ResumoSpaceSaving.Entrada::contagem).reversed()
+                        .thenComparingLong(ResumoSpaceSaving.Entrada::erro))
+                .limit(limite)
+                .toList();
+    }
+
+    /**
+     * Anel de fatias de uma faixa; o próprio objeto é o monitor da faixa
+     */
+    private static final class Faixa {
+        private final Fatia[] fatias;
+
+        private Faixa(int fatias, int capacidade, int profundidade, int largura) {
+            this.fatias = new Fatia[fatias];
+            for (int i = 0; i < fatias; i++) {
+                this.fatias[i] = new Fatia(capacidade, profundidade, largura);
+            }
+        }
+
+        /**
+         * Fatia do instante; a que ainda guarda um período antigo é zerada antes do uso
+         */
+        private Fatia fatia(long agoraMs, long fatiaMs) {
+            long epoca = agoraMs / fatiaMs;
+            Fatia fatia = fatias[(int) Math.floorMod(epoca, (long) fatias.length)];
+            if (fatia.epoca != epoca) {
+                fatia.reiniciar(epoca);
+            }
+            return fatia;
+        }
+    }
+
+    private static final class Fatia {
+        private final ResumoSpaceSaving acessos;
+        private final ResumoSpaceSaving conflitos;
+        private final EsbocoCountMin escritas;
+        private long totalEscritas;
+        private long epoca = Long.MIN_VALUE;
+
+        private Fatia(int capacidade, int profundidade, int largura) {
+            this.acessos = new ResumoSpaceSaving(capacidade);
+            this.conflitos = new ResumoSpaceSaving(capacidade);
+            this.escritas = new EsbocoCountMin(profundidade, largura);
+        }
+
+        private void reiniciar(long epoca) {
+            acessos.limpar();
+            conflitos.limpar();
+            escritas.limpar();
+            totalEscritas = 0;
+            this.epoca = epoca;
+        }
+
+        private Copia copiar() {
+            return new Copia(Resumo.de(acessos), Resumo.de(conflitos), escritas.copiar(), totalEscritas);
+        }
+    }
+
+    /**
+     * Entradas, mínimo e total de um resumo Space-Saving, copiados sob o monitor da faixa
+     */
+    private record Resumo(List<ResumoSpaceSaving.Entrada> entradas, long minimo, long total) {
+        private static Resumo de(ResumoSpaceSaving resumo) {
+            return new Resumo(resumo.entradas(), resumo.minimo(), resumo.total());
+        }
+    }
+
+    private record Copia(Resumo acessos, Resumo conflitos, EsbocoCountMin escritas, long totalEscritas) {
+    }
+
+    private record Par(long produtoId, long lojaId) {
+    }
+
+    /**
+     * Conflitos de uma chave (contagem e erro do Space-Saving) e as escritas estimadas pelo count-min
+     */
+    public record ChaveDisputada(long produtoId, long lojaId, long conflitos, long erro, long escritas) {
+    }
+
+    /**
+     * Totais e chaves do período coberto (a partir de inicioMs)
+     */
+    public record Consulta(long inicioMs, long acessos, long escritas, long conflitos,
+                           List<ResumoSpaceSaving.Entrada> maisAcessadas, List<ChaveDisputada> maisDisputadas) {
+    }
+}
@@ -0,0 +1,198 @@
+package com.inventory.disputa;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Chaves (produto, loja) mais frequentes de um fluxo em memória fixa (algoritmo Space-Saving)
+ *
+ * Guarda no máximo capacidade contadores. Chave nova com o resumo cheio assume o contador de menor contagem
+ * e herda essa contagem como erro: a contagem nunca fica abaixo da real e passa dela no máximo pelo erro.
+ * Toda chave com mais de total / capacidade ocorrências está no resumo. Os contadores ficam num heap de mínimo
+ * em arrays paralelos, com índice por endereçamento aberto apontando para a posição no heap; nenhum objeto
+ * por evento. Sem sincronização: o chamador serializa o acesso.
+ */
+public final class ResumoSpaceSaving {
+
+    private final int capacidade;
+
+    // heap de mínimo por contagem
+    private final long[] produtos;
+    private final long[] lojas;
+    private final long[] contagens;
+    private final long[] erros;
+    // posição no índice de cada entrada do heap
+    private final int[] entradasIndice;
+
+    // posição no heap + 1 (0 = vazio), sondagem linear
+    private final int[] indice;
+    private final int mascara;
+
+    private int tamanho;
+    private long total;
+
+    public ResumoSpaceSaving(int capacidade) {
+        if (capacidade <= 0) {
+            throw new IllegalArgumentException("Capacidade deve ser positiva");
+        }
+        this.capacidade = capacidade;
+        this.produtos = new long[capacidade];
+        this.lojas = new long[capacidade];
+        this.contagens = new long[capacidade];
+        this.erros = new long[capacidade];
+        this.entradasIndice = new int[capacidade];
+        this.indice = new int[Integer.highestOneBit(capacidade * 2 - 1) << 1];
+        this.mascara = indice.length - 1;
+    }
+
+    /**
+     * Soma ocorrências à chave
+     */
+    public void incrementar(long produtoId, long lojaId, long ocorrencias) {
+        total += ocorrencias;
+        int slot = procurar(produtoId, lojaId);
+        if (indice[slot] != 0) {
+            int pos = indice[slot] - 1;
+            contagens[pos] += ocorrencias;
+            descer(pos);
+        } else if (tamanho < capacidade) {
+            int pos = tamanho++;
+            produtos[pos] = produtoId;
+            lojas[pos] = lojaId;
+            contagens[pos] = ocorrencias;
+            erros[pos] = 0;
+            indice[slot] = pos + 1;
+            entradasIndice[pos] = slot;
+            subir(pos);
+        } else {
+            // substitui a chave de menor contagem, que é a raiz do heap
+            remover(entradasIndice[0]);
+            slot = procurar(produtoId, lojaId);
+            produtos[0] = produtoId;
+            lojas[0] = lojaId;
+            erros[0] = contagens[0];
+            contagens[0] += ocorrencias;
+            indice[slot] = 1;
+            entradasIndice[0] = slot;
+            descer(0);
+        }
+    }
+
+    /**
+     * Menor contagem guardada com o resumo cheio (0 enquanto há contadores livres): limite superior
+     * da contagem de qualquer chave fora do resumo
+     */
+    public long minimo() {
+        return tamanho < capacidade ? 0 : contagens[0];
+    }
+
+    /**
+     * Ocorrências somadas desde a última limpeza, de todas as chaves
+     */
+    public long total() {
+        return total;
+    }
+
+    /**
+     * Cópia das entradas, sem ordem definida
+     */
+    public List<Entrada> entradas() {
+        List<Entrada> entradas = new ArrayList<>(tamanho);
+        for (int i = 0; i < tamanho; i++) {
+            entradas.add(new Entrada(produtos[i], lojas[i], contagens[i], erros[i]));
+        }
+        return entradas;
+    }
+
+    public void limpar() {
+        Arrays.fill(indice, 0);
+        tamanho = 0;
+        total = 0;
+    }
+
+    private int procurar(long produtoId, long lojaId) {
+        int slot = Chaves.hash(produtoId, lojaId, 0) & mascara;
+        while (indice[slot] != 0 && (produtos[indice[slot] - 1] != produtoId || lojas[indice[slot] - 1] != lojaId)) {
+            slot = (slot + 1) & mascara;
+        }
+        return slot;
+    }
+
+    /**
+     * Remove a posição do índice deslocando para trás as entradas seguintes do mesmo agrupamento
+     */
+    private void remover(int slot) {
+        indice[slot] = 0;
+        int livre = slot;
+        int atual = (slot + 1) & mascara;
+        while (indice[atual] != 0) {
+            int pos = indice[atual] - 1;
+            int ideal = Chaves.hash(produtos[pos], lojas[pos], 0) & mascara;
+            // a entrada pode ocupar a posição livre se ela fica entre a ideal e a atual (circularmente)
+            if (((atual - ideal) & mascara) >= ((atual - livre) & mascara)) {
+                indice[livre] = indice[atual];
+                entradasIndice[pos] = livre;
+                indice[atual] = 0;
+                livre = atual;
+            }
+            atual = (atual + 1) & mascara;
+        }
+    }
+
+    private void subir(int pos) {
+        while (pos > 0) {
+            int pai = (pos - 1) >>> 1;
+            if (contagens[pai] <= contagens[pos]) {
+                return;
+            }
+            trocar(pos, pai);
+            pos = pai;
+        }
+    }
+
+    private void descer(int pos) {
+        while (true) {
+            int menor = pos;
+            int esquerda = 2 * pos + 1;
+            int direita = esquerda + 1;
+            if (esquerda < tamanho && contagens[esquerda] < contagens[menor]) {
+                menor = esquerda;
+            }
+            if (direita < tamanho && contagens[direita] < contagens[menor]) {
+                menor = direita;
+            }
+            if (menor == pos) {
+                return;
+            }
+            trocar(pos, menor);
+            pos = menor;
+        }
+    }
+
+    private void trocar(int a, int b) {
+        long produto = produtos[a];
+        produtos[a] = produtos[b];
+        produtos[b] = produto;
+        long loja = lojas[a];
+        lojas[a] = lojas[b];
+        lojas[b] = loja;
+        long contagem = contagens[a];
+        contagens[a] = contagens[b];
+        contagens[b] = contagem;
+        long erro = erros[a];
+        erros[a] = erros[b];
+        erros[b] = erro;
+        int slot = entradasIndice[a];
+        entradasIndice[a] = entradasIndice[b];
+        entradasIndice[b] = slot;
+        indice[entradasIndice[a]] = a + 1;
+        indice[entradasIndice[b]] = b + 1;
+    }
+
+    /**
+     * Contagem (limite superior) e erro (contagem - erro é o limite inferior) de uma chave
+     */
+    public record Entrada(long produtoId, long lojaId, long contagem, long erro) {
+    }
+}
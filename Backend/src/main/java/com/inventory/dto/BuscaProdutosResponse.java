@@ -0,0 +1,20 @@
+package com.inventory.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.inventory.service.CatalogoProdutos.ProdutoCatalogo;
+
+import java.util.List;
+
+/**
+ * Resultado da busca textual no catálogo, com o disponível na loja (ou na rede, sem loja informada)
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BuscaProdutosResponse(String termo, Long lojaId, Integer quantidadeMinima, int totalEncontrados,
+                                    List<ProdutoEncontrado> produtos) {
+
+    /**
+     * Produto encontrado e o disponível considerado no filtro
+     */
+    public record ProdutoEncontrado(ProdutoCatalogo produto, int disponivel) {
+    }
+}
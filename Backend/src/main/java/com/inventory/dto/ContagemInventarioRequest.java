@@ -0,0 +1,79 @@
+package com.inventory.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO para importação em lote de contagem física (inventário) de uma loja
+ */
+public class ContagemInventarioRequest {
+
+    @NotNull(message = "ID da loja é obrigatório")
+    private Long lojaId;
+
+    @NotBlank(message = "Motivo é obrigatório")
+    private String motivo;
+
+    /**
+     * Quando verdadeiro, produtos do estoque que não aparecem na contagem são zerados
+     */
+    private boolean zerarNaoContados;
+
+    @NotEmpty(message = "A contagem deve ter ao menos um item")
+    @Valid
+    private List<ItemContagem> itens = new ArrayList<>();
+
+    // Construtores
+    public ContagemInventarioRequest() {}
+
+    public ContagemInventarioRequest(Long lojaId, String motivo, List<ItemContagem> itens) {
+        this.lojaId = lojaId;
+        this.motivo = motivo;
+        this.itens = itens;
+    }
+
+    // Getters e Setters
+    public Long getLojaId() { return lojaId; }
+    public void setLojaId(Long lojaId) { this.lojaId = lojaId; }
+
+    public String getMotivo() { return motivo; }
+    public void setMotivo(String motivo) { this.motivo = motivo; }
+
+    public boolean isZerarNaoContados() { return zerarNaoContados; }
+    public void setZerarNaoContados(boolean zerarNaoContados) { this.zerarNaoContados = zerarNaoContados; }
+
+    public List<ItemContagem> getItens() { return itens; }
+    public void setItens(List<ItemContagem> itens) { this.itens = itens; }
+
+    /**
+     * Linha da contagem: produto e quantidade física contada
+     */
+    public static class ItemContagem {
+
+        @NotNull(message = "ID do produto é obrigatório")
+        private Long produtoId;
+
+        @NotNull(message = "Quantidade contada é obrigatória")
+        @Min(value = 0, message = "Quantidade contada não pode ser negativa")
+        private Integer quantidade;
+
+        public ItemContagem() {}
+
+        public ItemContagem(Long produtoId, Integer quantidade) {
+            this.produtoId = produtoId;
+            this.quantidade = quantidade;
+        }
+
+        public Long getProdutoId() { return produtoId; }
+        public void setProdutoId(Long produtoId) { this.produtoId = produtoId; }
+
+        public Integer getQuantidade() { return quantidade; }
+        public void setQuantidade(Integer quantidade) { this.quantidade = quantidade; }
+    }
+}
@@ -0,0 +1,58 @@
+package com.inventory.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO para consulta de disponibilidade em lote (linhas de carrinho ou cesta do PDV)
+ */
+public class DisponibilidadeLoteRequest {
+
+    public static final int MAXIMO_ITENS = 5000;
+
+    @NotEmpty(message = "Informe ao menos um par produto/loja")
+    @Size(max = MAXIMO_ITENS, message = "Máximo de " + MAXIMO_ITENS + " pares por consulta")
+    @Valid
+    private List<ItemConsulta> itens = new ArrayList<>();
+
+    // Construtores
+    public DisponibilidadeLoteRequest() {}
+
+    public DisponibilidadeLoteRequest(List<ItemConsulta> itens) {
+        this.itens = itens;
+    }
+
+    // Getters e Setters
+    public List<ItemConsulta> getItens() { return itens; }
+    public void setItens(List<ItemConsulta> itens) { this.itens = itens; }
+
+    /**
+     * Par produto/loja consultado
+     */
+    public static class ItemConsulta {
+
+        @NotNull(message = "ID do produto é obrigatório")
+        private Long produtoId;
+
+        @NotNull(message = "ID da loja é obrigatório")
+        private Long lojaId;
+
+        public ItemConsulta() {}
+
+        public ItemConsulta(Long produtoId, Long lojaId) {
+            this.produtoId = produtoId;
+            this.lojaId = lojaId;
+        }
+
+        public Long getProdutoId() { return produtoId; }
+        public void setProdutoId(Long produtoId) { this.produtoId = produtoId; }
+
+        public Long getLojaId() { return lojaId; }
+        public void setLojaId(Long lojaId) { this.lojaId = lojaId; }
+    }
+}
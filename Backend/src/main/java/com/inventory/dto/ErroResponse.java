@@ -0,0 +1,27 @@
+package com.inventory.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.inventory.exception.EstoqueInsuficienteException;
+
+/**
+ * Corpo padrão de erro das APIs
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ErroResponse(String erro, String detalhes, Integer disponivel, Integer solicitado) {
+
+    public static ErroResponse de(String erro) {
+        return new ErroResponse(erro, null, null, null);
+    }
+
+    public static ErroResponse de(String erro, String detalhes) {
+        return new ErroResponse(erro, detalhes, null, null);
+    }
+
+    public static ErroResponse interno(Exception e) {
+        return new ErroResponse("Erro interno do servidor", e.getMessage(), null, null);
+    }
+
+    public static ErroResponse estoqueInsuficiente(EstoqueInsuficienteException e) {
+        return new ErroResponse("Estoque insuficiente", e.getMessage(), e.getDisponivel(), e.getSolicitado());
+    }
+}
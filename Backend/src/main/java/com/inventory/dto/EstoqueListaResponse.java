@@ -0,0 +1,175 @@
+package com.inventory.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.inventory.model.EstoqueProduto;
+import com.inventory.service.CatalogoProdutos;
+import com.inventory.service.CatalogoProdutos.ProdutoCatalogo;
+import com.inventory.service.EstoqueServiceJpa.DisponivelPar;
+import com.inventory.service.IndiceDisponibilidade.LojaDisponivel;
+import com.inventory.service.SincronizacaoService;
+import com.inventory.service.VelocidadeVendasService.PrevisaoRuptura;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Respostas de consultas que retornam listas de estoque
+ *
+ * Com um catálogo informado, cada item leva os dados do produto (busca em memória, sem acesso ao banco).
+ */
+public final class EstoqueListaResponse {
+
+    private EstoqueListaResponse() {
+    }
+
+    static List<EstoqueResponse> converter(List<EstoqueProduto> estoques, CatalogoProdutos catalogo) {
+        List<EstoqueResponse> itens = new ArrayList<>(estoques.size());
+        for (EstoqueProduto e : estoques) {
+            itens.add(EstoqueResponse.de(e, catalogo == null ? null : catalogo.buscar(e.getProdutoId())));
+        }
+        return itens;
+    }
+
+    /**
+     * Um produto em todas as lojas (os dados do produto vêm uma vez, fora das lojas)
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record ProdutoEmLojas(Long produtoId, ProdutoCatalogo produto, int totalLojas, List<EstoqueResponse> lojas,
+                                 String mensagem) {
+
+        public static ProdutoEmLojas de(Long produtoId, List<EstoqueProduto> estoques) {
+            return de(produtoId, estoques, null);
+        }
+
+        public static ProdutoEmLojas de(Long produtoId, List<EstoqueProduto> estoques, CatalogoProdutos catalogo) {
+            ProdutoCatalogo produto = catalogo == null ? null : catalogo.buscar(produtoId);
+            if (estoques.isEmpty()) {
+                return new ProdutoEmLojas(produtoId, produto, 0, List.of(), "Produto não encontrado em nenhuma loja");
+            }
+            return new ProdutoEmLojas(produtoId, produto, estoques.size(), converter(estoques, null), null);
+        }
+    }
+
+    /**
+     * Todos os produtos de uma loja
+     */
+    public record Loja(Long lojaId, int totalProdutos, List<EstoqueResponse> produtos) {
+
+        public static Loja de(Long lojaId, List<EstoqueProduto> estoques) {
+            return de(lojaId, estoques, null);
+        }
+
+        public static Loja de(Long lojaId, List<EstoqueProduto> estoques, CatalogoProdutos catalogo) {
+            return new Loja(lojaId, estoques.size(), converter(estoques, catalogo));
+        }
+    }
+
+    /**
+     * Estoque da rede agrupado por loja
+     */
+    public record Rede(int totalLojas, int totalProdutos, List<Loja> lojas) {
+    }
+
+    /**
+     * Produtos abaixo do estoque mínimo
+     */
+    public record EstoqueBaixo(int totalAlertas, List<EstoqueResponse> produtos) {
+
+        public static EstoqueBaixo de(List<EstoqueProduto> estoques) {
+            return de(estoques, null);
+        }
+
+        public static EstoqueBaixo de(List<EstoqueProduto> estoques, CatalogoProdutos catalogo) {
+            return new EstoqueBaixo(estoques.size(), converter(estoques, catalogo));
+        }
+    }
+
+    /**
+     * Lojas que atendem a quantidade pedida (índice em memória)
+     */
+    public record LojasDisponiveis(Long produtoId, int quantidade, int totalLojas, List<LojaDisponivel> lojas) {
+    }
+
+    /**
+     * Disponível de cada par (produto, loja) consultado em lote, na ordem do pedido
+     */
+    public record DisponibilidadeLote(int totalItens, int encontrados, List<ItemDisponibilidade> itens) {
+
+        public static DisponibilidadeLote de(List<DisponibilidadeLoteRequest.ItemConsulta> consulta,
+                                             List<DisponivelPar> disponiveis) {
+            Map<Par, Integer> porPar = new HashMap<>(disponiveis.size() * 2);
+            for (DisponivelPar d : disponiveis) {
+                porPar.put(new Par(d.produtoId(), d.lojaId()), d.disponivel());
+            }
+            List<ItemDisponibilidade> itens = new ArrayList<>(consulta.size());
+            int encontrados = 0;
+            for (DisponibilidadeLoteRequest.ItemConsulta item : consulta) {
+                Integer disponivel = porPar.get(new Par(item.getProdutoId(), item.getLojaId()));
+                if (disponivel != null) {
+                    encontrados++;
+                }
+                itens.add(new ItemDisponibilidade(item.getProdutoId(), item.getLojaId(), disponivel));
+            }
+            return new DisponibilidadeLote(itens.size(), encontrados, itens);
+        }
+
+        private record Par(long produtoId, long lojaId) {
+        }
+    }
+
+    /**
+     * Disponível de um par; ausente quando o produto não está cadastrado na loja
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record ItemDisponibilidade(Long produtoId, Long lojaId, Integer disponivel) {
+    }
+
+    /**
+     * Estatísticas agregadas de uma loja
+     */
+    public record EstatisticasLoja(Long lojaId, long totalProdutos, long quantidadeTotal, long disponivelTotal,
+                                   long produtosComEstoqueBaixo) {
+    }
+
+    /**
+     * Itens da loja com vendas registradas, dos que acabam primeiro ({@code monitorados} conta todos)
+     */
+    public record PrevisaoRupturaLoja(Long lojaId, int monitorados, List<PrevisaoRuptura> itens) {
+    }
+
+    /**
+     * Página da sincronização incremental de uma loja; enviar {@code proximo} como {@code desde} na chamada seguinte
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Alteracoes(Long lojaId, long desde, long proximo, boolean temMais, Boolean ressincronizar,
+                             List<ItemAlteracao> itens) {
+
+        public static Alteracoes de(Long lojaId, long desde, SincronizacaoService.Alteracoes alteracoes) {
+            List<ItemAlteracao> itens = new ArrayList<>(alteracoes.itens().size());
+            for (SincronizacaoService.ItemAlteracao item : alteracoes.itens()) {
+                itens.add(ItemAlteracao.de(item));
+            }
+            return new Alteracoes(lojaId, desde, alteracoes.proximo(), alteracoes.temMais(),
+                    alteracoes.ressincronizar() ? Boolean.TRUE : null, itens);
+        }
+    }
+
+    /**
+     * Item compacto da sincronização: estado atual do produto na loja ou marca de remoção
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record ItemAlteracao(long seq, Long produtoId, Integer quantidade, Integer reservado,
+                                Integer estoqueMinimo, Long versao, Boolean removido) {
+
+        static ItemAlteracao de(SincronizacaoService.ItemAlteracao item) {
+            EstoqueProduto e = item.estoque();
+            if (e == null) {
+                return new ItemAlteracao(item.sequencia(), item.produtoId(), null, null, null, null, Boolean.TRUE);
+            }
+            return new ItemAlteracao(item.sequencia(), item.produtoId(), e.getQuantidade(), e.getReservado(),
+                    e.getEstoqueMinimo(), e.getVersao(), null);
+        }
+    }
+}
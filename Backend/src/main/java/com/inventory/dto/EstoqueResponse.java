@@ -0,0 +1,47 @@
+package com.inventory.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.inventory.model.EstoqueProduto;
+import com.inventory.service.CatalogoProdutos.ProdutoCatalogo;
+
+import java.time.LocalDateTime;
+
+/**
+ * Resposta de estoque de um produto em uma loja (nunca expõe a entidade JPA)
+ *
+ * {@code produto} só vem quando a consulta pede os dados do catálogo ({@code incluirProduto=true}).
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonPropertyOrder({"produtoId", "lojaId", "quantidade", "disponivel", "reservado", "estoqueMinimo",
+        "isEstoqueBaixo", "ultimaAtualizacao", "versao", "produto", "mensagem"})
+public record EstoqueResponse(
+        Long produtoId,
+        Long lojaId,
+        int quantidade,
+        int disponivel,
+        int reservado,
+        Integer estoqueMinimo,
+        @JsonProperty("isEstoqueBaixo") Boolean estoqueBaixo,
+        @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime ultimaAtualizacao,
+        Long versao,
+        ProdutoCatalogo produto,
+        String mensagem) {
+
+    public static EstoqueResponse de(EstoqueProduto e) {
+        return de(e, null);
+    }
+
+    public static EstoqueResponse de(EstoqueProduto e, ProdutoCatalogo produto) {
+        return new EstoqueResponse(e.getProdutoId(), e.getLojaId(), e.getQuantidade(), e.getDisponivel(),
+                e.getReservado(), e.getEstoqueMinimo(), e.isEstoqueBaixo(), e.getUltimaAtualizacao(),
+                e.getVersao(), produto, null);
+    }
+
+    public static EstoqueResponse naoEncontrado(Long produtoId, Long lojaId) {
+        return new EstoqueResponse(produtoId, lojaId, 0, 0, 0, null, null, null, null, null,
+                "Produto não encontrado no estoque");
+    }
+}
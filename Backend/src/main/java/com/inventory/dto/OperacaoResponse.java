@@ -0,0 +1,63 @@
+package com.inventory.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.inventory.model.EstoqueProduto;
+import com.inventory.service.EstoqueServiceJpa;
+
+import java.util.List;
+
+/**
+ * Respostas de movimentações de estoque e operações de venda
+ */
+public final class OperacaoResponse {
+
+    private OperacaoResponse() {
+    }
+
+    /**
+     * Entrada, saída ou ajuste com o estoque resultante
+     */
+    public record Movimentacao(String mensagem, String movimentacaoId, EstoqueResponse estoque) {
+
+        public static Movimentacao de(String mensagem, String prefixo, EstoqueProduto estoque) {
+            return new Movimentacao(mensagem, prefixo + System.currentTimeMillis(), EstoqueResponse.de(estoque));
+        }
+    }
+
+    /**
+     * Reserva, confirmação ou cancelamento de venda
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Venda(String mensagem, String reservaId, String status, String validadeReserva) {
+
+        public static Venda reservada(String reservaId) {
+            return new Venda("Venda iniciada com sucesso", reservaId, "RESERVADO", "30 minutos");
+        }
+
+        public static Venda confirmada(String reservaId) {
+            return new Venda("Venda confirmada com sucesso", reservaId, "CONFIRMADA", null);
+        }
+
+        public static Venda cancelada(String reservaId) {
+            return new Venda("Venda cancelada com sucesso", reservaId, "CANCELADA", null);
+        }
+    }
+
+    /**
+     * Remoção de um produto do estoque da loja; {@code sequencia} é a da marca de remoção
+     */
+    public record Remocao(String mensagem, Long produtoId, Long lojaId, Long sequencia) {
+    }
+
+    /**
+     * Transferência entre lojas; {@code transferenciaId} é a referência dos eventos de auditoria
+     */
+    public record Transferencia(String mensagem, String transferenciaId, Long lojaOrigemId, Long lojaDestinoId,
+                                List<EstoqueServiceJpa.ItemTransferido> itens) {
+
+        public static Transferencia de(EstoqueServiceJpa.Transferencia transferencia) {
+            return new Transferencia("Transferência registrada com sucesso", transferencia.id(),
+                    transferencia.lojaOrigemId(), transferencia.lojaDestinoId(), transferencia.itens());
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.inventory.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO para pedidos multi-item atendidos a partir das lojas (ship-from-store)
+ */
+public class PedidoRequest {
+
+    @NotBlank(message = "ID do cliente é obrigatório")
+    private String clienteId;
+
+    @NotEmpty(message = "O pedido deve ter ao menos um item")
+    @Valid
+    private List<ItemPedido> itens = new ArrayList<>();
+
+    private Double latitude;
+    private Double longitude;
+
+    // Construtores
+    public PedidoRequest() {}
+
+    public PedidoRequest(String clienteId, List<ItemPedido> itens) {
+        this.clienteId = clienteId;
+        this.itens = itens;
+    }
+
+    // Getters e Setters
+    public String getClienteId() { return clienteId; }
+    public void setClienteId(String clienteId) { this.clienteId = clienteId; }
+
+    public List<ItemPedido> getItens() { return itens; }
+    public void setItens(List<ItemPedido> itens) { this.itens = itens; }
+
+    public Double getLatitude() { return latitude; }
+    public void setLatitude(Double latitude) { this.latitude = latitude; }
+
+    public Double getLongitude() { return longitude; }
+    public void setLongitude(Double longitude) { this.longitude = longitude; }
+
+    /**
+     * Linha do pedido
+     */
+    public static class ItemPedido {
+
+        @NotNull(message = "ID do produto é obrigatório")
+        private Long produtoId;
+
+        @NotNull(message = "Quantidade é obrigatória")
+        @Positive(message = "Quantidade deve ser positiva")
+        private Integer quantidade;
+
+        public ItemPedido() {}
+
+        public ItemPedido(Long produtoId, Integer quantidade) {
+            this.produtoId = produtoId;
+            this.quantidade = quantidade;
+        }
+
+        public Long getProdutoId() { return produtoId; }
+        public void setProdutoId(Long produtoId) { this.produtoId = produtoId; }
+
+        public Integer getQuantidade() { return quantidade; }
+        public void setQuantidade(Integer quantidade) { this.quantidade = quantidade; }
+    }
+}
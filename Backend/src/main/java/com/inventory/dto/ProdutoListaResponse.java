@@ -0,0 +1,15 @@
+package com.inventory.dto;
+
+import com.inventory.service.CatalogoProdutos.ProdutoCatalogo;
+
+import java.util.List;
+
+/**
+ * Produtos do catálogo
+ */
+public record ProdutoListaResponse(int totalProdutos, List<ProdutoCatalogo> produtos) {
+
+    public static ProdutoListaResponse de(List<ProdutoCatalogo> produtos) {
+        return new ProdutoListaResponse(produtos.size(), produtos);
+    }
+}
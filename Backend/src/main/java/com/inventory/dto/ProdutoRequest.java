@@ -0,0 +1,49 @@
+package com.inventory.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Positive;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO para cadastro e alteração de produto (na alteração, o id vem do caminho)
+ */
+public class ProdutoRequest {
+    
+    private Long id;
+    
+    @NotBlank(message = "Nome do produto é obrigatório")
+    private String nome;
+    
+    @NotBlank(message = "SKU é obrigatório")
+    private String sku;
+    
+    private String categoria;
+    
+    @Positive(message = "Valor unitário deve ser positivo")
+    private BigDecimal valorUnitario;
+    
+    private String descricao;
+    
+    // Construtores
+    public ProdutoRequest() {}
+    
+    // Getters e Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public String getNome() { return nome; }
+    public void setNome(String nome) { this.nome = nome; }
+    
+    public String getSku() { return sku; }
+    public void setSku(String sku) { this.sku = sku; }
+    
+    public String getCategoria() { return categoria; }
+    public void setCategoria(String categoria) { this.categoria = categoria; }
+    
+    public BigDecimal getValorUnitario() { return valorUnitario; }
+    public void setValorUnitario(BigDecimal valorUnitario) { this.valorUnitario = valorUnitario; }
+    
+    public String getDescricao() { return descricao; }
+    public void setDescricao(String descricao) { this.descricao = descricao; }
+}
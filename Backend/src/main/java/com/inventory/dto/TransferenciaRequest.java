@@ -0,0 +1,82 @@
+package com.inventory.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO para transferência de mercadoria entre lojas (todas as linhas em uma única operação)
+ */
+public class TransferenciaRequest {
+
+    public static final int MAXIMO_ITENS = 1000;
+
+    @NotNull(message = "ID da loja de origem é obrigatório")
+    private Long lojaOrigemId;
+
+    @NotNull(message = "ID da loja de destino é obrigatório")
+    private Long lojaDestinoId;
+
+    @NotEmpty(message = "Informe ao menos um item")
+    @Size(max = MAXIMO_ITENS, message = "Máximo de " + MAXIMO_ITENS + " itens por transferência")
+    @Valid
+    private List<ItemTransferencia> itens = new ArrayList<>();
+
+    @NotBlank(message = "Motivo é obrigatório")
+    private String motivo;
+
+    // Construtores
+    public TransferenciaRequest() {}
+
+    public TransferenciaRequest(Long lojaOrigemId, Long lojaDestinoId, List<ItemTransferencia> itens, String motivo) {
+        this.lojaOrigemId = lojaOrigemId;
+        this.lojaDestinoId = lojaDestinoId;
+        this.itens = itens;
+        this.motivo = motivo;
+    }
+
+    // Getters e Setters
+    public Long getLojaOrigemId() { return lojaOrigemId; }
+    public void setLojaOrigemId(Long lojaOrigemId) { this.lojaOrigemId = lojaOrigemId; }
+
+    public Long getLojaDestinoId() { return lojaDestinoId; }
+    public void setLojaDestinoId(Long lojaDestinoId) { this.lojaDestinoId = lojaDestinoId; }
+
+    public List<ItemTransferencia> getItens() { return itens; }
+    public void setItens(List<ItemTransferencia> itens) { this.itens = itens; }
+
+    public String getMotivo() { return motivo; }
+    public void setMotivo(String motivo) { this.motivo = motivo; }
+
+    /**
+     * Produto e quantidade transferidos
+     */
+    public static class ItemTransferencia {
+
+        @NotNull(message = "ID do produto é obrigatório")
+        private Long produtoId;
+
+        @NotNull(message = "Quantidade é obrigatória")
+        @Positive(message = "Quantidade deve ser positiva")
+        private Integer quantidade;
+
+        public ItemTransferencia() {}
+
+        public ItemTransferencia(Long produtoId, Integer quantidade) {
+            this.produtoId = produtoId;
+            this.quantidade = quantidade;
+        }
+
+        public Long getProdutoId() { return produtoId; }
+        public void setProdutoId(Long produtoId) { this.produtoId = produtoId; }
+
+        public Integer getQuantidade() { return quantidade; }
+        public void setQuantidade(Integer quantidade) { this.quantidade = quantidade; }
+    }
+}
@@ -0,0 +1,35 @@
+package com.inventory.event;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Evento publicado quando o estoque de um ou mais produtos de uma loja é alterado
+ * Carrega apenas as chaves: quem consome relê o estado atual após o commit
+ */
+public class EstoqueAlteradoEvent {
+
+    private final Long lojaId;
+    private final Collection<Long> produtoIds;
+
+    public EstoqueAlteradoEvent(Long lojaId, Collection<Long> produtoIds) {
+        this.lojaId = lojaId;
+        this.produtoIds = produtoIds;
+    }
+
+    public static EstoqueAlteradoEvent de(Long produtoId, Long lojaId) {
+        return new EstoqueAlteradoEvent(lojaId, List.of(produtoId));
+    }
+
+    // Getters
+    public Long getLojaId() { return lojaId; }
+    public Collection<Long> getProdutoIds() { return produtoIds; }
+
+    @Override
+    public String toString() {
+        return "EstoqueAlteradoEvent{" +
+                "lojaId=" + lojaId +
+                ", produtos=" + produtoIds.size() +
+                '}';
+    }
+}
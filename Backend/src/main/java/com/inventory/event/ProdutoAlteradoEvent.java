@@ -0,0 +1,24 @@
+package com.inventory.event;
+
+/**
+ * Evento publicado quando um produto do cadastro é criado ou alterado
+ * Carrega apenas a chave: o catálogo relê o produto após o commit
+ */
+public class ProdutoAlteradoEvent {
+
+    private final Long produtoId;
+
+    public ProdutoAlteradoEvent(Long produtoId) {
+        this.produtoId = produtoId;
+    }
+
+    // Getters
+    public Long getProdutoId() { return produtoId; }
+
+    @Override
+    public String toString() {
+        return "ProdutoAlteradoEvent{" +
+                "produtoId=" + produtoId +
+                '}';
+    }
+}
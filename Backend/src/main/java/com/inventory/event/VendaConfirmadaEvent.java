@@ -0,0 +1,32 @@
+package com.inventory.event;
+
+/**
+ * Evento publicado quando uma venda é confirmada (baixa da reserva no estoque)
+ * Consumido após o commit pela velocidade de vendas
+ */
+public class VendaConfirmadaEvent {
+
+    private final Long produtoId;
+    private final Long lojaId;
+    private final Integer quantidade;
+
+    public VendaConfirmadaEvent(Long produtoId, Long lojaId, Integer quantidade) {
+        this.produtoId = produtoId;
+        this.lojaId = lojaId;
+        this.quantidade = quantidade;
+    }
+
+    // Getters
+    public Long getProdutoId() { return produtoId; }
+    public Long getLojaId() { return lojaId; }
+    public Integer getQuantidade() { return quantidade; }
+
+    @Override
+    public String toString() {
+        return "VendaConfirmadaEvent{" +
+                "produtoId=" + produtoId +
+                ", lojaId=" + lojaId +
+                ", quantidade=" + quantidade +
+                '}';
+    }
+}
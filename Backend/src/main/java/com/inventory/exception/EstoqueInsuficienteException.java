@@ -19,6 +19,18 @@ public class EstoqueInsuficienteException extends RuntimeException {
         this.solicitado = solicitado;
     }
     
+    /**
+     * Estoque insuficiente somando todas as lojas da rede
+     */
+    public EstoqueInsuficienteException(Long produtoId, Integer disponivel, Integer solicitado) {
+        super(String.format("Estoque insuficiente na rede para produto %d. Disponível: %d, Solicitado: %d", 
+              produtoId, disponivel, solicitado));
+        this.produtoId = produtoId;
+        this.lojaId = null;
+        this.disponivel = disponivel;
+        this.solicitado = solicitado;
+    }
+    
     // Getters
     public Long getProdutoId() { return produtoId; }
     public Long getLojaId() { return lojaId; }
@@ -0,0 +1,39 @@
+package com.inventory.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Ponto de controle do arquivamento de reservas antigas (uma linha por banco/fragmento)
+ *
+ * Atualizado na mesma transação que remove o lote arquivado: arquivos de lotes acima de
+ * {@code ultimoLote} são de uma execução interrompida e podem ser descartados.
+ */
+@Entity
+@Table(name = "arquivamento_reserva")
+public class ArquivamentoReserva {
+
+    public static final long ID = 1L;
+
+    @Id
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "ultimo_lote", nullable = false)
+    private Long ultimoLote;
+
+    @Column(name = "total_arquivadas", nullable = false)
+    private Long totalArquivadas;
+
+    @Column(name = "atualizado_em", nullable = false)
+    private LocalDateTime atualizadoEm;
+
+    public ArquivamentoReserva() {
+    }
+
+    public Long getId() { return id; }
+    public Long getUltimoLote() { return ultimoLote; }
+    public Long getTotalArquivadas() { return totalArquivadas; }
+    public LocalDateTime getAtualizadoEm() { return atualizadoEm; }
+}
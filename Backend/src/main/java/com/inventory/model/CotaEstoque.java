@@ -0,0 +1,56 @@
+package com.inventory.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Fatia do disponível de um produto/loja concedida a um nó da aplicação (modo cota)
+ *
+ * {@code quantidade} são as unidades concedidas ainda não liquidadas: o saldo local do nó mais as vendas
+ * aprovadas contra a cota cujas reservas ainda apontam para ela (reserva.cota_id). A soma das cotas de
+ * um produto/loja é igual a estoque_produto.cota.
+ */
+@Entity
+@Table(name = "estoque_cota",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"produto_id", "loja_id", "no_id"}),
+       indexes = @Index(name = "idx_cota_expiracao", columnList = "expira_em"))
+public class CotaEstoque {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "produto_id", nullable = false)
+    private Long produtoId;
+
+    @Column(name = "loja_id", nullable = false)
+    private Long lojaId;
+
+    @Column(name = "no_id", nullable = false, length = 64)
+    private String noId;
+
+    @Column(name = "quantidade", nullable = false)
+    private Integer quantidade;
+
+    @Column(name = "expira_em", nullable = false)
+    private LocalDateTime expiraEm;
+
+    public CotaEstoque() {
+    }
+
+    public CotaEstoque(Long produtoId, Long lojaId, String noId, Integer quantidade, LocalDateTime expiraEm) {
+        this.produtoId = produtoId;
+        this.lojaId = lojaId;
+        this.noId = noId;
+        this.quantidade = quantidade;
+        this.expiraEm = expiraEm;
+    }
+
+    public Long getId() { return id; }
+    public Long getProdutoId() { return produtoId; }
+    public Long getLojaId() { return lojaId; }
+    public String getNoId() { return noId; }
+    public Integer getQuantidade() { return quantidade; }
+    public LocalDateTime getExpiraEm() { return expiraEm; }
+}
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.annotation.JsonFormat;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.time.LocalDateTime;
 
@@ -12,7 +13,8 @@ import java.time.LocalDateTime;
  */
 @Entity
 @Table(name = "estoque_produto", 
-       uniqueConstraints = @UniqueConstraint(columnNames = {"produto_id", "loja_id"}))
+       uniqueConstraints = @UniqueConstraint(columnNames = {"produto_id", "loja_id"}),
+       indexes = @Index(name = "idx_estoque_loja_alteracao", columnList = "loja_id, sequencia_alteracao"))
 public class EstoqueProduto {
     
     @Id
@@ -35,6 +37,13 @@ public class EstoqueProduto {
     @Column(name = "reservado", nullable = false)
     private Integer reservado;
     
+    /**
+     * Unidades do disponível concedidas em cotas aos nós (modo cota); alterada só por updates em lote
+     */
+    @ColumnDefault("0")
+    @Column(name = "cota", nullable = false, insertable = false, updatable = false)
+    private Integer cota = 0;
+    
     @Min(value = 0, message = "Estoque mínimo não pode ser negativo")
     @Column(name = "estoque_minimo", nullable = false)
     private Integer estoqueMinimo;
@@ -46,6 +55,15 @@ public class EstoqueProduto {
     @Version
     @Column(name = "versao")
     private Long versao; // Para controle de concorrência otimística
+
+    /**
+     * Sequência global de alterações, atribuída pelo banco em todo INSERT/UPDATE
+     * (inclusive updates em lote e SQL nativo); somente leitura na entidade
+     */
+    @Column(name = "sequencia_alteracao", insertable = false, updatable = false,
+            columnDefinition = "BIGINT DEFAULT NEXT VALUE FOR " + EstoqueRemocao.SEQUENCIA_ALTERACAO +
+                               " ON UPDATE NEXT VALUE FOR " + EstoqueRemocao.SEQUENCIA_ALTERACAO)
+    private Long sequenciaAlteracao;
     
     // Construtores
     public EstoqueProduto() {
@@ -65,7 +83,7 @@ public class EstoqueProduto {
     
     // Métodos de negócio
     public Integer getDisponivel() {
-        return quantidade - reservado;
+        return quantidade - reservado - cota;
     }
     
     public boolean temEstoqueSuficiente(Integer quantidadeDesejada) {
@@ -158,6 +176,8 @@ public class EstoqueProduto {
         }
     }
     
+    public Integer getCota() { return cota; }
+    
     public Integer getEstoqueMinimo() { return estoqueMinimo; }
     public void setEstoqueMinimo(Integer estoqueMinimo) { this.estoqueMinimo = estoqueMinimo; }
     
@@ -167,6 +187,8 @@ public class EstoqueProduto {
     public Long getVersao() { return versao; }
     public void setVersao(Long versao) { this.versao = versao; }
     
+    public Long getSequenciaAlteracao() { return sequenciaAlteracao; }
+    
     @Override
     public String toString() {
         return "EstoqueProduto{" +
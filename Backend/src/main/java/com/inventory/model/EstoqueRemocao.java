@@ -0,0 +1,49 @@
+package com.inventory.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Marca de remoção (tombstone) de um estoque produto/loja para a sincronização incremental
+ *
+ * Compartilha a sequência de alterações com EstoqueProduto, então alterações e remoções
+ * de uma loja formam um único fluxo ordenado.
+ */
+@Entity
+@Table(name = "estoque_remocao",
+       indexes = @Index(name = "idx_remocao_loja_alteracao", columnList = "loja_id, sequencia_alteracao"))
+@SequenceGenerator(name = EstoqueRemocao.SEQUENCIA_ALTERACAO, sequenceName = EstoqueRemocao.SEQUENCIA_ALTERACAO,
+                   allocationSize = 1)
+public class EstoqueRemocao {
+
+    public static final String SEQUENCIA_ALTERACAO = "estoque_alteracao_seq";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = SEQUENCIA_ALTERACAO)
+    @Column(name = "sequencia_alteracao")
+    private Long sequenciaAlteracao;
+
+    @Column(name = "produto_id", nullable = false)
+    private Long produtoId;
+
+    @Column(name = "loja_id", nullable = false)
+    private Long lojaId;
+
+    @Column(name = "removida_em", nullable = false)
+    private LocalDateTime removidaEm;
+
+    public EstoqueRemocao() {
+    }
+
+    public EstoqueRemocao(Long produtoId, Long lojaId) {
+        this.produtoId = produtoId;
+        this.lojaId = lojaId;
+        this.removidaEm = LocalDateTime.now();
+    }
+
+    public Long getSequenciaAlteracao() { return sequenciaAlteracao; }
+    public Long getProdutoId() { return produtoId; }
+    public Long getLojaId() { return lojaId; }
+    public LocalDateTime getRemovidaEm() { return removidaEm; }
+}
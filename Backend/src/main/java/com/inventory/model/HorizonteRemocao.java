@@ -0,0 +1,35 @@
+package com.inventory.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Horizonte das marcas de remoção já expiradas (uma linha por banco/fragmento)
+ *
+ * Atualizado na mesma transação que apaga as marcas: clientes com sequência anterior a
+ * {@code sequencia} podem ter perdido remoções e precisam ressincronizar, em qualquer nó e após reinício.
+ */
+@Entity
+@Table(name = "horizonte_remocao")
+public class HorizonteRemocao {
+
+    public static final long ID = 1L;
+
+    @Id
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "sequencia", nullable = false)
+    private Long sequencia;
+
+    @Column(name = "atualizado_em", nullable = false)
+    private LocalDateTime atualizadoEm;
+
+    public HorizonteRemocao() {
+    }
+
+    public Long getId() { return id; }
+    public Long getSequencia() { return sequencia; }
+    public LocalDateTime getAtualizadoEm() { return atualizadoEm; }
+}
@@ -1,6 +1,7 @@
 package com.inventory.model;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
@@ -9,30 +10,46 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 /**
- * Modelo de dados para Produto
+ * Entidade JPA do cadastro de produtos
+ *
+ * O id vem do cadastro de origem (é o produto_id do estoque), não é gerado. As leituras da aplicação
+ * passam pelo catálogo em memória (CatalogoProdutos), não por esta tabela.
  */
+@Entity
+@Table(name = "produto", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_produto_sku", columnNames = "sku")
+})
 public class Produto {
     
+    @Id
     @NotNull(message = "ID do produto é obrigatório")
+    @Column(name = "id")
     private Long id;
     
     @NotBlank(message = "Nome do produto é obrigatório")
+    @Column(name = "nome", nullable = false, length = 200)
     private String nome;
     
     @NotBlank(message = "SKU é obrigatório")
+    @Column(name = "sku", nullable = false, length = 50)
     private String sku;
     
+    @Column(name = "categoria", length = 100)
     private String categoria;
     
     @Positive(message = "Valor unitário deve ser positivo")
+    @Column(name = "valor_unitario", precision = 12, scale = 2)
     private BigDecimal valorUnitario;
     
+    @Column(name = "descricao", length = 1000)
     private String descricao;
     
     @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    @Column(name = "criado_em", nullable = false, updatable = false)
     private LocalDateTime criadoEm;
     
     @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    @Column(name = "atualizado_em", nullable = false)
     private LocalDateTime atualizadoEm;
     
     // Construtores
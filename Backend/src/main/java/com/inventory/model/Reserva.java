@@ -1,19 +1,30 @@
 package com.inventory.model;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import org.springframework.data.domain.Persistable;
 
 import java.time.LocalDateTime;
 import java.util.UUID;
 
 /**
  * Entidade JPA para reserva temporária de produtos
+ *
+ * O id (UUID) é atribuído na construção; {@link #isNew()} faz o save de uma reserva nova ser um INSERT
+ * direto, sem o SELECT do merge.
+ *
+ * A tabela guarda só reservas ATIVAS (tabela quente): confirmação, cancelamento e expiração movem a linha
+ * para {@link ReservaHistorico}.
  */
 @Entity
-@Table(name = "reserva")
-public class Reserva {
+@Table(name = "reserva", indexes = {
+        @Index(name = "idx_reserva_cota", columnList = "cota_id"),
+        @Index(name = "idx_reserva_produto_loja", columnList = "produto_id, loja_id")
+})
+public class Reserva implements Persistable<String> {
     
     @Id
     @Column(name = "id", length = 36)
@@ -52,6 +63,16 @@ public class Reserva {
     @Column(name = "observacoes", length = 500)
     private String observacoes;
     
+    /**
+     * Cota do nó que aprovou a venda, enquanto não liquidada em estoque_produto.reservado;
+     * limpa só por update em lote (nunca regravada pelo save da entidade)
+     */
+    @Column(name = "cota_id", updatable = false)
+    private Long cotaId;
+    
+    @Transient
+    private boolean nova = true;
+    
     public enum StatusReserva {
         ATIVA,
         CONFIRMADA,
@@ -75,6 +96,18 @@ public class Reserva {
         this.clienteId = clienteId;
     }
     
+    @PostLoad
+    @PostPersist
+    void marcarPersistida() {
+        this.nova = false;
+    }
+    
+    @Override
+    @JsonIgnore
+    public boolean isNew() {
+        return nova;
+    }
+    
     // Métodos de negócio
     public boolean isExpirada() {
         return LocalDateTime.now().isAfter(expiraEm);
@@ -105,6 +138,7 @@ public class Reserva {
     }
     
     // Getters e Setters
+    @Override
     public String getId() { return id; }
     public void setId(String id) { this.id = id; }
     
@@ -135,6 +169,9 @@ public class Reserva {
     public String getObservacoes() { return observacoes; }
     public void setObservacoes(String observacoes) { this.observacoes = observacoes; }
     
+    public Long getCotaId() { return cotaId; }
+    public void setCotaId(Long cotaId) { this.cotaId = cotaId; }
+    
     @Override
     public String toString() {
         return "Reserva{" +
@@ -0,0 +1,87 @@
+package com.inventory.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Reserva finalizada (confirmada, cancelada ou expirada), fora da tabela quente de reservas ativas
+ *
+ * As linhas chegam só pelos movimentos (INSERT ... FROM OLD TABLE (DELETE)) de {@code ReservaJpaRepository}; a aplicação apenas as lê.
+ */
+@Entity
+@Table(name = "reserva_historico", indexes = {
+        @Index(name = "idx_reserva_historico_criada", columnList = "criada_em, id"),
+        @Index(name = "idx_reserva_historico_cliente", columnList = "cliente_id, criada_em")
+})
+public class ReservaHistorico {
+
+    @Id
+    @Column(name = "id", length = 36)
+    private String id;
+
+    @Column(name = "produto_id", nullable = false)
+    private Long produtoId;
+
+    @Column(name = "loja_id", nullable = false)
+    private Long lojaId;
+
+    @Column(name = "quantidade", nullable = false)
+    private Integer quantidade;
+
+    @Column(name = "cliente_id", length = 50)
+    private String clienteId;
+
+    @Column(name = "vendedor_id", length = 50)
+    private String vendedorId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private Reserva.StatusReserva status;
+
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    @Column(name = "criada_em", nullable = false)
+    private LocalDateTime criadaEm;
+
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    @Column(name = "expira_em", nullable = false)
+    private LocalDateTime expiraEm;
+
+    @Column(name = "observacoes", length = 500)
+    private String observacoes;
+
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    @Column(name = "finalizada_em", nullable = false)
+    private LocalDateTime finalizadaEm;
+
+    public ReservaHistorico() {
+    }
+
+    /**
+     * Cópia desanexada como Reserva, para as consultas que juntam ativas e finalizadas
+     */
+    public Reserva paraReserva() {
+        Reserva reserva = new Reserva(produtoId, lojaId, quantidade, clienteId);
+        reserva.setId(id);
+        reserva.setVendedorId(vendedorId);
+        reserva.setStatus(status);
+        reserva.setCriadaEm(criadaEm);
+        reserva.setExpiraEm(expiraEm);
+        reserva.setObservacoes(observacoes);
+        reserva.marcarPersistida();
+        return reserva;
+    }
+
+    public String getId() { return id; }
+    public Long getProdutoId() { return produtoId; }
+    public Long getLojaId() { return lojaId; }
+    public Integer getQuantidade() { return quantidade; }
+    public String getClienteId() { return clienteId; }
+    public String getVendedorId() { return vendedorId; }
+    public Reserva.StatusReserva getStatus() { return status; }
+    public LocalDateTime getCriadaEm() { return criadaEm; }
+    public LocalDateTime getExpiraEm() { return expiraEm; }
+    public String getObservacoes() { return observacoes; }
+    public LocalDateTime getFinalizadaEm() { return finalizadaEm; }
+}
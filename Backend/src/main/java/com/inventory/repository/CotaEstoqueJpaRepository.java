@@ -0,0 +1,61 @@
+package com.inventory.repository;
+
+import com.inventory.model.CotaEstoque;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository JPA das cotas de estoque concedidas aos nós
+ */
+@Repository
+public interface CotaEstoqueJpaRepository extends JpaRepository<CotaEstoque, Long> {
+
+    /**
+     * Cotas de um nó (recuperação do estado local)
+     */
+    List<CotaEstoque> findByNoId(String noId);
+
+    /**
+     * Quantidade não liquidada da cota
+     */
+    @Query("SELECT c.quantidade FROM CotaEstoque c WHERE c.id = :id")
+    Optional<Integer> findQuantidade(@Param("id") Long id);
+
+    /**
+     * Cotas vencidas de outros nós (nó parado sem devolver), travadas para recuperação
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM CotaEstoque c WHERE c.expiraEm < :agora AND c.noId <> :noId")
+    List<CotaEstoque> findExpiradas(@Param("agora") LocalDateTime agora, @Param("noId") String noId);
+
+    /**
+     * Soma (ou subtrai) unidades da cota sem deixá-la negativa
+     */
+    @Modifying
+    @Query("UPDATE CotaEstoque c SET c.quantidade = c.quantidade + :delta " +
+           "WHERE c.id = :id AND c.quantidade + :delta >= 0")
+    int somarQuantidade(@Param("id") Long id, @Param("delta") Integer delta);
+
+    /**
+     * Heartbeat: estende a validade de todas as cotas do nó
+     */
+    @Modifying
+    @Query("UPDATE CotaEstoque c SET c.expiraEm = :expiraEm WHERE c.noId = :noId")
+    int renovar(@Param("noId") String noId, @Param("expiraEm") LocalDateTime expiraEm);
+
+    /**
+     * Remove a cota quando não resta nada concedido nem pendente de liquidação
+     */
+    @Modifying
+    @Query("DELETE FROM CotaEstoque c WHERE c.id = :id AND c.quantidade = 0")
+    int removerVazia(@Param("id") Long id);
+}
@@ -1,6 +1,8 @@
 package com.inventory.repository;
 
+import com.inventory.bloqueio.EstadoEstoque;
 import com.inventory.model.EstoqueProduto;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -16,11 +18,29 @@ import java.util.Optional;
 @Repository
 public interface EstoqueJpaRepository extends JpaRepository<EstoqueProduto, Long> {
 
+    /**
+     * Unidades livres de estoque_produto com alias e (nem reservadas nem em cota), para JPQL e SQL nativo;
+     * a mesma regra de EstoqueProduto.getQuantidadeDisponivel
+     */
+    String DISPONIVEL = "(e.quantidade - e.reservado - e.cota)";
+
     /**
      * Busca estoque por produto e loja
      */
     Optional<EstoqueProduto> findByProdutoIdAndLojaId(Long produtoId, Long lojaId);
 
+    /**
+     * Disponível de vários pares (produto, loja) em uma consulta: os arrays viram uma tabela derivada
+     * (produtoIds[i], lojaIds[i]) unida pela chave única; pares sem estoque não retornam linha.
+     * Linhas [produto_id, loja_id, disponível] sem entidades gerenciadas: a consulta em lote só precisa
+     * do disponível e a hidratação de milhares de entidades custaria mais que a própria consulta.
+     */
+    @Query(value = "SELECT e.produto_id, e.loja_id, " + DISPONIVEL + " " +
+                   "FROM TABLE(produto_id BIGINT = :produtoIds, loja_id BIGINT = :lojaIds) p " +
+                   "JOIN estoque_produto e ON e.produto_id = p.produto_id AND e.loja_id = p.loja_id",
+           nativeQuery = true)
+    List<Object[]> findDisponivelPorPares(@Param("produtoIds") Long[] produtoIds, @Param("lojaIds") Long[] lojaIds);
+
     /**
      * Busca todos os estoques de uma loja
      */
@@ -31,6 +51,17 @@ public interface EstoqueJpaRepository extends JpaRepository<EstoqueProduto, Long
      */
     List<EstoqueProduto> findByProdutoId(Long produtoId);
 
+    /**
+     * Estoques de uma loja alterados no intervalo (desde, ate] da sequência de alterações
+     */
+    @Query("SELECT e FROM EstoqueProduto e WHERE e.lojaId = :lojaId " +
+           "AND e.sequenciaAlteracao > :desde AND e.sequenciaAlteracao <= :ate " +
+           "ORDER BY e.sequenciaAlteracao")
+    List<EstoqueProduto> findAlteracoes(@Param("lojaId") Long lojaId,
+                                        @Param("desde") Long desde,
+                                        @Param("ate") Long ate,
+                                        Pageable pagina);
+
     /**
      * Busca produtos com estoque baixo (quantidade <= estoque mínimo)
      */
@@ -44,23 +75,183 @@ public interface EstoqueJpaRepository extends JpaRepository<EstoqueProduto, Long
     List<EstoqueProduto> findEstoqueBaixoByLojaId(@Param("lojaId") Long lojaId);
 
     /**
-     * Atualização otimística para reservar produto
+     * Estado atual da linha sem carregá-la no contexto de persistência (estratégias de bloqueio)
+     */
+    @Query("SELECT new com.inventory.bloqueio.EstadoEstoque(e.id, e.produtoId, e.lojaId, e.quantidade, " +
+           "e.reservado, e.cota, e.versao) FROM EstoqueProduto e " +
+           "WHERE e.produtoId = :produtoId AND e.lojaId = :lojaId")
+    Optional<EstadoEstoque> findEstado(@Param("produtoId") Long produtoId, @Param("lojaId") Long lojaId);
+
+    /**
+     * Sequência de alteração da linha: muda a cada UPDATE, inclusive os que não passam por versao
+     */
+    @Query("SELECT e.sequenciaAlteracao FROM EstoqueProduto e WHERE e.produtoId = :produtoId AND e.lojaId = :lojaId")
+    Optional<Long> findSequenciaAlteracao(@Param("produtoId") Long produtoId, @Param("lojaId") Long lojaId);
+
+    /**
+     * [linhas, soma das sequências de alteração] da loja, lidos só do índice (loja_id, sequencia_alteracao)
+     */
+    @Query("SELECT COUNT(e), COALESCE(SUM(e.sequenciaAlteracao), 0) FROM EstoqueProduto e WHERE e.lojaId = :lojaId")
+    List<Object[]> findVersaoLoja(@Param("lojaId") Long lojaId);
+
+    /**
+     * [linhas, soma das sequências de alteração] de um produto em todas as lojas
+     */
+    @Query("SELECT COUNT(e), COALESCE(SUM(e.sequenciaAlteracao), 0) FROM EstoqueProduto e " +
+           "WHERE e.produtoId = :produtoId")
+    List<Object[]> findVersaoProduto(@Param("produtoId") Long produtoId);
+
+    /**
+     * [linhas, soma das sequências de alteração] de todo o estoque
+     */
+    @Query("SELECT COUNT(e), COALESCE(SUM(e.sequenciaAlteracao), 0) FROM EstoqueProduto e")
+    List<Object[]> findVersaoRede();
+
+    /**
+     * Grava quantidade e reservado calculados a partir da versão lida (0 linhas: outra escrita chegou antes)
      */
     @Modifying
-    @Query("UPDATE EstoqueProduto e SET e.reservado = e.reservado + :quantidade, e.ultimaAtualizacao = CURRENT_TIMESTAMP " +
-           "WHERE e.produtoId = :produtoId AND e.lojaId = :lojaId AND e.versao = :versao " +
-           "AND (e.quantidade - e.reservado) >= :quantidade")
-    int reservarProduto(@Param("produtoId") Long produtoId, 
-                       @Param("lojaId") Long lojaId, 
-                       @Param("quantidade") Integer quantidade, 
-                       @Param("versao") Long versao);
+    @Query("UPDATE EstoqueProduto e SET e.quantidade = :quantidade, e.reservado = :reservado, " +
+           "e.versao = e.versao + 1, e.ultimaAtualizacao = CURRENT_TIMESTAMP " +
+           "WHERE e.id = :id AND e.versao = :versao")
+    int gravarEstado(@Param("id") Long id,
+                     @Param("quantidade") Integer quantidade,
+                     @Param("reservado") Integer reservado,
+                     @Param("versao") Long versao);
+
+    /**
+     * Remove a linha se ainda estiver na versão lida
+     */
+    @Modifying
+    @Query("DELETE FROM EstoqueProduto e WHERE e.id = :id AND e.versao = :versao")
+    int removerEstado(@Param("id") Long id, @Param("versao") Long versao);
+
+    /**
+     * Entrada atômica de mercadoria
+     */
+    @Modifying
+    @Query("UPDATE EstoqueProduto e SET e.quantidade = e.quantidade + :quantidade, e.versao = e.versao + 1, " +
+           "e.ultimaAtualizacao = CURRENT_TIMESTAMP " +
+           "WHERE e.produtoId = :produtoId AND e.lojaId = :lojaId")
+    int adicionarQuantidade(@Param("produtoId") Long produtoId,
+                            @Param("lojaId") Long lojaId,
+                            @Param("quantidade") Integer quantidade);
+
+    /**
+     * Saída atômica: unidades em cota não podem sair
+     */
+    @Modifying
+    @Query("UPDATE EstoqueProduto e SET e.quantidade = e.quantidade - :quantidade, e.versao = e.versao + 1, " +
+           "e.ultimaAtualizacao = CURRENT_TIMESTAMP " +
+           "WHERE e.produtoId = :produtoId AND e.lojaId = :lojaId AND (e.quantidade - e.cota) >= :quantidade")
+    int retirarQuantidade(@Param("produtoId") Long produtoId,
+                          @Param("lojaId") Long lojaId,
+                          @Param("quantidade") Integer quantidade);
+
+    /**
+     * Saída atômica por transferência: só unidades livres (nem reservadas nem em cota) saem
+     */
+    @Modifying
+    @Query("UPDATE EstoqueProduto e SET e.quantidade = e.quantidade - :quantidade, e.versao = e.versao + 1, " +
+           "e.ultimaAtualizacao = CURRENT_TIMESTAMP " +
+           "WHERE e.produtoId = :produtoId AND e.lojaId = :lojaId " +
+           "AND " + DISPONIVEL + " >= :quantidade")
+    int retirarDisponivel(@Param("produtoId") Long produtoId,
+                          @Param("lojaId") Long lojaId,
+                          @Param("quantidade") Integer quantidade);
+
+    /**
+     * Ajuste atômico da quantidade (inventário)
+     */
+    @Modifying
+    @Query("UPDATE EstoqueProduto e SET e.quantidade = :quantidade, e.versao = e.versao + 1, " +
+           "e.ultimaAtualizacao = CURRENT_TIMESTAMP " +
+           "WHERE e.produtoId = :produtoId AND e.lojaId = :lojaId")
+    int definirQuantidade(@Param("produtoId") Long produtoId,
+                          @Param("lojaId") Long lojaId,
+                          @Param("quantidade") Integer quantidade);
+
+    /**
+     * Remoção atômica, só sem reservas nem cotas
+     */
+    @Modifying
+    @Query("DELETE FROM EstoqueProduto e WHERE e.produtoId = :produtoId AND e.lojaId = :lojaId " +
+           "AND e.reservado = 0 AND e.cota = 0")
+    int removerSemReservas(@Param("produtoId") Long produtoId, @Param("lojaId") Long lojaId);
+
+    /**
+     * Reserva condicional em um único comando: incrementa a versão e devolve o novo disponível
+     * (vazio quando o produto não existe na loja ou o disponível não cobre a quantidade)
+     */
+    @Query(value = "SELECT quantidade - reservado - cota FROM FINAL TABLE (" +
+                   "UPDATE estoque_produto SET reservado = reservado + :quantidade, versao = versao + 1, " +
+                   "ultima_atualizacao = LOCALTIMESTAMP " +
+                   "WHERE produto_id = :produtoId AND loja_id = :lojaId " +
+                   "AND quantidade - reservado - cota >= :quantidade)",
+           nativeQuery = true)
+    Optional<Integer> reservarRetornandoDisponivel(@Param("produtoId") Long produtoId,
+                                                   @Param("lojaId") Long lojaId,
+                                                   @Param("quantidade") Integer quantidade);
+
+    /**
+     * Reserva sem checagem de versão (reserva de cota recuperada antes da liquidação)
+     */
+    @Modifying
+    @Query("UPDATE EstoqueProduto e SET e.reservado = e.reservado + :quantidade, e.versao = e.versao + 1, " +
+           "e.ultimaAtualizacao = CURRENT_TIMESTAMP " +
+           "WHERE e.produtoId = :produtoId AND e.lojaId = :lojaId " +
+           "AND " + DISPONIVEL + " >= :quantidade")
+    int reservarDisponivel(@Param("produtoId") Long produtoId,
+                           @Param("lojaId") Long lojaId,
+                           @Param("quantidade") Integer quantidade);
+
+    /**
+     * Unidades livres para novas cotas (quantidade - reservado - cota)
+     */
+    @Query("SELECT " + DISPONIVEL + " FROM EstoqueProduto e " +
+           "WHERE e.produtoId = :produtoId AND e.lojaId = :lojaId")
+    Optional<Integer> findLivreParaCota(@Param("produtoId") Long produtoId,
+                                        @Param("lojaId") Long lojaId);
+
+    /**
+     * Concede unidades em cota; a condição garante cota <= quantidade - reservado
+     */
+    @Modifying
+    @Query("UPDATE EstoqueProduto e SET e.cota = e.cota + :quantidade, e.versao = e.versao + 1 " +
+           "WHERE e.produtoId = :produtoId AND e.lojaId = :lojaId " +
+           "AND " + DISPONIVEL + " >= :quantidade")
+    int concederCota(@Param("produtoId") Long produtoId,
+                     @Param("lojaId") Long lojaId,
+                     @Param("quantidade") Integer quantidade);
+
+    /**
+     * Devolve unidades não vendidas de uma cota
+     */
+    @Modifying
+    @Query("UPDATE EstoqueProduto e SET e.cota = e.cota - :quantidade, e.versao = e.versao + 1 " +
+           "WHERE e.produtoId = :produtoId AND e.lojaId = :lojaId AND e.cota >= :quantidade")
+    int devolverCota(@Param("produtoId") Long produtoId,
+                     @Param("lojaId") Long lojaId,
+                     @Param("quantidade") Integer quantidade);
+
+    /**
+     * Liquida vendas aprovadas contra cota: unidades passam de cota para reservado
+     */
+    @Modifying
+    @Query("UPDATE EstoqueProduto e SET e.cota = e.cota - :quantidade, e.reservado = e.reservado + :quantidade, " +
+           "e.versao = e.versao + 1, e.ultimaAtualizacao = CURRENT_TIMESTAMP " +
+           "WHERE e.produtoId = :produtoId AND e.lojaId = :lojaId AND e.cota >= :quantidade")
+    int liquidarCota(@Param("produtoId") Long produtoId,
+                     @Param("lojaId") Long lojaId,
+                     @Param("quantidade") Integer quantidade);
 
     /**
      * Confirma saída (reduz quantidade e reservado)
      */
     @Modifying
     @Query("UPDATE EstoqueProduto e SET e.quantidade = e.quantidade - :quantidade, " +
-           "e.reservado = e.reservado - :quantidade, e.ultimaAtualizacao = CURRENT_TIMESTAMP " +
+           "e.reservado = e.reservado - :quantidade, e.versao = e.versao + 1, " +
+           "e.ultimaAtualizacao = CURRENT_TIMESTAMP " +
            "WHERE e.produtoId = :produtoId AND e.lojaId = :lojaId AND e.reservado >= :quantidade")
     int confirmarSaida(@Param("produtoId") Long produtoId, 
                       @Param("lojaId") Long lojaId, 
@@ -70,7 +261,7 @@ public interface EstoqueJpaRepository extends JpaRepository<EstoqueProduto, Long
      * Libera reserva (reduz apenas reservado)
      */
     @Modifying
-    @Query("UPDATE EstoqueProduto e SET e.reservado = e.reservado - :quantidade, " +
+    @Query("UPDATE EstoqueProduto e SET e.reservado = e.reservado - :quantidade, e.versao = e.versao + 1, " +
            "e.ultimaAtualizacao = CURRENT_TIMESTAMP " +
            "WHERE e.produtoId = :produtoId AND e.lojaId = :lojaId AND e.reservado >= :quantidade")
     int liberarReserva(@Param("produtoId") Long produtoId, 
@@ -78,9 +269,9 @@ public interface EstoqueJpaRepository extends JpaRepository<EstoqueProduto, Long
                       @Param("quantidade") Integer quantidade);
 
     /**
-     * Consulta quantidade disponível (quantidade - reservado)
+     * Consulta quantidade disponível (quantidade - reservado - cota)
      */
-    @Query("SELECT (e.quantidade - e.reservado) FROM EstoqueProduto e " +
+    @Query("SELECT " + DISPONIVEL + " FROM EstoqueProduto e " +
            "WHERE e.produtoId = :produtoId AND e.lojaId = :lojaId")
     Optional<Integer> findQuantidadeDisponivel(@Param("produtoId") Long produtoId, 
                                              @Param("lojaId") Long lojaId);
@@ -90,15 +281,15 @@ public interface EstoqueJpaRepository extends JpaRepository<EstoqueProduto, Long
      */
     @Query("SELECT CASE WHEN COUNT(e) > 0 THEN true ELSE false END FROM EstoqueProduto e " +
            "WHERE e.produtoId = :produtoId AND e.lojaId = :lojaId " +
-           "AND (e.quantidade - e.reservado) >= :quantidade")
+           "AND " + DISPONIVEL + " >= :quantidade")
     boolean hasEstoqueSuficiente(@Param("produtoId") Long produtoId, 
                                 @Param("lojaId") Long lojaId, 
                                 @Param("quantidade") Integer quantidade);
 
     /**
-     * Lista produtos com estoque disponível (não reservado) maior que zero
+     * Lista produtos com estoque disponível (nem reservado nem em cota) maior que zero
      */
-    @Query("SELECT e FROM EstoqueProduto e WHERE e.lojaId = :lojaId AND (e.quantidade - e.reservado) > 0")
+    @Query("SELECT e FROM EstoqueProduto e WHERE e.lojaId = :lojaId AND " + DISPONIVEL + " > 0")
     List<EstoqueProduto> findProdutosDisponiveis(@Param("lojaId") Long lojaId);
 
     /**
@@ -116,6 +307,6 @@ public interface EstoqueJpaRepository extends JpaRepository<EstoqueProduto, Long
     /**
      * Soma quantidade disponível por loja
      */
-    @Query("SELECT COALESCE(SUM(e.quantidade - e.reservado), 0) FROM EstoqueProduto e WHERE e.lojaId = :lojaId")
+    @Query("SELECT COALESCE(SUM(" + DISPONIVEL + "), 0) FROM EstoqueProduto e WHERE e.lojaId = :lojaId")
     Long sumDisponivelByLojaId(@Param("lojaId") Long lojaId);
 }
\ No newline at end of file
@@ -0,0 +1,43 @@
+package com.inventory.repository;
+
+import com.inventory.model.EstoqueRemocao;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository JPA para marcas de remoção (sincronização incremental)
+ */
+@Repository
+public interface EstoqueRemocaoJpaRepository extends JpaRepository<EstoqueRemocao, Long> {
+
+    /**
+     * Remoções de uma loja no intervalo (desde, ate] da sequência de alterações
+     */
+    @Query("SELECT r FROM EstoqueRemocao r WHERE r.lojaId = :lojaId " +
+           "AND r.sequenciaAlteracao > :desde AND r.sequenciaAlteracao <= :ate " +
+           "ORDER BY r.sequenciaAlteracao")
+    List<EstoqueRemocao> findRemocoes(@Param("lojaId") Long lojaId,
+                                      @Param("desde") Long desde,
+                                      @Param("ate") Long ate,
+                                      Pageable pagina);
+
+    /**
+     * Maior sequência entre as remoções anteriores à data limite
+     */
+    @Query("SELECT MAX(r.sequenciaAlteracao) FROM EstoqueRemocao r WHERE r.removidaEm < :dataLimite")
+    Long findMaxSequenciaAntesDe(@Param("dataLimite") LocalDateTime dataLimite);
+
+    /**
+     * Remove marcas até a sequência informada (inclusive)
+     */
+    @Modifying
+    @Query("DELETE FROM EstoqueRemocao r WHERE r.sequenciaAlteracao <= :sequencia")
+    int deleteAteSequencia(@Param("sequencia") Long sequencia);
+}
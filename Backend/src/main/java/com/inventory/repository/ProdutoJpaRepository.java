@@ -0,0 +1,19 @@
+package com.inventory.repository;
+
+import com.inventory.model.Produto;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/**
+ * Repository JPA para o cadastro de produtos
+ */
+@Repository
+public interface ProdutoJpaRepository extends JpaRepository<Produto, Long> {
+
+    /**
+     * Busca produto pelo SKU
+     */
+    Optional<Produto> findBySku(String sku);
+}
@@ -0,0 +1,57 @@
+package com.inventory.repository;
+
+import com.inventory.model.Reserva;
+import com.inventory.model.ReservaHistorico;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository JPA para o histórico de reservas finalizadas
+ */
+@Repository
+public interface ReservaHistoricoJpaRepository extends JpaRepository<ReservaHistorico, String> {
+
+    /**
+     * Busca reservas finalizadas por cliente
+     */
+    List<ReservaHistorico> findByClienteId(String clienteId);
+
+    /**
+     * Busca reservas finalizadas por loja
+     */
+    List<ReservaHistorico> findByLojaId(Long lojaId);
+
+    /**
+     * Busca reservas finalizadas por produto
+     */
+    List<ReservaHistorico> findByProdutoId(Long produtoId);
+
+    /**
+     * Busca reservas finalizadas por status
+     */
+    List<ReservaHistorico> findByStatus(Reserva.StatusReserva status);
+
+    /**
+     * Busca reservas finalizadas criadas em um período
+     */
+    @Query("SELECT h FROM ReservaHistorico h WHERE h.criadaEm BETWEEN :inicio AND :fim")
+    List<ReservaHistorico> findReservasPorPeriodo(@Param("inicio") LocalDateTime inicio,
+                                                  @Param("fim") LocalDateTime fim);
+
+    /**
+     * Busca últimas reservas finalizadas por cliente
+     */
+    @Query("SELECT h FROM ReservaHistorico h WHERE h.clienteId = :clienteId ORDER BY h.criadaEm DESC")
+    List<ReservaHistorico> findUltimasReservasByCliente(@Param("clienteId") String clienteId);
+
+    /**
+     * Conta reservas finalizadas por status
+     */
+    @Query("SELECT COUNT(h) FROM ReservaHistorico h WHERE h.status = :status")
+    Long countByStatus(@Param("status") Reserva.StatusReserva status);
+}
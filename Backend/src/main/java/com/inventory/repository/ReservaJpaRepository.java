@@ -1,7 +1,9 @@
 package com.inventory.repository;
 
 import com.inventory.model.Reserva;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -13,10 +15,18 @@ import java.util.Optional;
 
 /**
  * Repository JPA para operações de reserva
+ *
+ * Opera sobre a tabela quente (só reservas ATIVAS); finalizadas ficam em ReservaHistoricoJpaRepository.
  */
 @Repository
 public interface ReservaJpaRepository extends JpaRepository<Reserva, String> {
 
+    String MOVER_PARA_HISTORICO =
+            "INSERT INTO reserva_historico (id, produto_id, loja_id, quantidade, cliente_id, vendedor_id, status, " +
+            "criada_em, expira_em, observacoes, finalizada_em) " +
+            "SELECT id, produto_id, loja_id, quantidade, cliente_id, vendedor_id, :status, " +
+            "criada_em, expira_em, observacoes, LOCALTIMESTAMP FROM OLD TABLE (DELETE FROM reserva ";
+
     /**
      * Busca reservas por produto e loja
      */
@@ -35,13 +45,13 @@ public interface ReservaJpaRepository extends JpaRepository<Reserva, String> {
     /**
      * Busca reservas ativas (não expiradas)
      */
-    @Query("SELECT r FROM Reserva r WHERE r.status = 'ATIVA' AND r.expiraEm > CURRENT_TIMESTAMP")
+    @Query("SELECT r FROM Reserva r WHERE r.expiraEm > CURRENT_TIMESTAMP")
     List<Reserva> findReservasAtivas();
 
     /**
-     * Busca reservas expiradas que ainda estão com status ATIVA
+     * Busca reservas vencidas ainda ativas (as de cota ficam até a liquidação, que depende de reserva.cota_id)
      */
-    @Query("SELECT r FROM Reserva r WHERE r.status = 'ATIVA' AND r.expiraEm <= CURRENT_TIMESTAMP")
+    @Query("SELECT r FROM Reserva r WHERE r.expiraEm <= CURRENT_TIMESTAMP AND r.cotaId IS NULL")
     List<Reserva> findReservasExpiradas();
 
     /**
@@ -65,23 +75,30 @@ public interface ReservaJpaRepository extends JpaRepository<Reserva, String> {
      * Busca reservas ativas por produto e loja
      */
     @Query("SELECT r FROM Reserva r WHERE r.produtoId = :produtoId AND r.lojaId = :lojaId " +
-           "AND r.status = 'ATIVA' AND r.expiraEm > CURRENT_TIMESTAMP")
+           "AND r.expiraEm > CURRENT_TIMESTAMP")
     List<Reserva> findReservasAtivasByProdutoAndLoja(@Param("produtoId") Long produtoId, 
                                                     @Param("lojaId") Long lojaId);
 
     /**
-     * Marca reservas expiradas como EXPIRADA
+     * Move a reserva para o histórico com o status final (um comando: DELETE devolvendo a linha + INSERT)
+     */
+    @Modifying
+    @Query(value = MOVER_PARA_HISTORICO + "WHERE id = :id)", nativeQuery = true)
+    int moverParaHistorico(@Param("id") String id, @Param("status") String status);
+
+    /**
+     * Move a reserva para o histórico como EXPIRADA se ainda estiver vencida e fora da cota
      */
     @Modifying
-    @Query("UPDATE Reserva r SET r.status = 'EXPIRADA' " +
-           "WHERE r.status = 'ATIVA' AND r.expiraEm <= CURRENT_TIMESTAMP")
-    int marcarReservasExpiradas();
+    @Query(value = MOVER_PARA_HISTORICO + "WHERE id = :id AND expira_em <= LOCALTIMESTAMP AND cota_id IS NULL)",
+           nativeQuery = true)
+    int expirar(@Param("id") String id, @Param("status") String status);
 
     /**
      * Conta reservas ativas por produto e loja
      */
     @Query("SELECT COUNT(r) FROM Reserva r WHERE r.produtoId = :produtoId AND r.lojaId = :lojaId " +
-           "AND r.status = 'ATIVA' AND r.expiraEm > CURRENT_TIMESTAMP")
+           "AND r.expiraEm > CURRENT_TIMESTAMP")
     Long countReservasAtivas(@Param("produtoId") Long produtoId, @Param("lojaId") Long lojaId);
 
     /**
@@ -89,14 +106,13 @@ public interface ReservaJpaRepository extends JpaRepository<Reserva, String> {
      */
     @Query("SELECT COALESCE(SUM(r.quantidade), 0) FROM Reserva r " +
            "WHERE r.produtoId = :produtoId AND r.lojaId = :lojaId " +
-           "AND r.status = 'ATIVA' AND r.expiraEm > CURRENT_TIMESTAMP")
+           "AND r.expiraEm > CURRENT_TIMESTAMP")
     Long sumQuantidadeReservada(@Param("produtoId") Long produtoId, @Param("lojaId") Long lojaId);
 
     /**
      * Busca reservas que expiram em breve (nos próximos X minutos)
      */
-    @Query("SELECT r FROM Reserva r WHERE r.status = 'ATIVA' " +
-           "AND r.expiraEm BETWEEN CURRENT_TIMESTAMP AND :limite")
+    @Query("SELECT r FROM Reserva r WHERE r.expiraEm BETWEEN CURRENT_TIMESTAMP AND :limite")
     List<Reserva> findReservasQuaseExpirando(@Param("limite") LocalDateTime limite);
 
     /**
@@ -117,13 +133,27 @@ public interface ReservaJpaRepository extends JpaRepository<Reserva, String> {
      */
     @Query("SELECT CASE WHEN COUNT(r) > 0 THEN true ELSE false END FROM Reserva r " +
            "WHERE r.produtoId = :produtoId AND r.lojaId = :lojaId " +
-           "AND r.status = 'ATIVA' AND r.expiraEm > CURRENT_TIMESTAMP")
+           "AND r.expiraEm > CURRENT_TIMESTAMP")
     boolean existsReservaAtiva(@Param("produtoId") Long produtoId, @Param("lojaId") Long lojaId);
 
     /**
-     * Remove reservas antigas (mais de X dias)
+     * Reservas aprovadas contra a cota e ainda não liquidadas, travadas para a liquidação
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM Reserva r WHERE r.cotaId = :cotaId")
+    List<Reserva> findPendentesCota(@Param("cotaId") Long cotaId);
+
+    /**
+     * Marca reservas como liquidadas (desvincula da cota)
+     */
+    @Modifying
+    @Query("UPDATE Reserva r SET r.cotaId = NULL WHERE r.id IN :ids")
+    int liquidarCota(@Param("ids") List<String> ids);
+
+    /**
+     * Liquida uma reserva da cota; 0 quando outra transação já a liquidou
      */
     @Modifying
-    @Query("DELETE FROM Reserva r WHERE r.criadaEm < :dataLimite")
-    int removeReservasAntigas(@Param("dataLimite") LocalDateTime dataLimite);
+    @Query("UPDATE Reserva r SET r.cotaId = NULL WHERE r.id = :id AND r.cotaId = :cotaId")
+    int liquidarCota(@Param("id") String id, @Param("cotaId") Long cotaId);
 }
\ No newline at end of file
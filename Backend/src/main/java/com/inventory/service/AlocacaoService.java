@@ -0,0 +1,505 @@
+package com.inventory.service;
+
+import com.inventory.config.LojasProperties;
+import com.inventory.config.fragmentacao.RoteamentoFragmentos;
+import com.inventory.dto.PedidoRequest;
+import com.inventory.dto.PedidoRequest.ItemPedido;
+import com.inventory.exception.ConcorrenciaException;
+import com.inventory.exception.EstoqueInsuficienteException;
+import com.inventory.service.IndiceDisponibilidade.DisponibilidadeProduto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Motor de alocação de pedidos multi-item entre lojas (ship-from-store)
+ *
+ * FLUXO: Snapshot de disponibilidade (índice em memória) → Plano com o menor número de remessas
+ * (guloso + busca limitada) → Reserva atômica de todas as linhas em uma transação
+ *
+ * Com fragmentação não há transação entre bancos: cada fragmento reserva as suas linhas na própria transação
+ * e, se um falhar, as reservas já feitas nos anteriores são canceladas antes de replanejar.
+ */
+@Service
+public class AlocacaoService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AlocacaoService.class);
+
+    private final IndiceDisponibilidade indiceDisponibilidade;
+    private final EstoqueServiceJpa estoqueService;
+    private final LojasProperties lojas;
+    private final ObjectProvider<RoteamentoFragmentos> fragmentos;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxTentativas;
+    private final int maxCandidatas;
+    private final int maxNosBusca;
+
+    public AlocacaoService(IndiceDisponibilidade indiceDisponibilidade,
+                           EstoqueServiceJpa estoqueService,
+                           LojasProperties lojas,
+                           ObjectProvider<RoteamentoFragmentos> fragmentos,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${inventario.alocacao.max-tentativas:3}") int maxTentativas,
+                           @Value("${inventario.alocacao.max-candidatas:40}") int maxCandidatas,
+                           @Value("${inventario.alocacao.max-nos-busca:50000}") int maxNosBusca) {
+        this.indiceDisponibilidade = indiceDisponibilidade;
+        this.estoqueService = estoqueService;
+        this.lojas = lojas;
+        this.fragmentos = fragmentos;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxTentativas = maxTentativas;
+        this.maxCandidatas = maxCandidatas;
+        this.maxNosBusca = maxNosBusca;
+    }
+
+    /**
+     * Calcula o plano de alocação sem reservar estoque
+     */
+    public PlanoAlocacao simular(PedidoRequest pedido) {
+        return planejar(pedido);
+    }
+
+    /**
+     * Aloca o pedido e reserva todas as linhas atomicamente
+     * Conflitos de concorrência refazem o plano com um snapshot novo; uma linha recusada por falta de estoque
+     * relê o par (produto, loja) do banco para o índice antes de replanejar, e se for a última falha sai como
+     * EstoqueInsuficienteException
+     */
+    public ResultadoAlocacao alocar(PedidoRequest pedido) {
+        logger.info("Alocando pedido - Cliente: {}, Itens: {}", pedido.getClienteId(), pedido.getItens().size());
+
+        RuntimeException ultimaFalha = null;
+        for (int tentativa = 1; tentativa <= maxTentativas; tentativa++) {
+            PlanoAlocacao plano = planejar(pedido);
+            try {
+                List<Remessa> remessas = reservar(plano, pedido.getClienteId());
+                logger.info("Pedido alocado - Cliente: {}, Remessas: {}, Tentativa: {}",
+                           pedido.getClienteId(), remessas.size(), tentativa);
+                return new ResultadoAlocacao(pedido.getClienteId(), remessas, tentativa);
+            } catch (EstoqueInsuficienteException e) {
+                logger.warn("Índice desatualizado ao reservar alocação - Cliente: {}, Tentativa: {}: {}",
+                           pedido.getClienteId(), tentativa, e.getMessage());
+                if (e.getLojaId() != null) {
+                    recarregarIndice(e.getProdutoId(), e.getLojaId());
+                }
+                ultimaFalha = e;
+            } catch (ConcorrenciaException e) {
+                logger.warn("Conflito ao reservar alocação - Cliente: {}, Tentativa: {}: {}",
+                           pedido.getClienteId(), tentativa, e.getMessage());
+                ultimaFalha = e;
+            }
+        }
+        if (ultimaFalha instanceof EstoqueInsuficienteException e) {
+            throw e;
+        }
+        throw new ConcorrenciaException("Não foi possível alocar o pedido após " + maxTentativas + " tentativas",
+                ultimaFalha);
+    }
+
+    /**
+     * Relê a disponibilidade do par pelo serviço de estoque (roteado para o fragmento da loja)
+     */
+    private void recarregarIndice(Long produtoId, Long lojaId) {
+        indiceDisponibilidade.atualizar(produtoId, lojaId, estoqueService.getQuantidadeDisponivel(produtoId, lojaId));
+    }
+
+    /**
+     * Sem fragmentação, reserva o plano inteiro em uma transação. Com fragmentação, uma transação por fragmento,
+     * em ordem de fragmento; a falha de um cancela as reservas dos anteriores e sai com a exceção original
+     */
+    private List<Remessa> reservar(PlanoAlocacao plano, String clienteId) {
+        RoteamentoFragmentos roteamento = fragmentos.getIfAvailable();
+        if (roteamento == null) {
+            return new ArrayList<>(transactionTemplate.execute(status -> reservar(plano.getAlocacoes(), clienteId))
+                    .values());
+        }
+        Map<Integer, List<Alocacao>> porFragmento = new TreeMap<>();
+        for (Alocacao alocacao : plano.getAlocacoes()) {
+            porFragmento.computeIfAbsent(roteamento.fragmentoDaLoja(alocacao.getLojaId()), f -> new ArrayList<>())
+                    .add(alocacao);
+        }
+        Map<Long, Remessa> remessas = new TreeMap<>();
+        for (List<Alocacao> alocacoes : porFragmento.values()) {
+            try {
+                remessas.putAll(roteamento.naLoja(alocacoes.get(0).getLojaId(),
+                        () -> transactionTemplate.execute(status -> reservar(alocacoes, clienteId))));
+            } catch (RuntimeException e) {
+                compensar(remessas.values());
+                throw e;
+            }
+        }
+        return new ArrayList<>(remessas.values());
+    }
+
+    /**
+     * Reserva as alocações na ordem (produto, loja), a mesma das transferências (EstoqueServiceJpa.transferir):
+     * qualquer par de transações que trave várias linhas de estoque as trava na mesma ordem, sem deadlock
+     */
+    private Map<Long, Remessa> reservar(List<Alocacao> alocacoes, String clienteId) {
+        List<Alocacao> ordenadas = new ArrayList<>(alocacoes);
+        ordenadas.sort(Comparator.comparing(Alocacao::getProdutoId).thenComparing(Alocacao::getLojaId));
+
+        Map<Long, Remessa> remessas = new TreeMap<>();
+        for (Alocacao alocacao : ordenadas) {
+            String reservaId = estoqueService.processarVenda(
+                alocacao.getProdutoId(), alocacao.getLojaId(), alocacao.getQuantidade(), clienteId);
+            remessas.computeIfAbsent(alocacao.getLojaId(), Remessa::new)
+                    .getItens().add(new ItemAlocado(alocacao.getProdutoId(), alocacao.getQuantidade(), reservaId));
+        }
+        return remessas;
+    }
+
+    /**
+     * Cancela as reservas já confirmadas em outros fragmentos (cada cancelamento roteado pela reserva)
+     * Uma que não puder ser cancelada é liberada pelo job de expiração
+     */
+    private void compensar(Collection<Remessa> remessas) {
+        for (Remessa remessa : remessas) {
+            for (ItemAlocado item : remessa.getItens()) {
+                try {
+                    estoqueService.cancelarVenda(item.getReservaId());
+                } catch (RuntimeException e) {
+                    logger.error("Reserva {} não cancelada na compensação da alocação; fica para a expiração",
+                                item.getReservaId(), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Monta a matriz loja × linha a partir do índice e escolhe o menor conjunto de lojas
+     */
+    private PlanoAlocacao planejar(PedidoRequest pedido) {
+        Map<Long, Integer> consolidado = new LinkedHashMap<>();
+        for (ItemPedido item : pedido.getItens()) {
+            consolidado.merge(item.getProdutoId(), item.getQuantidade(), Integer::sum);
+        }
+        int linhas = consolidado.size();
+        long[] produtoIds = new long[linhas];
+        int[] quantidades = new int[linhas];
+        int l = 0;
+        for (Map.Entry<Long, Integer> e : consolidado.entrySet()) {
+            produtoIds[l] = e.getKey();
+            quantidades[l] = e.getValue();
+            l++;
+        }
+
+        // Snapshot imutável por produto: o plano inteiro é calculado sobre a mesma visão
+        Map<Long, Integer> indiceLoja = new HashMap<>();
+        List<Long> lojaIds = new ArrayList<>();
+        List<int[]> disponivelPorLoja = new ArrayList<>();
+        for (l = 0; l < linhas; l++) {
+            DisponibilidadeProduto snapshot = indiceDisponibilidade.snapshot(produtoIds[l]);
+            long total = 0;
+            for (int i = 0; i < snapshot.tamanho() && snapshot.disponivel(i) > 0; i++) {
+                long lojaId = snapshot.lojaId(i);
+                Integer s = indiceLoja.get(lojaId);
+                if (s == null) {
+                    s = lojaIds.size();
+                    indiceLoja.put(lojaId, s);
+                    lojaIds.add(lojaId);
+                    disponivelPorLoja.add(new int[linhas]);
+                }
+                disponivelPorLoja.get(s)[l] = snapshot.disponivel(i);
+                total += snapshot.disponivel(i);
+            }
+            if (total < quantidades[l]) {
+                throw new EstoqueInsuficienteException(produtoIds[l], (int) Math.min(total, Integer.MAX_VALUE),
+                        quantidades[l]);
+            }
+        }
+
+        Candidata[] candidatas = new Candidata[lojaIds.size()];
+        for (int s = 0; s < candidatas.length; s++) {
+            Long lojaId = lojaIds.get(s);
+            Double distancia = pedido.getLatitude() != null && pedido.getLongitude() != null
+                    ? lojas.distanciaKm(lojaId, pedido.getLatitude(), pedido.getLongitude()) : null;
+            candidatas[s] = new Candidata(lojaId, disponivelPorLoja.get(s), quantidades,
+                    lojas.prioridadeDe(lojaId), distancia);
+        }
+        Arrays.sort(candidatas, Candidata.ORDEM);
+
+        int[] escolhidas = guloso(candidatas, quantidades);
+        int[] melhor = buscaLimitada(candidatas, quantidades, escolhidas.length);
+        if (melhor != null) {
+            escolhidas = melhor;
+        }
+        return distribuir(candidatas, escolhidas, produtoIds, quantidades);
+    }
+
+    /**
+     * Guloso: a cada passo escolhe a loja que atende integralmente mais linhas pendentes
+     */
+    private int[] guloso(Candidata[] candidatas, int[] quantidades) {
+        int[] pendente = quantidades.clone();
+        boolean[] usada = new boolean[candidatas.length];
+        List<Integer> escolhidas = new ArrayList<>();
+
+        while (Arrays.stream(pendente).anyMatch(q -> q > 0)) {
+            int melhor = -1;
+            int melhorLinhas = -1;
+            long melhorUnidades = 0;
+            for (int s = 0; s < candidatas.length; s++) {
+                if (usada[s]) {
+                    continue;
+                }
+                int linhasAtendidas = 0;
+                long unidades = 0;
+                for (int l = 0; l < pendente.length; l++) {
+                    if (pendente[l] > 0) {
+                        int atende = Math.min(pendente[l], candidatas[s].disponivel[l]);
+                        unidades += atende;
+                        if (atende == pendente[l]) {
+                            linhasAtendidas++;
+                        }
+                    }
+                }
+                if (unidades > 0 && (linhasAtendidas > melhorLinhas
+                        || (linhasAtendidas == melhorLinhas && unidades > melhorUnidades))) {
+                    melhor = s;
+                    melhorLinhas = linhasAtendidas;
+                    melhorUnidades = unidades;
+                }
+            }
+            usada[melhor] = true;
+            escolhidas.add(melhor);
+            for (int l = 0; l < pendente.length; l++) {
+                pendente[l] -= Math.min(pendente[l], candidatas[melhor].disponivel[l]);
+            }
+        }
+        return escolhidas.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Busca em profundidade limitada por conjuntos menores que o guloso
+     * Poda por limite otimista: soma escolhida + (k restantes × maior disponível no sufixo)
+     */
+    private int[] buscaLimitada(Candidata[] candidatas, int[] quantidades, int tamanhoGuloso) {
+        if (tamanhoGuloso <= 1) {
+            return null;
+        }
+        int n = Math.min(candidatas.length, maxCandidatas);
+        int linhas = quantidades.length;
+        int[][] maxSufixo = new int[n + 1][linhas];
+        for (int s = n - 1; s >= 0; s--) {
+            for (int l = 0; l < linhas; l++) {
+                maxSufixo[s][l] = Math.max(maxSufixo[s + 1][l], candidatas[s].disponivel[l]);
+            }
+        }
+
+        int[] orcamento = {maxNosBusca};
+        for (int k = 1; k < tamanhoGuloso; k++) {
+            int[] escolha = new int[k];
+            if (buscar(candidatas, quantidades, maxSufixo, n, 0, 0, k, escolha, new long[linhas], orcamento)) {
+                return escolha;
+            }
+            if (orcamento[0] <= 0) {
+                logger.debug("Orçamento da busca de alocação esgotado em k={}", k);
+                break;
+            }
+        }
+        return null;
+    }
+
+    private boolean buscar(Candidata[] candidatas, int[] quantidades, int[][] maxSufixo, int n,
+                           int inicio, int profundidade, int k, int[] escolha, long[] soma, int[] orcamento) {
+        if (profundidade == k) {
+            for (int l = 0; l < quantidades.length; l++) {
+                if (soma[l] < quantidades[l]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        int restantes = k - profundidade;
+        for (int s = inicio; s <= n - restantes; s++) {
+            if (--orcamento[0] < 0) {
+                return false;
+            }
+            boolean viavel = true;
+            for (int l = 0; l < quantidades.length && viavel; l++) {
+                viavel = soma[l] + (long) restantes * maxSufixo[s][l] >= quantidades[l];
+            }
+            if (!viavel) {
+                continue;
+            }
+            escolha[profundidade] = s;
+            for (int l = 0; l < quantidades.length; l++) {
+                soma[l] += candidatas[s].disponivel[l];
+            }
+            boolean achou = buscar(candidatas, quantidades, maxSufixo, n, s + 1, profundidade + 1, k, escolha, soma, orcamento);
+            for (int l = 0; l < quantidades.length; l++) {
+                soma[l] -= candidatas[s].disponivel[l];
+            }
+            if (achou) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Distribui cada linha entre as lojas escolhidas, na ordem de preferência
+     */
+    private PlanoAlocacao distribuir(Candidata[] candidatas, int[] escolhidas, long[] produtoIds, int[] quantidades) {
+        int[] ordem = escolhidas.clone();
+        Arrays.sort(ordem);
+        List<Alocacao> alocacoes = new ArrayList<>();
+        for (int l = 0; l < quantidades.length; l++) {
+            int pendente = quantidades[l];
+            for (int i = 0; i < ordem.length && pendente > 0; i++) {
+                Candidata c = candidatas[ordem[i]];
+                int quantidade = Math.min(pendente, c.disponivel[l]);
+                if (quantidade > 0) {
+                    alocacoes.add(new Alocacao(produtoIds[l], c.lojaId, quantidade));
+                    pendente -= quantidade;
+                }
+            }
+        }
+        long remessas = alocacoes.stream().map(Alocacao::getLojaId).distinct().count();
+        return new PlanoAlocacao(alocacoes, (int) remessas);
+    }
+
+    /**
+     * Loja candidata com a disponibilidade de cada linha do pedido
+     */
+    private static class Candidata {
+        static final Comparator<Candidata> ORDEM = Comparator
+                .comparingInt((Candidata c) -> -c.linhasAtendidas)
+                .thenComparing(c -> c.distanciaKm, Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparingInt(c -> c.prioridade)
+                .thenComparingLong(c -> -c.unidades);
+
+        final Long lojaId;
+        final int[] disponivel;
+        final int prioridade;
+        final Double distanciaKm;
+        final int linhasAtendidas;
+        final long unidades;
+
+        Candidata(Long lojaId, int[] disponivel, int[] quantidades, int prioridade, Double distanciaKm) {
+            this.lojaId = lojaId;
+            this.disponivel = disponivel;
+            this.prioridade = prioridade;
+            this.distanciaKm = distanciaKm;
+            int atendidas = 0;
+            long total = 0;
+            for (int l = 0; l < quantidades.length; l++) {
+                if (disponivel[l] >= quantidades[l]) {
+                    atendidas++;
+                }
+                total += Math.min(disponivel[l], quantidades[l]);
+            }
+            this.linhasAtendidas = atendidas;
+            this.unidades = total;
+        }
+    }
+
+    /**
+     * Quantidade de um produto atribuída a uma loja
+     */
+    public static class Alocacao {
+        private final Long produtoId;
+        private final Long lojaId;
+        private final Integer quantidade;
+
+        public Alocacao(Long produtoId, Long lojaId, Integer quantidade) {
+            this.produtoId = produtoId;
+            this.lojaId = lojaId;
+            this.quantidade = quantidade;
+        }
+
+        // Getters
+        public Long getProdutoId() { return produtoId; }
+        public Long getLojaId() { return lojaId; }
+        public Integer getQuantidade() { return quantidade; }
+    }
+
+    /**
+     * Plano calculado (sem reserva)
+     */
+    public static class PlanoAlocacao {
+        private final List<Alocacao> alocacoes;
+        private final int totalRemessas;
+
+        public PlanoAlocacao(List<Alocacao> alocacoes, int totalRemessas) {
+            this.alocacoes = alocacoes;
+            this.totalRemessas = totalRemessas;
+        }
+
+        // Getters
+        public List<Alocacao> getAlocacoes() { return alocacoes; }
+        public int getTotalRemessas() { return totalRemessas; }
+    }
+
+    /**
+     * Item reservado dentro de uma remessa
+     */
+    public static class ItemAlocado {
+        private final Long produtoId;
+        private final Integer quantidade;
+        private final String reservaId;
+
+        public ItemAlocado(Long produtoId, Integer quantidade, String reservaId) {
+            this.produtoId = produtoId;
+            this.quantidade = quantidade;
+            this.reservaId = reservaId;
+        }
+
+        // Getters
+        public Long getProdutoId() { return produtoId; }
+        public Integer getQuantidade() { return quantidade; }
+        public String getReservaId() { return reservaId; }
+    }
+
+    /**
+     * Remessa: itens que saem de uma mesma loja
+     */
+    public static class Remessa {
+        private final Long lojaId;
+        private final List<ItemAlocado> itens = new ArrayList<>();
+
+        public Remessa(Long lojaId) {
+            this.lojaId = lojaId;
+        }
+
+        // Getters
+        public Long getLojaId() { return lojaId; }
+        public List<ItemAlocado> getItens() { return itens; }
+    }
+
+    /**
+     * Resultado da alocação com as reservas criadas
+     */
+    public static class ResultadoAlocacao {
+        private final String clienteId;
+        private final List<Remessa> remessas;
+        private final int tentativas;
+
+        public ResultadoAlocacao(String clienteId, List<Remessa> remessas, int tentativas) {
+            this.clienteId = clienteId;
+            this.remessas = remessas;
+            this.tentativas = tentativas;
+        }
+
+        // Getters
+        public String getClienteId() { return clienteId; }
+        public List<Remessa> getRemessas() { return remessas; }
+        public int getTotalRemessas() { return remessas.size(); }
+        public int getTentativas() { return tentativas; }
+    }
+}
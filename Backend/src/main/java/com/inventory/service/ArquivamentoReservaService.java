@@ -0,0 +1,350 @@
+package com.inventory.service;
+
+import com.inventory.arquivamento.ArquivoReservas;
+import com.inventory.arquivamento.ReservaArquivada;
+import com.inventory.config.fragmentacao.RoteamentoFragmentos;
+import com.inventory.model.ArquivamentoReserva;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Arquivamento de reservas antigas em lotes: copia para arquivos gzip por data e remove do banco
+ *
+ * Lê só reserva_historico: reservas ativas (inclusive as de cota pendentes de liquidação) ficam na tabela
+ * quente até serem finalizadas.
+ *
+ * Cada lote é uma transação curta: trava o ponto de controle (FOR UPDATE NOWAIT, um arquivador por banco),
+ * remove a próxima faixa de chaves (criada_em, id) devolvendo as linhas removidas, grava os arquivos e avança
+ * o ponto de controle. Interrompido no meio, o lote volta inteiro no banco e seus arquivos são descartados
+ * na execução seguinte, que continua de onde parou.
+ */
+@Service
+public class ArquivamentoReservaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArquivamentoReservaService.class);
+
+    private static final LocalDateTime INICIO_CURSOR = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private static final String SQL_CRIAR_PONTO_CONTROLE =
+            "INSERT INTO arquivamento_reserva (id, ultimo_lote, total_arquivadas, atualizado_em) " +
+            "SELECT ?, 0, 0, LOCALTIMESTAMP WHERE NOT EXISTS (SELECT 1 FROM arquivamento_reserva WHERE id = ?)";
+
+    private static final String SQL_TRAVAR_PONTO_CONTROLE =
+            "SELECT ultimo_lote FROM arquivamento_reserva WHERE id = ? FOR UPDATE NOWAIT";
+
+    private static final String SQL_AVANCAR_PONTO_CONTROLE =
+            "UPDATE arquivamento_reserva SET ultimo_lote = ?, total_arquivadas = total_arquivadas + ?, " +
+            "atualizado_em = LOCALTIMESTAMP WHERE id = ?";
+
+    /**
+     * Fronteira do lote: a N-ésima chave após o cursor, pelo índice (criada_em, id)
+     */
+    private static final String SQL_FRONTEIRA =
+            "SELECT criada_em, id FROM reserva_historico " +
+            "WHERE criada_em < ? AND criada_em >= ? AND (criada_em > ? OR id > ?) " +
+            "ORDER BY criada_em, id OFFSET ? ROWS FETCH NEXT 1 ROW ONLY";
+
+    /**
+     * Remove a faixa (cursor, fronteira] e devolve exatamente as linhas removidas
+     */
+    private static final String SQL_REMOVER_FAIXA =
+            "SELECT " + ReservaArquivada.COLUNAS + " FROM OLD TABLE (DELETE FROM reserva_historico " +
+            "WHERE criada_em < ? AND criada_em >= ? AND (criada_em > ? OR id > ?) " +
+            "AND criada_em <= ? AND (criada_em < ? OR id <= ?)) ORDER BY criada_em, id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transacao;
+    private final ObjectProvider<RoteamentoFragmentos> fragmentos;
+    private final Path diretorio;
+    private final int retencaoDias;
+    private final int tamanhoLote;
+    private final long pausaMs;
+    private final long duracaoMaximaMs;
+    private final Counter arquivadas;
+    private final AtomicBoolean executando = new AtomicBoolean();
+
+    public ArquivamentoReservaService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                      ObjectProvider<RoteamentoFragmentos> fragmentos, MeterRegistry registry,
+                                      @Value("${inventario.arquivamento.diretorio:./arquivo/reservas}") String diretorio,
+                                      @Value("${inventario.arquivamento.retencao-dias:30}") int retencaoDias,
+                                      @Value("${inventario.arquivamento.tamanho-lote:1000}") int tamanhoLote,
+                                      @Value("${inventario.arquivamento.pausa-ms:50}") long pausaMs,
+                                      @Value("${inventario.arquivamento.duracao-maxima-ms:1800000}") long duracaoMaximaMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transacao = new TransactionTemplate(transactionManager);
+        this.fragmentos = fragmentos;
+        this.diretorio = Paths.get(diretorio);
+        this.retencaoDias = retencaoDias;
+        this.tamanhoLote = tamanhoLote;
+        this.pausaMs = pausaMs;
+        this.duracaoMaximaMs = duracaoMaximaMs;
+        this.arquivadas = Counter.builder("inventario.arquivamento.reservas")
+                .description("Reservas copiadas para o arquivo e removidas do banco")
+                .register(registry);
+    }
+
+    /**
+     * Job diário de arquivamento (padrão: meia-noite)
+     */
+    @Scheduled(cron = "${inventario.arquivamento.cron:0 0 0 * * *}")
+    public void arquivarReservasAntigas() {
+        try {
+            arquivar();
+        } catch (Exception e) {
+            logger.error("Falha no arquivamento de reservas antigas", e);
+        }
+    }
+
+    /**
+     * Arquiva as reservas com mais de {@code retencaoDias} em todos os fragmentos, até a duração máxima
+     */
+    public ResumoArquivamento arquivar() {
+        if (!executando.compareAndSet(false, true)) {
+            throw new IllegalStateException("Arquivamento de reservas já em execução");
+        }
+        try {
+            long inicio = System.nanoTime();
+            long prazo = inicio + duracaoMaximaMs * 1_000_000;
+            LocalDateTime limite = LocalDateTime.now().minusDays(retencaoDias);
+            logger.info("Iniciando arquivamento de reservas - Criadas antes de: {}, Lote: {}", limite, tamanhoLote);
+
+            List<ResumoArquivamento> parciais = new ArrayList<>();
+            RoteamentoFragmentos roteamento = fragmentos.getIfAvailable();
+            if (roteamento != null) {
+                roteamento.emCadaFragmento(fragmento -> parciais.add(arquivarFragmento(fragmento, limite, prazo)));
+            } else {
+                parciais.add(arquivarFragmento(0, limite, prazo));
+            }
+
+            ResumoArquivamento resumo = new ResumoArquivamento(
+                    parciais.stream().mapToLong(ResumoArquivamento::getLotes).sum(),
+                    parciais.stream().mapToLong(ResumoArquivamento::getReservas).sum(),
+                    parciais.stream().mapToLong(ResumoArquivamento::getArquivos).sum(),
+                    parciais.stream().allMatch(ResumoArquivamento::isConcluido),
+                    (System.nanoTime() - inicio) / 1_000_000);
+            logger.info("Arquivamento de reservas finalizado - Lotes: {}, Reservas: {}, Arquivos: {}, Concluído: {}, " +
+                       "Tempo: {}ms", resumo.getLotes(), resumo.getReservas(), resumo.getArquivos(),
+                       resumo.isConcluido(), resumo.getTempoMs());
+            return resumo;
+        } finally {
+            executando.set(false);
+        }
+    }
+
+    private ResumoArquivamento arquivarFragmento(int fragmento, LocalDateTime limite, long prazo) {
+        criarPontoControle();
+        LocalDateTime criadaEm = INICIO_CURSOR;
+        String id = "";
+        long lotes = 0;
+        long reservas = 0;
+        long arquivos = 0;
+        boolean concluido = false;
+
+        while (System.nanoTime() < prazo) {
+            Lote lote = processarLote(fragmento, limite, criadaEm, id, lotes == 0);
+            if (lote == null) {
+                logger.warn("Arquivamento do fragmento {} em execução em outro nó; lote ignorado", fragmento);
+                break;
+            }
+            if (lote.reservas() > 0) {
+                lotes++;
+                reservas += lote.reservas();
+                arquivos += lote.arquivos();
+                criadaEm = lote.ultimaCriadaEm();
+                id = lote.ultimoId();
+                arquivadas.increment(lote.reservas());
+                logger.debug("Lote {} arquivado - Fragmento: {}, Reservas: {}", lote.numero(), fragmento, lote.reservas());
+            }
+            if (lote.reservas() < tamanhoLote) {
+                concluido = true;
+                break;
+            }
+            if (!pausar()) {
+                break;
+            }
+        }
+        return new ResumoArquivamento(lotes, reservas, arquivos, concluido, 0);
+    }
+
+    /**
+     * Um lote em uma transação; null quando outro arquivador detém o ponto de controle
+     */
+    private Lote processarLote(int fragmento, LocalDateTime limite, LocalDateTime depoisDe, String depoisDeId,
+                               boolean primeiro) {
+        return transacao.execute(status -> {
+            long ultimoLote;
+            try {
+                ultimoLote = jdbcTemplate.queryForObject(SQL_TRAVAR_PONTO_CONTROLE, Long.class, ArquivamentoReserva.ID);
+            } catch (PessimisticLockingFailureException e) {
+                return null;
+            }
+            if (primeiro) {
+                descartarLotesInterrompidos(fragmento, ultimoLote);
+            }
+
+            // sem fronteira restam menos que um lote: a faixa vai até o limite
+            List<Object[]> fronteira = jdbcTemplate.query(SQL_FRONTEIRA,
+                    (rs, i) -> new Object[]{rs.getObject(1, LocalDateTime.class), rs.getString(2)},
+                    limite, depoisDe, depoisDe, depoisDeId, tamanhoLote - 1);
+            LocalDateTime ateCriadaEm = fronteira.isEmpty() ? limite : (LocalDateTime) fronteira.get(0)[0];
+            String ateId = fronteira.isEmpty() ? "" : (String) fronteira.get(0)[1];
+
+            List<ReservaArquivada> reservas = jdbcTemplate.query(SQL_REMOVER_FAIXA, (rs, i) -> ReservaArquivada.de(rs),
+                    limite, depoisDe, depoisDe, depoisDeId, ateCriadaEm, ateCriadaEm, ateId);
+            if (reservas.isEmpty()) {
+                return new Lote(ultimoLote, 0, 0, depoisDe, depoisDeId);
+            }
+            long numero = ultimoLote + 1;
+            ReservaArquivada ultima = reservas.get(reservas.size() - 1);
+
+            // falha na gravação desfaz a remoção (rollback); arquivos só ficam se o ponto de controle avançar
+            List<Path> gravados;
+            try {
+                gravados = ArquivoReservas.gravarLote(diretorio, fragmento, numero, reservas);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Falha ao gravar lote " + numero + " do arquivamento", e);
+            }
+            try {
+                jdbcTemplate.update(SQL_AVANCAR_PONTO_CONTROLE, numero, reservas.size(), ArquivamentoReserva.ID);
+            } catch (RuntimeException e) {
+                ArquivoReservas.descartar(gravados);
+                throw e;
+            }
+            return new Lote(numero, reservas.size(), gravados.size(), ultima.criadaEm(), ultima.id());
+        });
+    }
+
+    private void criarPontoControle() {
+        try {
+            jdbcTemplate.update(SQL_CRIAR_PONTO_CONTROLE, ArquivamentoReserva.ID, ArquivamentoReserva.ID);
+        } catch (DuplicateKeyException e) {
+            // criado por outro nó ao mesmo tempo
+        }
+    }
+
+    private void descartarLotesInterrompidos(int fragmento, long ultimoLote) {
+        try {
+            int descartados = ArquivoReservas.descartarLotesAcimaDe(diretorio, fragmento, ultimoLote);
+            if (descartados > 0) {
+                logger.warn("Descartados {} arquivos de lote não confirmado - Fragmento: {}, Último lote: {}",
+                           descartados, fragmento, ultimoLote);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao descartar lotes interrompidos", e);
+        }
+    }
+
+    private boolean pausar() {
+        if (pausaMs <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(pausaMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Consulta reservas arquivadas por id ou cliente, da partição mais recente para a mais antiga
+     */
+    public ResultadoArquivo consultar(String reservaId, String clienteId, LocalDate de, LocalDate ate, int limite) {
+        if (reservaId == null && clienteId == null) {
+            throw new IllegalArgumentException("Informe 'reservaId' ou 'clienteId'");
+        }
+        String contem = "\"" + (reservaId != null ? reservaId : clienteId) + "\"";
+        int maximo = reservaId != null ? 1 : limite;
+        List<ReservaArquivada> reservas = new ArrayList<>();
+        List<LocalDate> lidas = new ArrayList<>();
+        try {
+            List<LocalDate> datas = ArquivoReservas.particoes(diretorio).stream()
+                    .filter(d -> (de == null || !d.isBefore(de)) && (ate == null || !d.isAfter(ate)))
+                    .sorted(Comparator.reverseOrder())
+                    .toList();
+            for (LocalDate data : datas) {
+                if (reservas.size() >= maximo) {
+                    break;
+                }
+                lidas.add(data);
+                ArquivoReservas.ler(diretorio, data, contem,
+                        r -> (reservaId == null || reservaId.equals(r.id()))
+                                && (clienteId == null || clienteId.equals(r.clienteId())),
+                        maximo, reservas);
+            }
+        } catch (IOException e) {
+            logger.error("Falha ao consultar o arquivo de reservas", e);
+            throw new UncheckedIOException(e);
+        }
+        return new ResultadoArquivo(lidas, reservas);
+    }
+
+    private record Lote(long numero, int reservas, int arquivos, LocalDateTime ultimaCriadaEm, String ultimoId) {
+    }
+
+    /**
+     * Resumo de uma execução do arquivamento
+     */
+    public static class ResumoArquivamento {
+        private final long lotes;
+        private final long reservas;
+        private final long arquivos;
+        private final boolean concluido;
+        private final long tempoMs;
+
+        public ResumoArquivamento(long lotes, long reservas, long arquivos, boolean concluido, long tempoMs) {
+            this.lotes = lotes;
+            this.reservas = reservas;
+            this.arquivos = arquivos;
+            this.concluido = concluido;
+            this.tempoMs = tempoMs;
+        }
+
+        // Getters
+        public long getLotes() { return lotes; }
+        public long getReservas() { return reservas; }
+        public long getArquivos() { return arquivos; }
+        public boolean isConcluido() { return concluido; }
+        public long getTempoMs() { return tempoMs; }
+    }
+
+    /**
+     * Resultado de consulta ao arquivo
+     */
+    public static class ResultadoArquivo {
+        private final List<LocalDate> particoesLidas;
+        private final List<ReservaArquivada> reservas;
+
+        public ResultadoArquivo(List<LocalDate> particoesLidas, List<ReservaArquivada> reservas) {
+            this.particoesLidas = particoesLidas;
+            this.reservas = reservas;
+        }
+
+        // Getters
+        public List<LocalDate> getParticoesLidas() { return particoesLidas; }
+        public List<ReservaArquivada> getReservas() { return reservas; }
+    }
+}
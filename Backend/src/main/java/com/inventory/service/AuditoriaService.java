@@ -0,0 +1,128 @@
+package com.inventory.service;
+
+import com.inventory.auditoria.GravadorAuditoria;
+import com.inventory.auditoria.RingBufferAuditoria;
+import com.inventory.auditoria.TipoEventoAuditoria;
+import com.inventory.auditoria.TipoEventoAuditoria.Resultado;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Trilha de auditoria estruturada fora do caminho quente
+ *
+ * O chamador só grava campos primitivos numa posição do ring buffer (sem formatação nem I/O);
+ * a thread do GravadorAuditoria serializa e grava em disco.
+ * Eventos dentro de transação são publicados no término, com o resultado real (confirmado/desfeito).
+ */
+@Service
+public class AuditoriaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditoriaService.class);
+
+    private final boolean habilitada;
+    private final int taxaAmostragem;
+    private final RingBufferAuditoria ringBuffer;
+    private final GravadorAuditoria gravador;
+    private final Thread thread;
+
+    public AuditoriaService(MeterRegistry registry,
+                            @Value("${inventario.auditoria.habilitada:true}") boolean habilitada,
+                            @Value("${inventario.auditoria.diretorio:./auditoria}") String diretorio,
+                            @Value("${inventario.auditoria.capacidade:65536}") int capacidade,
+                            @Value("${inventario.auditoria.tamanho-buffer:65536}") int tamanhoBuffer,
+                            @Value("${inventario.auditoria.amostragem-consultas:100}") int taxaAmostragem) {
+        this.habilitada = habilitada;
+        this.taxaAmostragem = Math.max(0, taxaAmostragem);
+        this.ringBuffer = new RingBufferAuditoria(capacidade);
+        this.gravador = new GravadorAuditoria(ringBuffer, Paths.get(diretorio), tamanhoBuffer);
+        this.thread = new Thread(gravador, "auditoria-gravador");
+        this.thread.setDaemon(true);
+        if (habilitada) {
+            thread.start();
+        }
+
+        Gauge.builder("inventario.auditoria.pendentes", ringBuffer, RingBufferAuditoria::getPendentes)
+                .description("Eventos de auditoria aguardando gravação").register(registry);
+        Gauge.builder("inventario.auditoria.descartados", ringBuffer, RingBufferAuditoria::getDescartados)
+                .description("Eventos descartados por buffer cheio").register(registry);
+    }
+
+    /**
+     * Registra uma operação; dentro de transação o evento sai no commit/rollback
+     */
+    public void registrar(TipoEventoAuditoria tipo, long produtoId, long lojaId, int quantidade, String referencia) {
+        if (!habilitada) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publicar(tipo, Resultado.CONFIRMADO, produtoId, lojaId, quantidade, referencia);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                publicar(tipo, status == STATUS_COMMITTED ? Resultado.CONFIRMADO : Resultado.DESFEITO,
+                        produtoId, lojaId, quantidade, referencia);
+            }
+        });
+    }
+
+    /**
+     * Registra uma operação recusada por regra de negócio (publicada imediatamente)
+     */
+    public void rejeitar(TipoEventoAuditoria tipo, long produtoId, long lojaId, int quantidade, String referencia) {
+        if (habilitada) {
+            publicar(tipo, Resultado.REJEITADO, produtoId, lojaId, quantidade, referencia);
+        }
+    }
+
+    /**
+     * Rastreamento de nível debug, amostrado (1 a cada N chamadas em média; 0 desliga)
+     */
+    public void amostrar(TipoEventoAuditoria tipo, long produtoId, long lojaId) {
+        if (habilitada && taxaAmostragem > 0 && ThreadLocalRandom.current().nextInt(taxaAmostragem) == 0) {
+            publicar(tipo, Resultado.AMOSTRA, produtoId, lojaId, 0, null);
+        }
+    }
+
+    private void publicar(TipoEventoAuditoria tipo, Resultado resultado, long produtoId, long lojaId,
+                          int quantidade, String referencia) {
+        ringBuffer.publicar(System.currentTimeMillis(), tipo, resultado, produtoId, lojaId, quantidade, referencia);
+    }
+
+    /**
+     * Para a thread de gravação e descarrega o que ainda estiver no buffer
+     */
+    @PreDestroy
+    public void encerrar() {
+        if (!thread.isAlive()) {
+            return;
+        }
+        gravador.parar();
+        try {
+            thread.join(5000);
+            if (thread.isAlive()) {
+                logger.warn("Gravador de auditoria não terminou; eventos pendentes: {}", ringBuffer.getPendentes());
+                return;
+            }
+            gravador.close();
+            logger.info("Auditoria encerrada - Gravados: {}, Descartados: {}",
+                    gravador.getGravados(), ringBuffer.getDescartados());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            logger.warn("Falha ao fechar arquivo de auditoria", e);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.inventory.service;
+
+import com.inventory.bloqueio.EstadoEstoque;
+import com.inventory.bloqueio.EstrategiaBloqueio;
+import com.inventory.bloqueio.MutacaoEstoque;
+import com.inventory.config.BloqueioProperties;
+import com.inventory.exception.ConcorrenciaException;
+import com.inventory.exception.EstoqueInsuficienteException;
+import com.inventory.repository.EstoqueJpaRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockTimeoutException;
+import jakarta.persistence.PessimisticLockException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Executa as escritas de estoque_produto com a estratégia de bloqueio configurada para o produto
+ *
+ * Nenhuma estratégia deixa a linha gerenciada no contexto de persistência: depois da escrita, uma leitura
+ * do chamador na mesma transação vê o estado gravado.
+ *
+ * Uma recusa da regra (EstoqueInsuficienteException) não escreveu nada e não marca a transação para rollback:
+ * o chamador decide se a propaga (e desfaz a transação) ou a traduz em outra resposta.
+ */
+@Service
+@Transactional(propagation = Propagation.MANDATORY, noRollbackFor = EstoqueInsuficienteException.class)
+public class BloqueioEstoqueService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BloqueioEstoqueService.class);
+
+    private static final String SQL_BLOQUEIO = "SELECT id, quantidade, reservado, cota, versao FROM estoque_produto " +
+            "WHERE produto_id = ?1 AND loja_id = ?2 FOR UPDATE WAIT ";
+
+    private final EstoqueJpaRepository estoqueRepository;
+    private final EntityManager entityManager;
+    private final BloqueioProperties properties;
+    private final DisputaEstoqueService disputa;
+    private final Map<EstrategiaBloqueio, Counter> conflitos = new EnumMap<>(EstrategiaBloqueio.class);
+    private final Counter esperasEsgotadas;
+
+    public BloqueioEstoqueService(EstoqueJpaRepository estoqueRepository, EntityManager entityManager,
+                                  BloqueioProperties properties, DisputaEstoqueService disputa,
+                                  MeterRegistry registry) {
+        this.estoqueRepository = estoqueRepository;
+        this.entityManager = entityManager;
+        this.properties = properties;
+        this.disputa = disputa;
+        for (EstrategiaBloqueio estrategia : EstrategiaBloqueio.values()) {
+            conflitos.put(estrategia, Counter.builder("inventario.bloqueio.conflitos")
+                    .description("Escritas de estoque repetidas por conflito com outra transação")
+                    .tag("estrategia", estrategia.name()).register(registry));
+        }
+        this.esperasEsgotadas = Counter.builder("inventario.bloqueio.esperas-esgotadas")
+                .description("Escritas pessimistas que desistiram de esperar pelo bloqueio da linha")
+                .register(registry);
+    }
+
+    /**
+     * Aplica a mutação; false quando o produto não existe na loja. Recusas da regra saem como a exceção
+     * de negócio da mutação; conflitos não resolvidos, como ConcorrenciaException
+     */
+    public boolean executar(MutacaoEstoque mutacao) {
+        disputa.escrita(mutacao.produtoId(), mutacao.lojaId());
+        return switch (properties.estrategiaDe(mutacao.produtoId())) {
+            case OTIMISTA -> otimista(mutacao);
+            case PESSIMISTA -> pessimista(mutacao);
+            case ATOMICA -> atomica(mutacao);
+        };
+    }
+
+    private boolean otimista(MutacaoEstoque mutacao) {
+        for (int tentativa = 1; tentativa <= properties.getTentativas(); tentativa++) {
+            Optional<EstadoEstoque> atual = estoqueRepository.findEstado(mutacao.produtoId(), mutacao.lojaId());
+            if (atual.isEmpty()) {
+                return false;
+            }
+            if (gravar(atual.get(), mutacao.regra().apply(atual.get()))) {
+                return true;
+            }
+            conflito(EstrategiaBloqueio.OTIMISTA, mutacao, tentativa);
+        }
+        throw esgotado(mutacao);
+    }
+
+    private boolean pessimista(MutacaoEstoque mutacao) {
+        Optional<EstadoEstoque> atual = lerComBloqueio(mutacao);
+        if (atual.isEmpty()) {
+            return false;
+        }
+        if (!gravar(atual.get(), mutacao.regra().apply(atual.get()))) {
+            // com a linha bloqueada só acontece se alguém escrever sem bloquear (SQL externo)
+            conflito(EstrategiaBloqueio.PESSIMISTA, mutacao, 1);
+            throw esgotado(mutacao);
+        }
+        return true;
+    }
+
+    private boolean atomica(MutacaoEstoque mutacao) {
+        for (int tentativa = 1; tentativa <= properties.getTentativas(); tentativa++) {
+            if (mutacao.atomica().applyAsInt(estoqueRepository) > 0) {
+                return true;
+            }
+            // só no caminho de falha: lê a linha para devolver o motivo real da recusa
+            Optional<EstadoEstoque> atual = estoqueRepository.findEstado(mutacao.produtoId(), mutacao.lojaId());
+            if (atual.isEmpty()) {
+                return false;
+            }
+            mutacao.regra().apply(atual.get());
+            // a regra aceita o estado relido: a linha mudou entre o UPDATE e a leitura
+            conflito(EstrategiaBloqueio.ATOMICA, mutacao, tentativa);
+        }
+        throw esgotado(mutacao);
+    }
+
+    private boolean gravar(EstadoEstoque atual, EstadoEstoque novo) {
+        if (novo == null) {
+            return estoqueRepository.removerEstado(atual.id(), atual.versao()) > 0;
+        }
+        return estoqueRepository.gravarEstado(atual.id(), novo.quantidade(), novo.reservado(), atual.versao()) > 0;
+    }
+
+    private Optional<EstadoEstoque> lerComBloqueio(MutacaoEstoque mutacao) {
+        List<?> linhas;
+        try {
+            // H2 não recebe a dica de timeout de bloqueio pelo Hibernate: a espera vai no próprio FOR UPDATE
+            linhas = entityManager.createNativeQuery(SQL_BLOQUEIO + String.format(Locale.ROOT, "%.3f",
+                            properties.getTimeoutMs() / 1000.0))
+                    .setParameter(1, mutacao.produtoId())
+                    .setParameter(2, mutacao.lojaId())
+                    .getResultList();
+        } catch (LockTimeoutException | PessimisticLockException e) {
+            esperasEsgotadas.increment();
+            disputa.conflito(mutacao.produtoId(), mutacao.lojaId());
+            throw new ConcorrenciaException(String.format("Tempo de espera pelo bloqueio esgotado - Produto: %d, Loja: %d",
+                    mutacao.produtoId(), mutacao.lojaId()), e);
+        }
+        if (linhas.isEmpty()) {
+            return Optional.empty();
+        }
+        Object[] linha = (Object[]) linhas.get(0);
+        return Optional.of(new EstadoEstoque(((Number) linha[0]).longValue(), mutacao.produtoId(), mutacao.lojaId(),
+                ((Number) linha[1]).intValue(), ((Number) linha[2]).intValue(), ((Number) linha[3]).intValue(),
+                ((Number) linha[4]).longValue()));
+    }
+
+    private void conflito(EstrategiaBloqueio estrategia, MutacaoEstoque mutacao, int tentativa) {
+        conflitos.get(estrategia).increment();
+        disputa.conflito(mutacao.produtoId(), mutacao.lojaId());
+        logger.debug("Conflito de escrita - Estratégia: {}, Operação: {}, Produto: {}, Loja: {}, Tentativa: {}",
+                estrategia, mutacao.nome(), mutacao.produtoId(), mutacao.lojaId(), tentativa);
+    }
+
+    private ConcorrenciaException esgotado(MutacaoEstoque mutacao) {
+        return new ConcorrenciaException(String.format(
+                "Conflito de concorrência persistente em %s - Produto: %d, Loja: %d",
+                mutacao.nome(), mutacao.produtoId(), mutacao.lojaId()));
+    }
+}
@@ -0,0 +1,183 @@
+package com.inventory.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.inventory.busca.IndiceTextual;
+import com.inventory.event.ProdutoAlteradoEvent;
+import com.inventory.model.Produto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongPredicate;
+
+/**
+ * Catálogo de produtos em memória, com busca O(1) por id e por SKU e busca textual por prefixo
+ *
+ * Leituras não acessam o banco nem travam: cada produto é um registro imutável em dois mapas concorrentes.
+ * Escritas (recarga de um produto após o commit que o alterou e a reconciliação periódica) são serializadas
+ * e sempre releem o banco, então a última aplicada é a mais recente. Alterações feitas fora da aplicação
+ * entram na reconciliação. O índice textual acompanha os mapas: cada alteração reindexa só o produto
+ * alterado e a reconciliação o reconstrói inteiro.
+ */
+@Component
+public class CatalogoProdutos {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogoProdutos.class);
+
+    private static final String COLUNAS = "id, sku, nome, categoria, valor_unitario, descricao";
+
+    private static final String SQL_TODOS = "SELECT " + COLUNAS + " FROM produto";
+
+    private static final String SQL_PRODUTO = "SELECT " + COLUNAS + " FROM produto WHERE id = ?";
+
+    private static final RowMapper<ProdutoCatalogo> MAPEADOR = (rs, i) -> new ProdutoCatalogo(rs.getLong(1),
+            rs.getString(2), rs.getString(3), rs.getString(4), rs.getBigDecimal(5), rs.getString(6));
+
+    private final ConcurrentHashMap<Long, ProdutoCatalogo> porId = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, ProdutoCatalogo> porSku = new ConcurrentHashMap<>();
+    private final IndiceTextual indiceTextual = new IndiceTextual();
+    // parte de ETags: começa no relógio para não repetir valores de antes de um restart
+    private final AtomicLong versao = new AtomicLong(System.currentTimeMillis());
+    private final JdbcTemplate jdbcTemplate;
+
+    public CatalogoProdutos(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Carga completa na subida e reconciliação periódica
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${inventario.catalogo.reconciliacao-ms:600000}",
+               fixedDelayString = "${inventario.catalogo.reconciliacao-ms:600000}")
+    public synchronized void reconstruir() {
+        long inicio = System.nanoTime();
+        Set<Long> ids = new HashSet<>();
+        jdbcTemplate.query(SQL_TODOS, rs -> {
+            ProdutoCatalogo produto = MAPEADOR.mapRow(rs, 0);
+            ids.add(produto.id());
+            colocar(produto);
+        });
+        for (Long id : new ArrayList<>(porId.keySet())) {
+            if (!ids.contains(id)) {
+                retirar(id);
+            }
+        }
+        indiceTextual.reconstruir(porId.values().stream().map(CatalogoProdutos::entrada).toList());
+
+        logger.info("Catálogo de produtos reconstruído - Produtos: {}, Termos: {}, Tempo: {}ms",
+                   ids.size(), indiceTextual.totalTermos(), (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    /**
+     * Relê o produto depois do commit da transação que o alterou
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onProdutoAlterado(ProdutoAlteradoEvent event) {
+        List<ProdutoCatalogo> produto = jdbcTemplate.query(SQL_PRODUTO, MAPEADOR, event.getProdutoId());
+        if (produto.isEmpty()) {
+            retirar(event.getProdutoId());
+            indiceTextual.retirar(event.getProdutoId());
+        } else {
+            colocar(produto.get(0));
+            indiceTextual.colocar(entrada(produto.get(0)));
+        }
+    }
+
+    /**
+     * Produto pelo id; null se não cadastrado
+     */
+    public ProdutoCatalogo buscar(Long produtoId) {
+        return produtoId == null ? null : porId.get(produtoId);
+    }
+
+    /**
+     * Produto pelo SKU (sem diferenciar maiúsculas nem espaços nas pontas); null se não cadastrado
+     */
+    public ProdutoCatalogo buscarPorSku(String sku) {
+        return sku == null ? null : porSku.get(chaveSku(sku));
+    }
+
+    /**
+     * Todos os produtos, ordenados por id
+     */
+    public List<ProdutoCatalogo> listar() {
+        List<ProdutoCatalogo> produtos = new ArrayList<>(porId.values());
+        produtos.sort(Comparator.comparing(ProdutoCatalogo::id));
+        return produtos;
+    }
+
+    /**
+     * Busca textual por nome, SKU e categoria, sem acentos e por prefixo de cada termo
+     * (filtro opcional sobre o id do produto)
+     */
+    public IndiceTextual.Resultado pesquisar(String consulta, int limite, LongPredicate filtro) {
+        return indiceTextual.buscar(consulta, limite, filtro);
+    }
+
+    public int totalProdutos() {
+        return porId.size();
+    }
+
+    /**
+     * Muda a cada produto incluído, alterado ou removido
+     */
+    public long versao() {
+        return versao.get();
+    }
+
+    static String chaveSku(String sku) {
+        return sku.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private static IndiceTextual.Entrada entrada(ProdutoCatalogo produto) {
+        return new IndiceTextual.Entrada(produto.id(), produto.nome(), produto.sku(), produto.categoria());
+    }
+
+    private void colocar(ProdutoCatalogo produto) {
+        ProdutoCatalogo anterior = porId.put(produto.id(), produto);
+        if (!produto.equals(anterior)) {
+            versao.incrementAndGet();
+        }
+        if (anterior != null && !chaveSku(anterior.sku()).equals(chaveSku(produto.sku()))) {
+            porSku.remove(chaveSku(anterior.sku()), anterior);
+        }
+        porSku.put(chaveSku(produto.sku()), produto);
+    }
+
+    private void retirar(Long produtoId) {
+        ProdutoCatalogo anterior = porId.remove(produtoId);
+        if (anterior != null) {
+            versao.incrementAndGet();
+            porSku.remove(chaveSku(anterior.sku()), anterior);
+        }
+    }
+
+    /**
+     * Produto como visto pelo catálogo (imutável, compartilhado entre as leituras)
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record ProdutoCatalogo(Long id, String sku, String nome, String categoria, BigDecimal valorUnitario,
+                                  String descricao) {
+
+        public static ProdutoCatalogo de(Produto p) {
+            return new ProdutoCatalogo(p.getId(), p.getSku(), p.getNome(), p.getCategoria(), p.getValorUnitario(),
+                    p.getDescricao());
+        }
+    }
+}
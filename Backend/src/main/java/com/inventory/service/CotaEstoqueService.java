@@ -0,0 +1,509 @@
+package com.inventory.service;
+
+import com.inventory.event.EstoqueAlteradoEvent;
+import com.inventory.exception.ConcorrenciaException;
+import com.inventory.exception.EstoqueInsuficienteException;
+import com.inventory.model.CotaEstoque;
+import com.inventory.model.Reserva;
+import com.inventory.repository.CotaEstoqueJpaRepository;
+import com.inventory.repository.EstoqueJpaRepository;
+import com.inventory.repository.ReservaJpaRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Cotas de estoque por nó (escrow) para vários nós da aplicação no mesmo banco
+ *
+ * Cada nó recebe uma fatia do disponível de um produto/loja (estoque_produto.cota) e aprova vendas
+ * contra o saldo local, sem atualizar a linha de estoque: a venda só grava a reserva com cota_id.
+ * Em segundo plano, a cada inventario.cotas.intervalo-ms, o nó:
+ * 1. Renova a validade das suas cotas (heartbeat)
+ * 2. Liquida as reservas aprovadas (unidades passam de cota para reservado, um UPDATE por produto/loja)
+ * 3. Completa cotas com saldo baixo, devolve cotas ociosas e o excesso após ajustes/contagens
+ * 4. Recupera cotas vencidas de nós parados
+ *
+ * A concessão é um UPDATE condicional, então a soma das cotas nunca passa de quantidade - reservado.
+ * O nó deixa de usar as cotas na metade da validade sem heartbeat, antes que outro nó possa recuperá-las.
+ */
+@Service
+public class CotaEstoqueService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CotaEstoqueService.class);
+
+    private final EstoqueJpaRepository estoqueRepository;
+    private final CotaEstoqueJpaRepository cotaRepository;
+    private final ReservaJpaRepository reservaRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transacao;
+    private final boolean habilitada;
+    private final String noId;
+    private final int tamanho;
+    private final int minimo;
+    private final long validadeMs;
+    private final long ociosidadeNanos;
+
+    private final Map<Chave, CotaLocal> cotas = new ConcurrentHashMap<>();
+    private final Set<Chave> demanda = ConcurrentHashMap.newKeySet();
+    private volatile long validaAteNanos = System.nanoTime();
+    private boolean iniciado;
+
+    private final LongAdder vendasLocais = new LongAdder();
+    private final LongAdder vendasSemCota = new LongAdder();
+    private final LongAdder unidadesLiquidadas = new LongAdder();
+    private final LongAdder cotasRecuperadas = new LongAdder();
+
+    public CotaEstoqueService(EstoqueJpaRepository estoqueRepository,
+                              CotaEstoqueJpaRepository cotaRepository,
+                              ReservaJpaRepository reservaRepository,
+                              ApplicationEventPublisher eventPublisher,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${inventario.cotas.habilitada:false}") boolean habilitada,
+                              @Value("${inventario.cotas.no-id:}") String noId,
+                              @Value("${inventario.cotas.tamanho:20}") int tamanho,
+                              @Value("${inventario.cotas.minimo:5}") int minimo,
+                              @Value("${inventario.cotas.validade-ms:10000}") long validadeMs,
+                              @Value("${inventario.cotas.ociosidade-ms:30000}") long ociosidadeMs,
+                              @Value("${inventario.fragmentacao.habilitada:false}") boolean fragmentacao) {
+        if (habilitada && fragmentacao) {
+            throw new IllegalStateException(
+                    "inventario.cotas.habilitada e inventario.fragmentacao.habilitada não podem ser usadas juntas");
+        }
+        this.estoqueRepository = estoqueRepository;
+        this.cotaRepository = cotaRepository;
+        this.reservaRepository = reservaRepository;
+        this.eventPublisher = eventPublisher;
+        this.transacao = new TransactionTemplate(transactionManager);
+        this.habilitada = habilitada;
+        this.noId = StringUtils.hasText(noId) ? noId : ManagementFactory.getRuntimeMXBean().getName();
+        this.tamanho = tamanho;
+        this.minimo = minimo;
+        this.validadeMs = validadeMs;
+        this.ociosidadeNanos = TimeUnit.MILLISECONDS.toNanos(ociosidadeMs);
+    }
+
+    /**
+     * Aprova a venda contra a cota local; devolve o id da cota ou null (sem cota, saldo insuficiente
+     * ou heartbeat atrasado: a venda segue pelo caminho normal no banco)
+     *
+     * Se a transação da venda não fizer commit, o saldo volta para a cota.
+     */
+    public Long consumir(Long produtoId, Long lojaId, int quantidade) {
+        if (!habilitada) {
+            return null;
+        }
+        Chave chave = new Chave(produtoId, lojaId);
+        CotaLocal cota = cotas.get(chave);
+        if (cota == null || System.nanoTime() - validaAteNanos > 0 || !cota.consumir(quantidade)) {
+            if (cota != null) {
+                cota.ultimoUso = System.nanoTime();
+            }
+            demanda.add(chave);
+            vendasSemCota.increment();
+            return null;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        cota.restante.addAndGet(quantidade);
+                    }
+                }
+            });
+        }
+        vendasLocais.increment();
+        return cota.id;
+    }
+
+    /**
+     * Liquida uma reserva de cota antes de confirmá-la ou cancelá-la (na transação do chamador)
+     *
+     * Qualquer nó pode liquidar: o estado necessário está todo no banco. Se a cota já foi recuperada e o
+     * disponível não cobre a reserva, lança EstoqueInsuficienteException e o chamador desfaz a operação.
+     */
+    public void liquidar(Reserva reserva) {
+        Long cotaId = reserva.getCotaId();
+        if (cotaId == null || reservaRepository.liquidarCota(reserva.getId(), cotaId) == 0) {
+            return;
+        }
+        Long produtoId = reserva.getProdutoId();
+        Long lojaId = reserva.getLojaId();
+        int quantidade = reserva.getQuantidade();
+        if (moverParaReservado(cotaId, produtoId, lojaId, quantidade)) {
+            unidadesLiquidadas.add(quantidade);
+            return;
+        }
+        // cota já recuperada (nó parado além da validade): reserva direto no disponível
+        if (estoqueRepository.reservarDisponivel(produtoId, lojaId, quantidade) == 0) {
+            throw new EstoqueInsuficienteException(produtoId, lojaId, disponivel(produtoId, lojaId), quantidade);
+        }
+        logger.warn("Reserva {} de cota recuperada coberta pelo disponível - Produto: {}, Loja: {}",
+                   reserva.getId(), produtoId, lojaId);
+    }
+
+    /**
+     * Passa unidades da cota para reservado; false quando a cota já não existe (recuperada por outro nó)
+     * Cota existente sem saldo ou estoque sem cota para as unidades: ConcorrenciaException
+     */
+    private boolean moverParaReservado(Long cotaId, Long produtoId, Long lojaId, int quantidade) {
+        if (cotaRepository.somarQuantidade(cotaId, -quantidade) == 0) {
+            if (cotaRepository.existsById(cotaId)) {
+                throw new ConcorrenciaException("Cota " + cotaId + " com saldo menor que as reservas a liquidar");
+            }
+            return false;
+        }
+        if (estoqueRepository.liquidarCota(produtoId, lojaId, quantidade) == 0) {
+            throw new ConcorrenciaException("Estoque sem cota para liquidar " + quantidade + " unidades - Produto: " +
+                    produtoId + ", Loja: " + lojaId);
+        }
+        return true;
+    }
+
+    private int disponivel(Long produtoId, Long lojaId) {
+        return estoqueRepository.findEstado(produtoId, lojaId)
+                .map(e -> e.quantidade() - e.reservado() - e.cota()).orElse(0);
+    }
+
+    /**
+     * Ciclo de manutenção das cotas do nó
+     * Sincronizado com a parada: um ciclo em andamento termina antes de encerrar devolver as cotas
+     */
+    @Scheduled(fixedDelayString = "${inventario.cotas.intervalo-ms:500}")
+    public synchronized void manter() {
+        if (!habilitada) {
+            return;
+        }
+        if (!iniciado) {
+            recuperarAnteriores();
+            iniciado = true;
+        }
+        long inicio = System.nanoTime();
+        LocalDateTime expiraEm = LocalDateTime.now().plusNanos(TimeUnit.MILLISECONDS.toNanos(validadeMs));
+        transacao.executeWithoutResult(status -> cotaRepository.renovar(noId, expiraEm));
+        validaAteNanos = inicio + TimeUnit.MILLISECONDS.toNanos(validadeMs) / 2;
+
+        for (CotaLocal cota : new ArrayList<>(cotas.values())) {
+            try {
+                liquidarPendentes(cota);
+                if (cotas.get(cota.chave) == cota) {
+                    ajustar(cota, inicio, expiraEm);
+                }
+            } catch (RuntimeException e) {
+                logger.warn("Falha na manutenção da cota {} - Produto: {}, Loja: {}",
+                           cota.id, cota.chave.produtoId(), cota.chave.lojaId(), e);
+            }
+        }
+        for (Chave chave : new ArrayList<>(demanda)) {
+            demanda.remove(chave);
+            if (!cotas.containsKey(chave)) {
+                try {
+                    conceder(chave, null, tamanho, expiraEm);
+                } catch (RuntimeException e) {
+                    logger.warn("Falha ao obter cota - Produto: {}, Loja: {}", chave.produtoId(), chave.lojaId(), e);
+                }
+            }
+        }
+        recuperarExpiradas();
+    }
+
+    /**
+     * Na parada do nó: devolve o saldo e liquida o que foi vendido, deixando o estoque sem cotas do nó
+     */
+    @PreDestroy
+    public synchronized void encerrar() {
+        if (!habilitada || cotas.isEmpty()) {
+            return;
+        }
+        validaAteNanos = System.nanoTime();
+        for (CotaLocal cota : new ArrayList<>(cotas.values())) {
+            try {
+                devolver(cota, cota.restante.getAndSet(0));
+                liquidarPendentes(cota);
+                remover(cota);
+            } catch (RuntimeException e) {
+                logger.warn("Cota {} não devolvida na parada; será recuperada após a validade", cota.id, e);
+            }
+        }
+        logger.info("Cotas do nó {} devolvidas na parada", noId);
+    }
+
+    /**
+     * Move para reservado as vendas já gravadas contra a cota
+     */
+    private void liquidarPendentes(CotaLocal cota) {
+        Integer liquidadas = transacao.execute(status -> liquidarPendentes(cota.id, cota.chave));
+        if (liquidadas != null && liquidadas > 0) {
+            unidadesLiquidadas.add(liquidadas);
+        }
+    }
+
+    /**
+     * Liquida em lote as reservas pendentes da cota (travadas por findPendentesCota)
+     *
+     * Com a cota já recuperada por outro nó, cai no mesmo caminho de liquidar: cada reserva tenta o disponível,
+     * as que não cabem ficam pendentes (a confirmação delas recusa por estoque insuficiente) e a cota local
+     * deixa de aprovar vendas.
+     */
+    private int liquidarPendentes(Long cotaId, Chave chave) {
+        List<Reserva> pendentes = reservaRepository.findPendentesCota(cotaId);
+        if (pendentes.isEmpty()) {
+            return 0;
+        }
+        int quantidade = 0;
+        List<String> ids = new ArrayList<>(pendentes.size());
+        for (Reserva reserva : pendentes) {
+            quantidade += reserva.getQuantidade();
+            ids.add(reserva.getId());
+        }
+        if (!moverParaReservado(cotaId, chave.produtoId(), chave.lojaId(), quantidade)) {
+            descartar(cotaId, chave);
+            return liquidarNoDisponivel(cotaId, chave, pendentes);
+        }
+        desvincular(cotaId, ids);
+        eventPublisher.publishEvent(EstoqueAlteradoEvent.de(chave.produtoId(), chave.lojaId()));
+        logger.debug("Cota {} liquidada - Reservas: {}, Unidades: {}", cotaId, pendentes.size(), quantidade);
+        return quantidade;
+    }
+
+    private int liquidarNoDisponivel(Long cotaId, Chave chave, List<Reserva> pendentes) {
+        int quantidade = 0;
+        List<String> ids = new ArrayList<>(pendentes.size());
+        for (Reserva reserva : pendentes) {
+            if (estoqueRepository.reservarDisponivel(chave.produtoId(), chave.lojaId(), reserva.getQuantidade()) == 1) {
+                quantidade += reserva.getQuantidade();
+                ids.add(reserva.getId());
+            } else {
+                logger.warn("Reserva {} de cota recuperada sem disponível para cobri-la - Produto: {}, Loja: {}",
+                           reserva.getId(), chave.produtoId(), chave.lojaId());
+            }
+        }
+        if (!ids.isEmpty()) {
+            desvincular(cotaId, ids);
+            eventPublisher.publishEvent(EstoqueAlteradoEvent.de(chave.produtoId(), chave.lojaId()));
+        }
+        logger.warn("Cota {} já recuperada - Reservas cobertas pelo disponível: {} de {}",
+                   cotaId, ids.size(), pendentes.size());
+        return quantidade;
+    }
+
+    /**
+     * Marca as reservas como liquidadas; todas estão travadas, então qualquer diferença desfaz o lote
+     */
+    private void desvincular(Long cotaId, List<String> ids) {
+        int liquidadas = reservaRepository.liquidarCota(ids);
+        if (liquidadas != ids.size()) {
+            throw new ConcorrenciaException("Cota " + cotaId + ": " + liquidadas + " de " + ids.size() +
+                    " reservas liquidadas");
+        }
+    }
+
+    /**
+     * Esquece a cota local que outro nó já recuperou (o saldo dela voltou ao disponível)
+     */
+    private void descartar(Long cotaId, Chave chave) {
+        CotaLocal cota = cotas.get(chave);
+        if (cota != null && cota.id.equals(cotaId)) {
+            cota.restante.set(0);
+            cotas.remove(chave, cota);
+        }
+    }
+
+    /**
+     * Completa, devolve excesso ou devolve por ociosidade
+     */
+    private void ajustar(CotaLocal cota, long agora, LocalDateTime expiraEm) {
+        Chave chave = cota.chave;
+        int livre = estoqueRepository.findLivreParaCota(chave.produtoId(), chave.lojaId()).orElse(0);
+        if (livre < 0) {
+            // ajuste ou contagem reduziu a quantidade abaixo de reservado + cota
+            devolver(cota, cota.retirar(-livre));
+        } else if (agora - cota.ultimoUso > ociosidadeNanos) {
+            devolver(cota, cota.restante.getAndSet(0));
+            remover(cota);
+        } else if (cota.restante.get() < minimo && livre > 0) {
+            conceder(chave, cota, tamanho - cota.restante.get(), expiraEm);
+        }
+    }
+
+    /**
+     * Obtém até {@code desejado} unidades em cota (limitado ao livre)
+     */
+    private void conceder(Chave chave, CotaLocal existente, int desejado, LocalDateTime expiraEm) {
+        Long[] id = {existente != null ? existente.id : null};
+        Integer concedido = transacao.execute(status -> {
+            int livre = estoqueRepository.findLivreParaCota(chave.produtoId(), chave.lojaId()).orElse(0);
+            int quantidade = Math.min(desejado, livre);
+            if (quantidade <= 0 || estoqueRepository.concederCota(chave.produtoId(), chave.lojaId(), quantidade) == 0) {
+                return 0;
+            }
+            if (id[0] != null) {
+                if (cotaRepository.somarQuantidade(id[0], quantidade) == 0) {
+                    throw new ConcorrenciaException("Cota " + id[0] + " recuperada antes de ser completada");
+                }
+            } else {
+                id[0] = cotaRepository.save(new CotaEstoque(chave.produtoId(), chave.lojaId(), noId, quantidade, expiraEm))
+                        .getId();
+            }
+            return quantidade;
+        });
+        if (concedido == null || concedido == 0) {
+            return;
+        }
+        if (existente != null) {
+            existente.restante.addAndGet(concedido);
+        } else {
+            cotas.put(chave, new CotaLocal(id[0], chave, concedido));
+        }
+        logger.debug("Cota concedida - Produto: {}, Loja: {}, Unidades: {}, Nó: {}",
+                    chave.produtoId(), chave.lojaId(), concedido, noId);
+    }
+
+    /**
+     * Devolve ao disponível unidades já retiradas do saldo local
+     */
+    private void devolver(CotaLocal cota, int quantidade) {
+        if (quantidade <= 0) {
+            return;
+        }
+        try {
+            transacao.executeWithoutResult(status -> {
+                if (cotaRepository.somarQuantidade(cota.id, -quantidade) == 0) {
+                    throw new ConcorrenciaException("Cota " + cota.id + " já recuperada; nada a devolver");
+                }
+                estoqueRepository.devolverCota(cota.chave.produtoId(), cota.chave.lojaId(), quantidade);
+            });
+        } catch (RuntimeException e) {
+            cota.restante.addAndGet(quantidade);
+            throw e;
+        }
+    }
+
+    /**
+     * Esquece a cota quando não há saldo nem vendas por liquidar
+     */
+    private void remover(CotaLocal cota) {
+        if (cota.restante.get() == 0
+                && Integer.valueOf(1).equals(transacao.execute(status -> cotaRepository.removerVazia(cota.id)))) {
+            cotas.remove(cota.chave, cota);
+        }
+    }
+
+    /**
+     * Cotas vencidas de outros nós: liquida as vendas gravadas e devolve o restante ao disponível
+     */
+    private void recuperarExpiradas() {
+        recuperar(() -> cotaRepository.findExpiradas(LocalDateTime.now(), noId));
+    }
+
+    /**
+     * Cotas com o mesmo no-id deixadas por uma execução anterior do nó (saldo local perdido)
+     */
+    private void recuperarAnteriores() {
+        recuperar(() -> cotaRepository.findByNoId(noId));
+    }
+
+    private void recuperar(Supplier<List<CotaEstoque>> busca) {
+        Integer recuperadas = transacao.execute(status -> {
+            List<CotaEstoque> expiradas = busca.get();
+            for (CotaEstoque cota : expiradas) {
+                Chave chave = new Chave(cota.getProdutoId(), cota.getLojaId());
+                int liquidadas = liquidarPendentes(cota.getId(), chave);
+                int restante = cota.getQuantidade() - liquidadas;
+                if (restante > 0) {
+                    estoqueRepository.devolverCota(chave.produtoId(), chave.lojaId(), restante);
+                    eventPublisher.publishEvent(EstoqueAlteradoEvent.de(chave.produtoId(), chave.lojaId()));
+                }
+                cotaRepository.deleteById(cota.getId());
+                logger.warn("Cota recuperada - Nó: {}, Produto: {}, Loja: {}, Liquidadas: {}, Devolvidas: {}",
+                           cota.getNoId(), chave.produtoId(), chave.lojaId(), liquidadas, restante);
+            }
+            return expiradas.size();
+        });
+        if (recuperadas != null) {
+            cotasRecuperadas.add(recuperadas);
+        }
+    }
+
+    public boolean isHabilitada() { return habilitada; }
+    public String getNoId() { return noId; }
+    public int getCotasAtivas() { return cotas.size(); }
+    public long getVendasLocais() { return vendasLocais.sum(); }
+    public long getVendasSemCota() { return vendasSemCota.sum(); }
+    public long getUnidadesLiquidadas() { return unidadesLiquidadas.sum(); }
+    public long getCotasRecuperadas() { return cotasRecuperadas.sum(); }
+
+    /**
+     * Saldo local de uma cota
+     */
+    public int getSaldo(Long produtoId, Long lojaId) {
+        CotaLocal cota = cotas.get(new Chave(produtoId, lojaId));
+        return cota != null ? cota.restante.get() : 0;
+    }
+
+    private record Chave(long produtoId, long lojaId) {
+    }
+
+    /**
+     * Saldo local da cota, consumido por CAS sem acesso ao banco
+     */
+    private static final class CotaLocal {
+
+        final Long id;
+        final Chave chave;
+        final AtomicInteger restante;
+        volatile long ultimoUso = System.nanoTime();
+
+        CotaLocal(Long id, Chave chave, int restante) {
+            this.id = id;
+            this.chave = chave;
+            this.restante = new AtomicInteger(restante);
+        }
+
+        boolean consumir(int quantidade) {
+            int atual;
+            do {
+                atual = restante.get();
+                if (atual < quantidade) {
+                    return false;
+                }
+            } while (!restante.compareAndSet(atual, atual - quantidade));
+            ultimoUso = System.nanoTime();
+            return true;
+        }
+
+        /**
+         * Retira até {@code quantidade} do saldo; devolve quanto foi retirado
+         */
+        int retirar(int quantidade) {
+            int atual;
+            int retirada;
+            do {
+                atual = restante.get();
+                retirada = Math.min(atual, quantidade);
+            } while (retirada > 0 && !restante.compareAndSet(atual, atual - retirada));
+            return retirada;
+        }
+    }
+}
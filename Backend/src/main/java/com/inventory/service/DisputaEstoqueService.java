@@ -0,0 +1,106 @@
+package com.inventory.service;
+
+import com.inventory.bloqueio.EstrategiaBloqueio;
+import com.inventory.config.BloqueioProperties;
+import com.inventory.disputa.JanelaDisputa;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Chaves (produto, loja) quentes e disputadas, para escolher a estratégia de bloqueio por produto
+ *
+ * Leituras por par e escritas de estoque_produto contam como acesso; cada repetição por conflito e cada espera
+ * por bloqueio esgotada conta como conflito. Tudo em memória fixa (resumos Space-Saving e count-min por fatia
+ * da janela, em faixas por thread), sem escrita no banco e sem objeto por evento. Contagens são por nó.
+ */
+@Service
+public class DisputaEstoqueService {
+
+    private final boolean habilitada;
+    private final long janelaMs;
+    private final JanelaDisputa janela;
+    private final BloqueioProperties bloqueio;
+
+    public DisputaEstoqueService(BloqueioProperties bloqueio,
+                                 @Value("${inventario.disputa.habilitada:true}") boolean habilitada,
+                                 @Value("${inventario.disputa.janela-ms:300000}") long janelaMs,
+                                 @Value("${inventario.disputa.fatias:5}") int fatias,
+                                 @Value("${inventario.disputa.faixas:4}") int faixas,
+                                 @Value("${inventario.disputa.capacidade:256}") int capacidade,
+                                 @Value("${inventario.disputa.count-min.profundidade:4}") int profundidade,
+                                 @Value("${inventario.disputa.count-min.largura:1024}") int largura) {
+        this.bloqueio = bloqueio;
+        this.habilitada = habilitada;
+        this.janelaMs = janelaMs;
+        this.janela = new JanelaDisputa(janelaMs, fatias, faixas, capacidade, profundidade, largura);
+    }
+
+    public void leitura(long produtoId, long lojaId) {
+        if (habilitada) {
+            janela.registrarLeitura(produtoId, lojaId, System.currentTimeMillis());
+        }
+    }
+
+    public void escrita(long produtoId, long lojaId) {
+        if (habilitada) {
+            janela.registrarEscrita(produtoId, lojaId, System.currentTimeMillis());
+        }
+    }
+
+    public void conflito(long produtoId, long lojaId) {
+        if (habilitada) {
+            janela.registrarConflito(produtoId, lojaId, System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * As limite chaves mais acessadas e mais disputadas dos últimos periodoMs (no máximo a janela inteira),
+     * com a estratégia de bloqueio em vigor para cada produto
+     */
+    public Relatorio relatorio(long periodoMs, int limite) {
+        JanelaDisputa.Consulta consulta = janela.consultar(periodoMs, limite, System.currentTimeMillis());
+        List<ChaveAcessada> acessadas = consulta.maisAcessadas().stream()
+                .map(e -> new ChaveAcessada(e.produtoId(), e.lojaId(), e.contagem(), e.erro(),
+                        bloqueio.estrategiaDe(e.produtoId())))
+                .toList();
+        List<ChaveDisputada> disputadas = consulta.maisDisputadas().stream()
+                .map(d -> new ChaveDisputada(d.produtoId(), d.lojaId(), d.conflitos(), d.erro(), d.escritas(),
+                        d.escritas() > 0 ? (double) d.conflitos() / d.escritas() : 0,
+                        bloqueio.estrategiaDe(d.produtoId())))
+                .toList();
+        return new Relatorio(habilitada, janelaMs, janela.getFatiaMs(), consulta.inicioMs(), consulta.acessos(),
+                consulta.escritas(), consulta.conflitos(), acessadas, disputadas);
+    }
+
+    public void limpar() {
+        janela.limpar();
+    }
+
+    public long getJanelaMs() {
+        return janelaMs;
+    }
+
+    /**
+     * Acessos estimados (limite superior; acessos - erro é o limite inferior)
+     */
+    public record ChaveAcessada(long produtoId, long lojaId, long acessos, long erro, EstrategiaBloqueio estrategia) {
+    }
+
+    /**
+     * Conflitos estimados e escritas do count-min (ambos limite superior); conflitosPorEscrita passa de 1
+     * quando a mesma escrita repete várias vezes
+     */
+    public record ChaveDisputada(long produtoId, long lojaId, long conflitos, long erro, long escritas,
+                                 double conflitosPorEscrita, EstrategiaBloqueio estrategia) {
+    }
+
+    /**
+     * Período coberto a partir de inicioMs (epoch ms), em fatias inteiras de fatiaMs
+     */
+    public record Relatorio(boolean habilitada, long janelaMs, long fatiaMs, long inicioMs, long acessos,
+                            long escritas, long conflitos, List<ChaveAcessada> maisAcessadas,
+                            List<ChaveDisputada> maisDisputadas) {
+    }
+}
@@ -1,17 +1,38 @@
 package com.inventory.service;
 
+import com.inventory.auditoria.TipoEventoAuditoria;
+import com.inventory.bloqueio.EstadoEstoque;
+import com.inventory.bloqueio.MutacaoEstoque;
+import com.inventory.config.fragmentacao.RoteamentoFragmentos;
+import com.inventory.dto.TransferenciaRequest;
+import com.inventory.event.EstoqueAlteradoEvent;
+import com.inventory.event.VendaConfirmadaEvent;
+import com.inventory.exception.ConcorrenciaException;
 import com.inventory.exception.EstoqueInsuficienteException;
 import com.inventory.model.EstoqueProduto;
+import com.inventory.model.EstoqueRemocao;
 import com.inventory.model.Reserva;
 import com.inventory.repository.EstoqueJpaRepository;
+import com.inventory.repository.EstoqueRemocaoJpaRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.UUID;
 
 /**
  * Serviço de negócio para operações de estoque usando JPA
@@ -25,10 +46,30 @@ public class EstoqueServiceJpa {
     
     private final EstoqueJpaRepository estoqueRepository;
     private final ReservaServiceJpa reservaService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AuditoriaService auditoria;
+    private final EstoqueRemocaoJpaRepository remocaoRepository;
+    private final CotaEstoqueService cotas;
+    private final BloqueioEstoqueService bloqueio;
+    private final ObjectProvider<RoteamentoFragmentos> fragmentos;
+    private final DisputaEstoqueService disputa;
+    private final TransactionTemplate transacao;
     
-    public EstoqueServiceJpa(EstoqueJpaRepository estoqueRepository, ReservaServiceJpa reservaService) {
+    public EstoqueServiceJpa(EstoqueJpaRepository estoqueRepository, ReservaServiceJpa reservaService,
+                             ApplicationEventPublisher eventPublisher, AuditoriaService auditoria,
+                             EstoqueRemocaoJpaRepository remocaoRepository, CotaEstoqueService cotas,
+                             BloqueioEstoqueService bloqueio, ObjectProvider<RoteamentoFragmentos> fragmentos,
+                             DisputaEstoqueService disputa, PlatformTransactionManager transactionManager) {
         this.estoqueRepository = estoqueRepository;
         this.reservaService = reservaService;
+        this.eventPublisher = eventPublisher;
+        this.auditoria = auditoria;
+        this.remocaoRepository = remocaoRepository;
+        this.cotas = cotas;
+        this.bloqueio = bloqueio;
+        this.fragmentos = fragmentos;
+        this.disputa = disputa;
+        this.transacao = new TransactionTemplate(transactionManager);
     }
     
     /**
@@ -37,9 +78,69 @@ public class EstoqueServiceJpa {
     @Transactional(readOnly = true)
     public Optional<EstoqueProduto> consultarEstoque(Long produtoId, Long lojaId) {
         logger.debug("Consultando estoque - Produto: {}, Loja: {}", produtoId, lojaId);
+        auditoria.amostrar(TipoEventoAuditoria.CONSULTA, produtoId, lojaId);
         return estoqueRepository.findByProdutoIdAndLojaId(produtoId, lojaId);
     }
     
+    /**
+     * Disponível de vários pares (produto, loja) em uma única consulta; pares sem estoque ficam de fora
+     *
+     * Com fragmentação a chamada vai a todos os fragmentos e cada par só existe no da sua loja.
+     */
+    @Transactional(readOnly = true)
+    public List<DisponivelPar> consultarDisponiveis(Long[] produtoIds, Long[] lojaIds) {
+        if (produtoIds.length != lojaIds.length) {
+            throw new IllegalArgumentException("Produtos e lojas devem ter o mesmo tamanho");
+        }
+        logger.debug("Consultando disponível em lote - Pares: {}", produtoIds.length);
+        List<Object[]> linhas = estoqueRepository.findDisponivelPorPares(produtoIds, lojaIds);
+        List<DisponivelPar> disponiveis = new ArrayList<>(linhas.size());
+        for (Object[] linha : linhas) {
+            DisponivelPar par = new DisponivelPar(((Number) linha[0]).longValue(), ((Number) linha[1]).longValue(),
+                    ((Number) linha[2]).intValue());
+            auditoria.amostrar(TipoEventoAuditoria.CONSULTA, par.produtoId(), par.lojaId());
+            disputa.leitura(par.produtoId(), par.lojaId());
+            disponiveis.add(par);
+        }
+        return disponiveis;
+    }
+    
+    /**
+     * Versão da linha (sequência de alteração) para ETag, lida sem carregar a entidade
+     *
+     * Toda consulta de estoque por par começa aqui (inclusive as que terminam em 304): é onde a leitura
+     * conta como acesso ao par.
+     */
+    @Transactional(readOnly = true)
+    public Optional<String> versaoEstoque(Long produtoId, Long lojaId) {
+        disputa.leitura(produtoId, lojaId);
+        return estoqueRepository.findSequenciaAlteracao(produtoId, lojaId).map(String::valueOf);
+    }
+    
+    /**
+     * Versão agregada do estoque da loja (uma entrada; com fragmentação, uma por fragmento consultado)
+     */
+    @Transactional(readOnly = true)
+    public List<VersaoAgregada> versaoLoja(Long lojaId) {
+        return VersaoAgregada.de(estoqueRepository.findVersaoLoja(lojaId));
+    }
+    
+    /**
+     * Versão agregada do estoque de um produto em todas as lojas
+     */
+    @Transactional(readOnly = true)
+    public List<VersaoAgregada> versaoProduto(Long produtoId) {
+        return VersaoAgregada.de(estoqueRepository.findVersaoProduto(produtoId));
+    }
+    
+    /**
+     * Versão agregada de todo o estoque
+     */
+    @Transactional(readOnly = true)
+    public List<VersaoAgregada> versaoRede() {
+        return VersaoAgregada.de(estoqueRepository.findVersaoRede());
+    }
+    
     /**
      * Lista estoque por loja
      */
@@ -78,18 +179,16 @@ public class EstoqueServiceJpa {
             throw new IllegalArgumentException("Quantidade deve ser positiva");
         }
         
-        Optional<EstoqueProduto> estoqueOpt = estoqueRepository.findByProdutoIdAndLojaId(produtoId, lojaId);
-        
-        EstoqueProduto estoque;
-        if (estoqueOpt.isPresent()) {
-            estoque = estoqueOpt.get();
-            estoque.adicionarEstoque(quantidade);
+        EstoqueProduto resultado;
+        if (bloqueio.executar(MutacaoEstoque.entrada(produtoId, lojaId, quantidade))) {
+            resultado = recarregar(produtoId, lojaId);
         } else {
-            estoque = new EstoqueProduto(produtoId, lojaId, quantidade);
+            EstoqueProduto estoque = new EstoqueProduto(produtoId, lojaId, quantidade);
             estoque.setUltimaAtualizacao(LocalDateTime.now());
+            resultado = estoqueRepository.save(estoque);
         }
-        
-        EstoqueProduto resultado = estoqueRepository.save(estoque);
+        eventPublisher.publishEvent(EstoqueAlteradoEvent.de(produtoId, lojaId));
+        auditoria.registrar(TipoEventoAuditoria.ENTRADA, produtoId, lojaId, quantidade, null);
         logger.info("Entrada processada - Produto: {}, Loja: {}, Novo estoque: {}", 
                    produtoId, lojaId, resultado.getQuantidade());
         
@@ -107,16 +206,17 @@ public class EstoqueServiceJpa {
             throw new IllegalArgumentException("Quantidade deve ser positiva");
         }
         
-        EstoqueProduto estoque = estoqueRepository.findByProdutoIdAndLojaId(produtoId, lojaId)
-                .orElseThrow(() -> new IllegalArgumentException("Produto não encontrado no estoque"));
-        
-        if (estoque.getQuantidade() < quantidade) {
-            throw new EstoqueInsuficienteException(produtoId, lojaId, estoque.getQuantidade(), quantidade);
+        try {
+            if (!bloqueio.executar(MutacaoEstoque.saida(produtoId, lojaId, quantidade))) {
+                throw new IllegalArgumentException("Produto não encontrado no estoque");
+            }
+        } catch (EstoqueInsuficienteException e) {
+            auditoria.rejeitar(TipoEventoAuditoria.SAIDA, produtoId, lojaId, quantidade, motivo);
+            throw e;
         }
-        
-        estoque.setQuantidade(estoque.getQuantidade() - quantidade);
-        estoque.setUltimaAtualizacao(LocalDateTime.now());
-        EstoqueProduto resultado = estoqueRepository.save(estoque);
+        EstoqueProduto resultado = recarregar(produtoId, lojaId);
+        eventPublisher.publishEvent(EstoqueAlteradoEvent.de(produtoId, lojaId));
+        auditoria.registrar(TipoEventoAuditoria.SAIDA, produtoId, lojaId, quantidade, motivo);
         
         logger.info("Saída processada - Produto: {}, Loja: {}, Estoque restante: {}", 
                    produtoId, lojaId, resultado.getQuantidade());
@@ -124,6 +224,74 @@ public class EstoqueServiceJpa {
         return resultado;
     }
     
+    /**
+     * Transfere mercadoria entre duas lojas em uma única transação (todas as linhas ou nenhuma)
+     *
+     * Débitos na origem e créditos no destino são aplicados na ordem (produto, loja), a mesma das outras
+     * transferências e da reserva de pedidos alocados (AlocacaoService): transações concorrentes, inclusive
+     * transferências em sentidos opostos, travam as linhas na mesma ordem e uma espera a outra em vez de
+     * entrar em deadlock. Itens do mesmo produto são somados. Com fragmentação,
+     * só entre lojas do mesmo fragmento (lojaId é a origem e roteia a chamada).
+     */
+    public Transferencia transferir(Long lojaId, Long lojaDestinoId, List<TransferenciaRequest.ItemTransferencia> itens,
+                                    String motivo) {
+        logger.info("Processando transferência - Origem: {}, Destino: {}, Itens: {}, Motivo: {}",
+                   lojaId, lojaDestinoId, itens.size(), motivo);
+        
+        if (lojaId.equals(lojaDestinoId)) {
+            throw new IllegalArgumentException("Lojas de origem e destino devem ser diferentes");
+        }
+        RoteamentoFragmentos roteamento = fragmentos.getIfAvailable();
+        if (roteamento != null && !roteamento.mesmoFragmento(lojaId, lojaDestinoId)) {
+            throw new IllegalArgumentException("Lojas " + lojaId + " e " + lojaDestinoId +
+                    " estão em fragmentos diferentes");
+        }
+        
+        // produto → quantidade, em ordem crescente de produto (a ordem de travamento)
+        TreeMap<Long, Integer> quantidades = new TreeMap<>();
+        for (TransferenciaRequest.ItemTransferencia item : itens) {
+            if (item.getQuantidade() == null || item.getQuantidade() <= 0) {
+                throw new IllegalArgumentException("Quantidade deve ser positiva");
+            }
+            long total = (long) quantidades.getOrDefault(item.getProdutoId(), 0) + item.getQuantidade();
+            if (total > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Quantidade total do produto " + item.getProdutoId() +
+                        " excede o limite de " + Integer.MAX_VALUE);
+            }
+            quantidades.put(item.getProdutoId(), (int) total);
+        }
+        
+        String transferenciaId = "TRF-" + UUID.randomUUID();
+        boolean origemAntes = lojaId < lojaDestinoId;
+        for (Map.Entry<Long, Integer> item : quantidades.entrySet()) {
+            if (origemAntes) {
+                debitarTransferencia(item.getKey(), lojaId, item.getValue(), transferenciaId);
+                creditarTransferencia(item.getKey(), lojaDestinoId, item.getValue());
+            } else {
+                creditarTransferencia(item.getKey(), lojaDestinoId, item.getValue());
+                debitarTransferencia(item.getKey(), lojaId, item.getValue(), transferenciaId);
+            }
+        }
+        
+        List<ItemTransferido> transferidos = new ArrayList<>(quantidades.size());
+        for (Map.Entry<Long, Integer> item : quantidades.entrySet()) {
+            Long produtoId = item.getKey();
+            transferidos.add(new ItemTransferido(produtoId, item.getValue(), quantidadeAtual(produtoId, lojaId),
+                    quantidadeAtual(produtoId, lojaDestinoId)));
+            auditoria.registrar(TipoEventoAuditoria.TRANSFERENCIA_SAIDA, produtoId, lojaId, item.getValue(),
+                    transferenciaId);
+            auditoria.registrar(TipoEventoAuditoria.TRANSFERENCIA_ENTRADA, produtoId, lojaDestinoId, item.getValue(),
+                    transferenciaId);
+        }
+        eventPublisher.publishEvent(new EstoqueAlteradoEvent(lojaId, List.copyOf(quantidades.keySet())));
+        eventPublisher.publishEvent(new EstoqueAlteradoEvent(lojaDestinoId, List.copyOf(quantidades.keySet())));
+        
+        logger.info("Transferência processada - Id: {}, Origem: {}, Destino: {}, Produtos: {}",
+                   transferenciaId, lojaId, lojaDestinoId, transferidos.size());
+        
+        return new Transferencia(transferenciaId, lojaId, lojaDestinoId, transferidos);
+    }
+    
     /**
      * Processa venda com reserva prévia
      * FLUXO: Reserva → Confirmação → Baixa no estoque
@@ -132,28 +300,32 @@ public class EstoqueServiceJpa {
         logger.info("Iniciando processo de venda - Produto: {}, Loja: {}, Quantidade: {}, Cliente: {}", 
                    produtoId, lojaId, quantidade, clienteId);
         
-        // 1. Verifica estoque disponível
-        EstoqueProduto estoque = estoqueRepository.findByProdutoIdAndLojaId(produtoId, lojaId)
-                .orElseThrow(() -> new IllegalArgumentException("Produto não encontrado no estoque"));
-        
-        if (!estoque.temEstoqueSuficiente(quantidade)) {
-            throw new EstoqueInsuficienteException(produtoId, lojaId, estoque.getDisponivel(), quantidade);
+        // 0. Modo cota: aprova contra o saldo local do nó, sem tocar na linha de estoque
+        Long cotaId = cotas.consumir(produtoId, lojaId, quantidade);
+        if (cotaId != null) {
+            Reserva reserva = new Reserva(produtoId, lojaId, quantidade, clienteId);
+            reserva.setCotaId(cotaId);
+            reserva = reservaService.criarReserva(reserva);
+            auditoria.registrar(TipoEventoAuditoria.VENDA_RESERVADA, produtoId, lojaId, quantidade, reserva.getId());
+            logger.info("Venda iniciada com cota local - Reserva: {}, Cota: {}", reserva.getId(), cotaId);
+            return reserva.getId();
         }
         
-        // 2. Cria reserva
-        Reserva reserva = new Reserva(produtoId, lojaId, quantidade, clienteId);
-        reserva = reservaService.criarReserva(reserva);
-        
-        // 3. Efetua reserva no estoque usando query otimística
-        int linhasAfetadas = estoqueRepository.reservarProduto(
-            produtoId, lojaId, quantidade, estoque.getVersao()
-        );
-        
-        if (linhasAfetadas == 0) {
-            reservaService.cancelarReserva(reserva.getId());
-            throw new RuntimeException("Falha ao efetuar reserva no estoque - possível conflito de concorrência");
+        // 1. Reserva no estoque (estratégia ATOMICA: um UPDATE condicional, sem leitura prévia)
+        try {
+            if (!bloqueio.executar(MutacaoEstoque.reserva(produtoId, lojaId, quantidade))) {
+                throw new IllegalArgumentException("Produto não encontrado no estoque");
+            }
+        } catch (EstoqueInsuficienteException e) {
+            auditoria.rejeitar(TipoEventoAuditoria.VENDA_RESERVADA, produtoId, lojaId, quantidade, clienteId);
+            throw e;
         }
         
+        // 2. Cria reserva (INSERT na mesma transação; se falhar, o UPDATE é desfeito junto)
+        Reserva reserva = reservaService.criarReserva(new Reserva(produtoId, lojaId, quantidade, clienteId));
+        
+        eventPublisher.publishEvent(EstoqueAlteradoEvent.de(produtoId, lojaId));
+        auditoria.registrar(TipoEventoAuditoria.VENDA_RESERVADA, produtoId, lojaId, quantidade, reserva.getId());
         logger.info("Venda iniciada com sucesso - Reserva: {}", reserva.getId());
         return reserva.getId();
     }
@@ -171,15 +343,17 @@ public class EstoqueServiceJpa {
         if (!reserva.isAtiva()) {
             throw new IllegalStateException("Reserva não está ativa para confirmação");
         }
+        cotas.liquidar(reserva);
         
         // 2. Confirma saída no estoque
-        int linhasAfetadas = estoqueRepository.confirmarSaida(
-            reserva.getProdutoId(), reserva.getLojaId(), reserva.getQuantidade()
-        );
-        
-        if (linhasAfetadas > 0) {
+        if (aplicar(MutacaoEstoque.confirmacao(reserva.getProdutoId(), reserva.getLojaId(), reserva.getQuantidade()))) {
             // 3. Marca reserva como confirmada
             reservaService.confirmarReserva(reservaId);
+            eventPublisher.publishEvent(EstoqueAlteradoEvent.de(reserva.getProdutoId(), reserva.getLojaId()));
+            eventPublisher.publishEvent(new VendaConfirmadaEvent(reserva.getProdutoId(), reserva.getLojaId(),
+                    reserva.getQuantidade()));
+            auditoria.registrar(TipoEventoAuditoria.VENDA_CONFIRMADA, reserva.getProdutoId(), reserva.getLojaId(),
+                    reserva.getQuantidade(), reservaId);
             logger.info("Venda confirmada com sucesso - Reserva: {}", reservaId);
             return true;
         } else {
@@ -189,7 +363,7 @@ public class EstoqueServiceJpa {
     }
     
     /**
-     * Cancela venda
+     * Cancela venda (só reserva ativa; a liberação é desfeita se outra operação finalizar a reserva antes)
      */
     public boolean cancelarVenda(String reservaId) {
         logger.info("Cancelando venda - Reserva: {}", reservaId);
@@ -198,18 +372,18 @@ public class EstoqueServiceJpa {
         Reserva reserva = reservaService.buscarReserva(reservaId)
                 .orElseThrow(() -> new IllegalArgumentException("Reserva não encontrada: " + reservaId));
         
-        if (reserva.getStatus() == Reserva.StatusReserva.CONFIRMADA) {
-            throw new IllegalStateException("Não é possível cancelar venda já confirmada");
+        if (!reserva.isAtiva()) {
+            throw new IllegalStateException("Reserva não está ativa para cancelamento");
         }
+        cotas.liquidar(reserva);
         
         // 2. Libera reserva no estoque
-        int linhasAfetadas = estoqueRepository.liberarReserva(
-            reserva.getProdutoId(), reserva.getLojaId(), reserva.getQuantidade()
-        );
-        
-        if (linhasAfetadas > 0) {
-            // 3. Cancela reserva
+        if (aplicar(MutacaoEstoque.liberacao(reserva.getProdutoId(), reserva.getLojaId(), reserva.getQuantidade()))) {
+            // 3. Cancela reserva (0 linhas movidas: IllegalStateException e a liberação volta no rollback)
             reservaService.cancelarReserva(reservaId);
+            eventPublisher.publishEvent(EstoqueAlteradoEvent.de(reserva.getProdutoId(), reserva.getLojaId()));
+            auditoria.registrar(TipoEventoAuditoria.VENDA_CANCELADA, reserva.getProdutoId(), reserva.getLojaId(),
+                    reserva.getQuantidade(), reservaId);
             logger.info("Venda cancelada com sucesso - Reserva: {}", reservaId);
             return true;
         } else {
@@ -218,6 +392,31 @@ public class EstoqueServiceJpa {
         }
     }
     
+    /**
+     * Job automático: move reservas vencidas para o histórico como EXPIRADA e libera o reservado delas
+     * Executa a cada 5 minutos, uma transação por reserva (uma falha não segura as demais)
+     */
+    @Scheduled(fixedRate = 300000) // 5 minutos em milissegundos
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void expirarVendas() {
+        logger.debug("Processando reservas expiradas...");
+        
+        int expiradas = 0;
+        for (Reserva reserva : reservaService.listarReservasVencidas()) {
+            try {
+                if (Boolean.TRUE.equals(transacao.execute(status -> expirarVenda(reserva)))) {
+                    expiradas++;
+                }
+            } catch (RuntimeException e) {
+                logger.warn("Falha ao expirar reserva {}: {}", reserva.getId(), e.getMessage());
+            }
+        }
+        
+        if (expiradas > 0) {
+            logger.info("Movidas {} reservas expiradas para o histórico", expiradas);
+        }
+    }
+    
     /**
      * Ajuste manual de estoque (inventário)
      */
@@ -229,19 +428,128 @@ public class EstoqueServiceJpa {
             throw new IllegalArgumentException("Quantidade não pode ser negativa");
         }
         
-        EstoqueProduto estoque = estoqueRepository.findByProdutoIdAndLojaId(produtoId, lojaId)
-                .orElse(new EstoqueProduto(produtoId, lojaId, 0));
+        EstoqueProduto resultado;
+        if (bloqueio.executar(MutacaoEstoque.ajuste(produtoId, lojaId, novaQuantidade))) {
+            resultado = recarregar(produtoId, lojaId);
+        } else {
+            EstoqueProduto estoque = new EstoqueProduto(produtoId, lojaId, novaQuantidade);
+            estoque.setUltimaAtualizacao(LocalDateTime.now());
+            resultado = estoqueRepository.save(estoque);
+        }
+        eventPublisher.publishEvent(EstoqueAlteradoEvent.de(produtoId, lojaId));
+        auditoria.registrar(TipoEventoAuditoria.AJUSTE, produtoId, lojaId, novaQuantidade, motivo);
+        
+        logger.info("Estoque ajustado - Produto: {}, Loja: {}, Para: {}", 
+                   produtoId, lojaId, novaQuantidade);
         
-        Integer quantidadeAnterior = estoque.getQuantidade();
-        estoque.setQuantidade(novaQuantidade);
-        estoque.setUltimaAtualizacao(LocalDateTime.now());
+        return resultado;
+    }
+    
+    /**
+     * Remove o produto do estoque da loja, deixando a marca de remoção para a sincronização incremental
+     */
+    public EstoqueRemocao removerEstoque(Long produtoId, Long lojaId) {
+        logger.info("Removendo estoque - Produto: {}, Loja: {}", produtoId, lojaId);
         
-        EstoqueProduto resultado = estoqueRepository.save(estoque);
+        EstadoEstoque estoque = estoqueRepository.findEstado(produtoId, lojaId)
+                .orElseThrow(() -> new IllegalArgumentException("Produto não encontrado no estoque"));
         
-        logger.info("Estoque ajustado - Produto: {}, Loja: {}, De: {} Para: {}", 
-                   produtoId, lojaId, quantidadeAnterior, novaQuantidade);
+        boolean removido;
+        try {
+            removido = bloqueio.executar(MutacaoEstoque.remocao(produtoId, lojaId));
+        } catch (IllegalArgumentException e) {
+            auditoria.rejeitar(TipoEventoAuditoria.REMOCAO, produtoId, lojaId, estoque.reservado(), null);
+            throw e;
+        }
+        if (!removido) {
+            throw new IllegalArgumentException("Produto não encontrado no estoque");
+        }
+        EstoqueRemocao remocao = remocaoRepository.save(new EstoqueRemocao(produtoId, lojaId));
+        eventPublisher.publishEvent(EstoqueAlteradoEvent.de(produtoId, lojaId));
+        auditoria.registrar(TipoEventoAuditoria.REMOCAO, produtoId, lojaId, estoque.quantidade(), null);
         
-        return resultado;
+        logger.info("Estoque removido - Produto: {}, Loja: {}, Sequência: {}", 
+                   produtoId, lojaId, remocao.getSequenciaAlteracao());
+        
+        return remocao;
+    }
+    
+    /**
+     * Expira uma reserva e libera o reservado; false quando outra operação já a finalizou
+     */
+    private boolean expirarVenda(Reserva reserva) {
+        if (!reservaService.expirarReserva(reserva.getId())) {
+            return false;
+        }
+        if (!aplicar(MutacaoEstoque.liberacao(reserva.getProdutoId(), reserva.getLojaId(), reserva.getQuantidade()))) {
+            throw new IllegalStateException("Produto não encontrado no estoque");
+        }
+        eventPublisher.publishEvent(EstoqueAlteradoEvent.de(reserva.getProdutoId(), reserva.getLojaId()));
+        auditoria.registrar(TipoEventoAuditoria.VENDA_EXPIRADA, reserva.getProdutoId(), reserva.getLojaId(),
+                reserva.getQuantidade(), reserva.getId());
+        return true;
+    }
+    
+    /**
+     * Baixa/liberação de reserva: false quando a linha não existe; falta de reservado vira ConcorrenciaException
+     */
+    private boolean aplicar(MutacaoEstoque mutacao) {
+        try {
+            return bloqueio.executar(mutacao);
+        } catch (EstoqueInsuficienteException e) {
+            // o reservado já não cobre a reserva: outra operação finalizou a mesma venda antes
+            logger.warn("Reservado insuficiente para {} - Produto: {}, Loja: {}, Reservado: {}, Solicitado: {}",
+                    mutacao.nome(), mutacao.produtoId(), mutacao.lojaId(), e.getDisponivel(), e.getSolicitado());
+            throw new ConcorrenciaException("Reserva já finalizada por outra operação", e);
+        }
+    }
+    
+    /**
+     * Débito de uma linha da transferência: só o disponível sai (reservas e cota ficam na origem)
+     */
+    private void debitarTransferencia(Long produtoId, Long lojaId, int quantidade, String transferenciaId) {
+        try {
+            if (!bloqueio.executar(MutacaoEstoque.transferenciaSaida(produtoId, lojaId, quantidade))) {
+                throw new IllegalArgumentException("Produto " + produtoId + " não encontrado no estoque da loja " +
+                        lojaId);
+            }
+        } catch (EstoqueInsuficienteException e) {
+            auditoria.rejeitar(TipoEventoAuditoria.TRANSFERENCIA_SAIDA, produtoId, lojaId, quantidade, transferenciaId);
+            throw e;
+        }
+    }
+    
+    /**
+     * Crédito de uma linha da transferência; sem estoque no destino a linha é criada já na ordem de travamento
+     */
+    private void creditarTransferencia(Long produtoId, Long lojaId, int quantidade) {
+        if (bloqueio.executar(MutacaoEstoque.entrada(produtoId, lojaId, quantidade))) {
+            return;
+        }
+        EstoqueProduto estoque = new EstoqueProduto(produtoId, lojaId, quantidade);
+        estoque.setUltimaAtualizacao(LocalDateTime.now());
+        try {
+            estoqueRepository.saveAndFlush(estoque);
+        } catch (DataIntegrityViolationException e) {
+            throw new ConcorrenciaException("Estoque do produto " + produtoId + " criado na loja " + lojaId +
+                    " durante a transferência", e);
+        }
+    }
+    
+    /**
+     * Quantidade gravada, lida sem carregar a entidade
+     */
+    private int quantidadeAtual(Long produtoId, Long lojaId) {
+        return estoqueRepository.findEstado(produtoId, lojaId).map(EstadoEstoque::quantidade)
+                .orElseThrow(() -> new IllegalArgumentException("Produto não encontrado no estoque"));
+    }
+    
+    /**
+     * Estado gravado pela estratégia de bloqueio (a linha não fica no contexto de persistência)
+     */
+    private EstoqueProduto recarregar(Long produtoId, Long lojaId) {
+        return estoqueRepository.findByProdutoIdAndLojaId(produtoId, lojaId)
+                .orElseThrow(() -> new IllegalArgumentException("Produto não encontrado no estoque"));
     }
     
     /**
@@ -320,4 +628,46 @@ public class EstoqueServiceJpa {
         public Long getDisponivelTotal() { return disponivelTotal; }
         public Long getProdutosComEstoqueBaixo() { return produtosComEstoqueBaixo; }
     }
+    
+    /**
+     * Transferência concluída: id (referência na auditoria) e quantidades resultantes por produto
+     */
+    public record Transferencia(String id, Long lojaOrigemId, Long lojaDestinoId, List<ItemTransferido> itens) {
+    }
+    
+    /**
+     * Produto transferido com a quantidade resultante na origem e no destino
+     */
+    public record ItemTransferido(long produtoId, int quantidade, int quantidadeOrigem, int quantidadeDestino) {
+    }
+    
+    /**
+     * Disponível de um par (produto, loja) da consulta em lote
+     */
+    public record DisponivelPar(long produtoId, long lojaId, int disponivel) {
+    }
+    
+    /**
+     * Versão de um conjunto de linhas: quantidade e soma das sequências de alteração
+     *
+     * Todo INSERT/UPDATE dá à linha uma sequência nova e maior, então a soma muda a cada alteração; remoções
+     * mudam a contagem. Partes de fragmentos diferentes se combinam somando.
+     */
+    public record VersaoAgregada(long linhas, long somaSequencias) {
+        
+        static List<VersaoAgregada> de(List<Object[]> resultado) {
+            Object[] linha = resultado.get(0);
+            return List.of(new VersaoAgregada(((Number) linha[0]).longValue(), ((Number) linha[1]).longValue()));
+        }
+        
+        public static String combinar(List<VersaoAgregada> partes) {
+            long linhas = 0;
+            long soma = 0;
+            for (VersaoAgregada parte : partes) {
+                linhas += parte.linhas;
+                soma += parte.somaSequencias;
+            }
+            return linhas + "." + Long.toHexString(soma);
+        }
+    }
 }
\ No newline at end of file
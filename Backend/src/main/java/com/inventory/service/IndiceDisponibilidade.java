@@ -0,0 +1,385 @@
+package com.inventory.service;
+
+import com.inventory.config.LojasProperties;
+import com.inventory.config.fragmentacao.RoteamentoFragmentos;
+import com.inventory.event.EstoqueAlteradoEvent;
+import com.inventory.repository.EstoqueJpaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice em memória produtoId → lojas ordenadas por quantidade disponível
+ *
+ * Consultas não acessam o banco: cada produto guarda um snapshot imutável (copy-on-write)
+ * que é trocado atomicamente a cada alteração de estoque confirmada.
+ * Uma reconciliação periódica reconstrói o índice para cobrir alterações feitas fora da aplicação.
+ * A reconstrução lê o banco num mapa novo e o publica de uma vez; pares alterados durante a leitura
+ * ficam com o valor do índice vivo (lido depois do commit que os alterou), não com o da varredura.
+ */
+@Component
+public class IndiceDisponibilidade {
+
+    private static final Logger logger = LoggerFactory.getLogger(IndiceDisponibilidade.class);
+
+    private static final String SQL_TODOS =
+            "SELECT e.produto_id, e.loja_id, " + EstoqueJpaRepository.DISPONIVEL + " FROM estoque_produto e";
+
+    private static final String SQL_PRODUTO_LOJA =
+            "SELECT " + EstoqueJpaRepository.DISPONIVEL + " FROM estoque_produto e " +
+            "WHERE e.produto_id = ? AND e.loja_id = ?";
+
+    private static final String SQL_PRODUTOS_LOJA =
+            "SELECT e.produto_id, " + EstoqueJpaRepository.DISPONIVEL + " FROM estoque_produto e " +
+            "WHERE e.loja_id = ? AND e.produto_id IN (%s)";
+
+    // produtos por consulta IN ao reler um evento com muitos produtos
+    private static final int PRODUTOS_POR_CONSULTA = 500;
+
+    private volatile ConcurrentHashMap<Long, DisponibilidadeProduto> indice = new ConcurrentHashMap<>();
+    // atualizações pontuais em paralelo (leitura); a troca do mapa na reconstrução é exclusiva (escrita)
+    private final ReadWriteLock troca = new ReentrantReadWriteLock();
+    // pares alterados durante a reconstrução em andamento (null fora dela)
+    private volatile Set<ParLoja> alteradosNaReconstrucao;
+    private final JdbcTemplate jdbcTemplate;
+    private final LojasProperties lojas;
+    private final ObjectProvider<RoteamentoFragmentos> fragmentos;
+
+    public IndiceDisponibilidade(JdbcTemplate jdbcTemplate, LojasProperties lojas,
+                                 ObjectProvider<RoteamentoFragmentos> fragmentos) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.lojas = lojas;
+        this.fragmentos = fragmentos;
+    }
+
+    /**
+     * Carga completa na subida e reconciliação periódica
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${inventario.disponibilidade.reconciliacao-ms:600000}",
+               fixedDelayString = "${inventario.disponibilidade.reconciliacao-ms:600000}")
+    public synchronized void reconstruir() {
+        long inicio = System.nanoTime();
+        alteradosNaReconstrucao = ConcurrentHashMap.newKeySet();
+        Map<Long, List<long[]>> porProduto = new HashMap<>();
+        try {
+            Runnable carregar = () -> jdbcTemplate.query(SQL_TODOS, rs -> {
+                porProduto.computeIfAbsent(rs.getLong(1), k -> new ArrayList<>())
+                          .add(new long[]{rs.getLong(2), rs.getInt(3)});
+            });
+            RoteamentoFragmentos roteamento = fragmentos.getIfAvailable();
+            if (roteamento != null) {
+                // com fragmentação, cada loja está em um único fragmento: basta juntar todos
+                roteamento.emCadaFragmento(fragmento -> carregar.run());
+            } else {
+                carregar.run();
+            }
+        } catch (RuntimeException e) {
+            alteradosNaReconstrucao = null;
+            throw e;
+        }
+
+        ConcurrentHashMap<Long, DisponibilidadeProduto> novo = new ConcurrentHashMap<>(porProduto.size() * 2);
+        porProduto.forEach((produtoId, linhas) -> {
+            long[] lojaIds = new long[linhas.size()];
+            int[] disponiveis = new int[linhas.size()];
+            linhas.sort(Comparator.comparingLong((long[] l) -> l[1]).reversed());
+            for (int i = 0; i < linhas.size(); i++) {
+                lojaIds[i] = linhas.get(i)[0];
+                disponiveis[i] = (int) linhas.get(i)[1];
+            }
+            novo.put(produtoId, new DisponibilidadeProduto(lojaIds, disponiveis));
+        });
+
+        int preservados;
+        troca.writeLock().lock();
+        try {
+            Set<ParLoja> alterados = alteradosNaReconstrucao;
+            alteradosNaReconstrucao = null;
+            for (ParLoja par : alterados) {
+                Integer vivo = disponivel(indice, par.produtoId(), par.lojaId());
+                novo.compute(par.produtoId(), (id, atual) -> {
+                    DisponibilidadeProduto base = atual == null ? DisponibilidadeProduto.VAZIO : atual;
+                    DisponibilidadeProduto corrigido = vivo == null ? base.sem(par.lojaId())
+                            : base.com(par.lojaId(), vivo);
+                    return corrigido.tamanho() == 0 ? null : corrigido;
+                });
+            }
+            preservados = alterados.size();
+            indice = novo;
+        } finally {
+            troca.writeLock().unlock();
+        }
+
+        logger.info("Índice de disponibilidade reconstruído - Produtos: {}, Alterados durante a carga: {}, " +
+                   "Tempo: {}ms", novo.size(), preservados, (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    /**
+     * Relê as chaves alteradas depois do commit da transação que as modificou
+     * (com fragmentação, ainda no fragmento da transação: o contexto só é limpo depois do commit)
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEstoqueAlterado(EstoqueAlteradoEvent event) {
+        Long lojaId = event.getLojaId();
+        Collection<Long> produtoIds = event.getProdutoIds();
+
+        if (produtoIds.size() == 1) {
+            Long produtoId = produtoIds.iterator().next();
+            List<Integer> disponivel = jdbcTemplate.queryForList(SQL_PRODUTO_LOJA, Integer.class, produtoId, lojaId);
+            if (disponivel.isEmpty()) {
+                remover(produtoId, lojaId);
+            } else {
+                atualizar(produtoId, lojaId, disponivel.get(0));
+            }
+            return;
+        }
+
+        // só os produtos do evento; os que não voltam foram removidos da loja
+        List<Long> ids = new ArrayList<>(new HashSet<>(produtoIds));
+        for (int inicio = 0; inicio < ids.size(); inicio += PRODUTOS_POR_CONSULTA) {
+            List<Long> bloco = ids.subList(inicio, Math.min(inicio + PRODUTOS_POR_CONSULTA, ids.size()));
+            Set<Long> ausentes = new HashSet<>(bloco);
+            Object[] parametros = new Object[bloco.size() + 1];
+            parametros[0] = lojaId;
+            for (int i = 0; i < bloco.size(); i++) {
+                parametros[i + 1] = bloco.get(i);
+            }
+            String sql = String.format(SQL_PRODUTOS_LOJA, String.join(", ", Collections.nCopies(bloco.size(), "?")));
+            jdbcTemplate.query(sql, rs -> {
+                long produtoId = rs.getLong(1);
+                ausentes.remove(produtoId);
+                atualizar(produtoId, lojaId, rs.getInt(2));
+            }, parametros);
+            for (Long produtoId : ausentes) {
+                remover(produtoId, lojaId);
+            }
+        }
+    }
+
+    /**
+     * Atualiza a disponibilidade de um produto em uma loja
+     */
+    public void atualizar(long produtoId, long lojaId, int disponivel) {
+        troca.readLock().lock();
+        try {
+            indice.compute(produtoId, (id, atual) ->
+                    (atual == null ? DisponibilidadeProduto.VAZIO : atual).com(lojaId, disponivel));
+            registrarAlteracao(produtoId, lojaId);
+        } finally {
+            troca.readLock().unlock();
+        }
+    }
+
+    /**
+     * Remove o produto de uma loja do índice
+     */
+    public void remover(long produtoId, long lojaId) {
+        troca.readLock().lock();
+        try {
+            indice.computeIfPresent(produtoId, (id, atual) -> {
+                DisponibilidadeProduto novo = atual.sem(lojaId);
+                return novo.tamanho() == 0 ? null : novo;
+            });
+            registrarAlteracao(produtoId, lojaId);
+        } finally {
+            troca.readLock().unlock();
+        }
+    }
+
+    private void registrarAlteracao(long produtoId, long lojaId) {
+        Set<ParLoja> alterados = alteradosNaReconstrucao;
+        if (alterados != null) {
+            alterados.add(new ParLoja(produtoId, lojaId));
+        }
+    }
+
+    /**
+     * Disponibilidade indexada de um produto em uma loja (null quando ausente)
+     */
+    public Integer disponivel(long produtoId, long lojaId) {
+        return disponivel(indice, produtoId, lojaId);
+    }
+
+    private static Integer disponivel(Map<Long, DisponibilidadeProduto> indice, long produtoId, long lojaId) {
+        DisponibilidadeProduto atual = indice.get(produtoId);
+        if (atual == null) {
+            return null;
+        }
+        int pos = atual.posicao(lojaId);
+        return pos < 0 ? null : atual.disponiveis[pos];
+    }
+
+    /**
+     * Disponibilidade indexada de um produto somada em todas as lojas
+     */
+    public int disponivelTotal(long produtoId) {
+        DisponibilidadeProduto atual = snapshot(produtoId);
+        int total = 0;
+        for (int disponivel : atual.disponiveis) {
+            total += disponivel;
+        }
+        return total;
+    }
+
+    /**
+     * Snapshot das lojas de um produto, ordenado por disponível decrescente
+     */
+    public DisponibilidadeProduto snapshot(long produtoId) {
+        return indice.getOrDefault(produtoId, DisponibilidadeProduto.VAZIO);
+    }
+
+    /**
+     * Top-k lojas que atendem a quantidade solicitada
+     *
+     * Com coordenadas do cliente: ordena por distância, depois prioridade da loja.
+     * Sem coordenadas: ordena por prioridade da loja, depois maior disponível.
+     */
+    public List<LojaDisponivel> buscarLojas(long produtoId, int quantidade, int limite,
+                                            Double latitude, Double longitude) {
+        DisponibilidadeProduto atual = snapshot(produtoId);
+        int candidatas = atual.quantasAtendem(quantidade);
+        if (candidatas == 0 || limite <= 0) {
+            return List.of();
+        }
+
+        boolean porDistancia = latitude != null && longitude != null;
+        LojaDisponivel[] resultado = new LojaDisponivel[candidatas];
+        for (int i = 0; i < candidatas; i++) {
+            long lojaId = atual.lojaIds[i];
+            Double distancia = porDistancia ? lojas.distanciaKm(lojaId, latitude, longitude) : null;
+            resultado[i] = new LojaDisponivel(lojaId, atual.disponiveis[i], lojas.prioridadeDe(lojaId), distancia);
+        }
+
+        Comparator<LojaDisponivel> ordem = porDistancia
+                ? Comparator.comparing(LojaDisponivel::getDistanciaKm, Comparator.nullsLast(Comparator.naturalOrder()))
+                            .thenComparingInt(LojaDisponivel::getPrioridade)
+                : Comparator.comparingInt(LojaDisponivel::getPrioridade);
+        Arrays.sort(resultado, ordem.thenComparing(Comparator.comparingInt(LojaDisponivel::getDisponivel).reversed()));
+
+        return Arrays.asList(resultado).subList(0, Math.min(limite, candidatas));
+    }
+
+    public int totalProdutos() {
+        return indice.size();
+    }
+
+    /**
+     * Lojas de um produto em arrays paralelos, ordenadas por disponível decrescente (imutável)
+     */
+    public static final class DisponibilidadeProduto {
+        static final DisponibilidadeProduto VAZIO = new DisponibilidadeProduto(new long[0], new int[0]);
+
+        private final long[] lojaIds;
+        private final int[] disponiveis;
+
+        DisponibilidadeProduto(long[] lojaIds, int[] disponiveis) {
+            this.lojaIds = lojaIds;
+            this.disponiveis = disponiveis;
+        }
+
+        public int tamanho() { return lojaIds.length; }
+        public long lojaId(int i) { return lojaIds[i]; }
+        public int disponivel(int i) { return disponiveis[i]; }
+
+        int posicao(long lojaId) {
+            for (int i = 0; i < lojaIds.length; i++) {
+                if (lojaIds[i] == lojaId) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Quantas lojas (prefixo do array) têm disponível >= quantidade
+         */
+        int quantasAtendem(int quantidade) {
+            int baixo = 0;
+            int alto = disponiveis.length;
+            while (baixo < alto) {
+                int meio = (baixo + alto) >>> 1;
+                if (disponiveis[meio] >= quantidade) {
+                    baixo = meio + 1;
+                } else {
+                    alto = meio;
+                }
+            }
+            return baixo;
+        }
+
+        DisponibilidadeProduto sem(long lojaId) {
+            int pos = posicao(lojaId);
+            if (pos < 0) {
+                return this;
+            }
+            long[] novasLojas = new long[lojaIds.length - 1];
+            int[] novosDisponiveis = new int[disponiveis.length - 1];
+            System.arraycopy(lojaIds, 0, novasLojas, 0, pos);
+            System.arraycopy(disponiveis, 0, novosDisponiveis, 0, pos);
+            System.arraycopy(lojaIds, pos + 1, novasLojas, pos, lojaIds.length - pos - 1);
+            System.arraycopy(disponiveis, pos + 1, novosDisponiveis, pos, disponiveis.length - pos - 1);
+            return new DisponibilidadeProduto(novasLojas, novosDisponiveis);
+        }
+
+        DisponibilidadeProduto com(long lojaId, int disponivel) {
+            DisponibilidadeProduto base = sem(lojaId);
+            int pos = base.quantasAtendem(disponivel);
+            long[] novasLojas = new long[base.lojaIds.length + 1];
+            int[] novosDisponiveis = new int[base.disponiveis.length + 1];
+            System.arraycopy(base.lojaIds, 0, novasLojas, 0, pos);
+            System.arraycopy(base.disponiveis, 0, novosDisponiveis, 0, pos);
+            novasLojas[pos] = lojaId;
+            novosDisponiveis[pos] = disponivel;
+            System.arraycopy(base.lojaIds, pos, novasLojas, pos + 1, base.lojaIds.length - pos);
+            System.arraycopy(base.disponiveis, pos, novosDisponiveis, pos + 1, base.disponiveis.length - pos);
+            return new DisponibilidadeProduto(novasLojas, novosDisponiveis);
+        }
+    }
+
+    private record ParLoja(long produtoId, long lojaId) {
+    }
+
+    /**
+     * Loja candidata a atender um pedido
+     */
+    public static class LojaDisponivel {
+        private final Long lojaId;
+        private final Integer disponivel;
+        private final Integer prioridade;
+        private final Double distanciaKm;
+
+        public LojaDisponivel(Long lojaId, Integer disponivel, Integer prioridade, Double distanciaKm) {
+            this.lojaId = lojaId;
+            this.disponivel = disponivel;
+            this.prioridade = prioridade;
+            this.distanciaKm = distanciaKm;
+        }
+
+        // Getters
+        public Long getLojaId() { return lojaId; }
+        public Integer getDisponivel() { return disponivel; }
+        public Integer getPrioridade() { return prioridade; }
+        public Double getDistanciaKm() { return distanciaKm; }
+    }
+}
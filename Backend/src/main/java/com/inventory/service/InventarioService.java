@@ -0,0 +1,485 @@
+package com.inventory.service;
+
+import com.inventory.dto.ContagemInventarioRequest;
+import com.inventory.dto.ContagemInventarioRequest.ItemContagem;
+import com.inventory.event.EstoqueAlteradoEvent;
+import com.inventory.exception.ConcorrenciaException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Serviço de importação em lote de contagens físicas (inventário)
+ *
+ * FLUXO: Snapshot da loja (1 SELECT) → Diff paralelo (fork/join) → Batch JDBC só das linhas alteradas
+ *
+ * Cada lote confirma na própria transação: uma contagem grande numa transação só poderia passar de
+ * inventario.sincronizacao.janela-ms e gravar sequências abaixo da marca segura que um PDV já leu.
+ */
+@Service
+@Transactional
+public class InventarioService {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventarioService.class);
+
+    /**
+     * Abaixo deste número de itens o diff é feito na thread atual
+     */
+    private static final int LIMIAR_PARALELO = 4096;
+
+    /**
+     * Mesmo estoque mínimo padrão do construtor de EstoqueProduto
+     */
+    private static final int ESTOQUE_MINIMO_PADRAO = 5;
+
+    private static final String SQL_SNAPSHOT =
+            "SELECT id, produto_id, quantidade, reservado + cota, versao FROM estoque_produto " +
+            "WHERE loja_id = ? ORDER BY produto_id";
+
+    private static final String SQL_AJUSTE =
+            "UPDATE estoque_produto SET quantidade = ?, versao = versao + 1, ultima_atualizacao = ? " +
+            "WHERE id = ? AND versao = ?";
+
+    private static final String SQL_INCLUSAO =
+            "INSERT INTO estoque_produto (produto_id, loja_id, quantidade, reservado, estoque_minimo, " +
+            "ultima_atualizacao, versao) VALUES (?, ?, ?, 0, ?, ?, 1)";
+
+    private static final String SQL_MINIMO =
+            "UPDATE estoque_produto SET estoque_minimo = ? " +
+            "WHERE loja_id = ? AND produto_id = ? AND estoque_minimo <> ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transacao;
+    private final int tamanhoLote;
+
+    public InventarioService(JdbcTemplate jdbcTemplate, ApplicationEventPublisher eventPublisher,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${inventario.contagem.tamanho-lote:1000}") int tamanhoLote) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.transacao = new TransactionTemplate(transactionManager);
+        this.tamanhoLote = tamanhoLote;
+    }
+
+    /**
+     * Importa a contagem física de uma loja, aplicando apenas as linhas divergentes
+     * Linhas contadas abaixo do reservado (reservas + cotas) não são gravadas: saem como conflito no relatório
+     *
+     * Sem transação envolvente: cada lote de inclusões ou ajustes confirma sozinho e publica seus produtos.
+     * Uma falha no meio deixa os lotes anteriores gravados; reenviar a mesma contagem aplica só o que faltou.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ResultadoContagem importarContagem(ContagemInventarioRequest request) {
+        long inicio = System.nanoTime();
+        Long lojaId = request.getLojaId();
+        logger.info("Importando contagem de inventário - Loja: {}, Itens: {}, Motivo: {}",
+                   lojaId, request.getItens().size(), request.getMotivo());
+
+        Contagem contagem = consolidar(request.getItens());
+        SnapshotLoja snapshot = carregarSnapshot(lojaId);
+
+        // Diff paralelo: cada folha escreve em uma faixa disjunta dos arrays de saída
+        int[] posicaoNoSnapshot = new int[contagem.tamanho];
+        new DiffContagemTask(contagem, snapshot, posicaoNoSnapshot, 0, contagem.tamanho).invoke();
+
+        boolean[] naoContado = new boolean[snapshot.tamanho];
+        if (request.isZerarNaoContados()) {
+            new NaoContadosTask(contagem, snapshot, naoContado, 0, snapshot.tamanho).invoke();
+        }
+
+        List<Discrepancia> discrepancias = new ArrayList<>();
+        List<Object[]> ajustes = new ArrayList<>();
+        List<Discrepancia> ajustados = new ArrayList<>();
+        List<Object[]> inclusoes = new ArrayList<>();
+        Timestamp agora = Timestamp.valueOf(LocalDateTime.now());
+
+        for (int i = 0; i < contagem.tamanho; i++) {
+            int pos = posicaoNoSnapshot[i];
+            if (pos == -1) {
+                Discrepancia d = new Discrepancia(contagem.produtoIds[i], null, contagem.quantidades[i], 0,
+                        SituacaoDiscrepancia.INCLUIDO);
+                discrepancias.add(d);
+                inclusoes.add(new Object[]{contagem.produtoIds[i], lojaId, contagem.quantidades[i],
+                        ESTOQUE_MINIMO_PADRAO, agora});
+            } else if (snapshot.quantidades[pos] != contagem.quantidades[i]) {
+                Discrepancia d = new Discrepancia(contagem.produtoIds[i], snapshot.quantidades[pos],
+                        contagem.quantidades[i], snapshot.reservados[pos], SituacaoDiscrepancia.AJUSTADO);
+                discrepancias.add(d);
+                if (d.isAbaixoDoReservado()) {
+                    d.setSituacao(SituacaoDiscrepancia.CONFLITO);
+                } else {
+                    ajustados.add(d);
+                    ajustes.add(new Object[]{contagem.quantidades[i], agora, snapshot.ids[pos], snapshot.versoes[pos]});
+                }
+            }
+        }
+
+        for (int pos = 0; pos < snapshot.tamanho; pos++) {
+            if (naoContado[pos] && snapshot.quantidades[pos] != 0) {
+                Discrepancia d = new Discrepancia(snapshot.produtoIds[pos], snapshot.quantidades[pos], 0,
+                        snapshot.reservados[pos], SituacaoDiscrepancia.ZERADO);
+                discrepancias.add(d);
+                if (d.isAbaixoDoReservado()) {
+                    d.setSituacao(SituacaoDiscrepancia.CONFLITO);
+                } else {
+                    ajustados.add(d);
+                    ajustes.add(new Object[]{0, agora, snapshot.ids[pos], snapshot.versoes[pos]});
+                }
+            }
+        }
+
+        aplicarAjustes(lojaId, ajustes, ajustados);
+        aplicarInclusoes(lojaId, inclusoes);
+
+        discrepancias.sort(Comparator.comparing(Discrepancia::getProdutoId));
+        long tempoMs = (System.nanoTime() - inicio) / 1_000_000;
+        ResultadoContagem resultado = new ResultadoContagem(lojaId, contagem.tamanho,
+                snapshot.tamanho, discrepancias, tempoMs);
+
+        logger.info("Contagem importada - Loja: {}, Ajustados: {}, Incluídos: {}, Zerados: {}, Conflitos: {}, Tempo: {}ms",
+                   lojaId, resultado.getItensAjustados(), resultado.getItensIncluidos(),
+                   resultado.getItensZerados(), resultado.getConflitos(), tempoMs);
+
+        return resultado;
+    }
+
+    /**
+     * Ordena a contagem por produto e soma linhas repetidas (ex.: gôndola + depósito)
+     * A soma é feita em long: um total acima de Integer.MAX_VALUE recusa a contagem inteira
+     */
+    private Contagem consolidar(List<ItemContagem> itens) {
+        ItemContagem[] ordenados = itens.toArray(new ItemContagem[0]);
+        Arrays.parallelSort(ordenados, Comparator.comparing(ItemContagem::getProdutoId));
+
+        long[] produtoIds = new long[ordenados.length];
+        int[] quantidades = new int[ordenados.length];
+        int tamanho = 0;
+        for (ItemContagem item : ordenados) {
+            if (tamanho > 0 && produtoIds[tamanho - 1] == item.getProdutoId()) {
+                long total = (long) quantidades[tamanho - 1] + item.getQuantidade();
+                if (total > Integer.MAX_VALUE) {
+                    throw new IllegalArgumentException("Quantidade contada do produto " + item.getProdutoId() +
+                            " excede o limite de " + Integer.MAX_VALUE);
+                }
+                quantidades[tamanho - 1] = (int) total;
+            } else {
+                produtoIds[tamanho] = item.getProdutoId();
+                quantidades[tamanho] = item.getQuantidade();
+                tamanho++;
+            }
+        }
+        return new Contagem(produtoIds, quantidades, tamanho);
+    }
+
+    /**
+     * Carrega o estoque atual da loja em arrays primitivos ordenados por produto
+     */
+    private SnapshotLoja carregarSnapshot(Long lojaId) {
+        SnapshotLoja snapshot = new SnapshotLoja();
+        jdbcTemplate.query(SQL_SNAPSHOT, rs -> {
+            snapshot.adicionar(rs.getLong(1), rs.getLong(2), rs.getInt(3), rs.getInt(4), rs.getLong(5));
+        }, lojaId);
+        logger.debug("Snapshot carregado - Loja: {}, Linhas: {}", lojaId, snapshot.tamanho);
+        return snapshot;
+    }
+
+    /**
+     * Grava estoques mínimos calculados para produtos de uma loja, em lotes JDBC
+     *
+     * Só linhas com mínimo diferente são escritas (e têm a versão incrementada). Devolve quantas mudaram.
+     */
+    public int atualizarEstoqueMinimo(Long lojaId, long[] produtoIds, int[] minimos) {
+        List<Object[]> alteracoes = new ArrayList<>(produtoIds.length);
+        for (int i = 0; i < produtoIds.length; i++) {
+            alteracoes.add(new Object[]{minimos[i], lojaId, produtoIds[i], minimos[i]});
+        }
+        int alterados = 0;
+        for (int inicio = 0; inicio < alteracoes.size(); inicio += tamanhoLote) {
+            int fim = Math.min(inicio + tamanhoLote, alteracoes.size());
+            for (int linhas : jdbcTemplate.batchUpdate(SQL_MINIMO, alteracoes.subList(inicio, fim))) {
+                if (linhas > 0) {
+                    alterados += linhas;
+                }
+            }
+        }
+        logger.debug("Estoque mínimo recalculado - Loja: {}, Produtos: {}, Alterados: {}",
+                    lojaId, produtoIds.length, alterados);
+        return alterados;
+    }
+
+    /**
+     * Aplica os ajustes em lotes JDBC, uma transação por lote; linhas com versão alterada viram conflito
+     */
+    private void aplicarAjustes(Long lojaId, List<Object[]> ajustes, List<Discrepancia> ajustados) {
+        for (int inicio = 0; inicio < ajustes.size(); inicio += tamanhoLote) {
+            int de = inicio;
+            int fim = Math.min(inicio + tamanhoLote, ajustes.size());
+            transacao.executeWithoutResult(status -> {
+                int[] linhasAfetadas = jdbcTemplate.batchUpdate(SQL_AJUSTE, ajustes.subList(de, fim));
+                List<Long> alterados = new ArrayList<>(linhasAfetadas.length);
+                for (int i = 0; i < linhasAfetadas.length; i++) {
+                    Discrepancia d = ajustados.get(de + i);
+                    if (linhasAfetadas[i] == 0) {
+                        d.setSituacao(SituacaoDiscrepancia.CONFLITO);
+                    } else if (linhasAfetadas[i] != Statement.SUCCESS_NO_INFO && linhasAfetadas[i] < 0) {
+                        throw new IllegalStateException("Falha no lote de ajuste de inventário");
+                    } else {
+                        alterados.add(d.getProdutoId());
+                    }
+                }
+                publicar(lojaId, alterados);
+            });
+        }
+    }
+
+    /**
+     * Inclui em lotes os produtos contados que ainda não existiam no estoque da loja, uma transação por lote
+     */
+    private void aplicarInclusoes(Long lojaId, List<Object[]> inclusoes) {
+        try {
+            for (int inicio = 0; inicio < inclusoes.size(); inicio += tamanhoLote) {
+                List<Object[]> lote = inclusoes.subList(inicio, Math.min(inicio + tamanhoLote, inclusoes.size()));
+                transacao.executeWithoutResult(status -> {
+                    jdbcTemplate.batchUpdate(SQL_INCLUSAO, lote);
+                    publicar(lojaId, lote.stream().map(linha -> (Long) linha[0]).toList());
+                });
+            }
+        } catch (DuplicateKeyException e) {
+            throw new ConcorrenciaException("Produto incluído concorrentemente durante a importação da contagem", e);
+        }
+    }
+
+    /**
+     * Evento do lote: o índice de disponibilidade relê os produtos depois do commit
+     */
+    private void publicar(Long lojaId, List<Long> produtoIds) {
+        if (!produtoIds.isEmpty()) {
+            eventPublisher.publishEvent(new EstoqueAlteradoEvent(lojaId, produtoIds));
+        }
+    }
+
+    /**
+     * Busca binária do produto no snapshot ordenado (-1 quando ausente)
+     */
+    private static int buscar(long[] produtoIds, int tamanho, long produtoId) {
+        int pos = Arrays.binarySearch(produtoIds, 0, tamanho, produtoId);
+        return pos >= 0 ? pos : -1;
+    }
+
+    /**
+     * Localiza cada item contado no snapshot da loja
+     */
+    private static class DiffContagemTask extends RecursiveAction {
+        private final Contagem contagem;
+        private final SnapshotLoja snapshot;
+        private final int[] posicaoNoSnapshot;
+        private final int de;
+        private final int ate;
+
+        DiffContagemTask(Contagem contagem, SnapshotLoja snapshot, int[] posicaoNoSnapshot, int de, int ate) {
+            this.contagem = contagem;
+            this.snapshot = snapshot;
+            this.posicaoNoSnapshot = posicaoNoSnapshot;
+            this.de = de;
+            this.ate = ate;
+        }
+
+        @Override
+        protected void compute() {
+            if (ate - de <= LIMIAR_PARALELO) {
+                for (int i = de; i < ate; i++) {
+                    posicaoNoSnapshot[i] = buscar(snapshot.produtoIds, snapshot.tamanho, contagem.produtoIds[i]);
+                }
+                return;
+            }
+            int meio = (de + ate) >>> 1;
+            invokeAll(new DiffContagemTask(contagem, snapshot, posicaoNoSnapshot, de, meio),
+                      new DiffContagemTask(contagem, snapshot, posicaoNoSnapshot, meio, ate));
+        }
+    }
+
+    /**
+     * Marca as linhas do snapshot que não aparecem na contagem
+     */
+    private static class NaoContadosTask extends RecursiveAction {
+        private final Contagem contagem;
+        private final SnapshotLoja snapshot;
+        private final boolean[] naoContado;
+        private final int de;
+        private final int ate;
+
+        NaoContadosTask(Contagem contagem, SnapshotLoja snapshot, boolean[] naoContado, int de, int ate) {
+            this.contagem = contagem;
+            this.snapshot = snapshot;
+            this.naoContado = naoContado;
+            this.de = de;
+            this.ate = ate;
+        }
+
+        @Override
+        protected void compute() {
+            if (ate - de <= LIMIAR_PARALELO) {
+                for (int pos = de; pos < ate; pos++) {
+                    naoContado[pos] = buscar(contagem.produtoIds, contagem.tamanho, snapshot.produtoIds[pos]) == -1;
+                }
+                return;
+            }
+            int meio = (de + ate) >>> 1;
+            invokeAll(new NaoContadosTask(contagem, snapshot, naoContado, de, meio),
+                      new NaoContadosTask(contagem, snapshot, naoContado, meio, ate));
+        }
+    }
+
+    /**
+     * Contagem consolidada, ordenada por produto
+     */
+    private static class Contagem {
+        final long[] produtoIds;
+        final int[] quantidades;
+        final int tamanho;
+
+        Contagem(long[] produtoIds, int[] quantidades, int tamanho) {
+            this.produtoIds = produtoIds;
+            this.quantidades = quantidades;
+            this.tamanho = tamanho;
+        }
+    }
+
+    /**
+     * Estoque atual da loja em arrays paralelos, ordenado por produto
+     */
+    private static class SnapshotLoja {
+        long[] ids = new long[1024];
+        long[] produtoIds = new long[1024];
+        int[] quantidades = new int[1024];
+        int[] reservados = new int[1024];
+        long[] versoes = new long[1024];
+        int tamanho;
+
+        void adicionar(long id, long produtoId, int quantidade, int reservado, long versao) {
+            if (tamanho == ids.length) {
+                int novaCapacidade = tamanho * 2;
+                ids = Arrays.copyOf(ids, novaCapacidade);
+                produtoIds = Arrays.copyOf(produtoIds, novaCapacidade);
+                quantidades = Arrays.copyOf(quantidades, novaCapacidade);
+                reservados = Arrays.copyOf(reservados, novaCapacidade);
+                versoes = Arrays.copyOf(versoes, novaCapacidade);
+            }
+            ids[tamanho] = id;
+            produtoIds[tamanho] = produtoId;
+            quantidades[tamanho] = quantidade;
+            reservados[tamanho] = reservado;
+            versoes[tamanho] = versao;
+            tamanho++;
+        }
+    }
+
+    /**
+     * Situação de cada linha divergente após a importação
+     */
+    public enum SituacaoDiscrepancia {
+        AJUSTADO,
+        INCLUIDO,
+        ZERADO,
+        CONFLITO
+    }
+
+    /**
+     * Linha do relatório de divergências
+     */
+    public static class Discrepancia {
+        private final Long produtoId;
+        private final Integer quantidadeSistema;
+        private final Integer quantidadeContada;
+        private final Integer reservado;
+        private SituacaoDiscrepancia situacao;
+
+        public Discrepancia(Long produtoId, Integer quantidadeSistema, Integer quantidadeContada,
+                            Integer reservado, SituacaoDiscrepancia situacao) {
+            this.produtoId = produtoId;
+            this.quantidadeSistema = quantidadeSistema;
+            this.quantidadeContada = quantidadeContada;
+            this.reservado = reservado;
+            this.situacao = situacao;
+        }
+
+        // Getters
+        public Long getProdutoId() { return produtoId; }
+        public Integer getQuantidadeSistema() { return quantidadeSistema; }
+        public Integer getQuantidadeContada() { return quantidadeContada; }
+        public Integer getReservado() { return reservado; }
+        public SituacaoDiscrepancia getSituacao() { return situacao; }
+        public void setSituacao(SituacaoDiscrepancia situacao) { this.situacao = situacao; }
+
+        public Integer getDiferenca() {
+            return quantidadeContada - (quantidadeSistema == null ? 0 : quantidadeSistema);
+        }
+
+        /**
+         * Contagem menor que o já reservado (reservas + cotas): a linha não é aplicada e sai como conflito,
+         * senão as reservas ativas ficariam sem cobertura física e a disponibilidade negativa
+         */
+        public boolean isAbaixoDoReservado() {
+            return quantidadeContada < reservado;
+        }
+    }
+
+    /**
+     * Relatório consolidado da importação
+     */
+    public static class ResultadoContagem {
+        private final Long lojaId;
+        private final int itensContados;
+        private final int itensNoSistema;
+        private final List<Discrepancia> discrepancias;
+        private final long tempoMs;
+
+        public ResultadoContagem(Long lojaId, int itensContados, int itensNoSistema,
+                                 List<Discrepancia> discrepancias, long tempoMs) {
+            this.lojaId = lojaId;
+            this.itensContados = itensContados;
+            this.itensNoSistema = itensNoSistema;
+            this.discrepancias = discrepancias;
+            this.tempoMs = tempoMs;
+        }
+
+        private long contar(SituacaoDiscrepancia situacao) {
+            return discrepancias.stream().filter(d -> d.getSituacao() == situacao).count();
+        }
+
+        // Getters
+        public Long getLojaId() { return lojaId; }
+        public int getItensContados() { return itensContados; }
+        public int getItensNoSistema() { return itensNoSistema; }
+        public List<Discrepancia> getDiscrepancias() { return discrepancias; }
+        public long getTempoMs() { return tempoMs; }
+        public long getItensAjustados() { return contar(SituacaoDiscrepancia.AJUSTADO); }
+        public long getItensIncluidos() { return contar(SituacaoDiscrepancia.INCLUIDO); }
+        public long getItensZerados() { return contar(SituacaoDiscrepancia.ZERADO); }
+        public long getConflitos() { return contar(SituacaoDiscrepancia.CONFLITO); }
+
+        public long getDivergenciaLiquida() {
+            return discrepancias.stream()
+                    .filter(d -> d.getSituacao() != SituacaoDiscrepancia.CONFLITO)
+                    .mapToLong(Discrepancia::getDiferenca).sum();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.inventory.service;
+
+import com.inventory.dto.ProdutoRequest;
+import com.inventory.event.ProdutoAlteradoEvent;
+import com.inventory.model.Produto;
+import com.inventory.repository.ProdutoJpaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Serviço de negócio para o cadastro de produtos
+ *
+ * Só escreve: as consultas usam o CatalogoProdutos, atualizado pelo evento publicado a cada alteração.
+ */
+@Service
+@Transactional
+public class ProdutoService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProdutoService.class);
+
+    private final ProdutoJpaRepository produtoRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public ProdutoService(ProdutoJpaRepository produtoRepository, ApplicationEventPublisher eventPublisher) {
+        this.produtoRepository = produtoRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Cadastra produto com o id do cadastro de origem
+     */
+    public Produto cadastrarProduto(ProdutoRequest request) {
+        logger.info("Cadastrando produto - ID: {}, SKU: {}", request.getId(), request.getSku());
+
+        if (request.getId() == null) {
+            throw new IllegalArgumentException("ID do produto é obrigatório");
+        }
+        if (produtoRepository.existsById(request.getId())) {
+            throw new IllegalArgumentException("Produto já cadastrado: " + request.getId());
+        }
+        String sku = CatalogoProdutos.chaveSku(request.getSku());
+        validarSkuLivre(sku, request.getId());
+
+        Produto produto = new Produto(request.getId(), request.getNome(), sku, request.getCategoria(),
+                request.getValorUnitario());
+        produto.setDescricao(request.getDescricao());
+        Produto salvo = produtoRepository.save(produto);
+        eventPublisher.publishEvent(new ProdutoAlteradoEvent(salvo.getId()));
+
+        logger.info("Produto cadastrado - ID: {}", salvo.getId());
+        return salvo;
+    }
+
+    /**
+     * Altera os dados de um produto cadastrado
+     */
+    public Produto atualizarProduto(Long produtoId, ProdutoRequest request) {
+        logger.info("Atualizando produto - ID: {}", produtoId);
+
+        Produto produto = produtoRepository.findById(produtoId)
+                .orElseThrow(() -> new IllegalArgumentException("Produto não encontrado: " + produtoId));
+        String sku = CatalogoProdutos.chaveSku(request.getSku());
+        validarSkuLivre(sku, produtoId);
+
+        produto.setNome(request.getNome());
+        produto.setSku(sku);
+        produto.setCategoria(request.getCategoria());
+        produto.setValorUnitario(request.getValorUnitario());
+        produto.setDescricao(request.getDescricao());
+        Produto salvo = produtoRepository.save(produto);
+        eventPublisher.publishEvent(new ProdutoAlteradoEvent(produtoId));
+
+        logger.info("Produto atualizado - ID: {}", produtoId);
+        return salvo;
+    }
+
+    private void validarSkuLivre(String sku, Long produtoId) {
+        produtoRepository.findBySku(sku)
+                .filter(existente -> !existente.getId().equals(produtoId))
+                .ifPresent(existente -> {
+                    throw new IllegalArgumentException("SKU já cadastrado no produto " + existente.getId());
+                });
+    }
+}
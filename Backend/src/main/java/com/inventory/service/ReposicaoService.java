@@ -0,0 +1,514 @@
+package com.inventory.service;
+
+import com.inventory.config.LojasProperties;
+import com.inventory.config.fragmentacao.RoteamentoFragmentos;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Motor de sugestões de transferência entre lojas (reposição da rede)
+ *
+ * Varre estoque_produto em partições paralelas por faixa de produtoId. Cada partição lê as linhas
+ * em streaming, ordenadas por produto, e processa um SKU por vez: lojas abaixo do mínimo recebem
+ * de lojas com excedente. Memória limitada a um SKU por partição + top-N sugestões.
+ *
+ * Com fragmentação, as lojas de um SKU ficam em fragmentos diferentes: cada partição abre um cursor por
+ * fragmento (ordenados por produto) e os intercala, então o SKU continua sendo casado com a rede inteira.
+ */
+@Service
+public class ReposicaoService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReposicaoService.class);
+
+    private static final String SQL_FAIXA_PRODUTOS =
+            "SELECT MIN(produto_id), MAX(produto_id) FROM estoque_produto";
+
+    // unidades em cota também não estão livres: entram junto com as reservadas
+    private static final String SQL_PARTICAO =
+            "SELECT produto_id, loja_id, quantidade, reservado + cota, estoque_minimo FROM estoque_produto " +
+            "WHERE produto_id BETWEEN ? AND ? ORDER BY produto_id";
+
+    private static final RowMapper<LinhaEstoque> LINHA = (rs, n) ->
+            new LinhaEstoque(rs.getLong(1), rs.getLong(2), rs.getInt(3), rs.getInt(4), rs.getInt(5));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final LojasProperties lojas;
+    private final ObjectProvider<RoteamentoFragmentos> fragmentos;
+    private final ExecutorService executor;
+    private final AtomicBoolean emExecucao = new AtomicBoolean(false);
+    private final AtomicInteger contadorThreads = new AtomicInteger();
+
+    private final int paralelismo;
+    private final int particoesPorThread;
+    private final int maxSugestoes;
+    private final int tamanhoFetch;
+    private final double fatorAlvo;
+    private final double fatorReserva;
+
+    private volatile ResultadoReposicao ultimoResultado;
+
+    public ReposicaoService(JdbcTemplate jdbcTemplate,
+                            LojasProperties lojas,
+                            ObjectProvider<RoteamentoFragmentos> fragmentos,
+                            @Value("${inventario.reposicao.paralelismo:4}") int paralelismo,
+                            @Value("${inventario.reposicao.particoes-por-thread:8}") int particoesPorThread,
+                            @Value("${inventario.reposicao.max-sugestoes:10000}") int maxSugestoes,
+                            @Value("${inventario.reposicao.tamanho-fetch:5000}") int tamanhoFetch,
+                            @Value("${inventario.reposicao.fator-alvo:2.0}") double fatorAlvo,
+                            @Value("${inventario.reposicao.fator-reserva:3.0}") double fatorReserva) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.lojas = lojas;
+        this.fragmentos = fragmentos;
+        this.paralelismo = paralelismo;
+        this.particoesPorThread = particoesPorThread;
+        this.maxSugestoes = maxSugestoes;
+        this.tamanhoFetch = tamanhoFetch;
+        this.fatorAlvo = fatorAlvo;
+        this.fatorReserva = fatorReserva;
+        this.executor = Executors.newFixedThreadPool(paralelismo, r -> {
+            Thread t = new Thread(r, "reposicao-" + contadorThreads.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Execução agendada (padrão: diariamente às 02:30)
+     */
+    @Scheduled(cron = "${inventario.reposicao.cron:0 30 2 * * *}")
+    public void execucaoAgendada() {
+        executar();
+    }
+
+    /**
+     * Disparo manual sem bloquear a requisição
+     */
+    @Async
+    public void executarEmSegundoPlano() {
+        try {
+            executar();
+        } catch (Exception e) {
+            logger.error("Erro na varredura de reposição", e);
+        }
+    }
+
+    /**
+     * Executa a varredura completa; retorna vazio se já houver uma execução em andamento
+     */
+    public Optional<ResultadoReposicao> executar() {
+        if (!emExecucao.compareAndSet(false, true)) {
+            logger.warn("Execução de reposição já em andamento - ignorando");
+            return Optional.empty();
+        }
+        try {
+            ResultadoReposicao resultado = varrer();
+            ultimoResultado = resultado;
+            return Optional.of(resultado);
+        } finally {
+            emExecucao.set(false);
+        }
+    }
+
+    public boolean isEmExecucao() {
+        return emExecucao.get();
+    }
+
+    public ResultadoReposicao getUltimoResultado() {
+        return ultimoResultado;
+    }
+
+    private ResultadoReposicao varrer() {
+        long inicio = System.nanoTime();
+        LocalDateTime iniciadaEm = LocalDateTime.now();
+        logger.info("Iniciando varredura de reposição - Paralelismo: {}", paralelismo);
+
+        long[] faixa = faixaProdutos();
+        if (faixa == null) {
+            return new ResultadoReposicao(iniciadaEm, 0, 0, 0, List.of(), 0);
+        }
+
+        // Mais partições que threads para balancear faixas com densidade diferente
+        int particoes = Math.max(1, paralelismo * particoesPorThread);
+        long largura = Math.max(1, (faixa[1] - faixa[0] + particoes) / particoes);
+        List<Future<Particao>> futuros = new ArrayList<>();
+        for (long inicioFaixa = faixa[0]; inicioFaixa <= faixa[1]; inicioFaixa += largura) {
+            long de = inicioFaixa;
+            long ate = Math.min(faixa[1], de + largura - 1);
+            futuros.add(executor.submit(() -> processarParticao(de, ate)));
+        }
+
+        long linhas = 0;
+        long skus = 0;
+        long totalSugestoes = 0;
+        PriorityQueue<SugestaoTransferencia> topo = new PriorityQueue<>(SugestaoTransferencia.ORDEM.reversed());
+        try {
+            for (Future<Particao> futuro : futuros) {
+                Particao p = futuro.get();
+                linhas += p.linhas;
+                skus += p.skus;
+                totalSugestoes += p.totalSugestoes;
+                for (SugestaoTransferencia s : p.topo) {
+                    manterTopo(topo, s);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futuros.forEach(f -> f.cancel(true));
+            throw new IllegalStateException("Varredura de reposição interrompida", e);
+        } catch (ExecutionException e) {
+            futuros.forEach(f -> f.cancel(true));
+            throw new IllegalStateException("Falha na varredura de reposição", e.getCause());
+        }
+
+        List<SugestaoTransferencia> sugestoes = new ArrayList<>(topo);
+        sugestoes.sort(SugestaoTransferencia.ORDEM);
+        long tempoMs = (System.nanoTime() - inicio) / 1_000_000;
+
+        logger.info("Varredura de reposição concluída - Linhas: {}, SKUs: {}, Sugestões: {}, Tempo: {}ms",
+                   linhas, skus, totalSugestoes, tempoMs);
+        return new ResultadoReposicao(iniciadaEm, linhas, skus, totalSugestoes, sugestoes, tempoMs);
+    }
+
+    /**
+     * Menor e maior produtoId com estoque (em todos os fragmentos); null sem linhas
+     */
+    private long[] faixaProdutos() {
+        long[] faixa = {Long.MAX_VALUE, Long.MIN_VALUE};
+        Runnable ler = () -> jdbcTemplate.query(SQL_FAIXA_PRODUTOS, (RowCallbackHandler) rs -> {
+            if (rs.getObject(1) != null) {
+                faixa[0] = Math.min(faixa[0], rs.getLong(1));
+                faixa[1] = Math.max(faixa[1], rs.getLong(2));
+            }
+        });
+        RoteamentoFragmentos roteamento = fragmentos.getIfAvailable();
+        if (roteamento != null) {
+            roteamento.emCadaFragmento(fragmento -> ler.run());
+        } else {
+            ler.run();
+        }
+        return faixa[0] > faixa[1] ? null : faixa;
+    }
+
+    /**
+     * Lê uma faixa de produtos em streaming, agrupando linhas consecutivas do mesmo SKU
+     */
+    private Particao processarParticao(long de, long ate) {
+        Particao particao = new Particao();
+        GrupoSku grupo = new GrupoSku();
+        RoteamentoFragmentos roteamento = fragmentos.getIfAvailable();
+        if (roteamento != null) {
+            intercalarFragmentos(roteamento, de, ate, grupo, particao);
+        } else {
+            jdbcTemplate.query(consultaParticao(de, ate), (RowCallbackHandler) rs -> acumular(grupo, particao,
+                    rs.getLong(1), rs.getLong(2), rs.getInt(3), rs.getInt(4), rs.getInt(5)));
+        }
+        if (grupo.tamanho > 0) {
+            casar(grupo, particao);
+        }
+        return particao;
+    }
+
+    /**
+     * Um cursor por fragmento (a conexão é obtida com o contexto do fragmento e fica com o cursor),
+     * intercalados pelo menor produtoId
+     */
+    private void intercalarFragmentos(RoteamentoFragmentos roteamento, long de, long ate, GrupoSku grupo,
+                                      Particao particao) {
+        List<Stream<LinhaEstoque>> fluxos = new ArrayList<>();
+        try {
+            roteamento.emCadaFragmento(fragmento ->
+                    fluxos.add(jdbcTemplate.queryForStream(consultaParticao(de, ate), LINHA)));
+            List<Iterator<LinhaEstoque>> cursores = fluxos.stream().map(Stream::iterator).toList();
+            LinhaEstoque[] atuais = new LinhaEstoque[cursores.size()];
+            for (int i = 0; i < atuais.length; i++) {
+                atuais[i] = cursores.get(i).hasNext() ? cursores.get(i).next() : null;
+            }
+            while (true) {
+                int menor = -1;
+                for (int i = 0; i < atuais.length; i++) {
+                    if (atuais[i] != null && (menor < 0 || atuais[i].produtoId() < atuais[menor].produtoId())) {
+                        menor = i;
+                    }
+                }
+                if (menor < 0) {
+                    return;
+                }
+                LinhaEstoque linha = atuais[menor];
+                acumular(grupo, particao, linha.produtoId(), linha.lojaId(), linha.quantidade(), linha.reservado(),
+                        linha.estoqueMinimo());
+                atuais[menor] = cursores.get(menor).hasNext() ? cursores.get(menor).next() : null;
+            }
+        } finally {
+            fluxos.forEach(Stream::close);
+        }
+    }
+
+    private PreparedStatementCreator consultaParticao(long de, long ate) {
+        return con -> {
+            PreparedStatement ps = con.prepareStatement(SQL_PARTICAO);
+            ps.setFetchSize(tamanhoFetch);
+            ps.setLong(1, de);
+            ps.setLong(2, ate);
+            return ps;
+        };
+    }
+
+    /**
+     * Linhas chegam ordenadas por produto: a troca de produto fecha o SKU anterior
+     */
+    private void acumular(GrupoSku grupo, Particao particao, long produtoId, long lojaId, int quantidade,
+                          int reservado, int estoqueMinimo) {
+        if (grupo.tamanho > 0 && grupo.produtoId != produtoId) {
+            casar(grupo, particao);
+            grupo.limpar();
+        }
+        grupo.produtoId = produtoId;
+        grupo.adicionar(lojaId, quantidade, reservado, estoqueMinimo);
+        particao.linhas++;
+    }
+
+    /**
+     * Casa lojas com falta (mais urgentes primeiro) com lojas com excedente (maiores primeiro)
+     */
+    private void casar(GrupoSku grupo, Particao particao) {
+        particao.skus++;
+        List<int[]> faltas = new ArrayList<>();
+        List<int[]> excedentes = new ArrayList<>();
+        for (int i = 0; i < grupo.tamanho; i++) {
+            int disponivel = grupo.quantidades[i] - grupo.reservados[i];
+            int minimo = grupo.minimos[i];
+            if (grupo.quantidades[i] <= minimo) {
+                int necessidade = (int) Math.ceil(minimo * fatorAlvo) - disponivel;
+                if (necessidade > 0) {
+                    faltas.add(new int[]{i, necessidade});
+                }
+            } else {
+                int excedente = disponivel - (int) Math.ceil(minimo * fatorReserva);
+                if (excedente > 0) {
+                    excedentes.add(new int[]{i, excedente});
+                }
+            }
+        }
+        if (faltas.isEmpty() || excedentes.isEmpty()) {
+            return;
+        }
+
+        faltas.sort(Comparator.comparingDouble(f -> cobertura(grupo, f[0])));
+        excedentes.sort(Comparator.comparingInt((int[] e) -> e[1]).reversed());
+
+        for (int[] falta : faltas) {
+            int destino = falta[0];
+            double urgencia = 1.0 - cobertura(grupo, destino);
+            for (int[] excedente : ordenarPorDistancia(grupo, excedentes, destino)) {
+                if (falta[1] == 0) {
+                    break;
+                }
+                int quantidade = Math.min(falta[1], excedente[1]);
+                if (quantidade <= 0) {
+                    continue;
+                }
+                falta[1] -= quantidade;
+                excedente[1] -= quantidade;
+                int origem = excedente[0];
+                Double distancia = distanciaEntre(grupo.lojaIds[origem], grupo.lojaIds[destino]);
+                particao.totalSugestoes++;
+                manterTopo(particao.topo, new SugestaoTransferencia(grupo.produtoId, grupo.lojaIds[origem],
+                        grupo.lojaIds[destino], quantidade, grupo.quantidades[destino] - grupo.reservados[destino],
+                        grupo.minimos[destino], urgencia, distancia));
+            }
+        }
+    }
+
+    /**
+     * Sem cadastro de coordenadas mantém a ordem por excedente
+     */
+    private List<int[]> ordenarPorDistancia(GrupoSku grupo, List<int[]> excedentes, int destino) {
+        LojasProperties.Loja lojaDestino = lojas.buscar(grupo.lojaIds[destino]);
+        if (lojaDestino == null || !lojaDestino.temCoordenadas()) {
+            return excedentes;
+        }
+        List<int[]> ordenados = new ArrayList<>(excedentes);
+        ordenados.sort(Comparator.comparing(
+                (int[] e) -> distanciaEntre(grupo.lojaIds[e[0]], grupo.lojaIds[destino]),
+                Comparator.nullsLast(Comparator.naturalOrder())));
+        return ordenados;
+    }
+
+    private Double distanciaEntre(long origem, long destino) {
+        LojasProperties.Loja lojaDestino = lojas.buscar(destino);
+        if (lojaDestino == null || !lojaDestino.temCoordenadas()) {
+            return null;
+        }
+        return lojas.distanciaKm(origem, lojaDestino.getLatitude(), lojaDestino.getLongitude());
+    }
+
+    /**
+     * Fração do alvo coberta pelo disponível (0 = ruptura)
+     */
+    private double cobertura(GrupoSku grupo, int i) {
+        double alvo = Math.max(1.0, Math.ceil(grupo.minimos[i] * fatorAlvo));
+        return Math.max(0, grupo.quantidades[i] - grupo.reservados[i]) / alvo;
+    }
+
+    private void manterTopo(PriorityQueue<SugestaoTransferencia> topo, SugestaoTransferencia sugestao) {
+        if (topo.size() < maxSugestoes) {
+            topo.add(sugestao);
+        } else if (SugestaoTransferencia.ORDEM.compare(sugestao, topo.peek()) < 0) {
+            topo.poll();
+            topo.add(sugestao);
+        }
+    }
+
+    /**
+     * Linhas de um único SKU em arrays reutilizados entre SKUs
+     */
+    private static class GrupoSku {
+        long produtoId;
+        long[] lojaIds = new long[256];
+        int[] quantidades = new int[256];
+        int[] reservados = new int[256];
+        int[] minimos = new int[256];
+        int tamanho;
+
+        void adicionar(long lojaId, int quantidade, int reservado, int minimo) {
+            if (tamanho == lojaIds.length) {
+                int novaCapacidade = tamanho * 2;
+                lojaIds = Arrays.copyOf(lojaIds, novaCapacidade);
+                quantidades = Arrays.copyOf(quantidades, novaCapacidade);
+                reservados = Arrays.copyOf(reservados, novaCapacidade);
+                minimos = Arrays.copyOf(minimos, novaCapacidade);
+            }
+            lojaIds[tamanho] = lojaId;
+            quantidades[tamanho] = quantidade;
+            reservados[tamanho] = reservado;
+            minimos[tamanho] = minimo;
+            tamanho++;
+        }
+
+        void limpar() {
+            tamanho = 0;
+        }
+    }
+
+    private record LinhaEstoque(long produtoId, long lojaId, int quantidade, int reservado, int estoqueMinimo) {
+    }
+
+    /**
+     * Acumulado de uma partição (top-N local e contadores)
+     */
+    private static class Particao {
+        final PriorityQueue<SugestaoTransferencia> topo = new PriorityQueue<>(SugestaoTransferencia.ORDEM.reversed());
+        long linhas;
+        long skus;
+        long totalSugestoes;
+    }
+
+    /**
+     * Sugestão de transferência de uma loja com excedente para uma loja abaixo do mínimo
+     */
+    public static class SugestaoTransferencia {
+        /**
+         * Mais urgente primeiro; empate pela maior quantidade e pela menor distância
+         */
+        static final Comparator<SugestaoTransferencia> ORDEM = Comparator
+                .comparingDouble(SugestaoTransferencia::getUrgencia).reversed()
+                .thenComparing(Comparator.comparingInt(SugestaoTransferencia::getQuantidade).reversed())
+                .thenComparing(SugestaoTransferencia::getDistanciaKm, Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparingLong(SugestaoTransferencia::getProdutoId)
+                .thenComparingLong(SugestaoTransferencia::getLojaDestino);
+
+        private final long produtoId;
+        private final long lojaOrigem;
+        private final long lojaDestino;
+        private final int quantidade;
+        private final int disponivelDestino;
+        private final int estoqueMinimoDestino;
+        private final double urgencia;
+        private final Double distanciaKm;
+
+        public SugestaoTransferencia(long produtoId, long lojaOrigem, long lojaDestino, int quantidade,
+                                     int disponivelDestino, int estoqueMinimoDestino, double urgencia,
+                                     Double distanciaKm) {
+            this.produtoId = produtoId;
+            this.lojaOrigem = lojaOrigem;
+            this.lojaDestino = lojaDestino;
+            this.quantidade = quantidade;
+            this.disponivelDestino = disponivelDestino;
+            this.estoqueMinimoDestino = estoqueMinimoDestino;
+            this.urgencia = urgencia;
+            this.distanciaKm = distanciaKm;
+        }
+
+        // Getters
+        public long getProdutoId() { return produtoId; }
+        public long getLojaOrigem() { return lojaOrigem; }
+        public long getLojaDestino() { return lojaDestino; }
+        public int getQuantidade() { return quantidade; }
+        public int getDisponivelDestino() { return disponivelDestino; }
+        public int getEstoqueMinimoDestino() { return estoqueMinimoDestino; }
+        public double getUrgencia() { return urgencia; }
+        public Double getDistanciaKm() { return distanciaKm; }
+    }
+
+    /**
+     * Resultado de uma execução completa
+     */
+    public static class ResultadoReposicao {
+        private final LocalDateTime executadaEm;
+        private final long linhasLidas;
+        private final long skusAnalisados;
+        private final long totalSugestoes;
+        private final List<SugestaoTransferencia> sugestoes;
+        private final long tempoMs;
+
+        public ResultadoReposicao(LocalDateTime executadaEm, long linhasLidas, long skusAnalisados,
+                                  long totalSugestoes, List<SugestaoTransferencia> sugestoes, long tempoMs) {
+            this.executadaEm = executadaEm;
+            this.linhasLidas = linhasLidas;
+            this.skusAnalisados = skusAnalisados;
+            this.totalSugestoes = totalSugestoes;
+            this.sugestoes = sugestoes;
+            this.tempoMs = tempoMs;
+        }
+
+        // Getters
+        public LocalDateTime getExecutadaEm() { return executadaEm; }
+        public long getLinhasLidas() { return linhasLidas; }
+        public long getSkusAnalisados() { return skusAnalisados; }
+        public long getTotalSugestoes() { return totalSugestoes; }
+        public List<SugestaoTransferencia> getSugestoes() { return sugestoes; }
+        public long getTempoMs() { return tempoMs; }
+    }
+}
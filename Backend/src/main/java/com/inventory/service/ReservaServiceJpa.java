@@ -1,20 +1,26 @@
 package com.inventory.service;
 
 import com.inventory.model.Reserva;
+import com.inventory.model.ReservaHistorico;
+import com.inventory.repository.ReservaHistoricoJpaRepository;
 import com.inventory.repository.ReservaJpaRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 
 /**
  * Serviço de negócio para operações de reserva usando JPA
  * Substitui a implementação com arquivos JSON
+ *
+ * Reservas ativas ficam na tabela quente (reserva); confirmação, cancelamento e expiração movem a linha
+ * para reserva_historico. As consultas gerais juntam as duas tabelas.
  */
 @Service
 @Transactional
@@ -23,9 +29,12 @@ public class ReservaServiceJpa {
     private static final Logger logger = LoggerFactory.getLogger(ReservaServiceJpa.class);
     
     private final ReservaJpaRepository reservaRepository;
+    private final ReservaHistoricoJpaRepository historicoRepository;
     
-    public ReservaServiceJpa(ReservaJpaRepository reservaRepository) {
+    public ReservaServiceJpa(ReservaJpaRepository reservaRepository,
+                             ReservaHistoricoJpaRepository historicoRepository) {
         this.reservaRepository = reservaRepository;
+        this.historicoRepository = historicoRepository;
     }
     
     /**
@@ -69,7 +78,11 @@ public class ReservaServiceJpa {
     @Transactional(readOnly = true)
     public Optional<Reserva> buscarReserva(String reservaId) {
         logger.debug("Buscando reserva: {}", reservaId);
-        return reservaRepository.findById(reservaId);
+        Optional<Reserva> ativa = reservaRepository.findById(reservaId);
+        if (ativa.isPresent()) {
+            return ativa;
+        }
+        return historicoRepository.findById(reservaId).map(ReservaHistorico::paraReserva);
     }
     
     /**
@@ -78,7 +91,7 @@ public class ReservaServiceJpa {
     @Transactional(readOnly = true)
     public List<Reserva> listarReservasPorCliente(String clienteId) {
         logger.debug("Listando reservas do cliente: {}", clienteId);
-        return reservaRepository.findByClienteId(clienteId);
+        return juntar(reservaRepository.findByClienteId(clienteId), historicoRepository.findByClienteId(clienteId));
     }
     
     /**
@@ -87,7 +100,7 @@ public class ReservaServiceJpa {
     @Transactional(readOnly = true)
     public List<Reserva> listarReservasPorLoja(Long lojaId) {
         logger.debug("Listando reservas da loja: {}", lojaId);
-        return reservaRepository.findByLojaId(lojaId);
+        return juntar(reservaRepository.findByLojaId(lojaId), historicoRepository.findByLojaId(lojaId));
     }
     
     /**
@@ -96,7 +109,7 @@ public class ReservaServiceJpa {
     @Transactional(readOnly = true)
     public List<Reserva> listarReservasPorProduto(Long produtoId) {
         logger.debug("Listando reservas do produto: {}", produtoId);
-        return reservaRepository.findByProdutoId(produtoId);
+        return juntar(reservaRepository.findByProdutoId(produtoId), historicoRepository.findByProdutoId(produtoId));
     }
     
     /**
@@ -118,43 +131,55 @@ public class ReservaServiceJpa {
     }
     
     /**
-     * Confirma reserva (marca como CONFIRMADA)
+     * Confirma reserva (move para o histórico como CONFIRMADA)
      */
     public void confirmarReserva(String reservaId) {
         logger.info("Confirmando reserva: {}", reservaId);
         
-        Reserva reserva = reservaRepository.findById(reservaId)
+        Reserva reserva = buscarReserva(reservaId)
                 .orElseThrow(() -> new IllegalArgumentException("Reserva não encontrada: " + reservaId));
         
-        if (!reserva.isAtiva()) {
+        // 0 linhas: outra transação finalizou a reserva depois da leitura
+        if (!reserva.isAtiva() || reservaRepository.moverParaHistorico(reservaId,
+                Reserva.StatusReserva.CONFIRMADA.name()) == 0) {
             throw new IllegalStateException("Reserva não está ativa para confirmação");
         }
         
-        reserva.confirmar();
-        reservaRepository.save(reserva);
-        
         logger.info("Reserva confirmada com sucesso: {}", reservaId);
     }
     
     /**
-     * Cancela reserva (marca como CANCELADA)
+     * Cancela reserva (move para o histórico como CANCELADA); só reservas ativas
      */
     public void cancelarReserva(String reservaId) {
         logger.info("Cancelando reserva: {}", reservaId);
         
-        Reserva reserva = reservaRepository.findById(reservaId)
-                .orElseThrow(() -> new IllegalArgumentException("Reserva não encontrada: " + reservaId));
-        
-        if (reserva.getStatus() == Reserva.StatusReserva.CONFIRMADA) {
-            throw new IllegalStateException("Não é possível cancelar reserva já confirmada");
+        // 0 linhas: já finalizada (confirmada, cancelada ou expirada), agora ou por outra transação
+        if (reservaRepository.moverParaHistorico(reservaId, Reserva.StatusReserva.CANCELADA.name()) == 0) {
+            if (!historicoRepository.existsById(reservaId)) {
+                throw new IllegalArgumentException("Reserva não encontrada: " + reservaId);
+            }
+            throw new IllegalStateException("Reserva não está ativa para cancelamento");
         }
         
-        reserva.cancelar();
-        reservaRepository.save(reserva);
-        
         logger.info("Reserva cancelada com sucesso: {}", reservaId);
     }
     
+    /**
+     * Move a reserva vencida para o histórico como EXPIRADA; false quando já não está ativa e vencida
+     */
+    public boolean expirarReserva(String reservaId) {
+        return reservaRepository.expirar(reservaId, Reserva.StatusReserva.EXPIRADA.name()) == 1;
+    }
+    
+    /**
+     * Lista reservas vencidas ainda ativas (sem as de cota, que esperam a liquidação)
+     */
+    @Transactional(readOnly = true)
+    public List<Reserva> listarReservasVencidas() {
+        return reservaRepository.findReservasExpiradas();
+    }
+    
     /**
      * Verifica se existe reserva ativa para produto
      */
@@ -193,7 +218,10 @@ public class ReservaServiceJpa {
      */
     @Transactional(readOnly = true)
     public List<Reserva> listarReservasPorStatus(Reserva.StatusReserva status) {
-        return reservaRepository.findByStatus(status);
+        if (status == Reserva.StatusReserva.ATIVA) {
+            return reservaRepository.findByStatus(status);
+        }
+        return juntar(List.of(), historicoRepository.findByStatus(status));
     }
     
     /**
@@ -201,7 +229,10 @@ public class ReservaServiceJpa {
      */
     @Transactional(readOnly = true)
     public Long contarReservasPorStatus(Reserva.StatusReserva status) {
-        return reservaRepository.countByStatus(status);
+        if (status == Reserva.StatusReserva.ATIVA) {
+            return reservaRepository.countByStatus(status);
+        }
+        return historicoRepository.countByStatus(status);
     }
     
     /**
@@ -209,7 +240,10 @@ public class ReservaServiceJpa {
      */
     @Transactional(readOnly = true)
     public List<Reserva> listarUltimasReservasPorCliente(String clienteId) {
-        return reservaRepository.findUltimasReservasByCliente(clienteId);
+        List<Reserva> reservas = juntar(reservaRepository.findUltimasReservasByCliente(clienteId),
+                historicoRepository.findUltimasReservasByCliente(clienteId));
+        reservas.sort(Comparator.comparing(Reserva::getCriadaEm).reversed());
+        return reservas;
     }
     
     /**
@@ -217,36 +251,8 @@ public class ReservaServiceJpa {
      */
     @Transactional(readOnly = true)
     public List<Reserva> listarReservasPorPeriodo(LocalDateTime inicio, LocalDateTime fim) {
-        return reservaRepository.findReservasPorPeriodo(inicio, fim);
-    }
-    
-    /**
-     * Job automático para marcar reservas expiradas
-     * Executa a cada 5 minutos
-     */
-    @Scheduled(fixedRate = 300000) // 5 minutos em milissegundos
-    public void processarReservasExpiradas() {
-        logger.debug("Processando reservas expiradas...");
-        
-        int reservasExpiradas = reservaRepository.marcarReservasExpiradas();
-        
-        if (reservasExpiradas > 0) {
-            logger.info("Marcadas {} reservas como expiradas", reservasExpiradas);
-        }
-    }
-    
-    /**
-     * Limpeza de reservas antigas (mais de 30 dias)
-     * Executa diariamente à meia-noite
-     */
-    @Scheduled(cron = "0 0 0 * * *")
-    public void limparReservasAntigas() {
-        logger.info("Iniciando limpeza de reservas antigas...");
-        
-        LocalDateTime dataLimite = LocalDateTime.now().minusDays(30);
-        int reservasRemovidas = reservaRepository.removeReservasAntigas(dataLimite);
-        
-        logger.info("Removidas {} reservas antigas (mais de 30 dias)", reservasRemovidas);
+        return juntar(reservaRepository.findReservasPorPeriodo(inicio, fim),
+                historicoRepository.findReservasPorPeriodo(inicio, fim));
     }
     
     /**
@@ -254,15 +260,25 @@ public class ReservaServiceJpa {
      */
     @Transactional(readOnly = true)
     public ReservaStats getEstatisticas() {
-        Long ativas = reservaRepository.countByStatus(Reserva.StatusReserva.ATIVA);
-        Long confirmadas = reservaRepository.countByStatus(Reserva.StatusReserva.CONFIRMADA);
-        Long canceladas = reservaRepository.countByStatus(Reserva.StatusReserva.CANCELADA);
-        Long expiradas = reservaRepository.countByStatus(Reserva.StatusReserva.EXPIRADA);
+        Long ativas = reservaRepository.count();
+        Long confirmadas = historicoRepository.countByStatus(Reserva.StatusReserva.CONFIRMADA);
+        Long canceladas = historicoRepository.countByStatus(Reserva.StatusReserva.CANCELADA);
+        Long expiradas = historicoRepository.countByStatus(Reserva.StatusReserva.EXPIRADA);
         Long total = ativas + confirmadas + canceladas + expiradas;
         
         return new ReservaStats(total, ativas, confirmadas, canceladas, expiradas);
     }
     
+    /**
+     * Ativas seguidas das finalizadas (cópias desanexadas do histórico)
+     */
+    private List<Reserva> juntar(List<Reserva> ativas, List<ReservaHistorico> finalizadas) {
+        List<Reserva> reservas = new ArrayList<>(ativas.size() + finalizadas.size());
+        reservas.addAll(ativas);
+        finalizadas.forEach(h -> reservas.add(h.paraReserva()));
+        return reservas;
+    }
+    
     /**
      * Classe para estatísticas de reservas
      */
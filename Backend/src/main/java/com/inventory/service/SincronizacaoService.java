@@ -0,0 +1,205 @@
+package com.inventory.service;
+
+import com.inventory.config.fragmentacao.ContextoFragmento;
+import com.inventory.model.EstoqueProduto;
+import com.inventory.model.EstoqueRemocao;
+import com.inventory.model.HorizonteRemocao;
+import com.inventory.repository.EstoqueJpaRepository;
+import com.inventory.repository.EstoqueRemocaoJpaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sincronização incremental do estoque de uma loja (PDV offline)
+ *
+ * Toda alteração em estoque_produto recebe o próximo valor da sequência de alterações e toda remoção
+ * deixa uma marca (EstoqueRemocao) na mesma sequência. O cliente guarda a última sequência recebida
+ * e pede só o que mudou depois dela.
+ *
+ * Sequências são atribuídas no statement, mas ficam visíveis só no commit: uma transação lenta pode
+ * publicar a sequência 10 depois que a 11 já foi lida. Por isso as consultas param na marca segura,
+ * o valor da sequência amostrado há pelo menos uma janela (inventario.sincronizacao.janela-ms),
+ * que deve ser maior que a duração das transações de escrita.
+ *
+ * O horizonte das marcas de remoção já apagadas fica no banco (horizonte_remocao), não na memória do nó:
+ * depois de um reinício ou em outro nó, clientes anteriores a ele continuam recebendo ressincronizar.
+ *
+ * Com fragmentação o serviço é roteado por loja: cada fragmento tem sua sequência, suas marcas e seu
+ * horizonte, e a amostragem agendada roda em todos os fragmentos guardando uma marca segura por fragmento.
+ */
+@Service
+public class SincronizacaoService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SincronizacaoService.class);
+
+    private static final String SQL_SEQUENCIA =
+            "SELECT BASE_VALUE - 1 FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = ?";
+
+    private static final String SQL_HORIZONTE =
+            "SELECT sequencia FROM horizonte_remocao WHERE id = ?";
+
+    private static final String SQL_CRIAR_HORIZONTE =
+            "INSERT INTO horizonte_remocao (id, sequencia, atualizado_em) " +
+            "SELECT ?, 0, LOCALTIMESTAMP WHERE NOT EXISTS (SELECT 1 FROM horizonte_remocao WHERE id = ?)";
+
+    private static final String SQL_AVANCAR_HORIZONTE =
+            "UPDATE horizonte_remocao SET sequencia = GREATEST(sequencia, ?), atualizado_em = LOCALTIMESTAMP " +
+            "WHERE id = ?";
+
+    private final EstoqueJpaRepository estoqueRepository;
+    private final EstoqueRemocaoJpaRepository remocaoRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final int limiteMaximo;
+    private final int retencaoRemocoesDias;
+
+    // fragmento → amostras da sequência (0 sem fragmentação)
+    private final Map<Integer, Amostra> amostras = new ConcurrentHashMap<>();
+
+    public SincronizacaoService(EstoqueJpaRepository estoqueRepository,
+                                EstoqueRemocaoJpaRepository remocaoRepository,
+                                JdbcTemplate jdbcTemplate,
+                                @Value("${inventario.sincronizacao.limite-maximo:1000}") int limiteMaximo,
+                                @Value("${inventario.sincronizacao.retencao-remocoes-dias:30}") int retencaoRemocoesDias) {
+        this.estoqueRepository = estoqueRepository;
+        this.remocaoRepository = remocaoRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.limiteMaximo = limiteMaximo;
+        this.retencaoRemocoesDias = retencaoRemocoesDias;
+    }
+
+    /**
+     * Avança a marca segura para a amostra da janela anterior e amostra o valor atual da sequência
+     */
+    @Scheduled(fixedDelayString = "${inventario.sincronizacao.janela-ms:3000}")
+    public void amostrarSequencia() {
+        Long atual = jdbcTemplate.queryForObject(SQL_SEQUENCIA, Long.class,
+                EstoqueRemocao.SEQUENCIA_ALTERACAO.toUpperCase());
+        amostras.compute(fragmentoAtual(), (fragmento, anterior) ->
+                new Amostra(atual != null ? atual : 0L, anterior == null ? 0L : anterior.ultima()));
+    }
+
+    /**
+     * Alterações e remoções da loja depois de {@code desde}, em ordem de sequência, até {@code limite} itens
+     *
+     * Usa o banco primário (transação de escrita): a marca segura vem do primário e uma réplica
+     * atrasada poderia omitir linhas abaixo dela.
+     */
+    @Transactional
+    public Alteracoes buscarAlteracoes(Long lojaId, long desde, int limite) {
+        if (desde < 0 || limite <= 0) {
+            throw new IllegalArgumentException("Sequência inicial não pode ser negativa e limite deve ser positivo");
+        }
+        if (desde > 0) {
+            long horizonte = horizonteRemocoes();
+            if (desde < horizonte) {
+                logger.info("Sincronização da loja {} desde {} anterior ao horizonte de remoções {}; ressincronizar",
+                           lojaId, desde, horizonte);
+                return new Alteracoes(List.of(), 0L, false, true);
+            }
+        }
+
+        Amostra amostra = amostras.getOrDefault(fragmentoAtual(), Amostra.VAZIA);
+        long ate = amostra.marcaSegura();
+        if (ate > 0 && desde > amostra.ultima()) {
+            logger.info("Sincronização da loja {} desde {} além da sequência atual; ressincronizar", lojaId, desde);
+            return new Alteracoes(List.of(), 0L, false, true);
+        }
+        if (desde >= ate) {
+            return new Alteracoes(List.of(), desde, false, false);
+        }
+
+        int tamanho = Math.min(limite, limiteMaximo);
+        PageRequest pagina = PageRequest.of(0, tamanho + 1);
+        List<EstoqueProduto> alterados = estoqueRepository.findAlteracoes(lojaId, desde, ate, pagina);
+        List<EstoqueRemocao> removidos = remocaoRepository.findRemocoes(lojaId, desde, ate, pagina);
+
+        // intercala as duas listas (já ordenadas) até o tamanho da página
+        List<ItemAlteracao> itens = new ArrayList<>(Math.min(tamanho, alterados.size() + removidos.size()));
+        int a = 0;
+        int r = 0;
+        while (itens.size() < tamanho && (a < alterados.size() || r < removidos.size())) {
+            if (r >= removidos.size() || (a < alterados.size() &&
+                    alterados.get(a).getSequenciaAlteracao() < removidos.get(r).getSequenciaAlteracao())) {
+                EstoqueProduto estoque = alterados.get(a++);
+                itens.add(new ItemAlteracao(estoque.getSequenciaAlteracao(), estoque.getProdutoId(), estoque));
+            } else {
+                EstoqueRemocao remocao = removidos.get(r++);
+                itens.add(new ItemAlteracao(remocao.getSequenciaAlteracao(), remocao.getProdutoId(), null));
+            }
+        }
+        boolean temMais = a < alterados.size() || r < removidos.size();
+        long proximo = temMais ? itens.get(itens.size() - 1).sequencia() : ate;
+
+        logger.debug("Sincronização loja {} - Desde: {}, Até: {}, Itens: {}, Mais: {}",
+                    lojaId, desde, ate, itens.size(), temMais);
+        return new Alteracoes(itens, proximo, temMais, false);
+    }
+
+    /**
+     * Job diário de limpeza das marcas de remoção além da retenção (padrão: 03:15)
+     *
+     * Clientes com sequência anterior ao horizonte limpo recebem ressincronizar=true.
+     */
+    @Scheduled(cron = "${inventario.sincronizacao.limpeza-cron:0 15 3 * * *}")
+    @Transactional
+    public void limparRemocoes() {
+        Long sequencia = remocaoRepository.findMaxSequenciaAntesDe(
+                LocalDateTime.now().minusDays(retencaoRemocoesDias));
+        if (sequencia == null) {
+            return;
+        }
+        int removidas = remocaoRepository.deleteAteSequencia(sequencia);
+        try {
+            jdbcTemplate.update(SQL_CRIAR_HORIZONTE, HorizonteRemocao.ID, HorizonteRemocao.ID);
+        } catch (DuplicateKeyException e) {
+            // criado por outro nó ao mesmo tempo
+        }
+        jdbcTemplate.update(SQL_AVANCAR_HORIZONTE, sequencia, HorizonteRemocao.ID);
+        logger.info("Marcas de remoção expiradas: {} (horizonte: {})", removidas, horizonteRemocoes());
+    }
+
+    /**
+     * Maior sequência cujas marcas de remoção já foram apagadas (0 se nenhuma)
+     */
+    private long horizonteRemocoes() {
+        List<Long> horizonte = jdbcTemplate.queryForList(SQL_HORIZONTE, Long.class, HorizonteRemocao.ID);
+        return horizonte.isEmpty() ? 0L : horizonte.get(0);
+    }
+
+    private static int fragmentoAtual() {
+        Integer fragmento = ContextoFragmento.atual();
+        return fragmento == null ? 0 : fragmento;
+    }
+
+    /**
+     * Última amostra da sequência e a da janela anterior (marca segura)
+     */
+    private record Amostra(long ultima, long marcaSegura) {
+        static final Amostra VAZIA = new Amostra(0L, 0L);
+    }
+
+    /**
+     * Página de alterações; {@code proximo} é a sequência a enviar na próxima chamada
+     */
+    public record Alteracoes(List<ItemAlteracao> itens, long proximo, boolean temMais, boolean ressincronizar) {
+    }
+
+    /**
+     * Estoque alterado ou, com {@code estoque} nulo, removido
+     */
+    public record ItemAlteracao(long sequencia, Long produtoId, EstoqueProduto estoque) {
+    }
+}
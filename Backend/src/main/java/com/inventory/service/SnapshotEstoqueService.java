@@ -0,0 +1,240 @@
+package com.inventory.service;
+
+import com.inventory.config.fragmentacao.RoteamentoFragmentos;
+import com.inventory.snapshot.ArquivoSnapshotReader;
+import com.inventory.snapshot.ArquivoSnapshotReader.EstatisticaLeitura;
+import com.inventory.snapshot.ArquivoSnapshotWriter;
+import com.inventory.snapshot.FiltroSnapshot;
+import com.inventory.snapshot.LinhaSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Snapshots diários do estoque em arquivos colunares para consultas históricas
+ * As consultas leem apenas os arquivos, nunca as tabelas OLTP.
+ * Com fragmentação, o snapshot de uma data reúne as linhas de todos os fragmentos num único arquivo.
+ */
+@Service
+public class SnapshotEstoqueService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotEstoqueService.class);
+
+    private static final String PREFIXO = "estoque-";
+    private static final String EXTENSAO = ".snap";
+
+    private static final String SQL_ESTOQUE =
+            "SELECT loja_id, produto_id, quantidade, reservado, estoque_minimo FROM estoque_produto " +
+            "ORDER BY loja_id, produto_id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectProvider<RoteamentoFragmentos> fragmentos;
+    private final Path diretorio;
+    private final int linhasPorGrupo;
+    private final int retencaoDias;
+
+    public SnapshotEstoqueService(JdbcTemplate jdbcTemplate, ObjectProvider<RoteamentoFragmentos> fragmentos,
+                                  @Value("${inventario.snapshot.diretorio:./snapshots}") String diretorio,
+                                  @Value("${inventario.snapshot.linhas-por-grupo:65536}") int linhasPorGrupo,
+                                  @Value("${inventario.snapshot.retencao-dias:400}") int retencaoDias) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.fragmentos = fragmentos;
+        this.diretorio = Paths.get(diretorio);
+        this.linhasPorGrupo = linhasPorGrupo;
+        this.retencaoDias = retencaoDias;
+    }
+
+    /**
+     * Job diário de snapshot (padrão: 00:05)
+     */
+    @Scheduled(cron = "${inventario.snapshot.cron:0 5 0 * * *}")
+    public void gerarSnapshotDiario() {
+        gerarSnapshot(LocalDate.now());
+        removerSnapshotsExpirados();
+    }
+
+    /**
+     * Grava o estado atual de estoque_produto como snapshot da data informada
+     * Escreve em arquivo temporário e renomeia ao final: leitores nunca veem arquivo parcial
+     */
+    public ResumoSnapshot gerarSnapshot(LocalDate data) {
+        long inicio = System.nanoTime();
+        Path destino = arquivoDe(data);
+        Path temporario = destino.resolveSibling(destino.getFileName() + ".tmp");
+        logger.info("Gerando snapshot de estoque - Data: {}, Arquivo: {}", data, destino);
+
+        try {
+            Files.createDirectories(diretorio);
+            long linhas;
+            try (ArquivoSnapshotWriter writer = new ArquivoSnapshotWriter(temporario, data, linhasPorGrupo)) {
+                Runnable copiar = () -> jdbcTemplate.query(con -> {
+                    PreparedStatement ps = con.prepareStatement(SQL_ESTOQUE);
+                    ps.setFetchSize(linhasPorGrupo);
+                    return ps;
+                }, rs -> {
+                    try {
+                        writer.adicionar(rs.getLong(1), rs.getLong(2), rs.getInt(3), rs.getInt(4), rs.getInt(5));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                RoteamentoFragmentos roteamento = fragmentos.getIfAvailable();
+                if (roteamento != null) {
+                    // cada loja está em um único fragmento: os fragmentos em sequência mantêm as lojas contíguas
+                    roteamento.emCadaFragmento(fragmento -> copiar.run());
+                } else {
+                    copiar.run();
+                }
+                linhas = writer.getTotalLinhas();
+            }
+            Files.move(temporario, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            long bytes = Files.size(destino);
+            long tempoMs = (System.nanoTime() - inicio) / 1_000_000;
+            logger.info("Snapshot gerado - Data: {}, Linhas: {}, Bytes: {}, Tempo: {}ms", data, linhas, bytes, tempoMs);
+            return new ResumoSnapshot(data, linhas, bytes, tempoMs);
+
+        } catch (IOException | UncheckedIOException e) {
+            throw new IllegalStateException("Falha ao gerar snapshot de " + data, e);
+        } finally {
+            // qualquer falha (inclusive DataAccessException da consulta) não deixa o .tmp para trás;
+            // depois do rename o temporário já não existe
+            try {
+                Files.deleteIfExists(temporario);
+            } catch (IOException ignored) {
+                // arquivo temporário será sobrescrito na próxima execução
+            }
+        }
+    }
+
+    /**
+     * Datas com snapshot disponível, em ordem crescente
+     */
+    public List<LocalDate> listarDatas() {
+        if (!Files.isDirectory(diretorio)) {
+            return List.of();
+        }
+        try (Stream<Path> arquivos = Files.list(diretorio)) {
+            return arquivos.map(p -> p.getFileName().toString())
+                    .filter(nome -> nome.startsWith(PREFIXO) && nome.endsWith(EXTENSAO))
+                    .map(nome -> nome.substring(PREFIXO.length(), nome.length() - EXTENSAO.length()))
+                    .flatMap(texto -> {
+                        try {
+                            return Stream.of(LocalDate.parse(texto));
+                        } catch (DateTimeParseException e) {
+                            return Stream.empty();
+                        }
+                    })
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Consulta snapshots de um intervalo de datas com pushdown do filtro
+     */
+    public ResultadoHistorico consultar(LocalDate de, LocalDate ate, FiltroSnapshot filtro, int limite) {
+        List<LinhaSnapshot> linhas = new ArrayList<>();
+        EstatisticaLeitura estatistica = new EstatisticaLeitura();
+        List<LocalDate> datas = listarDatas().stream()
+                .filter(d -> !d.isBefore(de) && !d.isAfter(ate))
+                .toList();
+
+        for (LocalDate data : datas) {
+            if (linhas.size() >= limite) {
+                break;
+            }
+            try (ArquivoSnapshotReader reader = ArquivoSnapshotReader.abrir(arquivoDe(data))) {
+                reader.ler(filtro, limite, linhas, estatistica);
+            } catch (IOException e) {
+                logger.error("Falha ao ler snapshot de {}", data, e);
+                throw new UncheckedIOException(e);
+            }
+        }
+        return new ResultadoHistorico(datas, linhas, estatistica);
+    }
+
+    /**
+     * Remove snapshots mais antigos que a retenção configurada
+     */
+    public void removerSnapshotsExpirados() {
+        LocalDate limite = LocalDate.now().minusDays(retencaoDias);
+        for (LocalDate data : listarDatas()) {
+            if (data.isBefore(limite)) {
+                try {
+                    Files.deleteIfExists(arquivoDe(data));
+                    logger.info("Snapshot expirado removido - Data: {}", data);
+                } catch (IOException e) {
+                    logger.warn("Falha ao remover snapshot de {}", data, e);
+                }
+            }
+        }
+    }
+
+    private Path arquivoDe(LocalDate data) {
+        return diretorio.resolve(PREFIXO + data + EXTENSAO);
+    }
+
+    /**
+     * Resumo de um snapshot gerado
+     */
+    public static class ResumoSnapshot {
+        private final LocalDate data;
+        private final long linhas;
+        private final long bytes;
+        private final long tempoMs;
+
+        public ResumoSnapshot(LocalDate data, long linhas, long bytes, long tempoMs) {
+            this.data = data;
+            this.linhas = linhas;
+            this.bytes = bytes;
+            this.tempoMs = tempoMs;
+        }
+
+        // Getters
+        public LocalDate getData() { return data; }
+        public long getLinhas() { return linhas; }
+        public long getBytes() { return bytes; }
+        public long getTempoMs() { return tempoMs; }
+    }
+
+    /**
+     * Resultado de consulta histórica
+     */
+    public static class ResultadoHistorico {
+        private final List<LocalDate> datasConsultadas;
+        private final List<LinhaSnapshot> linhas;
+        private final EstatisticaLeitura estatistica;
+
+        public ResultadoHistorico(List<LocalDate> datasConsultadas, List<LinhaSnapshot> linhas,
+                                  EstatisticaLeitura estatistica) {
+            this.datasConsultadas = datasConsultadas;
+            this.linhas = linhas;
+            this.estatistica = estatistica;
+        }
+
+        // Getters
+        public List<LocalDate> getDatasConsultadas() { return datasConsultadas; }
+        public List<LinhaSnapshot> getLinhas() { return linhas; }
+        public EstatisticaLeitura getEstatistica() { return estatistica; }
+    }
+}
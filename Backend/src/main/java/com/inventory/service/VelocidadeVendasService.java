@@ -0,0 +1,283 @@
+package com.inventory.service;
+
+import com.inventory.config.LojasProperties;
+import com.inventory.config.fragmentacao.RoteamentoFragmentos;
+import com.inventory.event.VendaConfirmadaEvent;
+import com.inventory.velocidade.TabelaVelocidade;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Velocidade de vendas por produto/loja e estoque mínimo dinâmico
+ *
+ * Cada venda confirmada atualiza, depois do commit, uma média móvel exponencial em memória (sem escrita
+ * no banco por evento). Na subida a tabela é aquecida com as vendas confirmadas recentes de reserva_historico.
+ * Periodicamente o estoque mínimo de cada par com vendas vira velocidade x (prazo de reposição da loja +
+ * dias de segurança), gravado em lotes por loja; pares sem vendas mantêm o mínimo cadastrado. A tabela guarda o
+ * último mínimo gravado de cada par, então cada recálculo só escreve os que mudaram.
+ */
+@Service
+public class VelocidadeVendasService {
+
+    private static final Logger logger = LoggerFactory.getLogger(VelocidadeVendasService.class);
+
+    private static final String SQL_VENDAS_RECENTES =
+            "SELECT produto_id, loja_id, quantidade, finalizada_em FROM reserva_historico " +
+            "WHERE criada_em >= ? AND status = 'CONFIRMADA'";
+
+    private final TabelaVelocidade tabela;
+    private final JdbcTemplate jdbcTemplate;
+    private final InventarioService inventarioService;
+    private final IndiceDisponibilidade indiceDisponibilidade;
+    private final LojasProperties lojas;
+    private final ObjectProvider<RoteamentoFragmentos> fragmentos;
+    private final AtomicLong vendasRegistradas = new AtomicLong();
+
+    private final int historicoDias;
+    private final double diasSeguranca;
+    private final int minimoPiso;
+    private final double taxaMinima;
+
+    private volatile ResultadoRecalculo ultimoRecalculo;
+
+    public VelocidadeVendasService(JdbcTemplate jdbcTemplate,
+                                   InventarioService inventarioService,
+                                   IndiceDisponibilidade indiceDisponibilidade,
+                                   LojasProperties lojas,
+                                   ObjectProvider<RoteamentoFragmentos> fragmentos,
+                                   @Value("${inventario.velocidade.meia-vida-dias:7}") double meiaVidaDias,
+                                   @Value("${inventario.velocidade.capacidade-inicial:65536}") int capacidadeInicial,
+                                   @Value("${inventario.velocidade.historico-dias:28}") int historicoDias,
+                                   @Value("${inventario.velocidade.dias-seguranca:2}") double diasSeguranca,
+                                   @Value("${inventario.velocidade.minimo-piso:1}") int minimoPiso,
+                                   @Value("${inventario.velocidade.taxa-minima:0.01}") double taxaMinima) {
+        this.tabela = new TabelaVelocidade(meiaVidaDias, capacidadeInicial);
+        this.jdbcTemplate = jdbcTemplate;
+        this.inventarioService = inventarioService;
+        this.indiceDisponibilidade = indiceDisponibilidade;
+        this.lojas = lojas;
+        this.fragmentos = fragmentos;
+        this.historicoDias = historicoDias;
+        this.diasSeguranca = diasSeguranca;
+        this.minimoPiso = minimoPiso;
+        this.taxaMinima = taxaMinima;
+    }
+
+    /**
+     * Aquece a tabela com as vendas confirmadas dos últimos dias (vendas mais antigas já pesam pouco)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void carregarHistorico() {
+        long inicio = System.nanoTime();
+        Timestamp desde = Timestamp.valueOf(LocalDateTime.now().minusDays(historicoDias));
+        long[] vendas = new long[1];
+        Runnable carregar = () -> jdbcTemplate.query(SQL_VENDAS_RECENTES, rs -> {
+            tabela.registrar(rs.getLong(1), rs.getLong(2), rs.getInt(3), rs.getTimestamp(4).getTime());
+            vendas[0]++;
+        }, desde);
+        RoteamentoFragmentos roteamento = fragmentos.getIfAvailable();
+        if (roteamento != null) {
+            roteamento.emCadaFragmento(fragmento -> carregar.run());
+        } else {
+            carregar.run();
+        }
+
+        logger.info("Velocidade de vendas carregada do histórico - Vendas: {}, Pares: {}, Tempo: {}ms",
+                   vendas[0], tabela.tamanho(), (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    /**
+     * Soma a venda à velocidade do par depois do commit da confirmação
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onVendaConfirmada(VendaConfirmadaEvent event) {
+        tabela.registrar(event.getProdutoId(), event.getLojaId(), event.getQuantidade(), System.currentTimeMillis());
+        vendasRegistradas.incrementAndGet();
+    }
+
+    /**
+     * Execução agendada (padrão: a cada 15 minutos)
+     */
+    @Scheduled(initialDelayString = "${inventario.velocidade.recalculo-ms:900000}",
+               fixedDelayString = "${inventario.velocidade.recalculo-ms:900000}")
+    public void execucaoAgendada() {
+        recalcularMinimos();
+    }
+
+    /**
+     * Disparo manual sem bloquear a requisição (fora da requisição cada loja abre a sua transação, no seu fragmento)
+     */
+    @Async
+    public void recalcularEmSegundoPlano() {
+        try {
+            recalcularMinimos();
+        } catch (Exception e) {
+            logger.error("Erro no recálculo do estoque mínimo", e);
+        }
+    }
+
+    /**
+     * Recalcula e grava o estoque mínimo dos pares com vendas, uma transação por loja
+     *
+     * Uma loja com falha fica sem marca e é regravada no recálculo seguinte.
+     */
+    public synchronized ResultadoRecalculo recalcularMinimos() {
+        long inicio = System.nanoTime();
+        long agora = System.currentTimeMillis();
+        tabela.compactar(agora, taxaMinima);
+
+        Map<Long, MinimosLoja> porLoja = new HashMap<>();
+        int[] pares = new int[1];
+        tabela.paraCada(agora, (produtoId, lojaId, taxa, gravado) -> {
+            pares[0]++;
+            int minimo = minimo(lojaId, taxa);
+            if (minimo != gravado) {
+                porLoja.computeIfAbsent(lojaId, id -> new MinimosLoja()).adicionar(produtoId, minimo);
+            }
+        });
+
+        int enviados = 0;
+        int alterados = 0;
+        for (Map.Entry<Long, MinimosLoja> loja : porLoja.entrySet()) {
+            MinimosLoja minimos = loja.getValue();
+            try {
+                alterados += inventarioService.atualizarEstoqueMinimo(loja.getKey(),
+                        Arrays.copyOf(minimos.produtoIds, minimos.tamanho),
+                        Arrays.copyOf(minimos.minimos, minimos.tamanho));
+            } catch (Exception e) {
+                logger.error("Erro ao gravar estoque mínimo da loja: {}", loja.getKey(), e);
+                continue;
+            }
+            for (int i = 0; i < minimos.tamanho; i++) {
+                tabela.marcar(minimos.produtoIds[i], loja.getKey(), minimos.minimos[i]);
+            }
+            enviados += minimos.tamanho;
+        }
+
+        ResultadoRecalculo resultado = new ResultadoRecalculo(LocalDateTime.now(), pares[0], enviados, alterados,
+                (System.nanoTime() - inicio) / 1_000_000);
+        ultimoRecalculo = resultado;
+        logger.info("Estoque mínimo recalculado - Pares: {}, Enviados: {}, Alterados: {}, Tempo: {}ms",
+                   resultado.pares(), enviados, alterados, resultado.tempoMs());
+        return resultado;
+    }
+
+    /**
+     * Unidades vendidas por dia (média móvel exponencial; 0 sem vendas registradas)
+     */
+    public double taxaDiaria(long produtoId, long lojaId) {
+        return tabela.taxa(produtoId, lojaId, System.currentTimeMillis());
+    }
+
+    /**
+     * Itens da loja com vendas, do que acaba primeiro ao último (disponível do índice em memória)
+     */
+    public PrevisoesLoja previsoesRuptura(long lojaId, int limite) {
+        Comparator<PrevisaoRuptura> ordem = Comparator.comparingDouble(PrevisaoRuptura::diasParaRuptura)
+                .thenComparing(Comparator.comparingDouble(PrevisaoRuptura::taxaDiaria).reversed());
+        PriorityQueue<PrevisaoRuptura> melhores = new PriorityQueue<>(limite + 1, ordem.reversed());
+        int[] monitorados = new int[1];
+        tabela.paraCada(System.currentTimeMillis(), (produtoId, loja, taxa) -> {
+            if (loja != lojaId || taxa < taxaMinima) {
+                return;
+            }
+            Integer disponivel = indiceDisponibilidade.disponivel(produtoId, lojaId);
+            if (disponivel == null) {
+                return;
+            }
+            monitorados[0]++;
+            melhores.add(PrevisaoRuptura.de(produtoId, lojaId, taxa, disponivel, minimo(lojaId, taxa)));
+            if (melhores.size() > limite) {
+                melhores.poll();
+            }
+        });
+
+        List<PrevisaoRuptura> itens = new ArrayList<>(melhores);
+        itens.sort(ordem);
+        return new PrevisoesLoja(monitorados[0], itens);
+    }
+
+    public int totalPares() {
+        return tabela.tamanho();
+    }
+
+    public long getVendasRegistradas() {
+        return vendasRegistradas.get();
+    }
+
+    public ResultadoRecalculo getUltimoRecalculo() {
+        return ultimoRecalculo;
+    }
+
+    /**
+     * Cobertura do prazo de reposição da loja mais a margem de segurança, nunca abaixo do piso
+     */
+    private int minimo(long lojaId, double taxaDiaria) {
+        double cobertura = lojas.prazoReposicaoDiasDe(lojaId) + diasSeguranca;
+        return Math.max(minimoPiso, (int) Math.ceil(taxaDiaria * cobertura));
+    }
+
+    /**
+     * Produtos e mínimos de uma loja em arrays que crescem sob demanda
+     */
+    private static final class MinimosLoja {
+        private long[] produtoIds = new long[16];
+        private int[] minimos = new int[16];
+        private int tamanho;
+
+        void adicionar(long produtoId, int minimo) {
+            if (tamanho == produtoIds.length) {
+                produtoIds = Arrays.copyOf(produtoIds, tamanho * 2);
+                minimos = Arrays.copyOf(minimos, tamanho * 2);
+            }
+            produtoIds[tamanho] = produtoId;
+            minimos[tamanho] = minimo;
+            tamanho++;
+        }
+    }
+
+    /**
+     * Velocidade, disponível e previsão de ruptura de um produto na loja
+     */
+    public record PrevisaoRuptura(long produtoId, long lojaId, double taxaDiaria, int disponivel,
+                                  double diasParaRuptura, int estoqueMinimoCalculado) {
+
+        static PrevisaoRuptura de(long produtoId, long lojaId, double taxaDiaria, int disponivel, int minimo) {
+            double dias = disponivel <= 0 ? 0 : disponivel / taxaDiaria;
+            return new PrevisaoRuptura(produtoId, lojaId, Math.round(taxaDiaria * 1000) / 1000.0, disponivel,
+                    Math.round(dias * 10) / 10.0, minimo);
+        }
+    }
+
+    /**
+     * Pares da loja com vendas registradas e os primeiros a acabar
+     */
+    public record PrevisoesLoja(int monitorados, List<PrevisaoRuptura> itens) {
+    }
+
+    /**
+     * Resumo de um recálculo: pares com vendas, mínimos diferentes do último gravado e linhas alteradas no banco
+     */
+    public record ResultadoRecalculo(LocalDateTime executadoEm, int pares, int enviados, int alterados, long tempoMs) {
+    }
+}
@@ -0,0 +1,176 @@
+package com.inventory.snapshot;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Lê snapshots colunares com pushdown de predicados
+ *
+ * 1. Rodapé: estatísticas min/max de cada grupo descartam grupos sem descomprimir nada
+ * 2. Colunas de filtro (loja, produto, quantidade) são lidas antes das demais
+ * 3. Colunas restantes só são descomprimidas se o grupo tiver alguma linha selecionada
+ */
+public class ArquivoSnapshotReader implements Closeable {
+
+    private final FileChannel canal;
+    private final LocalDate data;
+    private final long totalLinhas;
+    private final List<GrupoLinhas> grupos;
+
+    private ArquivoSnapshotReader(FileChannel canal, LocalDate data, long totalLinhas, List<GrupoLinhas> grupos) {
+        this.canal = canal;
+        this.data = data;
+        this.totalLinhas = totalLinhas;
+        this.grupos = grupos;
+    }
+
+    public static ArquivoSnapshotReader abrir(Path arquivo) throws IOException {
+        FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ);
+        try {
+            long tamanho = canal.size();
+            ByteBuffer cabecalho = lerBytes(canal, 0, 16);
+            if (cabecalho.getInt() != ArquivoSnapshotWriter.MAGIC) {
+                throw new IOException("Arquivo não é um snapshot de estoque: " + arquivo);
+            }
+            int versao = cabecalho.getInt();
+            if (versao != ArquivoSnapshotWriter.VERSAO) {
+                throw new IOException("Versão de snapshot não suportada: " + versao);
+            }
+            LocalDate data = LocalDate.ofEpochDay(cabecalho.getLong());
+
+            ByteBuffer cauda = lerBytes(canal, tamanho - 12, 12);
+            long offsetRodape = cauda.getLong();
+            if (cauda.getInt() != ArquivoSnapshotWriter.MAGIC) {
+                throw new IOException("Snapshot incompleto ou corrompido: " + arquivo);
+            }
+            ByteBuffer rodape = lerBytes(canal, offsetRodape, (int) (tamanho - 12 - offsetRodape));
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(rodape.array()));
+            long totalLinhas = in.readLong();
+            int totalGrupos = in.readInt();
+            List<GrupoLinhas> grupos = new ArrayList<>(totalGrupos);
+            for (int i = 0; i < totalGrupos; i++) {
+                grupos.add(GrupoLinhas.ler(in));
+            }
+            return new ArquivoSnapshotReader(canal, data, totalLinhas, grupos);
+        } catch (IOException | RuntimeException e) {
+            canal.close();
+            throw e;
+        }
+    }
+
+    public LocalDate getData() { return data; }
+    public long getTotalLinhas() { return totalLinhas; }
+    public int getTotalGrupos() { return grupos.size(); }
+
+    /**
+     * Lê as linhas que satisfazem o filtro, até o limite, acumulando estatísticas de leitura
+     */
+    public void ler(FiltroSnapshot filtro, int limite, List<LinhaSnapshot> destino, EstatisticaLeitura estatistica)
+            throws IOException {
+        estatistica.arquivoLido();
+        for (GrupoLinhas grupo : grupos) {
+            if (destino.size() >= limite) {
+                return;
+            }
+            estatistica.gruposTotal++;
+            if (!filtro.podeConter(grupo)) {
+                continue;
+            }
+            int n = grupo.linhas;
+            boolean[] selecionada = new boolean[n];
+            int selecionadas = n;
+            Arrays.fill(selecionada, true);
+
+            long[] lojas = CodificacaoColunar.lerDicionarioRle(coluna(grupo, GrupoLinhas.COLUNA_LOJA), n);
+            estatistica.gruposLidos++;
+            if (filtro.filtraLoja()) {
+                selecionadas = 0;
+                for (int i = 0; i < n; i++) {
+                    selecionada[i] = filtro.aceitaLoja(lojas[i]);
+                    if (selecionada[i]) selecionadas++;
+                }
+                if (selecionadas == 0) continue;
+            }
+
+            long[] produtos = CodificacaoColunar.lerDelta(coluna(grupo, GrupoLinhas.COLUNA_PRODUTO), n);
+            if (filtro.filtraProduto()) {
+                selecionadas = 0;
+                for (int i = 0; i < n; i++) {
+                    selecionada[i] = selecionada[i] && filtro.aceitaProduto(produtos[i]);
+                    if (selecionada[i]) selecionadas++;
+                }
+                if (selecionadas == 0) continue;
+            }
+
+            int[] quantidades = CodificacaoColunar.lerAdaptativo(coluna(grupo, GrupoLinhas.COLUNA_QUANTIDADE), n);
+            if (filtro.filtraQuantidade()) {
+                selecionadas = 0;
+                for (int i = 0; i < n; i++) {
+                    selecionada[i] = selecionada[i] && filtro.aceitaQuantidade(quantidades[i]);
+                    if (selecionada[i]) selecionadas++;
+                }
+                if (selecionadas == 0) continue;
+            }
+
+            int[] reservados = CodificacaoColunar.lerAdaptativo(coluna(grupo, GrupoLinhas.COLUNA_RESERVADO), n);
+            int[] minimos = CodificacaoColunar.lerAdaptativo(coluna(grupo, GrupoLinhas.COLUNA_MINIMO), n);
+            estatistica.linhasDecodificadas += n;
+
+            for (int i = 0; i < n && destino.size() < limite; i++) {
+                if (selecionada[i]) {
+                    destino.add(new LinhaSnapshot(data, lojas[i], produtos[i], quantidades[i], reservados[i], minimos[i]));
+                }
+            }
+        }
+    }
+
+    private ByteBuffer coluna(GrupoLinhas grupo, int coluna) throws IOException {
+        ByteBuffer comprimido = lerBytes(canal, grupo.offsetColuna(coluna), grupo.tamanhoComprimido[coluna]);
+        return CodificacaoColunar.descomprimir(comprimido.array(), grupo.tamanhoBruto[coluna]);
+    }
+
+    private static ByteBuffer lerBytes(FileChannel canal, long posicao, int tamanho) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(tamanho);
+        while (buffer.hasRemaining()) {
+            if (canal.read(buffer, posicao + buffer.position()) < 0) {
+                throw new IOException("Fim inesperado do snapshot");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    @Override
+    public void close() throws IOException {
+        canal.close();
+    }
+
+    /**
+     * Contadores que mostram o efeito do pushdown
+     */
+    public static class EstatisticaLeitura {
+        private int arquivos;
+        private long gruposTotal;
+        private long gruposLidos;
+        private long linhasDecodificadas;
+
+        void arquivoLido() { arquivos++; }
+
+        // Getters
+        public int getArquivos() { return arquivos; }
+        public long getGruposTotal() { return gruposTotal; }
+        public long getGruposLidos() { return gruposLidos; }
+        public long getGruposDescartados() { return gruposTotal - gruposLidos; }
+        public long getLinhasDecodificadas() { return linhasDecodificadas; }
+    }
+}
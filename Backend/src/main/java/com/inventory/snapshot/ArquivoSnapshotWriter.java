@@ -0,0 +1,134 @@
+package com.inventory.snapshot;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Escreve o snapshot diário de estoque em formato colunar comprimido
+ *
+ * Layout: [cabeçalho][grupo 1: 5 colunas deflate]...[grupo N][rodapé com estatísticas][offset do rodapé][magic]
+ * As linhas devem chegar ordenadas por (lojaId, produtoId).
+ */
+public class ArquivoSnapshotWriter implements Closeable {
+
+    static final int MAGIC = 0x45534E50; // "ESNP"
+    static final int VERSAO = 1;
+
+    private final OutputStream arquivo;
+    private final DataOutputStream out;
+    private final int linhasPorGrupo;
+    private final List<GrupoLinhas> grupos = new ArrayList<>();
+
+    private final long[] lojas;
+    private final long[] produtos;
+    private final int[] quantidades;
+    private final int[] reservados;
+    private final int[] minimos;
+    private int tamanho;
+    private long posicao;
+    private long totalLinhas;
+
+    public ArquivoSnapshotWriter(Path destino, LocalDate data, int linhasPorGrupo) throws IOException {
+        this.arquivo = new BufferedOutputStream(Files.newOutputStream(destino), 1 << 16);
+        this.out = new DataOutputStream(arquivo);
+        this.linhasPorGrupo = linhasPorGrupo;
+        this.lojas = new long[linhasPorGrupo];
+        this.produtos = new long[linhasPorGrupo];
+        this.quantidades = new int[linhasPorGrupo];
+        this.reservados = new int[linhasPorGrupo];
+        this.minimos = new int[linhasPorGrupo];
+
+        out.writeInt(MAGIC);
+        out.writeInt(VERSAO);
+        out.writeLong(data.toEpochDay());
+        posicao = 16;
+    }
+
+    public void adicionar(long lojaId, long produtoId, int quantidade, int reservado, int estoqueMinimo)
+            throws IOException {
+        lojas[tamanho] = lojaId;
+        produtos[tamanho] = produtoId;
+        quantidades[tamanho] = quantidade;
+        reservados[tamanho] = reservado;
+        minimos[tamanho] = estoqueMinimo;
+        tamanho++;
+        totalLinhas++;
+        if (tamanho == linhasPorGrupo) {
+            descarregarGrupo();
+        }
+    }
+
+    public long getTotalLinhas() {
+        return totalLinhas;
+    }
+
+    private void descarregarGrupo() throws IOException {
+        if (tamanho == 0) {
+            return;
+        }
+        GrupoLinhas grupo = new GrupoLinhas();
+        grupo.offset = posicao;
+        grupo.linhas = tamanho;
+        grupo.minLoja = Long.MAX_VALUE;
+        grupo.maxLoja = Long.MIN_VALUE;
+        grupo.minProduto = Long.MAX_VALUE;
+        grupo.maxProduto = Long.MIN_VALUE;
+        grupo.minQuantidade = Integer.MAX_VALUE;
+        grupo.maxQuantidade = Integer.MIN_VALUE;
+        for (int i = 0; i < tamanho; i++) {
+            grupo.minLoja = Math.min(grupo.minLoja, lojas[i]);
+            grupo.maxLoja = Math.max(grupo.maxLoja, lojas[i]);
+            grupo.minProduto = Math.min(grupo.minProduto, produtos[i]);
+            grupo.maxProduto = Math.max(grupo.maxProduto, produtos[i]);
+            grupo.minQuantidade = Math.min(grupo.minQuantidade, quantidades[i]);
+            grupo.maxQuantidade = Math.max(grupo.maxQuantidade, quantidades[i]);
+        }
+
+        escreverColuna(grupo, GrupoLinhas.COLUNA_LOJA, CodificacaoColunar.dicionarioRle(lojas, tamanho));
+        escreverColuna(grupo, GrupoLinhas.COLUNA_PRODUTO, CodificacaoColunar.delta(produtos, tamanho));
+        escreverColuna(grupo, GrupoLinhas.COLUNA_QUANTIDADE, CodificacaoColunar.adaptativo(quantidades, tamanho));
+        escreverColuna(grupo, GrupoLinhas.COLUNA_RESERVADO, CodificacaoColunar.adaptativo(reservados, tamanho));
+        escreverColuna(grupo, GrupoLinhas.COLUNA_MINIMO, CodificacaoColunar.adaptativo(minimos, tamanho));
+
+        grupos.add(grupo);
+        tamanho = 0;
+    }
+
+    private void escreverColuna(GrupoLinhas grupo, int coluna, byte[] bruto) throws IOException {
+        byte[] comprimido = CodificacaoColunar.comprimir(bruto);
+        out.write(comprimido);
+        posicao += comprimido.length;
+        grupo.tamanhoComprimido[coluna] = comprimido.length;
+        grupo.tamanhoBruto[coluna] = bruto.length;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            descarregarGrupo();
+            long offsetRodape = posicao;
+            ByteArrayOutputStream rodape = new ByteArrayOutputStream();
+            DataOutputStream dados = new DataOutputStream(rodape);
+            dados.writeLong(totalLinhas);
+            dados.writeInt(grupos.size());
+            for (GrupoLinhas grupo : grupos) {
+                grupo.escrever(dados);
+            }
+            out.write(rodape.toByteArray());
+            out.writeLong(offsetRodape);
+            out.writeInt(MAGIC);
+            out.flush();
+        } finally {
+            arquivo.close();
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.inventory.snapshot;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Codificações das colunas do snapshot: varint/zigzag, delta, dicionário + RLE e compressão deflate
+ */
+final class CodificacaoColunar {
+
+    static final byte DICIONARIO = 0;
+    static final byte DELTA = 1;
+
+    private CodificacaoColunar() {}
+
+    /**
+     * Coluna de baixa cardinalidade ordenada (lojaId): dicionário + runs (índice, comprimento)
+     */
+    static byte[] dicionarioRle(long[] valores, int n) {
+        long[] distintos = Arrays.stream(valores, 0, n).distinct().sorted().toArray();
+        Map<Long, Integer> indice = new HashMap<>();
+        for (int i = 0; i < distintos.length; i++) {
+            indice.put(distintos[i], i);
+        }
+        Saida saida = new Saida();
+        saida.varint(distintos.length);
+        long anterior = 0;
+        for (long d : distintos) {
+            saida.zigzag(d - anterior);
+            anterior = d;
+        }
+        int i = 0;
+        while (i < n) {
+            int j = i;
+            while (j < n && valores[j] == valores[i]) {
+                j++;
+            }
+            saida.varint(indice.get(valores[i]));
+            saida.varint(j - i);
+            i = j;
+        }
+        return saida.bytes();
+    }
+
+    static long[] lerDicionarioRle(ByteBuffer buffer, int n) {
+        long[] distintos = new long[(int) lerVarint(buffer)];
+        long anterior = 0;
+        for (int i = 0; i < distintos.length; i++) {
+            anterior += lerZigzag(buffer);
+            distintos[i] = anterior;
+        }
+        long[] valores = new long[n];
+        int pos = 0;
+        while (pos < n) {
+            long valor = distintos[(int) lerVarint(buffer)];
+            int run = (int) lerVarint(buffer);
+            Arrays.fill(valores, pos, pos + run, valor);
+            pos += run;
+        }
+        return valores;
+    }
+
+    /**
+     * Coluna quase ordenada (produtoId dentro da loja): delta zigzag
+     */
+    static byte[] delta(long[] valores, int n) {
+        Saida saida = new Saida();
+        long anterior = 0;
+        for (int i = 0; i < n; i++) {
+            saida.zigzag(valores[i] - anterior);
+            anterior = valores[i];
+        }
+        return saida.bytes();
+    }
+
+    static long[] lerDelta(ByteBuffer buffer, int n) {
+        long[] valores = new long[n];
+        long anterior = 0;
+        for (int i = 0; i < n; i++) {
+            anterior += lerZigzag(buffer);
+            valores[i] = anterior;
+        }
+        return valores;
+    }
+
+    /**
+     * Coluna numérica (quantidades): escolhe dicionário ou delta, o que ficar menor
+     */
+    static byte[] adaptativo(int[] valores, int n) {
+        Saida delta = new Saida();
+        delta.byte_(DELTA);
+        long anterior = 0;
+        for (int i = 0; i < n; i++) {
+            delta.zigzag(valores[i] - anterior);
+            anterior = valores[i];
+        }
+
+        int[] distintos = Arrays.stream(valores, 0, n).distinct().sorted().toArray();
+        if (distintos.length > n / 2) {
+            return delta.bytes();
+        }
+        Map<Integer, Integer> indice = new HashMap<>();
+        for (int i = 0; i < distintos.length; i++) {
+            indice.put(distintos[i], i);
+        }
+        Saida dicionario = new Saida();
+        dicionario.byte_(DICIONARIO);
+        dicionario.varint(distintos.length);
+        anterior = 0;
+        for (int d : distintos) {
+            dicionario.zigzag(d - anterior);
+            anterior = d;
+        }
+        for (int i = 0; i < n; i++) {
+            dicionario.varint(indice.get(valores[i]));
+        }
+        return dicionario.tamanho() < delta.tamanho() ? dicionario.bytes() : delta.bytes();
+    }
+
+    static int[] lerAdaptativo(ByteBuffer buffer, int n) {
+        int[] valores = new int[n];
+        byte tipo = buffer.get();
+        if (tipo == DELTA) {
+            long anterior = 0;
+            for (int i = 0; i < n; i++) {
+                anterior += lerZigzag(buffer);
+                valores[i] = (int) anterior;
+            }
+            return valores;
+        }
+        int[] distintos = new int[(int) lerVarint(buffer)];
+        long anterior = 0;
+        for (int i = 0; i < distintos.length; i++) {
+            anterior += lerZigzag(buffer);
+            distintos[i] = (int) anterior;
+        }
+        for (int i = 0; i < n; i++) {
+            valores[i] = distintos[(int) lerVarint(buffer)];
+        }
+        return valores;
+    }
+
+    static byte[] comprimir(byte[] bruto) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(bruto);
+            deflater.finish();
+            ByteArrayOutputStream saida = new ByteArrayOutputStream(Math.max(64, bruto.length / 2));
+            byte[] bloco = new byte[8192];
+            while (!deflater.finished()) {
+                int lidos = deflater.deflate(bloco);
+                saida.write(bloco, 0, lidos);
+            }
+            return saida.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    static ByteBuffer descomprimir(byte[] comprimido, int tamanhoBruto) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(comprimido);
+            byte[] bruto = new byte[tamanhoBruto];
+            int total = 0;
+            while (total < tamanhoBruto) {
+                int lidos = inflater.inflate(bruto, total, tamanhoBruto - total);
+                // sem progresso e sem entrada: o fluxo acabou antes do tamanho declarado
+                if (lidos == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IOException("Coluna de snapshot truncada: " + total + " de " + tamanhoBruto + " bytes");
+                }
+                total += lidos;
+            }
+            return ByteBuffer.wrap(bruto);
+        } catch (DataFormatException e) {
+            throw new IOException("Coluna de snapshot corrompida", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    static long lerVarint(ByteBuffer buffer) {
+        long resultado = 0;
+        int deslocamento = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            resultado |= (long) (b & 0x7F) << deslocamento;
+            deslocamento += 7;
+        } while ((b & 0x80) != 0);
+        return resultado;
+    }
+
+    static long lerZigzag(ByteBuffer buffer) {
+        long v = lerVarint(buffer);
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    /**
+     * Buffer de escrita com varint/zigzag
+     */
+    static final class Saida {
+        private byte[] dados = new byte[1024];
+        private int tamanho;
+
+        void byte_(int b) {
+            if (tamanho == dados.length) {
+                dados = Arrays.copyOf(dados, dados.length * 2);
+            }
+            dados[tamanho++] = (byte) b;
+        }
+
+        void varint(long v) {
+            while ((v & ~0x7FL) != 0) {
+                byte_((int) ((v & 0x7F) | 0x80));
+                v >>>= 7;
+            }
+            byte_((int) v);
+        }
+
+        void zigzag(long v) {
+            varint((v << 1) ^ (v >> 63));
+        }
+
+        int tamanho() {
+            return tamanho;
+        }
+
+        byte[] bytes() {
+            return Arrays.copyOf(dados, tamanho);
+        }
+    }
+}
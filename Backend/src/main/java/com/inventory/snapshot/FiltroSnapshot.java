@@ -0,0 +1,78 @@
+package com.inventory.snapshot;
+
+import java.util.Set;
+
+/**
+ * Predicados aplicados na leitura de snapshots (todos opcionais)
+ * Os limites são avaliados contra as estatísticas de cada grupo antes de descomprimir qualquer coluna.
+ */
+public class FiltroSnapshot {
+
+    private Set<Long> lojaIds;
+    private Long produtoIdMin;
+    private Long produtoIdMax;
+    private Integer quantidadeMin;
+    private Integer quantidadeMax;
+
+    public static FiltroSnapshot todos() {
+        return new FiltroSnapshot();
+    }
+
+    public FiltroSnapshot lojas(Set<Long> lojaIds) {
+        this.lojaIds = lojaIds == null || lojaIds.isEmpty() ? null : lojaIds;
+        return this;
+    }
+
+    public FiltroSnapshot produto(Long produtoId) {
+        return produtos(produtoId, produtoId);
+    }
+
+    public FiltroSnapshot produtos(Long min, Long max) {
+        this.produtoIdMin = min;
+        this.produtoIdMax = max;
+        return this;
+    }
+
+    public FiltroSnapshot quantidade(Integer min, Integer max) {
+        this.quantidadeMin = min;
+        this.quantidadeMax = max;
+        return this;
+    }
+
+    /**
+     * Pushdown: o grupo pode conter alguma linha que satisfaça o filtro?
+     */
+    boolean podeConter(GrupoLinhas g) {
+        if (produtoIdMin != null && g.maxProduto < produtoIdMin) return false;
+        if (produtoIdMax != null && g.minProduto > produtoIdMax) return false;
+        if (quantidadeMin != null && g.maxQuantidade < quantidadeMin) return false;
+        if (quantidadeMax != null && g.minQuantidade > quantidadeMax) return false;
+        if (lojaIds != null) {
+            for (Long lojaId : lojaIds) {
+                if (lojaId >= g.minLoja && lojaId <= g.maxLoja) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return true;
+    }
+
+    boolean filtraLoja() { return lojaIds != null; }
+    boolean filtraProduto() { return produtoIdMin != null || produtoIdMax != null; }
+    boolean filtraQuantidade() { return quantidadeMin != null || quantidadeMax != null; }
+
+    boolean aceitaLoja(long lojaId) {
+        return lojaIds == null || lojaIds.contains(lojaId);
+    }
+
+    boolean aceitaProduto(long produtoId) {
+        return (produtoIdMin == null || produtoId >= produtoIdMin)
+            && (produtoIdMax == null || produtoId <= produtoIdMax);
+    }
+
+    boolean aceitaQuantidade(int quantidade) {
+        return (quantidadeMin == null || quantidade >= quantidadeMin)
+            && (quantidadeMax == null || quantidade <= quantidadeMax);
+    }
+}
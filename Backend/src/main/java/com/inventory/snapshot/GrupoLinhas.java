@@ -0,0 +1,69 @@
+package com.inventory.snapshot;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Metadados de um grupo de linhas: posição das colunas e estatísticas min/max usadas no pushdown
+ */
+final class GrupoLinhas {
+
+    static final int COLUNA_LOJA = 0;
+    static final int COLUNA_PRODUTO = 1;
+    static final int COLUNA_QUANTIDADE = 2;
+    static final int COLUNA_RESERVADO = 3;
+    static final int COLUNA_MINIMO = 4;
+    static final int TOTAL_COLUNAS = 5;
+
+    long offset;
+    int linhas;
+    long minLoja;
+    long maxLoja;
+    long minProduto;
+    long maxProduto;
+    int minQuantidade;
+    int maxQuantidade;
+    final int[] tamanhoComprimido = new int[TOTAL_COLUNAS];
+    final int[] tamanhoBruto = new int[TOTAL_COLUNAS];
+
+    long offsetColuna(int coluna) {
+        long pos = offset;
+        for (int c = 0; c < coluna; c++) {
+            pos += tamanhoComprimido[c];
+        }
+        return pos;
+    }
+
+    void escrever(DataOutput out) throws IOException {
+        out.writeLong(offset);
+        out.writeInt(linhas);
+        out.writeLong(minLoja);
+        out.writeLong(maxLoja);
+        out.writeLong(minProduto);
+        out.writeLong(maxProduto);
+        out.writeInt(minQuantidade);
+        out.writeInt(maxQuantidade);
+        for (int c = 0; c < TOTAL_COLUNAS; c++) {
+            out.writeInt(tamanhoComprimido[c]);
+            out.writeInt(tamanhoBruto[c]);
+        }
+    }
+
+    static GrupoLinhas ler(DataInput in) throws IOException {
+        GrupoLinhas g = new GrupoLinhas();
+        g.offset = in.readLong();
+        g.linhas = in.readInt();
+        g.minLoja = in.readLong();
+        g.maxLoja = in.readLong();
+        g.minProduto = in.readLong();
+        g.maxProduto = in.readLong();
+        g.minQuantidade = in.readInt();
+        g.maxQuantidade = in.readInt();
+        for (int c = 0; c < TOTAL_COLUNAS; c++) {
+            g.tamanhoComprimido[c] = in.readInt();
+            g.tamanhoBruto[c] = in.readInt();
+        }
+        return g;
+    }
+}
@@ -0,0 +1,34 @@
+package com.inventory.snapshot;
+
+import java.time.LocalDate;
+
+/**
+ * Linha materializada de um snapshot diário de estoque
+ */
+public class LinhaSnapshot {
+
+    private final LocalDate data;
+    private final long lojaId;
+    private final long produtoId;
+    private final int quantidade;
+    private final int reservado;
+    private final int estoqueMinimo;
+
+    public LinhaSnapshot(LocalDate data, long lojaId, long produtoId, int quantidade, int reservado, int estoqueMinimo) {
+        this.data = data;
+        this.lojaId = lojaId;
+        this.produtoId = produtoId;
+        this.quantidade = quantidade;
+        this.reservado = reservado;
+        this.estoqueMinimo = estoqueMinimo;
+    }
+
+    // Getters
+    public LocalDate getData() { return data; }
+    public long getLojaId() { return lojaId; }
+    public long getProdutoId() { return produtoId; }
+    public int getQuantidade() { return quantidade; }
+    public int getReservado() { return reservado; }
+    public int getEstoqueMinimo() { return estoqueMinimo; }
+    public int getDisponivel() { return quantidade - reservado; }
+}
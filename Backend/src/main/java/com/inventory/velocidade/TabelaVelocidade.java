@@ -0,0 +1,238 @@
+package com.inventory.velocidade;
+
+import java.util.Arrays;
+
+/**
+ * Velocidade de vendas por (produto, loja) em arrays primitivos: média móvel exponencial em unidades por dia
+ *
+ * Tabela hash de endereçamento aberto (sondagem linear) com arrays paralelos: 28 bytes por posição,
+ * sem objeto por entrada. Cada venda decai a taxa pelo tempo desde a última e soma quantidade / vida média,
+ * então a taxa lida a qualquer momento é a soma das vendas ponderadas por e^(-idade / vida média).
+ * Vendas fora de ordem (carga do histórico) entram já decaídas. Cada par guarda também uma marca livre
+ * para o chamador (o último mínimo gravado). Acesso serializado pelo monitor da tabela.
+ */
+public final class TabelaVelocidade {
+
+    private static final long VAZIO = Long.MIN_VALUE;
+
+    private static final double CARGA_MAXIMA = 0.75;
+
+    private static final double SEGUNDOS_POR_DIA = 86_400.0;
+
+    private final double vidaMediaSegundos;
+    private final double vidaMediaDias;
+    private final int capacidadeInicial;
+    // instantes gravados em segundos desde a criação da tabela (int cobre 68 anos)
+    private final long origemMs;
+
+    private long[] produtos;
+    private long[] lojas;
+    private float[] taxas;
+    private int[] instantes;
+    private int[] marcas;
+    private int tamanho;
+
+    /**
+     * @param meiaVidaDias dias para o peso de uma venda cair à metade
+     * @param capacidadeInicial pares antes do primeiro redimensionamento
+     */
+    public TabelaVelocidade(double meiaVidaDias, int capacidadeInicial) {
+        if (meiaVidaDias <= 0) {
+            throw new IllegalArgumentException("Meia-vida deve ser positiva");
+        }
+        this.vidaMediaDias = meiaVidaDias / Math.log(2);
+        this.vidaMediaSegundos = vidaMediaDias * SEGUNDOS_POR_DIA;
+        this.capacidadeInicial = capacidadeInicial;
+        this.origemMs = System.currentTimeMillis() - 1_000;
+        alocar(capacidadePara(capacidadeInicial));
+    }
+
+    /**
+     * Soma uma venda à taxa do par (instante em epoch ms)
+     */
+    public synchronized void registrar(long produtoId, long lojaId, int quantidade, long instanteMs) {
+        if (tamanho + 1 > produtos.length * CARGA_MAXIMA) {
+            realocar(produtos.length * 2, 0, 0.0);
+        }
+        int segundo = segundo(instanteMs);
+        double peso = quantidade / vidaMediaDias;
+        int pos = posicao(produtoId, lojaId);
+        if (produtos[pos] == VAZIO) {
+            produtos[pos] = produtoId;
+            lojas[pos] = lojaId;
+            taxas[pos] = (float) peso;
+            instantes[pos] = segundo;
+            marcas[pos] = 0;
+            tamanho++;
+        } else if (segundo >= instantes[pos]) {
+            taxas[pos] = (float) (taxas[pos] * decaimento(segundo - instantes[pos]) + peso);
+            instantes[pos] = segundo;
+        } else {
+            taxas[pos] = (float) (taxas[pos] + peso * decaimento(instantes[pos] - segundo));
+        }
+    }
+
+    /**
+     * Unidades por dia do par no instante informado (0 sem vendas registradas)
+     */
+    public synchronized double taxa(long produtoId, long lojaId, long agoraMs) {
+        int pos = posicao(produtoId, lojaId);
+        return produtos[pos] == VAZIO ? 0 : taxaEm(pos, segundo(agoraMs));
+    }
+
+    /**
+     * Visita todos os pares com a taxa no instante informado
+     */
+    public synchronized void paraCada(long agoraMs, Visitante visitante) {
+        int agora = segundo(agoraMs);
+        for (int pos = 0; pos < produtos.length; pos++) {
+            if (produtos[pos] != VAZIO) {
+                visitante.visitar(produtos[pos], lojas[pos], taxaEm(pos, agora));
+            }
+        }
+    }
+
+    /**
+     * Visita todos os pares com a taxa no instante informado e a marca de cada um
+     */
+    public synchronized void paraCada(long agoraMs, VisitanteMarcado visitante) {
+        int agora = segundo(agoraMs);
+        for (int pos = 0; pos < produtos.length; pos++) {
+            if (produtos[pos] != VAZIO) {
+                visitante.visitar(produtos[pos], lojas[pos], taxaEm(pos, agora), marcas[pos]);
+            }
+        }
+    }
+
+    /**
+     * Grava a marca do par (ignorado se o par não está na tabela)
+     */
+    public synchronized void marcar(long produtoId, long lojaId, int marca) {
+        int pos = posicao(produtoId, lojaId);
+        if (produtos[pos] != VAZIO) {
+            marcas[pos] = marca;
+        }
+    }
+
+    /**
+     * Descarta pares cuja taxa já decaiu abaixo do limite e devolve quantos restaram
+     */
+    public synchronized int compactar(long agoraMs, double taxaMinima) {
+        int agora = segundo(agoraMs);
+        int vivos = 0;
+        for (int pos = 0; pos < produtos.length; pos++) {
+            if (produtos[pos] != VAZIO && taxaEm(pos, agora) >= taxaMinima) {
+                vivos++;
+            }
+        }
+        if (vivos < tamanho) {
+            realocar(capacidadePara(Math.max(vivos, capacidadeInicial)), agora, taxaMinima);
+        }
+        return tamanho;
+    }
+
+    public synchronized int tamanho() {
+        return tamanho;
+    }
+
+    /**
+     * Bytes ocupados pelos arrays
+     */
+    public synchronized long bytes() {
+        return (long) produtos.length * (Long.BYTES + Long.BYTES + Float.BYTES + Integer.BYTES + Integer.BYTES);
+    }
+
+    private double taxaEm(int pos, int agora) {
+        return agora > instantes[pos] ? taxas[pos] * decaimento(agora - instantes[pos]) : taxas[pos];
+    }
+
+    private double decaimento(int segundos) {
+        return Math.exp(-segundos / vidaMediaSegundos);
+    }
+
+    private int segundo(long instanteMs) {
+        return (int) Math.max(0, (instanteMs - origemMs) / 1_000);
+    }
+
+    /**
+     * Posição do par ou a primeira livre na sequência de sondagem
+     */
+    private int posicao(long produtoId, long lojaId) {
+        int mascara = produtos.length - 1;
+        int pos = hash(produtoId, lojaId) & mascara;
+        while (produtos[pos] != VAZIO && (produtos[pos] != produtoId || lojas[pos] != lojaId)) {
+            pos = (pos + 1) & mascara;
+        }
+        return pos;
+    }
+
+    private static int hash(long produtoId, long lojaId) {
+        long h = produtoId * 0x9E3779B97F4A7C15L + lojaId;
+        h ^= h >>> 33;
+        h *= 0xC2B2AE3D27D4EB4FL;
+        return (int) (h ^ (h >>> 29));
+    }
+
+    private static int capacidadePara(int pares) {
+        int capacidade = 16;
+        while (capacidade * CARGA_MAXIMA < pares) {
+            capacidade <<= 1;
+        }
+        return capacidade;
+    }
+
+    private void alocar(int capacidade) {
+        produtos = new long[capacidade];
+        Arrays.fill(produtos, VAZIO);
+        lojas = new long[capacidade];
+        taxas = new float[capacidade];
+        instantes = new int[capacidade];
+        marcas = new int[capacidade];
+        tamanho = 0;
+    }
+
+    /**
+     * Reinsere os pares em arrays novos, descartando os de taxa abaixo do limite no instante informado
+     */
+    private void realocar(int capacidade, int agora, double taxaMinima) {
+        long[] antigosProdutos = produtos;
+        long[] antigasLojas = lojas;
+        float[] antigasTaxas = taxas;
+        int[] antigosInstantes = instantes;
+        int[] antigasMarcas = marcas;
+        alocar(capacidade);
+        for (int i = 0; i < antigosProdutos.length; i++) {
+            if (antigosProdutos[i] == VAZIO) {
+                continue;
+            }
+            double taxa = agora > antigosInstantes[i]
+                    ? antigasTaxas[i] * decaimento(agora - antigosInstantes[i]) : antigasTaxas[i];
+            if (taxa < taxaMinima) {
+                continue;
+            }
+            int pos = posicao(antigosProdutos[i], antigasLojas[i]);
+            produtos[pos] = antigosProdutos[i];
+            lojas[pos] = antigasLojas[i];
+            taxas[pos] = antigasTaxas[i];
+            instantes[pos] = antigosInstantes[i];
+            marcas[pos] = antigasMarcas[i];
+            tamanho++;
+        }
+    }
+
+    /**
+     * Recebe cada par visitado
+     */
+    @FunctionalInterface
+    public interface Visitante {
+        void visitar(long produtoId, long lojaId, double taxaDiaria);
+    }
+
+    /**
+     * Recebe cada par visitado com a sua marca
+     */
+    @FunctionalInterface
+    public interface VisitanteMarcado {
+        void visitar(long produtoId, long lojaId, double taxaDiaria, int marca);
+    }
+}
@@ -84,19 +84,25 @@ VALUES
 (205, 5, 3, 0, 15, CURRENT_TIMESTAMP, 1);
 
 -- ==============================================================
--- Legendas dos Produtos para Referência:
+-- Cadastro de produtos (catálogo)
 -- ==============================================================
--- 101: Smartphone Samsung Galaxy
--- 102: Notebook Dell Inspiron  
--- 103: Camiseta Nike
--- 104: Tênis Adidas
--- 105: Perfume Channel
--- 106: Livro "Clean Code"
--- 107: Mouse Logitech
--- 108: Fone JBL
--- 109: Relógio Casio
--- 110: Mochila Eastpak
--- 201-205: Produtos com estoque baixo (teste de alertas)
+INSERT INTO produto (id, nome, sku, categoria, valor_unitario, descricao, criado_em, atualizado_em)
+VALUES
+(101, 'Smartphone Samsung Galaxy', 'ELE-SAM-GAL-101', 'Eletrônicos', 2499.90, NULL, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
+(102, 'Notebook Dell Inspiron', 'INF-DEL-INS-102', 'Informática', 4299.00, NULL, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
+(103, 'Camiseta Nike', 'VES-NIK-CAM-103', 'Vestuário', 129.90, NULL, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
+(104, 'Tênis Adidas', 'CAL-ADI-TEN-104', 'Calçados', 399.90, NULL, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
+(105, 'Perfume Channel', 'BEL-CHA-PER-105', 'Beleza', 689.00, NULL, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
+(106, 'Livro "Clean Code"', 'LIV-CLE-COD-106', 'Livros', 89.90, NULL, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
+(107, 'Mouse Logitech', 'INF-LOG-MOU-107', 'Informática', 149.90, NULL, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
+(108, 'Fone JBL', 'ELE-JBL-FON-108', 'Eletrônicos', 299.90, NULL, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
+(109, 'Relógio Casio', 'ACE-CAS-REL-109', 'Acessórios', 349.00, NULL, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
+(110, 'Mochila Eastpak', 'ACE-EAS-MOC-110', 'Acessórios', 279.90, NULL, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
+(201, 'Carregador USB-C', 'ELE-GEN-CAR-201', 'Eletrônicos', 79.90, 'Estoque baixo (teste de alertas)', CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
+(202, 'Cabo HDMI 2m', 'INF-GEN-HDM-202', 'Informática', 39.90, 'Estoque baixo (teste de alertas)', CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
+(203, 'Meia Esportiva', 'VES-GEN-MEI-203', 'Vestuário', 24.90, 'Estoque baixo (teste de alertas)', CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
+(204, 'Garrafa Térmica', 'ACE-GEN-GAR-204', 'Acessórios', 69.90, 'Estoque baixo (teste de alertas)', CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
+(205, 'Caderno Universitário', 'PAP-GEN-CAD-205', 'Papelaria', 29.90, 'Estoque baixo (teste de alertas)', CURRENT_TIMESTAMP, CURRENT_TIMESTAMP);
 
 -- ==============================================================
 -- Legendas das Lojas para Referência:
@@ -0,0 +1,118 @@
+-- ==============================================================
+-- Esquema pré-gerado (perfil "producao")
+-- Substitui a geração de DDL do Hibernate na subida; manter em sincronia com as entidades
+-- ==============================================================
+
+CREATE SEQUENCE IF NOT EXISTS estoque_alteracao_seq START WITH 1 INCREMENT BY 1;
+
+CREATE TABLE IF NOT EXISTS estoque_produto (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    produto_id BIGINT NOT NULL,
+    loja_id BIGINT NOT NULL,
+    quantidade INTEGER NOT NULL,
+    reservado INTEGER NOT NULL,
+    cota INTEGER DEFAULT 0 NOT NULL,
+    estoque_minimo INTEGER NOT NULL,
+    sequencia_alteracao BIGINT DEFAULT NEXT VALUE FOR estoque_alteracao_seq ON UPDATE NEXT VALUE FOR estoque_alteracao_seq,
+    ultima_atualizacao TIMESTAMP(6),
+    versao BIGINT,
+    PRIMARY KEY (id),
+    UNIQUE (produto_id, loja_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_estoque_loja_alteracao ON estoque_produto (loja_id, sequencia_alteracao);
+
+CREATE TABLE IF NOT EXISTS estoque_remocao (
+    sequencia_alteracao BIGINT NOT NULL,
+    produto_id BIGINT NOT NULL,
+    loja_id BIGINT NOT NULL,
+    removida_em TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (sequencia_alteracao)
+);
+
+CREATE INDEX IF NOT EXISTS idx_remocao_loja_alteracao ON estoque_remocao (loja_id, sequencia_alteracao);
+
+CREATE TABLE IF NOT EXISTS horizonte_remocao (
+    id BIGINT NOT NULL,
+    sequencia BIGINT NOT NULL,
+    atualizado_em TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS produto (
+    id BIGINT NOT NULL,
+    nome VARCHAR(200) NOT NULL,
+    sku VARCHAR(50) NOT NULL,
+    categoria VARCHAR(100),
+    valor_unitario NUMERIC(12, 2),
+    descricao VARCHAR(1000),
+    criado_em TIMESTAMP(6) NOT NULL,
+    atualizado_em TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_produto_sku UNIQUE (sku)
+);
+
+CREATE TABLE IF NOT EXISTS reserva (
+    id VARCHAR(36) NOT NULL,
+    produto_id BIGINT NOT NULL,
+    loja_id BIGINT NOT NULL,
+    quantidade INTEGER NOT NULL,
+    cliente_id VARCHAR(50),
+    vendedor_id VARCHAR(50),
+    status VARCHAR(20) NOT NULL CHECK (status IN ('ATIVA', 'CONFIRMADA', 'CANCELADA', 'EXPIRADA')),
+    criada_em TIMESTAMP(6) NOT NULL,
+    expira_em TIMESTAMP(6) NOT NULL,
+    observacoes VARCHAR(500),
+    cota_id BIGINT,
+    PRIMARY KEY (id)
+);
+
+DROP INDEX IF EXISTS idx_reserva_cota_criada;
+CREATE INDEX IF NOT EXISTS idx_reserva_cota ON reserva (cota_id);
+CREATE INDEX IF NOT EXISTS idx_reserva_produto_loja ON reserva (produto_id, loja_id);
+
+CREATE TABLE IF NOT EXISTS reserva_historico (
+    id VARCHAR(36) NOT NULL,
+    produto_id BIGINT NOT NULL,
+    loja_id BIGINT NOT NULL,
+    quantidade INTEGER NOT NULL,
+    cliente_id VARCHAR(50),
+    vendedor_id VARCHAR(50),
+    status VARCHAR(20) NOT NULL CHECK (status IN ('ATIVA', 'CONFIRMADA', 'CANCELADA', 'EXPIRADA')),
+    criada_em TIMESTAMP(6) NOT NULL,
+    expira_em TIMESTAMP(6) NOT NULL,
+    observacoes VARCHAR(500),
+    finalizada_em TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_reserva_historico_criada ON reserva_historico (criada_em, id);
+CREATE INDEX IF NOT EXISTS idx_reserva_historico_cliente ON reserva_historico (cliente_id, criada_em);
+
+-- bancos anteriores à separação: move as reservas já finalizadas da tabela quente (nada a mover nas execuções seguintes)
+INSERT INTO reserva_historico (id, produto_id, loja_id, quantidade, cliente_id, vendedor_id, status,
+                               criada_em, expira_em, observacoes, finalizada_em)
+SELECT id, produto_id, loja_id, quantidade, cliente_id, vendedor_id, status, criada_em, expira_em, observacoes,
+       LOCALTIMESTAMP
+FROM OLD TABLE (DELETE FROM reserva WHERE status <> 'ATIVA');
+
+CREATE TABLE IF NOT EXISTS arquivamento_reserva (
+    id BIGINT NOT NULL,
+    ultimo_lote BIGINT NOT NULL,
+    total_arquivadas BIGINT NOT NULL,
+    atualizado_em TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS estoque_cota (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    produto_id BIGINT NOT NULL,
+    loja_id BIGINT NOT NULL,
+    no_id VARCHAR(64) NOT NULL,
+    quantidade INTEGER NOT NULL,
+    expira_em TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (id),
+    UNIQUE (produto_id, loja_id, no_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_cota_expiracao ON estoque_cota (expira_em);
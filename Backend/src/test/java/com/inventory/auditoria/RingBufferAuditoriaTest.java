@@ -0,0 +1,124 @@
+package com.inventory.auditoria;
+
+import com.inventory.auditoria.TipoEventoAuditoria.Resultado;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RingBufferAuditoriaTest {
+
+    @Test
+    void capacidadePrecisaSerPotenciaDe2() {
+        assertThatThrownBy(() -> new RingBufferAuditoria(6)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new RingBufferAuditoria(1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void entregaEmOrdemDepoisDeVariasVoltas() {
+        RingBufferAuditoria buffer = new RingBufferAuditoria(4);
+        List<Long> lidos = new ArrayList<>();
+
+        for (int volta = 0; volta < 10; volta++) {
+            for (int i = 0; i < 3; i++) {
+                assertThat(publicar(buffer, volta * 3 + i, "ref-" + (volta * 3 + i))).isTrue();
+            }
+            assertThat(buffer.drenar(e -> lidos.add(e.getProdutoId()), 2)).isEqualTo(2);
+            assertThat(buffer.drenar(e -> lidos.add(e.getProdutoId()), 10)).isEqualTo(1);
+        }
+
+        assertThat(lidos).hasSize(30);
+        for (int i = 0; i < 30; i++) {
+            assertThat(lidos.get(i)).isEqualTo(i);
+        }
+        assertThat(buffer.getPendentes()).isZero();
+        assertThat(buffer.getDescartados()).isZero();
+    }
+
+    @Test
+    void bufferCheioDescartaSemSobrescreverOsPendentes() {
+        RingBufferAuditoria buffer = new RingBufferAuditoria(4);
+        for (int i = 0; i < 4; i++) {
+            assertThat(publicar(buffer, i, null)).isTrue();
+        }
+
+        assertThat(publicar(buffer, 99, null)).isFalse();
+        assertThat(publicar(buffer, 100, null)).isFalse();
+        assertThat(buffer.getDescartados()).isEqualTo(2);
+        assertThat(buffer.getPendentes()).isEqualTo(4);
+
+        List<Long> lidos = new ArrayList<>();
+        buffer.drenar(e -> lidos.add(e.getProdutoId()), 10);
+        assertThat(lidos).containsExactly(0L, 1L, 2L, 3L);
+
+        // o espaço liberado volta a aceitar eventos
+        assertThat(publicar(buffer, 4, null)).isTrue();
+        lidos.clear();
+        buffer.drenar(e -> lidos.add(e.getProdutoId()), 10);
+        assertThat(lidos).containsExactly(4L);
+    }
+
+    @Test
+    void drenarLiberaAReferenciaDaPosicao() {
+        RingBufferAuditoria buffer = new RingBufferAuditoria(2);
+        publicar(buffer, 1, "reserva-1");
+        List<EventoAuditoria> entregues = new ArrayList<>();
+        List<String> referencias = new ArrayList<>();
+        buffer.drenar(e -> {
+            entregues.add(e);
+            referencias.add(e.getReferencia());
+        }, 1);
+
+        assertThat(referencias).containsExactly("reserva-1");
+        assertThat(entregues.get(0).getReferencia()).isNull();
+    }
+
+    @Test
+    void variosProdutoresSemPerdaNemDuplicacaoQuandoHaEspaco() throws InterruptedException {
+        int produtores = 4;
+        int porProdutor = 5_000;
+        RingBufferAuditoria buffer = new RingBufferAuditoria(1 << 15);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < produtores; p++) {
+            long base = (long) p * porProdutor;
+            Thread thread = new Thread(() -> {
+                try {
+                    largada.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < porProdutor; i++) {
+                    publicar(buffer, base + i, null);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        largada.countDown();
+
+        Set<Long> lidos = new HashSet<>();
+        int total = produtores * porProdutor;
+        long limite = System.nanoTime() + 10_000_000_000L;
+        while (lidos.size() < total && System.nanoTime() < limite) {
+            buffer.drenar(e -> assertThat(lidos.add(e.getProdutoId())).isTrue(), 512);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(lidos).hasSize(total);
+        assertThat(buffer.getDescartados()).isZero();
+    }
+
+    private static boolean publicar(RingBufferAuditoria buffer, long produtoId, String referencia) {
+        return buffer.publicar(1L, TipoEventoAuditoria.AJUSTE, Resultado.CONFIRMADO, produtoId, 1L, 1, referencia);
+    }
+}
@@ -0,0 +1,91 @@
+package com.inventory.busca;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IndiceTextualTest {
+
+    private static final List<IndiceTextual.Entrada> PRODUTOS = List.of(
+            new IndiceTextual.Entrada(1, "Smartphone Samsung Galaxy", "ELE-SAM-GAL-101", "Eletrônicos"),
+            new IndiceTextual.Entrada(2, "Fone Sony Áudio", "ELE-SON-FON-102", "Eletrônicos / Áudio"),
+            new IndiceTextual.Entrada(3, "Camiseta Algodão", "VES-CAM-ALG-201", "Vestuário"),
+            new IndiceTextual.Entrada(4, "Samsung Smart TV", "ELE-SAM-TV-103", "Eletrônicos"));
+
+    @Test
+    void tokenizadorRemoveAcentosESeparadores() {
+        assertThat(Tokenizador.termos("Eletrônicos / Áudio")).containsExactly("eletronicos", "audio");
+        assertThat(Tokenizador.termos("ELE-SAM-GAL-101")).containsExactly("ele", "sam", "gal", "101");
+        assertThat(Tokenizador.compactar("ELE-SAM-GAL-101")).isEqualTo("elesamgal101");
+        assertThat(Tokenizador.termos(null)).isEmpty();
+    }
+
+    @Test
+    void buscaPorPrefixoSemAcentoCombinandoTermosComAnd() {
+        IndiceTextual indice = indice();
+
+        assertThat(indice.buscar("sam", 10, null).produtoIds()).containsExactly(4L, 1L);
+        assertThat(indice.buscar("eletron audi", 10, null).produtoIds()).containsExactly(2L);
+        assertThat(indice.buscar("algodao", 10, null).produtoIds()).containsExactly(3L);
+        assertThat(indice.buscar("elesamg", 10, null).produtoIds()).containsExactly(1L);
+        assertThat(indice.buscar("samsung camiseta", 10, null).encontrados()).isZero();
+        assertThat(indice.buscar("xyz", 10, null).encontrados()).isZero();
+        assertThat(indice.buscar("  / ", 10, null).encontrados()).isZero();
+    }
+
+    @Test
+    void nomeComecandoPeloPrimeiroTermoVemAntes() {
+        IndiceTextual indice = indice();
+
+        // os dois têm "smart"; só o 1 tem o nome começando por ele
+        assertThat(indice.buscar("smart", 10, null).produtoIds()).containsExactly(1L, 4L);
+    }
+
+    @Test
+    void limiteCortaAListaMasContaTodosEFiltroValeAntesDaContagem() {
+        IndiceTextual indice = indice();
+
+        IndiceTextual.Resultado limitado = indice.buscar("ele", 1, null);
+        assertThat(limitado.encontrados()).isEqualTo(3);
+        assertThat(limitado.produtoIds()).hasSize(1);
+
+        IndiceTextual.Resultado filtrado = indice.buscar("ele", 10, id -> id != 2);
+        assertThat(filtrado.encontrados()).isEqualTo(2);
+        assertThat(filtrado.produtoIds()).containsExactlyInAnyOrder(1L, 4L);
+    }
+
+    @Test
+    void colocarSubstituiOsTermosAntigosERetirarRemove() {
+        IndiceTextual indice = indice();
+
+        indice.colocar(new IndiceTextual.Entrada(3, "Camiseta Linho", "VES-CAM-LIN-201", "Vestuário"));
+        assertThat(indice.buscar("algodao", 10, null).encontrados()).isZero();
+        assertThat(indice.buscar("linho", 10, null).produtoIds()).containsExactly(3L);
+        assertThat(indice.totalProdutos()).isEqualTo(4);
+
+        indice.retirar(1);
+        indice.retirar(99);
+        assertThat(indice.buscar("galaxy", 10, null).encontrados()).isZero();
+        assertThat(indice.buscar("sam", 10, null).produtoIds()).containsExactly(4L);
+        assertThat(indice.totalProdutos()).isEqualTo(3);
+    }
+
+    @Test
+    void colocarAlemDaCapacidadeInicialCresceOsDocumentos() {
+        IndiceTextual indice = new IndiceTextual();
+        for (int i = 0; i < 100; i++) {
+            indice.colocar(new IndiceTextual.Entrada(i, "Produto " + i, "SKU-" + i, "Categoria"));
+        }
+
+        assertThat(indice.buscar("produto", 1000, null).encontrados()).isEqualTo(100);
+        assertThat(indice.buscar("sku 42", 10, null).produtoIds()).containsExactly(42L);
+    }
+
+    private static IndiceTextual indice() {
+        IndiceTextual indice = new IndiceTextual();
+        indice.reconstruir(PRODUTOS);
+        return indice;
+    }
+}
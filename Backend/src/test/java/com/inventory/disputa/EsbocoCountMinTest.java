@@ -0,0 +1,57 @@
+package com.inventory.disputa;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EsbocoCountMinTest {
+
+    @Test
+    void estimativaNuncaFicaAbaixoDaRealEPassaNoMaximoPeloErroEsperado() {
+        int largura = 1024;
+        int chaves = 20_000;
+        EsbocoCountMin esboco = new EsbocoCountMin(4, largura);
+        long[] exatas = new long[chaves];
+        SplittableRandom aleatorio = new SplittableRandom(3);
+        long total = 500_000;
+        for (int i = 0; i < total; i++) {
+            int chave = aleatorio.nextInt(100) < 30 ? aleatorio.nextInt(20) : aleatorio.nextInt(chaves);
+            esboco.incrementar(chave, 7, 1);
+            exatas[chave]++;
+        }
+
+        long limite = (long) Math.ceil(Math.E / largura * total);
+        int acima = 0;
+        for (int chave = 0; chave < chaves; chave++) {
+            int estimativa = esboco.estimar(chave, 7);
+            assertThat((long) estimativa).isGreaterThanOrEqualTo(exatas[chave]);
+            if (estimativa - exatas[chave] > limite) {
+                acima++;
+            }
+        }
+        // o limite vale com probabilidade 1 - e^-4 (~98%) por chave
+        assertThat(acima).isLessThan(chaves / 50);
+    }
+
+    @Test
+    void copiaEhIndependente() {
+        EsbocoCountMin esboco = new EsbocoCountMin(4, 64);
+        esboco.incrementar(1, 1, 10);
+        EsbocoCountMin copia = esboco.copiar();
+        esboco.incrementar(1, 1, 5);
+
+        assertThat(copia.estimar(1, 1)).isEqualTo(10);
+        assertThat(esboco.estimar(1, 1)).isEqualTo(15);
+    }
+
+    @Test
+    void limparZeraAsEstimativas() {
+        EsbocoCountMin esboco = new EsbocoCountMin(2, 16);
+        esboco.incrementar(5, 5, 3);
+        esboco.limpar();
+
+        assertThat(esboco.estimar(5, 5)).isZero();
+    }
+}
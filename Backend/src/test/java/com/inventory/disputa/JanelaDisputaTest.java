@@ -0,0 +1,70 @@
+package com.inventory.disputa;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JanelaDisputaTest {
+
+    private static final long AGORA = 1_000_000_000L;
+
+    @Test
+    void consultaSomaAsFaixasDeTodasAsThreads() throws InterruptedException {
+        JanelaDisputa janela = new JanelaDisputa(5_000, 5, 4, 16, 4, 256);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 1_000; i++) {
+                    janela.registrarEscrita(1, 1, AGORA);
+                    janela.registrarConflito(1, 1, AGORA);
+                    janela.registrarLeitura(2, 1, AGORA);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        JanelaDisputa.Consulta consulta = janela.consultar(5_000, 10, AGORA);
+
+        assertThat(consulta.acessos()).isEqualTo(16_000);
+        assertThat(consulta.escritas()).isEqualTo(8_000);
+        assertThat(consulta.conflitos()).isEqualTo(8_000);
+        assertThat(consulta.maisAcessadas()).containsExactlyInAnyOrder(
+                new ResumoSpaceSaving.Entrada(1, 1, 8_000, 0),
+                new ResumoSpaceSaving.Entrada(2, 1, 8_000, 0));
+        assertThat(consulta.maisDisputadas()).containsExactly(
+                new JanelaDisputa.ChaveDisputada(1, 1, 8_000, 0, 8_000));
+    }
+
+    @Test
+    void consultaCobreSoAsFatiasDoPeriodo() {
+        JanelaDisputa janela = new JanelaDisputa(5_000, 5, 1, 16, 4, 256);
+        janela.registrarLeitura(1, 1, AGORA - 3_000);
+        janela.registrarLeitura(2, 1, AGORA);
+
+        assertThat(janela.consultar(1_000, 10, AGORA).maisAcessadas())
+                .containsExactly(new ResumoSpaceSaving.Entrada(2, 1, 1, 0));
+        assertThat(janela.consultar(5_000, 10, AGORA).acessos()).isEqualTo(2);
+        // a fatia volta no anel depois da janela e é zerada antes do uso
+        janela.registrarLeitura(3, 1, AGORA + 2_000);
+        assertThat(janela.consultar(5_000, 10, AGORA + 2_000).maisAcessadas())
+                .extracting(ResumoSpaceSaving.Entrada::produtoId).containsExactlyInAnyOrder(2L, 3L);
+    }
+
+    @Test
+    void limparZeraTodasAsFaixas() {
+        JanelaDisputa janela = new JanelaDisputa(5_000, 5, 2, 16, 4, 256);
+        janela.registrarEscrita(1, 1, AGORA);
+        janela.limpar();
+
+        JanelaDisputa.Consulta consulta = janela.consultar(5_000, 10, AGORA);
+        assertThat(consulta.acessos()).isZero();
+        assertThat(consulta.maisAcessadas()).isEmpty();
+    }
+}
@@ -0,0 +1,89 @@
+package com.inventory.disputa;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResumoSpaceSavingTest {
+
+    @Test
+    void contagensFicamEntreOLimiteInferiorEOSuperior() {
+        int capacidade = 64;
+        ResumoSpaceSaving resumo = new ResumoSpaceSaving(capacidade);
+        Map<Long, Long> exatas = new HashMap<>();
+        SplittableRandom aleatorio = new SplittableRandom(11);
+        long total = 200_000;
+        for (int i = 0; i < total; i++) {
+            // metade dos eventos em 10 chaves, o resto espalhado por 5 mil
+            long produto = aleatorio.nextBoolean() ? aleatorio.nextInt(10) : 10 + aleatorio.nextInt(5_000);
+            resumo.incrementar(produto, 1, 1);
+            exatas.merge(produto, 1L, Long::sum);
+        }
+
+        assertThat(resumo.total()).isEqualTo(total);
+        List<ResumoSpaceSaving.Entrada> entradas = resumo.entradas();
+        assertThat(entradas).hasSize(capacidade);
+        for (ResumoSpaceSaving.Entrada entrada : entradas) {
+            long exata = exatas.get(entrada.produtoId());
+            assertThat(entrada.contagem()).isGreaterThanOrEqualTo(exata);
+            assertThat(entrada.contagem() - entrada.erro()).isLessThanOrEqualTo(exata);
+            assertThat(entrada.erro()).isLessThanOrEqualTo(total / capacidade);
+        }
+        // toda chave com mais de total / capacidade ocorrências está no resumo
+        exatas.forEach((produto, exata) -> {
+            if (exata > total / capacidade) {
+                assertThat(entradas).anyMatch(e -> e.produtoId() == produto);
+            }
+        });
+        long minimo = resumo.minimo();
+        assertThat(minimo).isPositive();
+        exatas.forEach((produto, exata) -> {
+            if (entradas.stream().noneMatch(e -> e.produtoId() == produto)) {
+                assertThat(exata).isLessThanOrEqualTo(minimo);
+            }
+        });
+    }
+
+    @Test
+    void resumoComEspacoLivreEhExato() {
+        ResumoSpaceSaving resumo = new ResumoSpaceSaving(8);
+        for (int i = 0; i < 5; i++) {
+            for (int j = 0; j <= i; j++) {
+                resumo.incrementar(i, 2, 1);
+            }
+        }
+
+        assertThat(resumo.minimo()).isZero();
+        assertThat(resumo.entradas()).hasSize(5).allMatch(e -> e.erro() == 0 && e.contagem() == e.produtoId() + 1);
+    }
+
+    @Test
+    void chaveNovaHerdaOMinimoComoErro() {
+        ResumoSpaceSaving resumo = new ResumoSpaceSaving(2);
+        resumo.incrementar(1, 1, 5);
+        resumo.incrementar(2, 1, 3);
+        resumo.incrementar(3, 1, 1);
+
+        assertThat(resumo.entradas()).containsExactlyInAnyOrder(
+                new ResumoSpaceSaving.Entrada(1, 1, 5, 0),
+                new ResumoSpaceSaving.Entrada(3, 1, 4, 3));
+    }
+
+    @Test
+    void limparEsvaziaOResumo() {
+        ResumoSpaceSaving resumo = new ResumoSpaceSaving(4);
+        for (int i = 0; i < 10; i++) {
+            resumo.incrementar(i, i, 1);
+        }
+        resumo.limpar();
+        resumo.incrementar(42, 1, 2);
+
+        assertThat(resumo.total()).isEqualTo(2);
+        assertThat(resumo.entradas()).containsExactly(new ResumoSpaceSaving.Entrada(42, 1, 2, 0));
+    }
+}
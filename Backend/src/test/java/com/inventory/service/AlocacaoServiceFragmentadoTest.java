@@ -0,0 +1,92 @@
+package com.inventory.service;
+
+import com.inventory.config.fragmentacao.RoteamentoFragmentos;
+import com.inventory.dto.PedidoRequest;
+import com.inventory.model.EstoqueProduto;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ActiveProfiles("fragmentado")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "inventario.auditoria.diretorio=target/test-auditoria",
+        "inventario.snapshot.diretorio=target/test-snapshots",
+        "inventario.arquivamento.diretorio=target/test-arquivo",
+        // bancos próprios: os fragmentos vivem enquanto a JVM dos testes
+        "spring.datasource.url=jdbc:h2:mem:alocacaofragdb",
+        "inventario.fragmentacao.fragmentos[0].url=jdbc:h2:mem:alocacaofragdb_f1;DB_CLOSE_DELAY=-1",
+        "inventario.fragmentacao.fragmentos[1].url=jdbc:h2:mem:alocacaofragdb_f2;DB_CLOSE_DELAY=-1",
+        "inventario.fragmentacao.fragmentos[2].url=jdbc:h2:mem:alocacaofragdb_f3;DB_CLOSE_DELAY=-1"
+})
+class AlocacaoServiceFragmentadoTest {
+
+    @Autowired
+    private AlocacaoService alocacaoService;
+
+    @Autowired
+    private EstoqueServiceJpa estoqueService;
+
+    @Autowired
+    private RoteamentoFragmentos roteamento;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void alocaEmLojasDeFragmentosDiferentes() {
+        PedidoRequest pedido = pedido("cliente-frag", 104L, 300);
+
+        AlocacaoService.ResultadoAlocacao resultado = alocacaoService.alocar(pedido);
+
+        List<AlocacaoService.Remessa> remessas = resultado.getRemessas();
+        assertThat(remessas.stream().map(r -> roteamento.fragmentoDaLoja(r.getLojaId())).distinct().count())
+                .isGreaterThanOrEqualTo(2);
+        int total = 0;
+        for (AlocacaoService.Remessa remessa : remessas) {
+            int quantidade = remessa.getItens().get(0).getQuantidade();
+            assertThat(reservado(104L, remessa.getLojaId())).isEqualTo(quantidade);
+            total += quantidade;
+        }
+        assertThat(total).isEqualTo(300);
+    }
+
+    @Test
+    void falhaNoUltimoFragmentoCancelaAsReservasDosAnterioresEReplaneja() {
+        PedidoRequest pedido = pedido("cliente-frag-compensacao", 101L, 350);
+        List<AlocacaoService.Alocacao> plano = alocacaoService.simular(pedido).getAlocacoes();
+        assertThat(plano.stream().map(a -> roteamento.fragmentoDaLoja(a.getLojaId())).distinct().count())
+                .isGreaterThanOrEqualTo(2);
+        // outra réplica vendeu tudo na loja do último fragmento do plano, e o índice ainda não sabe
+        Long esgotada = plano.stream()
+                .max(Comparator.comparing((AlocacaoService.Alocacao a) -> roteamento.fragmentoDaLoja(a.getLojaId())))
+                .orElseThrow().getLojaId();
+        roteamento.naLoja(esgotada, () -> jdbcTemplate.update(
+                "UPDATE estoque_produto SET quantidade = reservado WHERE produto_id = 101 AND loja_id = ?", esgotada));
+
+        AlocacaoService.ResultadoAlocacao resultado = alocacaoService.alocar(pedido);
+
+        assertThat(resultado.getTentativas()).isEqualTo(2);
+        assertThat(resultado.getRemessas()).extracting(AlocacaoService.Remessa::getLojaId).doesNotContain(esgotada);
+        int total = 0;
+        for (long lojaId = 1; lojaId <= 5; lojaId++) {
+            total += reservado(101L, lojaId);
+        }
+        // só as reservas da segunda tentativa: as da primeira foram canceladas
+        assertThat(total).isEqualTo(350);
+    }
+
+    private static PedidoRequest pedido(String clienteId, Long produtoId, int quantidade) {
+        return new PedidoRequest(clienteId, List.of(new PedidoRequest.ItemPedido(produtoId, quantidade)));
+    }
+
+    private int reservado(Long produtoId, Long lojaId) {
+        return estoqueService.consultarEstoque(produtoId, lojaId).map(EstoqueProduto::getReservado).orElse(0);
+    }
+}
@@ -0,0 +1,89 @@
+package com.inventory.service;
+
+import com.inventory.arquivamento.ArquivoReservas;
+import com.inventory.arquivamento.ReservaArquivada;
+import com.inventory.config.fragmentacao.RoteamentoFragmentos;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "inventario.auditoria.diretorio=target/test-auditoria",
+        "inventario.snapshot.diretorio=target/test-snapshots",
+        "inventario.arquivamento.diretorio=target/test-arquivo"
+})
+class ArquivamentoReservaServiceTest {
+
+    private static final String CLIENTE = "cliente-arquivo";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectProvider<RoteamentoFragmentos> fragmentos;
+
+    @TempDir
+    private Path diretorio;
+
+    @Test
+    void retomaDepoisDeExecucaoParcialSemPerderNemRepetirReservas() throws IOException {
+        LocalDateTime base = LocalDateTime.now().minusDays(40).withNano(0);
+        for (int i = 0; i < 10; i++) {
+            jdbcTemplate.update("INSERT INTO reserva_historico (id, produto_id, loja_id, quantidade, cliente_id, " +
+                    "status, criada_em, expira_em, finalizada_em) VALUES (?, 101, 1, 1, ?, 'CONFIRMADA', ?, ?, ?)",
+                    String.format("arq-%02d", i), CLIENTE, base.plusSeconds(i), base.plusMinutes(30), base);
+        }
+        // lote gravado em disco cuja transação não confirmou: o ponto de controle não avançou
+        long ultimoLote = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(MAX(ultimo_lote), 0) FROM arquivamento_reserva", Long.class);
+        ArquivoReservas.gravarLote(diretorio, 0, ultimoLote + 1, List.of(new ReservaArquivada("arq-fantasma",
+                101L, 1L, 1, CLIENTE, null, "CONFIRMADA", base, base.plusMinutes(30), null)));
+
+        // a pausa depois do primeiro lote passa do prazo: a execução para com um lote cheio
+        ArquivamentoReservaService.ResumoArquivamento parcial = servico(1_500, 1_000).arquivar();
+
+        assertThat(parcial.getLotes()).isEqualTo(1);
+        assertThat(parcial.getReservas()).isEqualTo(4);
+        assertThat(parcial.isConcluido()).isFalse();
+        assertThat(restantes()).isEqualTo(6);
+
+        ArquivamentoReservaService.ResumoArquivamento retomada = servico(0, 60_000).arquivar();
+
+        assertThat(retomada.getLotes()).isEqualTo(2);
+        assertThat(retomada.getReservas()).isEqualTo(6);
+        assertThat(retomada.isConcluido()).isTrue();
+        assertThat(restantes()).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT ultimo_lote FROM arquivamento_reserva", Long.class))
+                .isEqualTo(ultimoLote + 3);
+
+        List<ReservaArquivada> arquivadas = servico(0, 60_000).consultar(null, CLIENTE, null, null, 100).getReservas();
+        assertThat(arquivadas).extracting(ReservaArquivada::id)
+                .containsExactlyInAnyOrder("arq-00", "arq-01", "arq-02", "arq-03", "arq-04", "arq-05", "arq-06",
+                        "arq-07", "arq-08", "arq-09");
+    }
+
+    private ArquivamentoReservaService servico(long pausaMs, long duracaoMaximaMs) {
+        return new ArquivamentoReservaService(jdbcTemplate, transactionManager, fragmentos, new SimpleMeterRegistry(),
+                diretorio.toString(), 30, 4, pausaMs, duracaoMaximaMs);
+    }
+
+    private int restantes() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM reserva_historico WHERE cliente_id = ?",
+                Integer.class, CLIENTE);
+    }
+}
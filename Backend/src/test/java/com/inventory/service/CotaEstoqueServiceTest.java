@@ -0,0 +1,103 @@
+package com.inventory.service;
+
+import com.inventory.exception.EstoqueInsuficienteException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "inventario.auditoria.diretorio=target/test-auditoria",
+        "inventario.snapshot.diretorio=target/test-snapshots",
+        "inventario.arquivamento.diretorio=target/test-arquivo",
+        // banco próprio: o contexto com cotas convive com os outros contextos em cache
+        "spring.datasource.url=jdbc:h2:mem:cotastestdb",
+        "inventario.cotas.habilitada=true",
+        "inventario.cotas.no-id=no-teste",
+        // manutenção só quando o teste chama manter()
+        "inventario.cotas.intervalo-ms=3600000"
+})
+class CotaEstoqueServiceTest {
+
+    @Autowired
+    private CotaEstoqueService cotaService;
+
+    @Autowired
+    private EstoqueServiceJpa estoqueService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void confirmarReservaDeCotaRecuperadaUsaODisponivelOuDesfaz() {
+        String coberta = venderComCota(103L, 1L, 2);
+        recuperarPorOutroNo(103L, 1L);
+        int quantidade = valor("quantidade", 103L, 1L);
+        int reservado = valor("reservado", 103L, 1L);
+
+        assertThat(estoqueService.confirmarVenda(coberta)).isTrue();
+
+        assertThat(valor("quantidade", 103L, 1L)).isEqualTo(quantidade - 2);
+        assertThat(valor("reservado", 103L, 1L)).isEqualTo(reservado);
+
+        String descoberta = venderComCota(107L, 1L, 2);
+        recuperarPorOutroNo(107L, 1L);
+        jdbcTemplate.update("UPDATE estoque_produto SET quantidade = reservado WHERE produto_id = 107 AND loja_id = 1");
+        quantidade = valor("quantidade", 107L, 1L);
+
+        assertThatThrownBy(() -> estoqueService.confirmarVenda(descoberta))
+                .isInstanceOf(EstoqueInsuficienteException.class);
+
+        assertThat(valor("quantidade", 107L, 1L)).isEqualTo(quantidade);
+        assertThat(jdbcTemplate.queryForObject("SELECT cota_id FROM reserva WHERE id = ?", Long.class, descoberta))
+                .isNotNull();
+    }
+
+    @Test
+    void liquidacaoEmLoteDeCotaRecuperadaUsaODisponivelEDescartaACotaLocal() {
+        String reservaId = venderComCota(108L, 1L, 2);
+        recuperarPorOutroNo(108L, 1L);
+        int reservado = valor("reservado", 108L, 1L);
+
+        cotaService.manter();
+
+        assertThat(valor("reservado", 108L, 1L)).isEqualTo(reservado + 2);
+        assertThat(valor("cota", 108L, 1L)).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT cota_id FROM reserva WHERE id = ?", Long.class, reservaId))
+                .isNull();
+        assertThat(cotaService.getSaldo(108L, 1L)).isZero();
+        assertThat(cotaService.consumir(108L, 1L, 1)).isNull();
+
+        assertThat(estoqueService.confirmarVenda(reservaId)).isTrue();
+        assertThat(valor("reservado", 108L, 1L)).isEqualTo(reservado);
+    }
+
+    /**
+     * Venda aprovada contra a cota local do nó (a primeira tentativa sem cota registra a demanda)
+     */
+    private String venderComCota(Long produtoId, Long lojaId, int quantidade) {
+        assertThat(cotaService.consumir(produtoId, lojaId, quantidade)).isNull();
+        cotaService.manter();
+        String reservaId = estoqueService.processarVenda(produtoId, lojaId, quantidade, "cliente-cota");
+        assertThat(jdbcTemplate.queryForObject("SELECT cota_id FROM reserva WHERE id = ?", Long.class, reservaId))
+                .isNotNull();
+        return reservaId;
+    }
+
+    /**
+     * Outro nó recuperou a cota vencida antes de a venda ser gravada: devolveu todo o saldo ao disponível
+     */
+    private void recuperarPorOutroNo(Long produtoId, Long lojaId) {
+        jdbcTemplate.update("DELETE FROM estoque_cota WHERE produto_id = ? AND loja_id = ?", produtoId, lojaId);
+        jdbcTemplate.update("UPDATE estoque_produto SET cota = 0 WHERE produto_id = ? AND loja_id = ?",
+                produtoId, lojaId);
+    }
+
+    private int valor(String coluna, Long produtoId, Long lojaId) {
+        return jdbcTemplate.queryForObject("SELECT " + coluna + " FROM estoque_produto WHERE produto_id = ? " +
+                "AND loja_id = ?", Integer.class, produtoId, lojaId);
+    }
+}
@@ -0,0 +1,124 @@
+package com.inventory.service;
+
+import com.inventory.dto.TransferenciaRequest.ItemTransferencia;
+import com.inventory.model.Reserva;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "inventario.auditoria.diretorio=target/test-auditoria",
+        "inventario.snapshot.diretorio=target/test-snapshots",
+        "inventario.arquivamento.diretorio=target/test-arquivo"
+})
+class EstoqueServiceJpaTest {
+
+    @Autowired
+    private EstoqueServiceJpa estoqueService;
+
+    @Autowired
+    private ReservaServiceJpa reservaService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void cancelarDuasVezesLiberaOReservadoUmaVez() {
+        int antes = reservado(105L, 1L);
+        String reservaId = estoqueService.processarVenda(105L, 1L, 3, "cliente-cancelamento");
+        assertThat(reservado(105L, 1L)).isEqualTo(antes + 3);
+
+        assertThat(estoqueService.cancelarVenda(reservaId)).isTrue();
+        assertThatThrownBy(() -> estoqueService.cancelarVenda(reservaId))
+                .isInstanceOf(IllegalStateException.class);
+
+        assertThat(reservado(105L, 1L)).isEqualTo(antes);
+        assertThat(reservaService.buscarReserva(reservaId)).get()
+                .extracting(Reserva::getStatus).isEqualTo(Reserva.StatusReserva.CANCELADA);
+    }
+
+    @Test
+    void reservaExpiradaLiberaOReservadoENaoPodeSerCancelada() {
+        int antes = reservado(109L, 1L);
+        String reservaId = estoqueService.processarVenda(109L, 1L, 2, "cliente-expiracao");
+        jdbcTemplate.update("UPDATE reserva SET expira_em = DATEADD('MINUTE', -1, LOCALTIMESTAMP) WHERE id = ?",
+                reservaId);
+
+        estoqueService.expirarVendas();
+        estoqueService.expirarVendas();
+
+        assertThat(reservado(109L, 1L)).isEqualTo(antes);
+        assertThat(reservaService.buscarReserva(reservaId)).get()
+                .extracting(Reserva::getStatus).isEqualTo(Reserva.StatusReserva.EXPIRADA);
+        assertThatThrownBy(() -> estoqueService.cancelarVenda(reservaId))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(reservado(109L, 1L)).isEqualTo(antes);
+    }
+
+    @Test
+    void transferenciaComSomaAcimaDoLimiteEhRecusadaSemAlterarEstoque() {
+        int origem = quantidade(101L, 1L);
+        int destino = quantidade(101L, 2L);
+        List<ItemTransferencia> itens = List.of(new ItemTransferencia(101L, Integer.MAX_VALUE),
+                new ItemTransferencia(101L, 1));
+
+        assertThatThrownBy(() -> estoqueService.transferir(1L, 2L, itens, "teste"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("excede o limite");
+
+        assertThat(quantidade(101L, 1L)).isEqualTo(origem);
+        assertThat(quantidade(101L, 2L)).isEqualTo(destino);
+    }
+
+    @Test
+    void transferenciasConcorrentesEmSentidosOpostosNaoEntramEmDeadlock() throws Exception {
+        int total102 = quantidade(102L, 1L) + quantidade(102L, 2L);
+        int total106 = quantidade(106L, 1L) + quantidade(106L, 2L);
+        List<ItemTransferencia> itens = List.of(new ItemTransferencia(106L, 1), new ItemTransferencia(102L, 1));
+        CountDownLatch largada = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<?>> resultados = new ArrayList<>();
+            for (long[] sentido : new long[][]{{1L, 2L}, {2L, 1L}}) {
+                resultados.add(executor.submit(() -> {
+                    largada.await();
+                    for (int i = 0; i < 50; i++) {
+                        estoqueService.transferir(sentido[0], sentido[1], itens, "teste");
+                    }
+                    return null;
+                }));
+            }
+            largada.countDown();
+            for (Future<?> resultado : resultados) {
+                resultado.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(quantidade(102L, 1L) + quantidade(102L, 2L)).isEqualTo(total102);
+        assertThat(quantidade(106L, 1L) + quantidade(106L, 2L)).isEqualTo(total106);
+    }
+
+    private int quantidade(Long produtoId, Long lojaId) {
+        return jdbcTemplate.queryForObject("SELECT quantidade FROM estoque_produto WHERE produto_id = ? AND loja_id = ?",
+                Integer.class, produtoId, lojaId);
+    }
+
+    private int reservado(Long produtoId, Long lojaId) {
+        return jdbcTemplate.queryForObject("SELECT reservado FROM estoque_produto WHERE produto_id = ? AND loja_id = ?",
+                Integer.class, produtoId, lojaId);
+    }
+}
@@ -0,0 +1,110 @@
+package com.inventory.service;
+
+import com.inventory.dto.ContagemInventarioRequest;
+import com.inventory.dto.ContagemInventarioRequest.ItemContagem;
+import com.inventory.service.InventarioService.Discrepancia;
+import com.inventory.service.InventarioService.ResultadoContagem;
+import com.inventory.service.InventarioService.SituacaoDiscrepancia;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "inventario.auditoria.diretorio=target/test-auditoria",
+        "inventario.snapshot.diretorio=target/test-snapshots",
+        "inventario.arquivamento.diretorio=target/test-arquivo"
+})
+class InventarioServiceTest {
+
+    @Autowired
+    private InventarioService inventarioService;
+
+    @Autowired
+    private EstoqueServiceJpa estoqueService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void aplicaSoAsDivergenciasEIncluiProdutosNovos() {
+        int iguais = quantidade(108L, 3L);
+        ResultadoContagem resultado = inventarioService.importarContagem(new ContagemInventarioRequest(3L, "teste",
+                List.of(new ItemContagem(107L, 90), new ItemContagem(107L, 4), new ItemContagem(108L, iguais),
+                        new ItemContagem(9101L, 7))));
+
+        assertThat(resultado.getItensContados()).isEqualTo(3);
+        assertThat(resultado.getDiscrepancias()).extracting(Discrepancia::getProdutoId, Discrepancia::getSituacao)
+                .containsExactly(tuple(107L, SituacaoDiscrepancia.AJUSTADO),
+                        tuple(9101L, SituacaoDiscrepancia.INCLUIDO));
+        assertThat(quantidade(107L, 3L)).isEqualTo(94);
+        assertThat(quantidade(108L, 3L)).isEqualTo(iguais);
+        assertThat(quantidade(9101L, 3L)).isEqualTo(7);
+    }
+
+    @Test
+    void contagemAbaixoDoReservadoSaiComoConflitoSemGravar() {
+        int antes = quantidade(110L, 3L);
+        String reservaId = estoqueService.processarVenda(110L, 3L, 5, "cliente-contagem");
+        try {
+            ResultadoContagem resultado = inventarioService.importarContagem(new ContagemInventarioRequest(3L,
+                    "teste", List.of(new ItemContagem(110L, 2))));
+
+            assertThat(resultado.getConflitos()).isEqualTo(1);
+            Discrepancia conflito = resultado.getDiscrepancias().get(0);
+            assertThat(conflito.getSituacao()).isEqualTo(SituacaoDiscrepancia.CONFLITO);
+            assertThat(conflito.isAbaixoDoReservado()).isTrue();
+            assertThat(resultado.getDivergenciaLiquida()).isZero();
+            assertThat(quantidade(110L, 3L)).isEqualTo(antes);
+        } finally {
+            estoqueService.cancelarVenda(reservaId);
+        }
+    }
+
+    @Test
+    void contagemMaiorQueUmLoteConfirmaLoteALote() {
+        InventarioService emLotesDe2 = new InventarioService(jdbcTemplate, eventPublisher, transactionManager, 2);
+        List<ItemContagem> itens = List.of(new ItemContagem(101L, 61), new ItemContagem(102L, 26),
+                new ItemContagem(103L, 181), new ItemContagem(9102L, 3), new ItemContagem(9103L, 4));
+
+        ResultadoContagem resultado = emLotesDe2.importarContagem(new ContagemInventarioRequest(4L, "teste", itens));
+
+        assertThat(resultado.getItensAjustados()).isEqualTo(3);
+        assertThat(resultado.getItensIncluidos()).isEqualTo(2);
+        for (ItemContagem item : itens) {
+            assertThat(quantidade(item.getProdutoId(), 4L)).isEqualTo(item.getQuantidade());
+        }
+    }
+
+    @Test
+    void linhasRepetidasComSomaAcimaDoLimiteRecusamAContagem() {
+        int antes = quantidade(106L, 1L);
+        ContagemInventarioRequest request = new ContagemInventarioRequest(1L, "teste", List.of(
+                new ItemContagem(106L, Integer.MAX_VALUE), new ItemContagem(106L, 1)));
+
+        assertThatThrownBy(() -> inventarioService.importarContagem(request))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("excede o limite");
+
+        assertThat(quantidade(106L, 1L)).isEqualTo(antes);
+    }
+
+    private int quantidade(Long produtoId, Long lojaId) {
+        return jdbcTemplate.queryForObject("SELECT quantidade FROM estoque_produto WHERE produto_id = ? AND loja_id = ?",
+                Integer.class, produtoId, lojaId);
+    }
+}
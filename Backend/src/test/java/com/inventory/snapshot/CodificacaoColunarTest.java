@@ -0,0 +1,110 @@
+package com.inventory.snapshot;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class CodificacaoColunarTest {
+
+    private static final int N = 5_000;
+
+    @Test
+    void dicionarioRleIdaEVolta() throws IOException {
+        long[] lojas = new long[N];
+        for (int i = 0; i < N; i++) {
+            lojas[i] = 1 + i / 700;
+        }
+
+        long[] lidas = CodificacaoColunar.lerDicionarioRle(idaEVolta(CodificacaoColunar.dicionarioRle(lojas, N)), N);
+
+        assertThat(lidas).containsExactly(lojas);
+    }
+
+    @Test
+    void deltaIdaEVoltaComValoresNegativosEDesordenados() throws IOException {
+        SplittableRandom aleatorio = new SplittableRandom(7);
+        long[] produtos = new long[N];
+        for (int i = 0; i < N; i++) {
+            produtos[i] = aleatorio.nextLong(-1_000_000, 1_000_000);
+        }
+
+        long[] lidos = CodificacaoColunar.lerDelta(idaEVolta(CodificacaoColunar.delta(produtos, N)), N);
+
+        assertThat(lidos).containsExactly(produtos);
+    }
+
+    @Test
+    void adaptativoEscolheDicionarioParaPoucosValores() throws IOException {
+        int[] quantidades = new int[N];
+        for (int i = 0; i < N; i++) {
+            quantidades[i] = (i % 3) * 50_000;
+        }
+
+        byte[] bruto = CodificacaoColunar.adaptativo(quantidades, N);
+
+        assertThat(bruto[0]).isEqualTo(CodificacaoColunar.DICIONARIO);
+        assertThat(CodificacaoColunar.lerAdaptativo(idaEVolta(bruto), N)).containsExactly(quantidades);
+    }
+
+    @Test
+    void adaptativoEscolheDeltaParaValoresDistintos() throws IOException {
+        int[] quantidades = new int[N];
+        for (int i = 0; i < N; i++) {
+            quantidades[i] = i * 3 - 100;
+        }
+
+        byte[] bruto = CodificacaoColunar.adaptativo(quantidades, N);
+
+        assertThat(bruto[0]).isEqualTo(CodificacaoColunar.DELTA);
+        assertThat(CodificacaoColunar.lerAdaptativo(idaEVolta(bruto), N)).containsExactly(quantidades);
+    }
+
+    @Test
+    void colunaComprimidaTruncadaFalhaSemTravar() {
+        long[] produtos = new long[N];
+        for (int i = 0; i < N; i++) {
+            produtos[i] = i * 17L;
+        }
+        byte[] bruto = CodificacaoColunar.delta(produtos, N);
+        byte[] comprimido = CodificacaoColunar.comprimir(bruto);
+        byte[] truncado = Arrays.copyOf(comprimido, comprimido.length / 2);
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () ->
+                assertThatThrownBy(() -> CodificacaoColunar.descomprimir(truncado, bruto.length))
+                        .isInstanceOf(IOException.class)
+                        .hasMessageContaining("truncada"));
+    }
+
+    @Test
+    void tamanhoDeclaradoMaiorQueOFluxoFalha() {
+        byte[] bruto = CodificacaoColunar.delta(new long[]{1, 2, 3}, 3);
+        byte[] comprimido = CodificacaoColunar.comprimir(bruto);
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () ->
+                assertThatThrownBy(() -> CodificacaoColunar.descomprimir(comprimido, bruto.length + 10))
+                        .isInstanceOf(IOException.class));
+    }
+
+    @Test
+    void colunaBrutaTruncadaFalhaNaLeitura() {
+        long[] produtos = {10, 20, 30, 40};
+        byte[] bruto = CodificacaoColunar.delta(produtos, produtos.length);
+
+        assertThatThrownBy(() -> CodificacaoColunar.lerDelta(ByteBuffer.wrap(bruto, 0, bruto.length - 1),
+                produtos.length))
+                .isInstanceOf(BufferUnderflowException.class);
+    }
+
+    private static ByteBuffer idaEVolta(byte[] bruto) throws IOException {
+        return CodificacaoColunar.descomprimir(CodificacaoColunar.comprimir(bruto), bruto.length);
+    }
+}